@@ -0,0 +1,93 @@
+package com.dam.accesodatos.benchmark;
+
+import com.dam.accesodatos.model.User;
+import com.dam.accesodatos.model.UserQueryDto;
+import com.dam.accesodatos.model.UserSuggestionDto;
+import com.dam.accesodatos.mongodb.autocomplete.UserAutocomplete;
+import com.dam.accesodatos.mongodb.nativeapi.NativeMongoUserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BENCHMARK: AUTOCOMPLETADO EN MEMORIA vs REGEX EN MONGODB
+ * ========================================================
+ * Simula una tecla del cuadro de autocompletado buscando el número de un usuario
+ * sembrado ("Bench User 123456"):
+ *
+ * - regex:    POST /users/search con name → { name: /123456/i } en MongoDB (O(n))
+ * - trigrams: UserAutocomplete.suggest("123456"), listas de trigramas en el heap
+ *
+ * minSimilarity decide cuántas listas generan candidatos (ver TrigramIndex): con 0.8
+ * solo se recorren las 2 más cortas de los 6 trigramas de un número de 6 cifras.
+ *
+ * Los datos se siembran después de arrancar, así que el índice se reconstruye en el
+ * setup. Al terminar se imprime la memoria estimada del índice (/api/autocomplete/stats).
+ *
+ * Ejecutar: ./gradlew jmh -PjmhIncludes='AutocompleteBenchmark'
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class AutocompleteBenchmark {
+
+    private static final int LIMIT = 10;
+
+    @Param({"1000000"})
+    int datasetSize;
+
+    @Param({"0.5", "0.8"})
+    double minSimilarity;
+
+    BenchmarkDataset dataset;
+    NativeMongoUserService nativeService;
+    UserAutocomplete autocomplete;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataset = BenchmarkDataset.start(datasetSize, "app.autocomplete.min-similarity=" + minSimilarity);
+        nativeService = dataset.bean(NativeMongoUserService.class);
+        autocomplete = dataset.bean(UserAutocomplete.class);
+        autocomplete.rebuild();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.println("\nAutocompletado: " + autocomplete.stats());
+        dataset.close();
+    }
+
+    private String randomUserNumber() {
+        return String.valueOf(ThreadLocalRandom.current().nextInt(datasetSize));
+    }
+
+    @Benchmark
+    public List<User> nativeRegexSearch() {
+        UserQueryDto query = new UserQueryDto();
+        query.setName(randomUserNumber());
+        query.setSize(LIMIT);
+        return nativeService.searchUsers(query);
+    }
+
+    @Benchmark
+    public List<UserSuggestionDto> trigramSuggest() {
+        return autocomplete.suggest(randomUserNumber(), LIMIT);
+    }
+}
@@ -0,0 +1,113 @@
+package com.dam.accesodatos.benchmark;
+
+import com.dam.accesodatos.MongoDbTeachingApplication;
+import com.dam.accesodatos.mongodb.stats.DepartmentStatsStore;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.InsertManyOptions;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Arranca la aplicación completa (con el MongoDB embebido de Flapdoodle) y siembra la
+ * colección "users" con un número fijo de usuarios para los benchmarks.
+ *
+ * La siembra usa insertMany desordenado en lotes para que 1M de usuarios tarde segundos.
+ * Los ObjectId se generan en cliente y se guardan para elegir IDs aleatorios existentes.
+ */
+final class BenchmarkDataset {
+
+    static final String[] DEPARTMENTS = {"IT", "HR", "Finance", "Marketing", "Sales", "Legal", "Ops", "Support"};
+    private static final String[] ROLES = {"Developer", "Manager", "Analyst", "Specialist", "Recruiter"};
+    private static final int SEED_BATCH_SIZE = 10_000;
+
+    private final ConfigurableApplicationContext context;
+    private final List<String> ids;
+
+    private BenchmarkDataset(ConfigurableApplicationContext context, List<String> ids) {
+        this.context = context;
+        this.ids = ids;
+    }
+
+    /**
+     * @param size            usuarios a sembrar
+     * @param extraProperties propiedades adicionales "clave=valor" (p.ej. "app.cache.user.enabled=true")
+     */
+    static BenchmarkDataset start(int size, String... extraProperties) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(MongoDbTeachingApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.main.banner-mode=off",
+                        "logging.level.com.dam.accesodatos=WARN",
+                        "logging.level.org.springframework.data.mongodb=WARN")
+                .properties(extraProperties)
+                .run();
+
+        MongoClient client = context.getBean(MongoClient.class);
+        String databaseName = context.getBean("mongoDatabaseName", String.class);
+        MongoCollection<Document> users = client.getDatabase(databaseName).getCollection("users");
+
+        // deleteMany en vez de drop() para conservar los índices creados al arrancar
+        users.deleteMany(new Document());
+
+        List<String> ids = new ArrayList<>(size);
+        List<Document> batch = new ArrayList<>(SEED_BATCH_SIZE);
+        Date now = new Date();
+        for (int i = 0; i < size; i++) {
+            ObjectId id = new ObjectId();
+            ids.add(id.toHexString());
+            batch.add(new Document("_id", id)
+                    .append("name", "Bench User " + i)
+                    .append("email", "bench-" + i + "@bench.test")
+                    .append("department", DEPARTMENTS[i % DEPARTMENTS.length])
+                    .append("role", ROLES[i % ROLES.length])
+                    .append("active", i % 10 != 0)
+                    .append("createdAt", now)
+                    .append("updatedAt", now));
+            if (batch.size() == SEED_BATCH_SIZE) {
+                users.insertMany(batch, new InsertManyOptions().ordered(false));
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            users.insertMany(batch, new InsertManyOptions().ordered(false));
+        }
+        // La siembra no pasa por los servicios: reconstruir las estadísticas materializadas
+        context.getBean(DepartmentStatsStore.class).reconcile();
+
+        return new BenchmarkDataset(context, ids);
+    }
+
+    /**
+     * Puerto HTTP real (server.port=0 elige uno libre) para benchmarks contra los endpoints.
+     */
+    int port() {
+        return context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+    }
+
+    <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    String randomId() {
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+
+    /**
+     * ID aleatorio entre los primeros hotSetSize usuarios (simula un conjunto "caliente").
+     */
+    String randomId(int hotSetSize) {
+        return ids.get(ThreadLocalRandom.current().nextInt(Math.min(hotSetSize, ids.size())));
+    }
+
+    void close() {
+        context.close();
+    }
+}
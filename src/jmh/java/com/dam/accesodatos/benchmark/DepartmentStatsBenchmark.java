@@ -0,0 +1,62 @@
+package com.dam.accesodatos.benchmark;
+
+import com.dam.accesodatos.model.DepartmentStatsDto;
+import com.dam.accesodatos.mongodb.nativeapi.NativeMongoUserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BENCHMARK: ESTADÍSTICAS MATERIALIZADAS vs AGGREGATION PIPELINE
+ * ==============================================================
+ * getStatsByDepartment() con app.stats.materialized=false ($group sobre toda la
+ * colección) y true (lectura de department_stats, un documento por departamento).
+ *
+ * Ejecutar: ./gradlew jmh -PjmhIncludes='DepartmentStatsBenchmark'
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class DepartmentStatsBenchmark {
+
+    @Param({"100000", "1000000"})
+    int datasetSize;
+
+    @Param({"false", "true"})
+    boolean materialized;
+
+    BenchmarkDataset dataset;
+    NativeMongoUserService nativeService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataset = BenchmarkDataset.start(datasetSize, "app.stats.materialized=" + materialized);
+        nativeService = dataset.bean(NativeMongoUserService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataset.close();
+    }
+
+    @Benchmark
+    public List<DepartmentStatsDto> nativeStatsByDepartment() {
+        return nativeService.getStatsByDepartment();
+    }
+}
@@ -0,0 +1,74 @@
+package com.dam.accesodatos.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Cliente HTTP de carga para los benchmarks de concurrencia: lanza N peticiones a la vez
+ * (HTTP/1.1, una conexión abierta por petición en curso) y espera a que terminen todas.
+ */
+final class HttpBurst implements AutoCloseable {
+
+    private final String baseUrl;
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+    private final HttpClient client;
+
+    HttpBurst(int port) {
+        this.baseUrl = "http://localhost:" + port;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .executor(executor)
+                .build();
+    }
+
+    HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+    }
+
+    /**
+     * Búsqueda de 20 usuarios activos de un departamento aleatorio.
+     */
+    HttpRequest search(String api) {
+        String department = BenchmarkDataset.DEPARTMENTS[
+                ThreadLocalRandom.current().nextInt(BenchmarkDataset.DEPARTMENTS.length)];
+        String body = "{\"department\":\"" + department + "\",\"active\":true,\"page\":0,\"size\":20,\"sortBy\":\"name\"}";
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/api/" + api + "/users/search"))
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    /**
+     * Lanza la ráfaga y espera todas las respuestas; falla si alguna no es 200.
+     *
+     * @return número de peticiones completadas
+     */
+    int fire(int concurrency, Supplier<HttpRequest> request) {
+        CompletableFuture<?>[] responses = new CompletableFuture<?>[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            responses[i] = client.sendAsync(request.get(), HttpResponse.BodyHandlers.discarding())
+                    .thenAccept(response -> {
+                        if (response.statusCode() != 200) {
+                            throw new IllegalStateException("HTTP " + response.statusCode());
+                        }
+                    });
+        }
+        CompletableFuture.allOf(responses).join();
+        return concurrency;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
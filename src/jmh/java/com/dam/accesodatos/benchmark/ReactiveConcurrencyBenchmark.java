@@ -0,0 +1,89 @@
+package com.dam.accesodatos.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BENCHMARK: /api/native (BLOQUEANTE) vs /api/reactive A ALTA CONCURRENCIA
+ * =======================================================================
+ * Cada invocación lanza "concurrency" peticiones HTTP a la vez (cada una con su propia
+ * conexión abierta) y espera a que terminen todas. Se mide el tiempo de la ráfaga.
+ *
+ * Con el camino bloqueante cada petición ocupa uno de los 200 hilos de Tomcat mientras
+ * espera a MongoDB: a partir de 200 peticiones simultáneas el resto hace cola. El camino
+ * reactivo libera el hilo y deja la espera en el driver, así que la cola la marcan el pool
+ * de conexiones de MongoDB y la CPU, no el número de hilos.
+ *
+ * - findById: lectura puntual (Mono<User>)
+ * - search:   búsqueda con filtros de 20 resultados (Flux<User> como array JSON)
+ *
+ * Tomcat se arranca con max-connections=10000 y accept-count=2000 para que las miles
+ * de conexiones lleguen a la aplicación en lugar de rechazarse en el socket.
+ *
+ * Ejecutar: ./gradlew jmh -PjmhIncludes='ReactiveConcurrencyBenchmark'
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 20)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class ReactiveConcurrencyBenchmark {
+
+    @Param({"200", "1000", "5000"})
+    int concurrency;
+
+    BenchmarkDataset dataset;
+    HttpBurst http;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataset = BenchmarkDataset.start(100_000,
+                "server.tomcat.max-connections=10000",
+                "server.tomcat.accept-count=2000");
+        http = new HttpBurst(dataset.port());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        http.close();
+        dataset.close();
+    }
+
+    // ---------------------------------------------------------------- findById
+
+    @Benchmark
+    public int blockingFindById() {
+        return http.fire(concurrency, () -> http.get("/api/native/users/" + dataset.randomId()));
+    }
+
+    @Benchmark
+    public int reactiveFindById() {
+        return http.fire(concurrency, () -> http.get("/api/reactive/users/" + dataset.randomId()));
+    }
+
+    // ---------------------------------------------------------------- search
+
+    @Benchmark
+    public int blockingSearch() {
+        return http.fire(concurrency, () -> http.search("native"));
+    }
+
+    @Benchmark
+    public int reactiveSearch() {
+        return http.fire(concurrency, () -> http.search("reactive"));
+    }
+}
@@ -0,0 +1,81 @@
+package com.dam.accesodatos.benchmark;
+
+import com.dam.accesodatos.model.User;
+import com.dam.accesodatos.mongodb.nativeapi.NativeMongoUserService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BENCHMARK: SERIALIZAR 10k USUARIOS EN JSON, CBOR Y SMILE
+ * ========================================================
+ * Mide solo la CPU de serializar la respuesta de un listado de 10.000 usuarios (ya leídos
+ * de MongoDB) con los mismos ObjectMapper que usa la aplicación: el de Spring Boot para
+ * JSON y los de BinaryFormatsConfig para CBOR y Smile. El perfilador gc añade los bytes
+ * asignados por operación.
+ *
+ * Al empezar cada trial se imprime el tamaño del cuerpo de cada formato.
+ *
+ * Ejecutar: ./gradlew jmh -PjmhIncludes='SerializationBenchmark'
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    String format;
+
+    BenchmarkDataset dataset;
+    List<User> users;
+    ObjectWriter writer;
+
+    @Setup(Level.Trial)
+    public void setUp() throws JsonProcessingException {
+        dataset = BenchmarkDataset.start(10_000);
+        users = dataset.bean(NativeMongoUserService.class).findAll();
+
+        ObjectMapper mapper = switch (format) {
+            case "cbor" -> dataset.bean(MappingJackson2CborHttpMessageConverter.class).getObjectMapper();
+            case "smile" -> dataset.bean(MappingJackson2SmileHttpMessageConverter.class).getObjectMapper();
+            default -> dataset.bean(ObjectMapper.class);
+        };
+        writer = mapper.writerFor(new TypeReference<List<User>>() { });
+
+        int bytes = writer.writeValueAsBytes(users).length;
+        System.out.printf("%n%s: %d usuarios = %,d bytes (%.1f bytes/usuario)%n",
+                format, users.size(), bytes, (double) bytes / users.size());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataset.close();
+    }
+
+    @Benchmark
+    public byte[] serializeUsers() throws JsonProcessingException {
+        return writer.writeValueAsBytes(users);
+    }
+}
@@ -0,0 +1,101 @@
+package com.dam.accesodatos.benchmark;
+
+import com.dam.accesodatos.model.User;
+import com.dam.accesodatos.model.UserQueryDto;
+import com.dam.accesodatos.mongodb.nativeapi.NativeMongoUserService;
+import com.dam.accesodatos.mongodb.springdata.SpringDataUserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BENCHMARK: $text vs REGEX EN searchUsers
+ * ========================================
+ * Busca el número de un usuario sembrado ("Bench User 123456" / bench-123456@bench.test)
+ * con las dos estrategias:
+ *
+ * - regex:  searchUsers con name → { name: /123456/i }, recorre todo el índice name_1
+ *           o la colección (O(n) por búsqueda)
+ * - text:   textSearch("123456") → { $text: { $search: "123456" } } sobre users_text,
+ *           que resuelve la palabra en el índice y solo lee los documentos que la tienen
+ *
+ * Ejecutar: ./gradlew jmh -PjmhIncludes='TextSearchBenchmark'
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class TextSearchBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"1000000"})
+    int datasetSize;
+
+    BenchmarkDataset dataset;
+    NativeMongoUserService nativeService;
+    SpringDataUserService springDataService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataset = BenchmarkDataset.start(datasetSize);
+        nativeService = dataset.bean(NativeMongoUserService.class);
+        springDataService = dataset.bean(SpringDataUserService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataset.close();
+    }
+
+    private String randomUserNumber() {
+        return String.valueOf(ThreadLocalRandom.current().nextInt(datasetSize));
+    }
+
+    private UserQueryDto regexQuery() {
+        UserQueryDto query = new UserQueryDto();
+        query.setName(randomUserNumber());
+        query.setSize(PAGE_SIZE);
+        return query;
+    }
+
+    // ---------------------------------------------------------------- regex (actual)
+
+    @Benchmark
+    public List<User> nativeRegexSearch() {
+        return nativeService.searchUsers(regexQuery());
+    }
+
+    @Benchmark
+    public List<User> springDataRegexSearch() {
+        return springDataService.searchUsers(regexQuery());
+    }
+
+    // ---------------------------------------------------------------- $text
+
+    @Benchmark
+    public List<User> nativeTextSearch() {
+        return nativeService.textSearch(randomUserNumber(), 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<User> springDataTextSearch() {
+        return springDataService.textSearch(randomUserNumber(), 0, PAGE_SIZE);
+    }
+}
@@ -0,0 +1,74 @@
+package com.dam.accesodatos.benchmark;
+
+import com.dam.accesodatos.model.User;
+import com.dam.accesodatos.mongodb.cache.UserCache;
+import com.dam.accesodatos.mongodb.nativeapi.NativeMongoUserService;
+import com.dam.accesodatos.mongodb.springdata.SpringDataUserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BENCHMARK: findUserById CON Y SIN CACHÉ
+ * =======================================
+ * Misma lectura por ID con app.cache.user.enabled=false/true sobre 100k usuarios.
+ * Las lecturas se reparten entre los primeros hotSetSize usuarios, que caben en la
+ * caché (max-size por defecto 10000): tras el warmup casi todo son aciertos.
+ *
+ * Al terminar cada trial se imprime la tasa de aciertos de UserCache.
+ *
+ * Ejecutar: ./gradlew jmh -PjmhIncludes='UserCacheBenchmark'
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class UserCacheBenchmark {
+
+    @Param({"false", "true"})
+    boolean cacheEnabled;
+
+    @Param({"1000"})
+    int hotSetSize;
+
+    BenchmarkDataset dataset;
+    NativeMongoUserService nativeService;
+    SpringDataUserService springDataService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataset = BenchmarkDataset.start(100_000, "app.cache.user.enabled=" + cacheEnabled);
+        nativeService = dataset.bean(NativeMongoUserService.class);
+        springDataService = dataset.bean(SpringDataUserService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.println("\nUserCache: " + dataset.bean(UserCache.class).stats());
+        dataset.close();
+    }
+
+    @Benchmark
+    public User nativeFindById() {
+        return nativeService.findUserById(dataset.randomId(hotSetSize));
+    }
+
+    @Benchmark
+    public User springDataFindById() {
+        return springDataService.findUserById(dataset.randomId(hotSetSize));
+    }
+}
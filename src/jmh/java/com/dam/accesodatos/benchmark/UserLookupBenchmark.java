@@ -0,0 +1,80 @@
+package com.dam.accesodatos.benchmark;
+
+import com.dam.accesodatos.model.User;
+import com.dam.accesodatos.mongodb.batch.UserLookupCoalescer;
+import com.dam.accesodatos.mongodb.nativeapi.NativeMongoUserService;
+import com.dam.accesodatos.mongodb.springdata.SpringDataUserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BENCHMARK: findUserById CONCURRENTE CON Y SIN AGRUPACIÓN
+ * ========================================================
+ * 64 hilos leen usuarios aleatorios (sin caché) sobre 100k usuarios, con
+ * app.lookup.coalesce.enabled=false/true. Sin agrupar cada lectura es un find() con
+ * su propia conexión del pool; agrupando, las lecturas de la misma ventana comparten
+ * un $in. Comparar el throughput y los percentiles de SampleTime (p99).
+ *
+ * Al terminar cada trial se imprimen las lecturas y consultas $in del coalescer.
+ *
+ * Ejecutar: ./gradlew jmh -PjmhIncludes='UserLookupBenchmark'
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@Threads(64)
+@State(Scope.Benchmark)
+public class UserLookupBenchmark {
+
+    @Param({"false", "true"})
+    boolean coalesce;
+
+    @Param({"2ms"})
+    String window;
+
+    BenchmarkDataset dataset;
+    NativeMongoUserService nativeService;
+    SpringDataUserService springDataService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataset = BenchmarkDataset.start(100_000,
+                "app.lookup.coalesce.enabled=" + coalesce,
+                "app.lookup.coalesce.window=" + window);
+        nativeService = dataset.bean(NativeMongoUserService.class);
+        springDataService = dataset.bean(SpringDataUserService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        UserLookupCoalescer coalescer = dataset.bean(UserLookupCoalescer.class);
+        System.out.println("\nUserLookupCoalescer: lookups=" + coalescer.lookups() + ", batches=" + coalescer.batches());
+        dataset.close();
+    }
+
+    @Benchmark
+    public User nativeFindById() {
+        return nativeService.findUserById(dataset.randomId());
+    }
+
+    @Benchmark
+    public User springDataFindById() {
+        return springDataService.findUserById(dataset.randomId());
+    }
+}
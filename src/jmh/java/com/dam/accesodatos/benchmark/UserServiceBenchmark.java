@@ -0,0 +1,172 @@
+package com.dam.accesodatos.benchmark;
+
+import com.dam.accesodatos.model.DepartmentStatsDto;
+import com.dam.accesodatos.model.User;
+import com.dam.accesodatos.model.UserCreateDto;
+import com.dam.accesodatos.model.UserQueryDto;
+import com.dam.accesodatos.model.UserUpdateDto;
+import com.dam.accesodatos.mongodb.nativeapi.NativeMongoUserService;
+import com.dam.accesodatos.mongodb.springdata.SpringDataUserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * BENCHMARK: API NATIVA vs SPRING DATA
+ * ====================================
+ * Mide las mismas operaciones por los dos caminos sobre el MongoDB embebido,
+ * con 10k, 100k y 1M usuarios sembrados.
+ *
+ * - Mode.Throughput: operaciones por milisegundo
+ * - Mode.SampleTime: distribución de latencias (p50, p90, p99, p99.9...)
+ * - -prof gc (configurado en build.gradle): bytes asignados por operación
+ *
+ * Ejecutar: ./gradlew jmh -PjmhIncludes='UserServiceBenchmark'
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class UserServiceBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    int datasetSize;
+
+    BenchmarkDataset dataset;
+    NativeMongoUserService nativeService;
+    SpringDataUserService springDataService;
+
+    private final AtomicLong emailSequence = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataset = BenchmarkDataset.start(datasetSize);
+        nativeService = dataset.bean(NativeMongoUserService.class);
+        springDataService = dataset.bean(SpringDataUserService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataset.close();
+    }
+
+    UserCreateDto newUser() {
+        long n = emailSequence.incrementAndGet();
+        return new UserCreateDto("Bench New " + n, "bench-new-" + n + "@bench.test", "IT", "Developer");
+    }
+
+    private UserUpdateDto randomRoleUpdate() {
+        UserUpdateDto dto = new UserUpdateDto();
+        dto.setRole(ThreadLocalRandom.current().nextBoolean() ? "Developer" : "Analyst");
+        return dto;
+    }
+
+    private UserQueryDto searchQuery() {
+        UserQueryDto query = new UserQueryDto();
+        query.setDepartment(BenchmarkDataset.DEPARTMENTS[ThreadLocalRandom.current().nextInt(BenchmarkDataset.DEPARTMENTS.length)]);
+        query.setActive(true);
+        query.setSize(20);
+        query.setSortBy("name");
+        return query;
+    }
+
+    /**
+     * Usuario recién creado (fuera de la medición) para los benchmarks de borrado.
+     */
+    @State(Scope.Thread)
+    public static class PendingDelete {
+        String id;
+
+        @Setup(Level.Invocation)
+        public void create(UserServiceBenchmark benchmark) {
+            id = benchmark.nativeService.createUser(benchmark.newUser()).getId();
+        }
+    }
+
+    // ---------------------------------------------------------------- create
+
+    @Benchmark
+    public User nativeCreate() {
+        return nativeService.createUser(newUser());
+    }
+
+    @Benchmark
+    public User springDataCreate() {
+        return springDataService.createUser(newUser());
+    }
+
+    // ---------------------------------------------------------------- findById
+
+    @Benchmark
+    public User nativeFindById() {
+        return nativeService.findUserById(dataset.randomId());
+    }
+
+    @Benchmark
+    public User springDataFindById() {
+        return springDataService.findUserById(dataset.randomId());
+    }
+
+    // ---------------------------------------------------------------- update
+
+    @Benchmark
+    public User nativeUpdate() {
+        return nativeService.updateUser(dataset.randomId(), randomRoleUpdate());
+    }
+
+    @Benchmark
+    public User springDataUpdate() {
+        return springDataService.updateUser(dataset.randomId(), randomRoleUpdate());
+    }
+
+    // ---------------------------------------------------------------- delete
+
+    @Benchmark
+    public boolean nativeDelete(PendingDelete pending) {
+        return nativeService.deleteUser(pending.id);
+    }
+
+    @Benchmark
+    public boolean springDataDelete(PendingDelete pending) {
+        return springDataService.deleteUser(pending.id);
+    }
+
+    // ---------------------------------------------------------------- search
+
+    @Benchmark
+    public List<User> nativeSearch() {
+        return nativeService.searchUsers(searchQuery());
+    }
+
+    @Benchmark
+    public List<User> springDataSearch() {
+        return springDataService.searchUsers(searchQuery());
+    }
+
+    // ---------------------------------------------------------------- aggregation
+
+    /**
+     * Solo existe en la API nativa: SpringDataUserService no expone estadísticas.
+     */
+    @Benchmark
+    public List<DepartmentStatsDto> nativeStatsByDepartment() {
+        return nativeService.getStatsByDepartment();
+    }
+}
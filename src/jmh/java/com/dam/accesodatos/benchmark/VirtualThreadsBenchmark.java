@@ -0,0 +1,84 @@
+package com.dam.accesodatos.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BENCHMARK: HILOS DE PLATAFORMA vs HILOS VIRTUALES
+ * =================================================
+ * Las mismas ráfagas de peticiones HTTP concurrentes contra los endpoints bloqueantes
+ * con spring.threads.virtual.enabled=false/true sobre 100k usuarios.
+ *
+ * - Throughput: ráfagas por ms (× concurrency = peticiones por ms)
+ * - SampleTime: distribución del tiempo de ráfaga, que marca la petición más lenta
+ *   (la latencia de cola con N peticiones simultáneas)
+ *
+ * Con hilos de plataforma Tomcat atiende 200 peticiones a la vez y el resto espera en la
+ * cola del conector. Con hilos virtuales todas entran y esperan en el pool de MongoDB
+ * (app.mongo.pool.virtual-threads.*), que pasa a ser el límite.
+ *
+ * El fork arranca con -Djdk.tracePinnedThreads=short: cualquier pinning durante la
+ * medición aparece en la salida con la pila que lo provoca.
+ *
+ * Ejecutar: ./gradlew jmh -PjmhIncludes='VirtualThreadsBenchmark'
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 20)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g", "-Djdk.tracePinnedThreads=short"})
+@State(Scope.Benchmark)
+public class VirtualThreadsBenchmark {
+
+    @Param({"false", "true"})
+    boolean virtualThreads;
+
+    @Param({"200", "1000", "5000"})
+    int concurrency;
+
+    BenchmarkDataset dataset;
+    HttpBurst http;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataset = BenchmarkDataset.start(100_000,
+                "spring.threads.virtual.enabled=" + virtualThreads,
+                "server.tomcat.max-connections=10000",
+                "server.tomcat.accept-count=2000");
+        http = new HttpBurst(dataset.port());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        http.close();
+        dataset.close();
+    }
+
+    @Benchmark
+    public int nativeFindById() {
+        return http.fire(concurrency, () -> http.get("/api/native/users/" + dataset.randomId()));
+    }
+
+    @Benchmark
+    public int springDataFindById() {
+        return http.fire(concurrency, () -> http.get("/api/springdata/users/" + dataset.randomId()));
+    }
+
+    @Benchmark
+    public int nativeSearch() {
+        return http.fire(concurrency, () -> http.search("native"));
+    }
+}
@@ -0,0 +1,63 @@
+package com.dam.accesodatos.config;
+
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * FORMATOS BINARIOS (CBOR / SMILE) POR NEGOCIACIÓN DE CONTENIDO
+ * =============================================================
+ * Los clientes servicio a servicio pueden pedir con Accept un formato binario en lugar
+ * de JSON; el navegador y Swagger siguen recibiendo JSON.
+ *
+ * Accept                        | Formato | Qué ahorra frente a JSON
+ * ----------------------------- | ------- | --------------------------------------------
+ * application/json (por defecto)| JSON    | -
+ * application/cbor              | CBOR    | números y longitudes en binario, sin escapar
+ * application/x-jackson-smile   | Smile   | lo mismo + nombres de campo repetidos como
+ *                               |         | referencias (ideal para listas de User)
+ *
+ * Es el mismo modelo de Jackson: los DTO no cambian, solo la JsonFactory. Los
+ * convertidores se declaran como beans para que Spring Boot los use (HttpMessageConverters
+ * sustituye los suyos por defecto, que ignoran la configuración spring.jackson.*) y para
+ * que UserStreamWriter escriba los endpoints de streaming con el mismo ObjectMapper.
+ *
+ * FECHAS:
+ * En JSON LocalDateTime se escribe como texto ISO ("2024-05-01T10:15:30"); formatearlo es
+ * de lo más caro de serializar un User. En los formatos binarios se escribe como array de
+ * enteros ([2024, 5, 1, 10, 15, 30]): cada número ocupa 1-3 bytes y no hay que formatear.
+ * Jackson (JavaTimeModule) lee las dos formas.
+ *
+ * Benchmark de CPU y tamaño: ./gradlew jmh -PjmhIncludes='SerializationBenchmark'
+ */
+@Configuration
+public class BinaryFormatsConfig {
+
+    public static final String SMILE_VALUE = "application/x-jackson-smile";
+    public static final MediaType SMILE = MediaType.parseMediaType(SMILE_VALUE);
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(binary(builder.factory(new CBORFactory())).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(binary(builder.factory(new SmileFactory())).build());
+    }
+
+    /**
+     * Ajustes comunes de los formatos binarios sobre el builder de Spring Boot (que ya trae
+     * spring.jackson.* y los módulos registrados). El builder es prototype: cada bean
+     * recibe el suyo.
+     */
+    private static Jackson2ObjectMapperBuilder binary(Jackson2ObjectMapperBuilder builder) {
+        return builder.featuresToEnable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+}
@@ -0,0 +1,278 @@
+package com.dam.accesodatos.config;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.MongoCompressor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AJUSTES DEL CLIENTE MONGODB (app.mongo.*)
+ * =========================================
+ * Bloque tipado que se traduce a MongoClientSettings en MongoConfig y ReactiveMongoConfig.
+ *
+ * COMPARACIÓN CON HikariCP / JDBC:
+ * app.mongo                                  | HikariCP / JDBC
+ * ------------------------------------------ | ------------------------------------------
+ * pool.max-size                              | maximumPoolSize
+ * pool.min-size (+ warm-up)                  | minimumIdle
+ * pool.max-wait                              | connectionTimeout
+ * pool.max-idle-time                         | idleTimeout
+ * pool.max-connecting                        | (sin equivalente: aperturas simultáneas)
+ * socket.connect-timeout / read-timeout      | connectTimeout / socketTimeout (driver JDBC)
+ * compressors: [zstd, snappy, zlib]          | useCompression=true (MySQL)
+ * monitoring.slow-command-threshold          | slow_query_log + long_query_time (MySQL)
+ *
+ * Las duraciones aceptan el formato de Spring Boot (500ms, 2s, 10m). Una duración 0
+ * significa "sin límite" en max-idle-time y read-timeout, como en el driver.
+ */
+@ConfigurationProperties(prefix = "app.mongo")
+public class MongoClientProperties {
+
+    private final Pool pool = new Pool();
+    private final Socket socket = new Socket();
+    private final Monitoring monitoring = new Monitoring();
+
+    /** Tiempo máximo para encontrar un servidor disponible antes de fallar. */
+    private Duration serverSelectionTimeout = Duration.ofSeconds(30);
+
+    /**
+     * Compresión del protocolo, en orden de preferencia: zstd, snappy, zlib.
+     * El servidor elige el primero que también soporte. zstd y snappy necesitan
+     * zstd-jni y snappy-java en el classpath (incluidas en build.gradle).
+     */
+    private List<String> compressors = new ArrayList<>();
+
+    /** Abrir min-size conexiones al arrancar, antes de aceptar tráfico. */
+    private boolean warmUp = true;
+
+    public Pool getPool() {
+        return pool;
+    }
+
+    public Socket getSocket() {
+        return socket;
+    }
+
+    public Monitoring getMonitoring() {
+        return monitoring;
+    }
+
+    public Duration getServerSelectionTimeout() {
+        return serverSelectionTimeout;
+    }
+
+    public void setServerSelectionTimeout(Duration serverSelectionTimeout) {
+        this.serverSelectionTimeout = serverSelectionTimeout;
+    }
+
+    public List<String> getCompressors() {
+        return compressors;
+    }
+
+    public void setCompressors(List<String> compressors) {
+        this.compressors = compressors;
+    }
+
+    public boolean isWarmUp() {
+        return warmUp;
+    }
+
+    public void setWarmUp(boolean warmUp) {
+        this.warmUp = warmUp;
+    }
+
+    /**
+     * Aplica estos ajustes al builder del driver.
+     *
+     * @param virtualThreads con hilos virtuales el pool usa pool.virtual-threads.* (ver MongoConfig)
+     */
+    public MongoClientSettings.Builder applyTo(MongoClientSettings.Builder builder, boolean virtualThreads) {
+        Pool.VirtualThreads virtual = pool.getVirtualThreads();
+        builder.applyToConnectionPoolSettings(settings -> settings
+                        .maxSize(virtualThreads ? virtual.getMaxSize() : pool.getMaxSize())
+                        .minSize(pool.getMinSize())
+                        .maxConnecting(virtualThreads ? virtual.getMaxConnecting() : pool.getMaxConnecting())
+                        .maxWaitTime(millis(virtualThreads ? virtual.getMaxWait() : pool.getMaxWait()),
+                                TimeUnit.MILLISECONDS)
+                        .maxConnectionIdleTime(millis(pool.getMaxIdleTime()), TimeUnit.MILLISECONDS))
+                .applyToSocketSettings(settings -> settings
+                        .connectTimeout((int) millis(socket.getConnectTimeout()), TimeUnit.MILLISECONDS)
+                        .readTimeout((int) millis(socket.getReadTimeout()), TimeUnit.MILLISECONDS))
+                .applyToClusterSettings(settings -> settings
+                        .serverSelectionTimeout(millis(serverSelectionTimeout), TimeUnit.MILLISECONDS));
+        if (!compressors.isEmpty()) {
+            builder.compressorList(compressors.stream().map(MongoClientProperties::compressor).toList());
+        }
+        return builder;
+    }
+
+    private static long millis(Duration duration) {
+        return duration != null ? duration.toMillis() : 0;
+    }
+
+    private static MongoCompressor compressor(String name) {
+        return switch (name.trim().toLowerCase(Locale.ROOT)) {
+            case "zstd" -> MongoCompressor.createZstdCompressor();
+            case "snappy" -> MongoCompressor.createSnappyCompressor();
+            case "zlib" -> MongoCompressor.createZlibCompressor();
+            default -> throw new IllegalArgumentException(
+                    "Compresor desconocido en app.mongo.compressors: " + name + " (zstd, snappy o zlib)");
+        };
+    }
+
+    public static class Pool {
+
+        /** Conexiones máximas por servidor con hilos de plataforma. */
+        private int maxSize = 100;
+
+        /** Conexiones que el driver mantiene abiertas aunque no se usen. */
+        private int minSize = 10;
+
+        /** Espera máxima por una conexión libre antes de lanzar MongoTimeoutException. */
+        private Duration maxWait = Duration.ofMinutes(2);
+
+        /** Las conexiones ociosas más tiempo se cierran (0 = nunca). */
+        private Duration maxIdleTime = Duration.ofMinutes(10);
+
+        /** Conexiones que se pueden estar abriendo a la vez. */
+        private int maxConnecting = 2;
+
+        private final VirtualThreads virtualThreads = new VirtualThreads();
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public int getMinSize() {
+            return minSize;
+        }
+
+        public void setMinSize(int minSize) {
+            this.minSize = minSize;
+        }
+
+        public Duration getMaxWait() {
+            return maxWait;
+        }
+
+        public void setMaxWait(Duration maxWait) {
+            this.maxWait = maxWait;
+        }
+
+        public Duration getMaxIdleTime() {
+            return maxIdleTime;
+        }
+
+        public void setMaxIdleTime(Duration maxIdleTime) {
+            this.maxIdleTime = maxIdleTime;
+        }
+
+        public int getMaxConnecting() {
+            return maxConnecting;
+        }
+
+        public void setMaxConnecting(int maxConnecting) {
+            this.maxConnecting = maxConnecting;
+        }
+
+        public VirtualThreads getVirtualThreads() {
+            return virtualThreads;
+        }
+
+        /**
+         * Sustituyen a max-size, max-wait y max-connecting con spring.threads.virtual.enabled=true.
+         */
+        public static class VirtualThreads {
+
+            private int maxSize = 200;
+            private Duration maxWait = Duration.ofSeconds(2);
+            private int maxConnecting = 8;
+
+            public int getMaxSize() {
+                return maxSize;
+            }
+
+            public void setMaxSize(int maxSize) {
+                this.maxSize = maxSize;
+            }
+
+            public Duration getMaxWait() {
+                return maxWait;
+            }
+
+            public void setMaxWait(Duration maxWait) {
+                this.maxWait = maxWait;
+            }
+
+            public int getMaxConnecting() {
+                return maxConnecting;
+            }
+
+            public void setMaxConnecting(int maxConnecting) {
+                this.maxConnecting = maxConnecting;
+            }
+        }
+    }
+
+    public static class Socket {
+
+        /** Tiempo máximo para abrir la conexión TCP. */
+        private Duration connectTimeout = Duration.ofSeconds(10);
+
+        /** Tiempo máximo esperando la respuesta de una operación (0 = sin límite). */
+        private Duration readTimeout = Duration.ZERO;
+
+        public Duration getConnectTimeout() {
+            return connectTimeout;
+        }
+
+        public void setConnectTimeout(Duration connectTimeout) {
+            this.connectTimeout = connectTimeout;
+        }
+
+        public Duration getReadTimeout() {
+            return readTimeout;
+        }
+
+        public void setReadTimeout(Duration readTimeout) {
+            this.readTimeout = readTimeout;
+        }
+    }
+
+    /**
+     * Latencia por comando y registro de comandos lentos (CommandLatencyListener).
+     */
+    public static class Monitoring {
+
+        /** Los comandos que tarden más se guardan en el registro de lentos con su filtro redactado. */
+        private Duration slowCommandThreshold = Duration.ofMillis(100);
+
+        /** Comandos lentos que se conservan (los más recientes). */
+        private int slowLogSize = 100;
+
+        public Duration getSlowCommandThreshold() {
+            return slowCommandThreshold;
+        }
+
+        public void setSlowCommandThreshold(Duration slowCommandThreshold) {
+            this.slowCommandThreshold = slowCommandThreshold;
+        }
+
+        public int getSlowLogSize() {
+            return slowLogSize;
+        }
+
+        public void setSlowLogSize(int slowLogSize) {
+            this.slowLogSize = slowLogSize;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.dam.accesodatos.config;
+
+import com.dam.accesodatos.mongodb.monitoring.CommandLatencyListener;
+import com.dam.accesodatos.mongodb.monitoring.CommandLatencyRecorder;
+import com.dam.accesodatos.mongodb.pool.ConnectionPoolMetrics;
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.ReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.SimpleReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+
+/**
+ * CONFIGURACIÓN DE MONGODB REACTIVO
+ * =================================
+ * Cliente del driver Reactive Streams y ReactiveMongoTemplate para /api/reactive.
+ * Conviven con el MongoClient síncrono de MongoConfig: cada uno mantiene su propio
+ * pool de conexiones contra el mismo servidor.
+ *
+ * COMPARACIÓN:
+ * Reactivo                                   | Bloqueante
+ * ------------------------------------------ | ------------------------------------------
+ * com.mongodb.reactivestreams.client         | com.mongodb.client.MongoClient
+ *   .MongoClient                             |
+ * ReactiveMongoTemplate (Mono / Flux)        | MongoTemplate (User / List<User>)
+ * Publisher: el hilo no espera la respuesta  | El hilo queda bloqueado hasta la respuesta
+ * Equivalente SQL: R2DBC (ConnectionFactory) | JDBC (DataSource)
+ *
+ * Se reutiliza el MappingMongoConverter de MongoConfig, así User se guarda y se lee
+ * igual (mismos nombres de campo y tipos) por los tres caminos, y los mismos ajustes
+ * app.mongo.* (MongoClientProperties) con sus métricas de pool (tag client=reactive).
+ * Los comandos se miden con el mismo CommandLatencyRecorder, con origen "reactive": los
+ * eventos del driver reactivo no llegan en el hilo que lanzó la operación.
+ */
+@Configuration
+public class ReactiveMongoConfig {
+
+    @Value("${spring.data.mongodb.database}")
+    private String databaseName;
+
+    @Value("${spring.data.mongodb.host}")
+    private String host;
+
+    @Value("${spring.data.mongodb.port}")
+    private int port;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    /**
+     * Mismo connection string que el cliente síncrono; las operaciones devuelven
+     * Publisher en lugar de resultados. Equivalente R2DBC:
+     * ConnectionFactories.get("r2dbc:mysql://localhost:3306/db")
+     */
+    @Bean
+    public MongoClient reactiveMongoClient(MongoClientProperties clientProperties,
+            @Qualifier("reactiveMongoPoolMetrics") ConnectionPoolMetrics reactiveMongoPoolMetrics,
+            CommandLatencyRecorder commandLatencyRecorder) {
+        String connectionString = String.format("mongodb://%s:%d", host, port);
+        MongoClientSettings settings = clientProperties
+                .applyTo(MongoClientSettings.builder().applyConnectionString(new ConnectionString(connectionString)),
+                        virtualThreads)
+                .applyToConnectionPoolSettings(pool -> pool.addConnectionPoolListener(reactiveMongoPoolMetrics))
+                .addCommandListener(new CommandLatencyListener(commandLatencyRecorder, "reactive"))
+                .build();
+        return MongoClients.create(settings);
+    }
+
+    @Bean
+    public ConnectionPoolMetrics reactiveMongoPoolMetrics(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new ConnectionPoolMetrics("reactive", meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+
+    @Bean
+    public ReactiveMongoDatabaseFactory reactiveMongoDatabaseFactory(MongoClient reactiveMongoClient) {
+        return new SimpleReactiveMongoDatabaseFactory(reactiveMongoClient, databaseName);
+    }
+
+    /**
+     * REACTIVEMONGOTEMPLATE
+     * =====================
+     * Misma API que MongoTemplate (Query, Criteria, Update) con resultados Mono / Flux.
+     * Equivalente R2DBC: R2dbcEntityTemplate
+     */
+    @Bean
+    public ReactiveMongoTemplate reactiveMongoTemplate(ReactiveMongoDatabaseFactory reactiveMongoDatabaseFactory,
+            MappingMongoConverter mappingMongoConverter) {
+        return new ReactiveMongoTemplate(reactiveMongoDatabaseFactory, mappingMongoConverter);
+    }
+}
@@ -0,0 +1,59 @@
+package com.dam.accesodatos.controller;
+
+import com.dam.accesodatos.model.AutocompleteStatsDto;
+import com.dam.accesodatos.model.UserSuggestionDto;
+import com.dam.accesodatos.mongodb.autocomplete.UserAutocomplete;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/autocomplete")
+@Tag(name = "Autocompletado", description = "Sugerencias de usuarios desde un índice de trigramas en memoria, sin consultar MongoDB")
+public class AutocompleteController {
+
+    private final UserAutocomplete autocomplete;
+
+    @Autowired
+    public AutocompleteController(UserAutocomplete autocomplete) {
+        this.autocomplete = autocomplete;
+    }
+
+    @GetMapping("/users")
+    @Operation(summary = "Autocompletar usuarios por nombre",
+            description = "Los usuarios cuyo nombre (y email con app.autocomplete.include-email) comparte más trigramas con q. "
+                    + "Tolera erratas y palabras a medio escribir")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Sugerencias de más a menos parecidas"),
+            @ApiResponse(responseCode = "400", description = "q vacío o limit fuera de rango")
+    })
+    public ResponseEntity<List<UserSuggestionDto>> suggestUsers(
+            @Parameter(description = "Texto tecleado") @RequestParam String q,
+            @Parameter(description = "Número máximo de sugerencias") @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(autocomplete.suggest(q, limit));
+    }
+
+    @GetMapping("/stats")
+    @Operation(summary = "Tamaño del índice de autocompletado",
+            description = "Usuarios, trigramas, entradas de las listas y memoria estimada por componente")
+    @ApiResponse(responseCode = "200", description = "Estadísticas obtenidas")
+    public ResponseEntity<AutocompleteStatsDto> getStats() {
+        return ResponseEntity.ok(autocomplete.stats());
+    }
+
+    @PostMapping("/rebuild")
+    @Operation(summary = "Reconstruir el índice de autocompletado",
+            description = "Vuelve a cargar el índice recorriendo la colección users")
+    @ApiResponse(responseCode = "200", description = "Índice reconstruido")
+    public ResponseEntity<Map<String, Object>> rebuild() {
+        return ResponseEntity.ok(Map.of("indexed", autocomplete.rebuild()));
+    }
+}
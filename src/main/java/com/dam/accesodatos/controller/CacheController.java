@@ -0,0 +1,39 @@
+package com.dam.accesodatos.controller;
+
+import com.dam.accesodatos.model.CacheStatsDto;
+import com.dam.accesodatos.mongodb.cache.UserCache;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/cache")
+@Tag(name = "Caché", description = "Caché en memoria de findUserById compartida por ambas APIs")
+public class CacheController {
+
+    private final UserCache userCache;
+
+    @Autowired
+    public CacheController(UserCache userCache) {
+        this.userCache = userCache;
+    }
+
+    @GetMapping("/users")
+    @Operation(summary = "Estadísticas de la caché de usuarios",
+            description = "Aciertos, fallos, expulsiones y tamaño actual. También en /actuator/metrics/cache.gets")
+    @ApiResponse(responseCode = "200", description = "Estadísticas obtenidas")
+    public ResponseEntity<CacheStatsDto> getUserCacheStats() {
+        return ResponseEntity.ok(userCache.stats());
+    }
+
+    @DeleteMapping("/users")
+    @Operation(summary = "Vaciar la caché de usuarios", description = "Elimina todas las entradas; los contadores se conservan")
+    @ApiResponse(responseCode = "204", description = "Caché vaciada")
+    public ResponseEntity<Void> clearUserCache() {
+        userCache.invalidateAll();
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,72 @@
+package com.dam.accesodatos.controller;
+
+import com.dam.accesodatos.mongodb.etag.ResourceVersion;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * GET condicionales (If-None-Match / If-Modified-Since) para los controladores.
+ *
+ * Flujo de GET /users/{id}:
+ * 1. Sin cabeceras condicionales: lectura normal, y la respuesta lleva ETag y
+ *    Last-Modified calculados del propio usuario (sin consulta extra).
+ * 2. Con cabeceras: se pide solo la versión (ResourceVersion) y
+ *    WebRequest.checkNotModified() decide. Si coincide, Spring ya ha puesto el 304 y las
+ *    cabeceras en la respuesta y el controlador devuelve null (sin cuerpo).
+ * 3. Si no coincide: lectura normal como en 1.
+ *
+ * Listados por departamento (solo ETag, sin Last-Modified):
+ * 1. Con If-None-Match se consulta la versión (count + último updatedAt) antes que la
+ *    lista; si coincide, 304.
+ * 2. En el 200 el ETag sale de la propia lista (número de usuarios y updatedAt más
+ *    reciente), sin consultas extra. Solo si la proyección quita updatedAt se usa la
+ *    versión consultada, leída antes que la lista: si alguien escribe entre medias, el
+ *    ETag queda más antiguo que el cuerpo y la siguiente petición simplemente no da 304.
+ */
+final class ConditionalGet {
+
+    private ConditionalGet() {
+    }
+
+    /** true si el cliente envía If-None-Match o If-Modified-Since. */
+    static boolean isConditional(WebRequest request) {
+        return request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                || request.getHeader(HttpHeaders.IF_MODIFIED_SINCE) != null;
+    }
+
+    /**
+     * true si el cliente envía If-None-Match. Los listados solo llevan ETag (ver
+     * ResourceVersion), así que If-Modified-Since no les sirve.
+     */
+    static boolean hasEtag(WebRequest request) {
+        return request.getHeader(HttpHeaders.IF_NONE_MATCH) != null;
+    }
+
+    /**
+     * true si la versión del cliente es la actual (la respuesta ya es un 304).
+     */
+    static boolean notModified(WebRequest request, String etag, long lastModified) {
+        return etag != null && request.checkNotModified(etag, lastModified);
+    }
+
+    /**
+     * 200 con ETag y, si se conoce, Last-Modified. El mismo ETag vale para JSON, CBOR y
+     * Smile (BinaryFormatsConfig), así que se añade Vary: Accept para que una caché
+     * intermedia no entregue un formato a quien pidió otro.
+     */
+    static <T> ResponseEntity<T> ok(T body, String etag, long lastModified) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT);
+        if (etag != null) {
+            builder.eTag(etag);
+        }
+        if (lastModified > 0) {
+            builder.lastModified(lastModified);
+        }
+        return builder.body(body);
+    }
+
+    static <T> ResponseEntity<T> ok(T body, ResourceVersion version) {
+        return ok(body, version.etag(), version.lastModified());
+    }
+}
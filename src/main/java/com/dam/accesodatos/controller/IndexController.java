@@ -0,0 +1,53 @@
+package com.dam.accesodatos.controller;
+
+import com.dam.accesodatos.model.IndexBuildStatusDto;
+import com.dam.accesodatos.model.IndexSuggestionDto;
+import com.dam.accesodatos.model.IndexUsageDto;
+import com.dam.accesodatos.mongodb.index.UserIndexManager;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/indexes")
+@Tag(name = "Índices", description = "Uso, construcción y sugerencias de índices de la colección users")
+public class IndexController {
+
+    private final UserIndexManager indexManager;
+
+    @Autowired
+    public IndexController(UserIndexManager indexManager) {
+        this.indexManager = indexManager;
+    }
+
+    @GetMapping("/usage")
+    @Operation(summary = "Uso de los índices",
+            description = "Accesos por índice desde el arranque de MongoDB ($indexStats), tamaño, filtro parcial y collation. "
+                    + "Un índice sin accesos es candidato a eliminarse")
+    @ApiResponse(responseCode = "200", description = "Uso obtenido")
+    public ResponseEntity<List<IndexUsageDto>> getUsage() {
+        return ResponseEntity.ok(indexManager.usage());
+    }
+
+    @GetMapping("/builds")
+    @Operation(summary = "Construcción de los índices de búsqueda",
+            description = "Estado (PENDING, BUILDING, READY, FAILED) y duración de los índices que se construyen en segundo plano")
+    @ApiResponse(responseCode = "200", description = "Estado obtenido")
+    public ResponseEntity<List<IndexBuildStatusDto>> getBuilds() {
+        return ResponseEntity.ok(indexManager.builds());
+    }
+
+    @GetMapping("/suggestions")
+    @Operation(summary = "Índices sugeridos",
+            description = "Índices que faltan para las búsquedas de searchUsers observadas desde el arranque, "
+                    + "con la clave en orden ESR (igualdad, ordenación, rango) y el createIndex equivalente")
+    @ApiResponse(responseCode = "200", description = "Sugerencias de la más a la menos usada")
+    public ResponseEntity<List<IndexSuggestionDto>> getSuggestions() {
+        return ResponseEntity.ok(indexManager.suggestions());
+    }
+}
@@ -0,0 +1,58 @@
+package com.dam.accesodatos.controller;
+
+import com.dam.accesodatos.model.CommandLatencyDto;
+import com.dam.accesodatos.model.SingleFlightStatsDto;
+import com.dam.accesodatos.model.SlowCommandDto;
+import com.dam.accesodatos.mongodb.monitoring.CommandLatencyRecorder;
+import com.dam.accesodatos.mongodb.singleflight.SingleFlight;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/monitoring")
+@Tag(name = "Monitorización", description = "Latencia de los comandos de MongoDB, registro de comandos lentos y lecturas compartidas")
+public class MonitoringController {
+
+    private final CommandLatencyRecorder commandLatencyRecorder;
+    private final SingleFlight singleFlight;
+
+    @Autowired
+    public MonitoringController(CommandLatencyRecorder commandLatencyRecorder, SingleFlight singleFlight) {
+        this.commandLatencyRecorder = commandLatencyRecorder;
+        this.singleFlight = singleFlight;
+    }
+
+    @GetMapping("/commands")
+    @Operation(summary = "Latencia por comando",
+            description = "Número, media, máximo y p50/p90/p99 en ms por comando, colección y método de servicio "
+                    + "(native.*, springdata.*, reactive, other), de mayor a menor tiempo total. "
+                    + "También en /actuator/metrics/mongodb.command")
+    @ApiResponse(responseCode = "200", description = "Latencias obtenidas")
+    public ResponseEntity<List<CommandLatencyDto>> getCommandLatencies() {
+        return ResponseEntity.ok(commandLatencyRecorder.latencies());
+    }
+
+    @GetMapping("/slow-commands")
+    @Operation(summary = "Comandos lentos",
+            description = "Comandos que superaron app.mongo.monitoring.slow-command-threshold, más recientes primero, "
+                    + "con el filtro redactado (valores sustituidos por \"?\")")
+    @ApiResponse(responseCode = "200", description = "Comandos lentos obtenidos")
+    public ResponseEntity<List<SlowCommandDto>> getSlowCommands() {
+        return ResponseEntity.ok(commandLatencyRecorder.slowCommands());
+    }
+
+    @GetMapping("/single-flight")
+    @Operation(summary = "Lecturas compartidas (single-flight)",
+            description = "Por método de servicio: llamadas que consultaron MongoDB (executed) y llamadas idénticas "
+                    + "que esperaron a una en curso (shared). También en /actuator/metrics/users.singleflight.calls")
+    @ApiResponse(responseCode = "200", description = "Contadores obtenidos")
+    public ResponseEntity<List<SingleFlightStatsDto>> getSingleFlightStats() {
+        return ResponseEntity.ok(singleFlight.stats());
+    }
+}
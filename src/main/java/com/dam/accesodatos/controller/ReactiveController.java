@@ -0,0 +1,152 @@
+package com.dam.accesodatos.controller;
+
+import com.dam.accesodatos.model.DepartmentStatsDto;
+import com.dam.accesodatos.model.User;
+import com.dam.accesodatos.model.UserCreateDto;
+import com.dam.accesodatos.model.UserQueryDto;
+import com.dam.accesodatos.model.UserUpdateDto;
+import com.dam.accesodatos.mongodb.reactive.ReactiveUserService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Endpoints reactivos: devuelven Mono / Flux y Spring MVC los trata como peticiones
+ * asíncronas (el hilo de Tomcat se libera mientras MongoDB responde).
+ *
+ * Los listados (Flux<User>) admiten dos formatos según la cabecera Accept:
+ * - application/json (por defecto): MVC acumula todo el Flux en una List y escribe el
+ *   array JSON al final. Sin backpressure: el listado completo queda en memoria
+ * - application/x-ndjson: un usuario por línea según se emiten; MVC pide el siguiente
+ *   elemento solo cuando ha escrito el anterior (backpressure hasta el cliente HTTP)
+ *
+ * Para listados grandes hay que pedir NDJSON: es el único formato con backpressure de
+ * extremo a extremo.
+ */
+@RestController
+@RequestMapping("/api/reactive")
+@Tag(name = "API Reactiva", description = "Endpoints usando el driver Reactive Streams y ReactiveMongoTemplate")
+public class ReactiveController {
+
+    private final ReactiveUserService userService;
+
+    @Autowired
+    public ReactiveController(ReactiveUserService userService) {
+        this.userService = userService;
+    }
+
+    @GetMapping("/test-connection")
+    @Operation(summary = "Probar conexión", description = "Verifica la conexión con MongoDB usando el driver reactivo")
+    @ApiResponse(responseCode = "200", description = "Conexión exitosa")
+    public Mono<Map<String, String>> testConnection() {
+        return userService.testConnection().map(message -> Map.of("message", message));
+    }
+
+    @PostMapping("/users")
+    @Operation(summary = "Crear usuario", description = "Crea un nuevo usuario con ReactiveMongoTemplate.insert()")
+    @ApiResponses({
+            @ApiResponse(responseCode = "201", description = "Usuario creado exitosamente"),
+            @ApiResponse(responseCode = "400", description = "Datos inválidos"),
+            @ApiResponse(responseCode = "409", description = "Email ya registrado")
+    })
+    public Mono<ResponseEntity<User>> createUser(@Valid @RequestBody UserCreateDto dto) {
+        return userService.createUser(dto).map(user -> ResponseEntity.status(HttpStatus.CREATED).body(user));
+    }
+
+    @GetMapping("/users/{id}")
+    @Operation(summary = "Buscar por ID", description = "Obtiene un usuario por su ID de MongoDB")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Usuario encontrado"),
+            @ApiResponse(responseCode = "404", description = "Usuario no encontrado"),
+            @ApiResponse(responseCode = "400", description = "ID inválido")
+    })
+    public Mono<User> findUserById(
+            @Parameter(description = "ID del usuario (ObjectId de 24 caracteres hex)") @PathVariable String id) {
+        return userService.findUserById(id);
+    }
+
+    @PutMapping("/users/{id}")
+    @Operation(summary = "Actualizar usuario", description = "Actualiza los datos de un usuario existente")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Usuario actualizado"),
+            @ApiResponse(responseCode = "404", description = "Usuario no encontrado"),
+            @ApiResponse(responseCode = "409", description = "Email ya registrado")
+    })
+    public Mono<User> updateUser(
+            @Parameter(description = "ID del usuario") @PathVariable String id,
+            @Valid @RequestBody UserUpdateDto dto) {
+        return userService.updateUser(id, dto);
+    }
+
+    @DeleteMapping("/users/{id}")
+    @Operation(summary = "Eliminar usuario", description = "Elimina un usuario de la base de datos")
+    @ApiResponses({
+            @ApiResponse(responseCode = "204", description = "Usuario eliminado"),
+            @ApiResponse(responseCode = "404", description = "Usuario no encontrado")
+    })
+    public Mono<ResponseEntity<Void>> deleteUser(
+            @Parameter(description = "ID del usuario") @PathVariable String id) {
+        return userService.deleteUser(id)
+                .map(deleted -> deleted
+                        ? ResponseEntity.noContent().<Void>build()
+                        : ResponseEntity.notFound().<Void>build());
+    }
+
+    @GetMapping(value = "/users", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @Operation(summary = "Listar todos",
+            description = "Flux<User>. Solo con 'Accept: application/x-ndjson' hay backpressure: se emite un usuario por línea según llega del cursor. "
+                    + "Con application/json (por defecto) se acumula la lista completa en memoria antes de responder; usar NDJSON para listados grandes")
+    public Flux<User> findAll(
+            @Parameter(description = "Campos a devolver separados por comas (id,name,email...); por defecto todos")
+            @RequestParam(required = false) List<String> fields) {
+        return userService.findAll(fields);
+    }
+
+    @GetMapping(value = "/users/department/{department}",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @Operation(summary = "Buscar por departamento",
+            description = "Filtra usuarios por departamento (Flux<User>). Backpressure solo con 'Accept: application/x-ndjson'; en JSON se acumula la lista completa")
+    public Flux<User> findUsersByDepartment(
+            @Parameter(description = "Nombre del departamento (IT, HR, Finance, etc.)") @PathVariable String department,
+            @Parameter(description = "Campos a devolver separados por comas (id,name,email...); por defecto todos")
+            @RequestParam(required = false) List<String> fields) {
+        return userService.findUsersByDepartment(department, fields);
+    }
+
+    @PostMapping(value = "/users/search",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @Operation(summary = "Búsqueda avanzada",
+            description = "Búsqueda con filtros, ordenación y paginación (Flux<User>). Backpressure solo con 'Accept: application/x-ndjson'; en JSON se acumula la lista completa")
+    public Flux<User> searchUsers(@RequestBody UserQueryDto query) {
+        return userService.searchUsers(query);
+    }
+
+    @GetMapping("/users/count/department/{department}")
+    @Operation(summary = "Contar por departamento", description = "Cuenta usuarios por departamento")
+    public Mono<Map<String, Object>> countByDepartment(
+            @Parameter(description = "Nombre del departamento") @PathVariable String department) {
+        return userService.countByDepartment(department)
+                .map(count -> Map.<String, Object>of("department", department, "count", count));
+    }
+
+    @GetMapping("/stats/departments")
+    @Operation(summary = "Estadísticas por departamento",
+            description = "Totales y activos por departamento: department_stats materializada o aggregation pipeline reactivo")
+    @ApiResponse(responseCode = "200", description = "Estadísticas obtenidas exitosamente")
+    public Flux<DepartmentStatsDto> getStatsByDepartment() {
+        return userService.getStatsByDepartment();
+    }
+}
@@ -1,9 +1,15 @@
 package com.dam.accesodatos.controller;
 
+import com.dam.accesodatos.config.BinaryFormatsConfig;
+import com.dam.accesodatos.model.BatchGetResultDto;
+import com.dam.accesodatos.model.BulkCreateResultDto;
 import com.dam.accesodatos.model.User;
 import com.dam.accesodatos.model.UserCreateDto;
+import com.dam.accesodatos.model.UserPageDto;
 import com.dam.accesodatos.model.UserQueryDto;
 import com.dam.accesodatos.model.UserUpdateDto;
+import com.dam.accesodatos.mongodb.etag.ResourceVersion;
+import com.dam.accesodatos.mongodb.projection.FieldProjection;
 import com.dam.accesodatos.mongodb.springdata.SpringDataUserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -12,9 +18,13 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Map;
@@ -25,10 +35,12 @@ import java.util.Map;
 public class SpringDataController {
 
     private final SpringDataUserService userService;
+    private final UserStreamWriter streamWriter;
 
     @Autowired
-    public SpringDataController(SpringDataUserService userService) {
+    public SpringDataController(SpringDataUserService userService, UserStreamWriter streamWriter) {
         this.userService = userService;
+        this.streamWriter = streamWriter;
     }
 
     @GetMapping("/test-connection")
@@ -51,16 +63,49 @@ public class SpringDataController {
         return ResponseEntity.status(HttpStatus.CREATED).body(user);
     }
 
+    @PostMapping("/users/bulk")
+    @Operation(summary = "Crear usuarios en bloque",
+            description = "Inserta un array de usuarios en lotes con bulkOps(UNORDERED). Los errores (email duplicado, datos inválidos) se informan por fila sin abortar el resto")
+    @ApiResponses({
+            @ApiResponse(responseCode = "201", description = "Todos los usuarios creados"),
+            @ApiResponse(responseCode = "207", description = "Algunas filas fallaron, ver items")
+    })
+    public ResponseEntity<BulkCreateResultDto> createUsers(@RequestBody List<UserCreateDto> dtos) {
+        BulkCreateResultDto result = userService.createUsers(dtos);
+        HttpStatus status = result.getFailed() == 0 ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS;
+        return ResponseEntity.status(status).body(result);
+    }
+
+    @PostMapping("/users/batch-get")
+    @Operation(summary = "Buscar varios usuarios por ID",
+            description = "Resuelve un array de IDs con una sola consulta $in (findAllById()). Devuelve un resultado por ID en el mismo orden: FOUND, NOT_FOUND o INVALID_ID")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Resultado por ID, ver items"),
+            @ApiResponse(responseCode = "400", description = "Más de 1000 IDs")
+    })
+    public ResponseEntity<BatchGetResultDto> findUsersByIds(@RequestBody List<String> ids) {
+        return ResponseEntity.ok(userService.findUsersByIds(ids));
+    }
+
     @GetMapping("/users/{id}")
-    @Operation(summary = "Buscar por ID", description = "Obtiene un usuario usando findById de MongoRepository")
+    @Operation(summary = "Buscar por ID",
+            description = "Obtiene un usuario usando findById de MongoRepository. Responde con ETag y Last-Modified (de updatedAt); con If-None-Match o If-Modified-Since devuelve 304 si no ha cambiado, comprobándolo solo con updatedAt")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Usuario encontrado"),
+            @ApiResponse(responseCode = "304", description = "El usuario no ha cambiado desde la versión del cliente"),
             @ApiResponse(responseCode = "404", description = "Usuario no encontrado")
     })
     public ResponseEntity<User> findUserById(
-            @Parameter(description = "ID del usuario") @PathVariable String id) {
+            @Parameter(description = "ID del usuario") @PathVariable String id,
+            WebRequest request) {
+        if (ConditionalGet.isConditional(request)) {
+            ResourceVersion version = userService.findUserVersion(id);
+            if (ConditionalGet.notModified(request, version.etag(), version.lastModified())) {
+                return null;
+            }
+        }
         User user = userService.findUserById(id);
-        return ResponseEntity.ok(user);
+        return ConditionalGet.ok(user, ResourceVersion.of(user));
     }
 
     @PutMapping("/users/{id}")
@@ -94,17 +139,69 @@ public class SpringDataController {
 
     @GetMapping("/users")
     @Operation(summary = "Listar todos (TODO)", description = "Lista todos los usuarios. PENDIENTE: Los estudiantes deben usar findAll() de MongoRepository")
-    public ResponseEntity<List<User>> findAll() {
-        List<User> users = userService.findAll();
+    public ResponseEntity<List<User>> findAll(
+            @Parameter(description = "Campos a devolver separados por comas (id,name,email...); por defecto todos")
+            @RequestParam(required = false) List<String> fields) {
+        List<User> users = userService.findAll(fields);
         return ResponseEntity.ok(users);
     }
 
+    @GetMapping(value = "/users", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Listar todos en streaming (NDJSON)",
+            description = "Con 'Accept: application/x-ndjson' escribe un usuario JSON por línea según usa MongoTemplate.stream(), sin cargar la colección en memoria")
+    public ResponseEntity<StreamingResponseBody> streamAll(
+            @Parameter(description = "Campos a devolver separados por comas (id,name,email...); por defecto todos")
+            @RequestParam(required = false) List<String> fields) {
+        // Validar fields antes de empezar a escribir: un 400, no un cuerpo cortado
+        FieldProjection.of(fields);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(streamWriter.ndjson(consumer -> userService.streamAll(fields, consumer)));
+    }
+
+    @GetMapping(value = "/users", produces = {MediaType.APPLICATION_CBOR_VALUE, BinaryFormatsConfig.SMILE_VALUE})
+    @Operation(summary = "Listar todos en streaming (CBOR / Smile)",
+            description = "Con 'Accept: application/cbor' o 'application/x-jackson-smile' escribe un array binario de usuarios según usa MongoTemplate.stream(), sin cargar la colección en memoria. Para clientes servicio a servicio: menos CPU y bytes que JSON")
+    public ResponseEntity<StreamingResponseBody> streamAllBinary(
+            @RequestHeader(HttpHeaders.ACCEPT) String accept,
+            @Parameter(description = "Campos a devolver separados por comas (id,name,email...); por defecto todos")
+            @RequestParam(required = false) List<String> fields) {
+        FieldProjection.of(fields);
+        MediaType format = streamWriter.binaryFormat(accept);
+        return ResponseEntity.ok()
+                .contentType(format)
+                .body(streamWriter.binary(format, consumer -> userService.streamAll(fields, consumer)));
+    }
+
     @GetMapping("/users/department/{department}")
     @Operation(summary = "Buscar por departamento (TODO)", description = "Filtra usuarios por departamento. PENDIENTE: Los estudiantes deben usar Query Methods derivados")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Usuarios del departamento, con ETag"),
+            @ApiResponse(responseCode = "304", description = "El listado no ha cambiado desde la versión del cliente")
+    })
     public ResponseEntity<List<User>> findUsersByDepartment(
-            @Parameter(description = "Nombre del departamento") @PathVariable String department) {
-        List<User> users = userService.findUsersByDepartment(department);
-        return ResponseEntity.ok(users);
+            @Parameter(description = "Nombre del departamento") @PathVariable String department,
+            @Parameter(description = "Campos a devolver separados por comas (id,name,email...); por defecto todos")
+            @RequestParam(required = false) List<String> fields,
+            WebRequest request) {
+        ResourceVersion version = null;
+        if (ConditionalGet.hasEtag(request)) {
+            version = userService.findDepartmentVersion(department);
+            if (ConditionalGet.notModified(request, version.etag(fields), -1)) {
+                return null;
+            }
+        }
+        boolean versionFromList = FieldProjection.of(fields).includes("updatedAt");
+        if (!versionFromList && version == null) {
+            // Antes que la lista: una escritura entre medias deja el ETag más antiguo que el
+            // cuerpo (la siguiente petición no da 304), nunca más reciente.
+            version = userService.findDepartmentVersion(department);
+        }
+        List<User> users = userService.findUsersByDepartment(department, fields);
+        if (versionFromList) {
+            version = ResourceVersion.of(users);
+        }
+        return ConditionalGet.ok(users, version.etag(fields), -1);
     }
 
     @PostMapping("/users/search")
@@ -114,6 +211,34 @@ public class SpringDataController {
         return ResponseEntity.ok(users);
     }
 
+    @GetMapping("/users/text-search")
+    @Operation(summary = "Búsqueda de texto completo",
+            description = "Busca palabras en name, role, department y email con el índice de texto users_text (TextCriteria + TextQuery.sortByScore()). "
+                    + "Resultados de más a menos relevantes")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Resultados obtenidos"),
+            @ApiResponse(responseCode = "400", description = "Texto vacío o paginación inválida")
+    })
+    public ResponseEntity<List<User>> textSearch(
+            @Parameter(description = "Palabras a buscar; \"frase exacta\" y -palabra admitidos") @RequestParam String q,
+            @Parameter(description = "Página, desde 0") @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Resultados por página") @RequestParam(defaultValue = "10") int size) {
+        List<User> users = userService.textSearch(q, page, size);
+        return ResponseEntity.ok(users);
+    }
+
+    @PostMapping("/users/search/page")
+    @Operation(summary = "Búsqueda con paginación keyset",
+            description = "Búsqueda con filtros paginada por cursor. Devuelve nextToken, que se reenvía en continuationToken para obtener la página siguiente")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Página obtenida"),
+            @ApiResponse(responseCode = "400", description = "Token de continuación inválido")
+    })
+    public ResponseEntity<UserPageDto> searchUsersPage(@RequestBody UserQueryDto query) {
+        UserPageDto page = userService.searchUsersPage(query);
+        return ResponseEntity.ok(page);
+    }
+
     @GetMapping("/users/count/department/{department}")
     @Operation(summary = "Contar por departamento (TODO)", description = "Cuenta usuarios por departamento. PENDIENTE: Los estudiantes deben usar countByDepartment del Repository")
     public ResponseEntity<Map<String, Object>> countByDepartment(
@@ -0,0 +1,153 @@
+package com.dam.accesodatos.controller;
+
+import com.dam.accesodatos.config.BinaryFormatsConfig;
+import com.dam.accesodatos.model.User;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Escritor NDJSON (un usuario JSON por línea) para los endpoints de streaming.
+ *
+ * Cada User se serializa en cuanto el cursor de MongoDB lo entrega, así que la memoria
+ * no crece con el tamaño de la colección. Se vacía el buffer tras el primer usuario
+ * (primer byte rápido) y luego cada FLUSH_EVERY usuarios.
+ *
+ * Con Accept application/cbor o application/x-jackson-smile (BinaryFormatsConfig) se
+ * escribe un único array con el mismo recorrido: en CBOR un array de longitud indefinida
+ * (no hace falta saber cuántos usuarios hay al empezar) y en Smile un array normal. El
+ * cliente lo lee igual que la respuesta de un endpoint que devuelve List<User>.
+ */
+@Component
+public class UserStreamWriter {
+
+    private static final int FLUSH_EVERY = 500;
+
+    private final ObjectWriter writer;
+    private final ObjectWriter cborWriter;
+    private final ObjectWriter smileWriter;
+
+    public UserStreamWriter(ObjectMapper objectMapper,
+            MappingJackson2CborHttpMessageConverter cborConverter,
+            MappingJackson2SmileHttpMessageConverter smileConverter) {
+        this.writer = objectMapper.writerFor(User.class)
+                .withRootValueSeparator("\n")
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.cborWriter = binaryWriter(cborConverter.getObjectMapper());
+        this.smileWriter = binaryWriter(smileConverter.getObjectMapper());
+    }
+
+    private static ObjectWriter binaryWriter(ObjectMapper mapper) {
+        return mapper.writerFor(User.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    /**
+     * Crea el cuerpo de respuesta que recorre la fuente y escribe cada usuario.
+     *
+     * @param source método de servicio que entrega usuarios a un consumidor (p.ej. userService::streamAll)
+     */
+    public StreamingResponseBody ndjson(Consumer<Consumer<User>> source) {
+        return out -> {
+            long[] written = {0};
+            try (SequenceWriter sequence = writer.writeValues(out)) {
+                source.accept(user -> {
+                    try {
+                        sequence.write(user);
+                        written[0]++;
+                        if (written[0] == 1 || written[0] % FLUSH_EVERY == 0) {
+                            sequence.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                // Cliente desconectado: el cursor ya se cerró al propagarse la excepción
+                throw e.getCause();
+            }
+            if (written[0] > 0) {
+                out.write('\n');
+            }
+            out.flush();
+        };
+    }
+
+    /**
+     * Formato binario que pide el cliente: el primero de Accept que sea CBOR o Smile,
+     * ordenando por calidad (q) y, a igual calidad, los tipos concretos antes que los
+     * comodines. Solo se llama desde handlers con produces = {cbor, smile}, así que
+     * siempre hay uno compatible.
+     */
+    public MediaType binaryFormat(String accept) {
+        List<MediaType> accepted = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        accepted.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed()
+                .thenComparing(MediaType::isWildcardType)
+                .thenComparing(MediaType::isWildcardSubtype));
+        for (MediaType type : accepted) {
+            if (type.getQualityValue() == 0) {
+                continue;
+            }
+            if (type.isCompatibleWith(MediaType.APPLICATION_CBOR)) {
+                return MediaType.APPLICATION_CBOR;
+            }
+            if (type.isCompatibleWith(BinaryFormatsConfig.SMILE)) {
+                return BinaryFormatsConfig.SMILE;
+            }
+        }
+        return MediaType.APPLICATION_CBOR;
+    }
+
+    /**
+     * Cuerpo de respuesta CBOR o Smile: un array de usuarios escrito según llegan.
+     *
+     * @param format MediaType.APPLICATION_CBOR o BinaryFormatsConfig.SMILE
+     */
+    public StreamingResponseBody binary(MediaType format, Consumer<Consumer<User>> source) {
+        ObjectWriter userWriter = BinaryFormatsConfig.SMILE.equalsTypeAndSubtype(format) ? smileWriter : cborWriter;
+        return out -> {
+            JsonGenerator generator = userWriter.createGenerator(out);
+            // Si el cursor o la red fallan a mitad, close() no debe cerrar el array: el
+            // cliente tiene que recibir un CBOR/Smile incompleto, no una lista válida más corta
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+            try (generator) {
+                long[] written = {0};
+                generator.writeStartArray();
+                try {
+                    source.accept(user -> {
+                        try {
+                            userWriter.writeValue(generator, user);
+                            written[0]++;
+                            if (written[0] == 1 || written[0] % FLUSH_EVERY == 0) {
+                                generator.flush();
+                            }
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                } catch (UncheckedIOException e) {
+                    // Cliente desconectado: el cursor ya se cerró al propagarse la excepción
+                    throw e.getCause();
+                }
+                generator.writeEndArray();
+            }
+            out.flush();
+        };
+    }
+}
@@ -5,7 +5,7 @@ public class DuplicateEmailException extends RuntimeException {
     private final String email;
 
     public DuplicateEmailException(String email) {
-        super("El email '" + email + "' ya está registrado");
+        super(messageFor(email));
         this.email = email;
     }
 
@@ -14,6 +14,14 @@ public class DuplicateEmailException extends RuntimeException {
         this.email = email;
     }
 
+    /**
+     * Mensaje estándar de email duplicado, reutilizado en los resultados por fila de la
+     * creación en bloque (donde no se lanza la excepción).
+     */
+    public static String messageFor(String email) {
+        return "El email '" + email + "' ya está registrado";
+    }
+
     public String getEmail() {
         return email;
     }
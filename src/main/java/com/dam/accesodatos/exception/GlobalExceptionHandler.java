@@ -36,6 +36,12 @@ public class GlobalExceptionHandler {
         return buildErrorResponse(HttpStatus.BAD_REQUEST, e.getMessage(), e.getInvalidId());
     }
 
+    @ExceptionHandler(InvalidQueryException.class)
+    public ResponseEntity<Map<String, Object>> handleInvalidQuery(InvalidQueryException e) {
+        log.warn("Parámetro de consulta inválido ({}): {}", e.getParameter(), e.getMessage());
+        return buildErrorResponse(HttpStatus.BAD_REQUEST, e.getMessage(), e.getParameter());
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, Object>> handleValidationExceptions(MethodArgumentNotValidException e) {
         Map<String, String> errors = new HashMap<>();
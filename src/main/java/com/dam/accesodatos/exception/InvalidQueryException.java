@@ -0,0 +1,20 @@
+package com.dam.accesodatos.exception;
+
+public class InvalidQueryException extends RuntimeException {
+
+    private final String parameter;
+
+    public InvalidQueryException(String parameter, String message) {
+        super(message);
+        this.parameter = parameter;
+    }
+
+    public InvalidQueryException(String parameter, String message, Throwable cause) {
+        super(message, cause);
+        this.parameter = parameter;
+    }
+
+    public String getParameter() {
+        return parameter;
+    }
+}
@@ -0,0 +1,144 @@
+package com.dam.accesodatos.model;
+
+/**
+ * DTO con el tamaño del índice de trigramas de autocompletado.
+ * Los bytes son una estimación del heap ocupado (JVM de 64 bits, compressed oops):
+ * postingsBytes las listas de ordinales, dictionaryBytes la tabla trigrama → lista y
+ * documentsBytes los id, nombres y emails guardados para construir las respuestas.
+ */
+public class AutocompleteStatsDto {
+
+    private boolean enabled;
+    private boolean includeEmail;
+    private int documents;
+    private int deletedSlots;
+    private int trigrams;
+    private long postingEntries;
+    private long postingsBytes;
+    private long dictionaryBytes;
+    private long documentsBytes;
+    private long totalBytes;
+    private long bytesPerDocument;
+
+    public AutocompleteStatsDto() {
+    }
+
+    public AutocompleteStatsDto(boolean enabled, boolean includeEmail, int documents, int deletedSlots, int trigrams, long postingEntries, long postingsBytes, long dictionaryBytes, long documentsBytes, long totalBytes, long bytesPerDocument) {
+        this.enabled = enabled;
+        this.includeEmail = includeEmail;
+        this.documents = documents;
+        this.deletedSlots = deletedSlots;
+        this.trigrams = trigrams;
+        this.postingEntries = postingEntries;
+        this.postingsBytes = postingsBytes;
+        this.dictionaryBytes = dictionaryBytes;
+        this.documentsBytes = documentsBytes;
+        this.totalBytes = totalBytes;
+        this.bytesPerDocument = bytesPerDocument;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isIncludeEmail() {
+        return includeEmail;
+    }
+
+    public void setIncludeEmail(boolean includeEmail) {
+        this.includeEmail = includeEmail;
+    }
+
+    public int getDocuments() {
+        return documents;
+    }
+
+    public void setDocuments(int documents) {
+        this.documents = documents;
+    }
+
+    public int getDeletedSlots() {
+        return deletedSlots;
+    }
+
+    public void setDeletedSlots(int deletedSlots) {
+        this.deletedSlots = deletedSlots;
+    }
+
+    public int getTrigrams() {
+        return trigrams;
+    }
+
+    public void setTrigrams(int trigrams) {
+        this.trigrams = trigrams;
+    }
+
+    public long getPostingEntries() {
+        return postingEntries;
+    }
+
+    public void setPostingEntries(long postingEntries) {
+        this.postingEntries = postingEntries;
+    }
+
+    public long getPostingsBytes() {
+        return postingsBytes;
+    }
+
+    public void setPostingsBytes(long postingsBytes) {
+        this.postingsBytes = postingsBytes;
+    }
+
+    public long getDictionaryBytes() {
+        return dictionaryBytes;
+    }
+
+    public void setDictionaryBytes(long dictionaryBytes) {
+        this.dictionaryBytes = dictionaryBytes;
+    }
+
+    public long getDocumentsBytes() {
+        return documentsBytes;
+    }
+
+    public void setDocumentsBytes(long documentsBytes) {
+        this.documentsBytes = documentsBytes;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public void setTotalBytes(long totalBytes) {
+        this.totalBytes = totalBytes;
+    }
+
+    public long getBytesPerDocument() {
+        return bytesPerDocument;
+    }
+
+    public void setBytesPerDocument(long bytesPerDocument) {
+        this.bytesPerDocument = bytesPerDocument;
+    }
+
+    @Override
+    public String toString() {
+        return "AutocompleteStatsDto{" +
+                "enabled=" + enabled +
+                ", includeEmail=" + includeEmail +
+                ", documents=" + documents +
+                ", deletedSlots=" + deletedSlots +
+                ", trigrams=" + trigrams +
+                ", postingEntries=" + postingEntries +
+                ", postingsBytes=" + postingsBytes +
+                ", dictionaryBytes=" + dictionaryBytes +
+                ", documentsBytes=" + documentsBytes +
+                ", totalBytes=" + totalBytes +
+                ", bytesPerDocument=" + bytesPerDocument +
+                '}';
+    }
+}
@@ -0,0 +1,93 @@
+package com.dam.accesodatos.model;
+
+/**
+ * Resultado de un ID en la lectura de usuarios en bloque (POST /users/batch-get).
+ * index es la posición del ID en el array de entrada; user solo viene si status es FOUND.
+ */
+public class BatchGetItemDto {
+
+    public enum Status {
+        FOUND,
+        NOT_FOUND,
+        INVALID_ID
+    }
+
+    private int index;
+    private String id;
+    private Status status;
+    private User user;
+    private String message;
+
+    public BatchGetItemDto() {
+    }
+
+    public BatchGetItemDto(int index, String id, Status status, User user, String message) {
+        this.index = index;
+        this.id = id;
+        this.status = status;
+        this.user = user;
+        this.message = message;
+    }
+
+    public static BatchGetItemDto found(int index, String id, User user) {
+        return new BatchGetItemDto(index, id, Status.FOUND, user, null);
+    }
+
+    public static BatchGetItemDto notFound(int index, String id) {
+        return new BatchGetItemDto(index, id, Status.NOT_FOUND, null, "Usuario no encontrado con ID: " + id);
+    }
+
+    public static BatchGetItemDto invalidId(int index, String id) {
+        return new BatchGetItemDto(index, id, Status.INVALID_ID, null, "ID de usuario inválido: " + id);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public void setUser(User user) {
+        this.user = user;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchGetItemDto{" +
+                "index=" + index +
+                ", id='" + id + '\'' +
+                ", status=" + status +
+                ", message='" + message + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,81 @@
+package com.dam.accesodatos.model;
+
+import java.util.List;
+
+/**
+ * Resumen de una lectura de usuarios en bloque con el resultado de cada ID,
+ * en el mismo orden que el array de entrada.
+ */
+public class BatchGetResultDto {
+
+    private int requested;
+    private int found;
+    private int notFound;
+    private int invalid;
+    private List<BatchGetItemDto> items;
+
+    public BatchGetResultDto() {
+    }
+
+    public BatchGetResultDto(List<BatchGetItemDto> items) {
+        this.items = items;
+        this.requested = items.size();
+        for (BatchGetItemDto item : items) {
+            switch (item.getStatus()) {
+                case FOUND -> found++;
+                case NOT_FOUND -> notFound++;
+                case INVALID_ID -> invalid++;
+            }
+        }
+    }
+
+    public int getRequested() {
+        return requested;
+    }
+
+    public void setRequested(int requested) {
+        this.requested = requested;
+    }
+
+    public int getFound() {
+        return found;
+    }
+
+    public void setFound(int found) {
+        this.found = found;
+    }
+
+    public int getNotFound() {
+        return notFound;
+    }
+
+    public void setNotFound(int notFound) {
+        this.notFound = notFound;
+    }
+
+    public int getInvalid() {
+        return invalid;
+    }
+
+    public void setInvalid(int invalid) {
+        this.invalid = invalid;
+    }
+
+    public List<BatchGetItemDto> getItems() {
+        return items;
+    }
+
+    public void setItems(List<BatchGetItemDto> items) {
+        this.items = items;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchGetResultDto{" +
+                "requested=" + requested +
+                ", found=" + found +
+                ", notFound=" + notFound +
+                ", invalid=" + invalid +
+                '}';
+    }
+}
@@ -0,0 +1,68 @@
+package com.dam.accesodatos.model;
+
+import java.util.List;
+
+/**
+ * Resumen de una creación de usuarios en bloque con el resultado de cada fila,
+ * en el mismo orden que el array de entrada.
+ */
+public class BulkCreateResultDto {
+
+    private int requested;
+    private int inserted;
+    private int failed;
+    private List<BulkItemResultDto> items;
+
+    public BulkCreateResultDto() {
+    }
+
+    public BulkCreateResultDto(List<BulkItemResultDto> items) {
+        this.items = items;
+        this.requested = items.size();
+        this.inserted = (int) items.stream()
+                .filter(item -> item.getStatus() == BulkItemResultDto.Status.CREATED)
+                .count();
+        this.failed = requested - inserted;
+    }
+
+    public int getRequested() {
+        return requested;
+    }
+
+    public void setRequested(int requested) {
+        this.requested = requested;
+    }
+
+    public int getInserted() {
+        return inserted;
+    }
+
+    public void setInserted(int inserted) {
+        this.inserted = inserted;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    public List<BulkItemResultDto> getItems() {
+        return items;
+    }
+
+    public void setItems(List<BulkItemResultDto> items) {
+        this.items = items;
+    }
+
+    @Override
+    public String toString() {
+        return "BulkCreateResultDto{" +
+                "requested=" + requested +
+                ", inserted=" + inserted +
+                ", failed=" + failed +
+                '}';
+    }
+}
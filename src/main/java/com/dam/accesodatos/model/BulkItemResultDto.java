@@ -0,0 +1,91 @@
+package com.dam.accesodatos.model;
+
+/**
+ * Resultado de una fila en la creación de usuarios en bloque.
+ * index es la posición del elemento en el array de entrada.
+ */
+public class BulkItemResultDto {
+
+    public enum Status {
+        CREATED,
+        DUPLICATE_EMAIL,
+        INVALID,
+        ERROR
+    }
+
+    private int index;
+    private Status status;
+    private String id;
+    private String email;
+    private String message;
+
+    public BulkItemResultDto() {
+    }
+
+    public BulkItemResultDto(int index, Status status, String id, String email, String message) {
+        this.index = index;
+        this.status = status;
+        this.id = id;
+        this.email = email;
+        this.message = message;
+    }
+
+    public static BulkItemResultDto created(int index, String id, String email) {
+        return new BulkItemResultDto(index, Status.CREATED, id, email, null);
+    }
+
+    public static BulkItemResultDto failed(int index, Status status, String email, String message) {
+        return new BulkItemResultDto(index, status, null, email, message);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    @Override
+    public String toString() {
+        return "BulkItemResultDto{" +
+                "index=" + index +
+                ", status=" + status +
+                ", id='" + id + '\'' +
+                ", email='" + email + '\'' +
+                ", message='" + message + '\'' +
+                '}';
+    }
+}
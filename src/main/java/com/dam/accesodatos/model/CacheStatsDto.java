@@ -0,0 +1,87 @@
+package com.dam.accesodatos.model;
+
+/**
+ * DTO con los contadores de la caché de usuarios (findUserById).
+ * hitRate = hits / (hits + misses); 1.0 si todavía no ha habido lecturas.
+ */
+public class CacheStatsDto {
+
+    private boolean enabled;
+    private long size;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private double hitRate;
+
+    public CacheStatsDto() {
+    }
+
+    public CacheStatsDto(boolean enabled, long size, long hits, long misses, long evictions, double hitRate) {
+        this.enabled = enabled;
+        this.size = size;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.hitRate = hitRate;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public void setHits(long hits) {
+        this.hits = hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public void setMisses(long misses) {
+        this.misses = misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public void setEvictions(long evictions) {
+        this.evictions = evictions;
+    }
+
+    public double getHitRate() {
+        return hitRate;
+    }
+
+    public void setHitRate(double hitRate) {
+        this.hitRate = hitRate;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStatsDto{" +
+                "enabled=" + enabled +
+                ", size=" + size +
+                ", hits=" + hits +
+                ", misses=" + misses +
+                ", evictions=" + evictions +
+                ", hitRate=" + hitRate +
+                '}';
+    }
+}
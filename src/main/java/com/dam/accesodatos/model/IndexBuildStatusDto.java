@@ -0,0 +1,89 @@
+package com.dam.accesodatos.model;
+
+import java.time.Instant;
+
+/**
+ * DTO con el estado de construcción en segundo plano de un índice gestionado por
+ * UserIndexManager: PENDING, BUILDING, READY o FAILED (con el error).
+ */
+public class IndexBuildStatusDto {
+
+    private String name;
+    private String key;
+    private String state;
+    private Instant startedAt;
+    private Long durationMs;
+    private String error;
+
+    public IndexBuildStatusDto() {
+    }
+
+    public IndexBuildStatusDto(String name, String key, String state, Instant startedAt, Long durationMs, String error) {
+        this.name = name;
+        this.key = key;
+        this.state = state;
+        this.startedAt = startedAt;
+        this.durationMs = durationMs;
+        this.error = error;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public String getState() {
+        return state;
+    }
+
+    public void setState(String state) {
+        this.state = state;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(Instant startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public Long getDurationMs() {
+        return durationMs;
+    }
+
+    public void setDurationMs(Long durationMs) {
+        this.durationMs = durationMs;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    @Override
+    public String toString() {
+        return "IndexBuildStatusDto{" +
+                "name='" + name + '\'' +
+                ", key='" + key + '\'' +
+                ", state='" + state + '\'' +
+                ", startedAt=" + startedAt +
+                ", durationMs=" + durationMs +
+                ", error='" + error + '\'' +
+                '}';
+    }
+}
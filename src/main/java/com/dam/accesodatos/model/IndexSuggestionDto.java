@@ -0,0 +1,91 @@
+package com.dam.accesodatos.model;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DTO de un índice que falta para las búsquedas observadas (IndexAdvisor).
+ * key es la clave propuesta en orden ESR, collation "es/2" si es para búsquedas por
+ * prefijo (null = simple) y command el createIndex equivalente en mongosh.
+ */
+public class IndexSuggestionDto {
+
+    private Map<String, Integer> key;
+    private String collation;
+    private long observedQueries;
+    private List<String> shapes;
+    private String reason;
+    private String command;
+
+    public IndexSuggestionDto() {
+    }
+
+    public IndexSuggestionDto(Map<String, Integer> key, String collation, long observedQueries, List<String> shapes, String reason, String command) {
+        this.key = key;
+        this.collation = collation;
+        this.observedQueries = observedQueries;
+        this.shapes = shapes;
+        this.reason = reason;
+        this.command = command;
+    }
+
+    public Map<String, Integer> getKey() {
+        return key;
+    }
+
+    public void setKey(Map<String, Integer> key) {
+        this.key = key;
+    }
+
+    public String getCollation() {
+        return collation;
+    }
+
+    public void setCollation(String collation) {
+        this.collation = collation;
+    }
+
+    public long getObservedQueries() {
+        return observedQueries;
+    }
+
+    public void setObservedQueries(long observedQueries) {
+        this.observedQueries = observedQueries;
+    }
+
+    public List<String> getShapes() {
+        return shapes;
+    }
+
+    public void setShapes(List<String> shapes) {
+        this.shapes = shapes;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public void setReason(String reason) {
+        this.reason = reason;
+    }
+
+    public String getCommand() {
+        return command;
+    }
+
+    public void setCommand(String command) {
+        this.command = command;
+    }
+
+    @Override
+    public String toString() {
+        return "IndexSuggestionDto{" +
+                "key=" + key +
+                ", collation='" + collation + '\'' +
+                ", observedQueries=" + observedQueries +
+                ", shapes=" + shapes +
+                ", reason='" + reason + '\'' +
+                ", command='" + command + '\'' +
+                '}';
+    }
+}
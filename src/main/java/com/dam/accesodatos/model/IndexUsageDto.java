@@ -0,0 +1,113 @@
+package com.dam.accesodatos.model;
+
+import java.time.Instant;
+
+/**
+ * DTO con el uso de un índice de users según $indexStats.
+ * accesses cuenta las operaciones que lo han usado desde since (arranque del servidor o
+ * creación del índice); un índice con accesses = 0 tras un tiempo es candidato a borrarse.
+ * building = true mientras se está construyendo.
+ */
+public class IndexUsageDto {
+
+    private String name;
+    private String key;
+    private long accesses;
+    private Instant since;
+    private long sizeBytes;
+    private String partialFilter;
+    private String collation;
+    private boolean building;
+
+    public IndexUsageDto() {
+    }
+
+    public IndexUsageDto(String name, String key, long accesses, Instant since, long sizeBytes, String partialFilter, String collation, boolean building) {
+        this.name = name;
+        this.key = key;
+        this.accesses = accesses;
+        this.since = since;
+        this.sizeBytes = sizeBytes;
+        this.partialFilter = partialFilter;
+        this.collation = collation;
+        this.building = building;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public long getAccesses() {
+        return accesses;
+    }
+
+    public void setAccesses(long accesses) {
+        this.accesses = accesses;
+    }
+
+    public Instant getSince() {
+        return since;
+    }
+
+    public void setSince(Instant since) {
+        this.since = since;
+    }
+
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public void setSizeBytes(long sizeBytes) {
+        this.sizeBytes = sizeBytes;
+    }
+
+    public String getPartialFilter() {
+        return partialFilter;
+    }
+
+    public void setPartialFilter(String partialFilter) {
+        this.partialFilter = partialFilter;
+    }
+
+    public String getCollation() {
+        return collation;
+    }
+
+    public void setCollation(String collation) {
+        this.collation = collation;
+    }
+
+    public boolean isBuilding() {
+        return building;
+    }
+
+    public void setBuilding(boolean building) {
+        this.building = building;
+    }
+
+    @Override
+    public String toString() {
+        return "IndexUsageDto{" +
+                "name='" + name + '\'' +
+                ", key='" + key + '\'' +
+                ", accesses=" + accesses +
+                ", since=" + since +
+                ", sizeBytes=" + sizeBytes +
+                ", partialFilter='" + partialFilter + '\'' +
+                ", collation='" + collation + '\'' +
+                ", building=" + building +
+                '}';
+    }
+}
@@ -0,0 +1,66 @@
+package com.dam.accesodatos.model;
+
+/**
+ * Llamadas de un método de servicio que han pasado por SingleFlight desde el arranque:
+ * executed las que consultaron MongoDB y shared las que esperaron a una igual en curso.
+ */
+public class SingleFlightStatsDto {
+
+    private String operation;
+    private long executed;
+    private long shared;
+    private double sharedRatio;
+
+    public SingleFlightStatsDto() {
+    }
+
+    public SingleFlightStatsDto(String operation, long executed, long shared) {
+        this.operation = operation;
+        this.executed = executed;
+        this.shared = shared;
+        long total = executed + shared;
+        this.sharedRatio = total == 0 ? 0.0 : (double) shared / total;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public void setOperation(String operation) {
+        this.operation = operation;
+    }
+
+    public long getExecuted() {
+        return executed;
+    }
+
+    public void setExecuted(long executed) {
+        this.executed = executed;
+    }
+
+    public long getShared() {
+        return shared;
+    }
+
+    public void setShared(long shared) {
+        this.shared = shared;
+    }
+
+    public double getSharedRatio() {
+        return sharedRatio;
+    }
+
+    public void setSharedRatio(double sharedRatio) {
+        this.sharedRatio = sharedRatio;
+    }
+
+    @Override
+    public String toString() {
+        return "SingleFlightStatsDto{" +
+                "operation='" + operation + '\'' +
+                ", executed=" + executed +
+                ", shared=" + shared +
+                ", sharedRatio=" + sharedRatio +
+                '}';
+    }
+}
@@ -0,0 +1,77 @@
+package com.dam.accesodatos.model;
+
+import java.time.Instant;
+
+/**
+ * DTO de un comando que superó app.mongo.monitoring.slow-command-threshold.
+ * filterShape es el filtro con los valores sustituidos por "?" (null si no lleva filtro).
+ */
+public class SlowCommandDto {
+
+    private Instant timestamp;
+    private String command;
+    private String collection;
+    private String source;
+    private double durationMs;
+    private String filterShape;
+
+    public SlowCommandDto() {
+    }
+
+    public SlowCommandDto(Instant timestamp, String command, String collection, String source, double durationMs, String filterShape) {
+        this.timestamp = timestamp;
+        this.command = command;
+        this.collection = collection;
+        this.source = source;
+        this.durationMs = durationMs;
+        this.filterShape = filterShape;
+    }
+
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(Instant timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public String getCommand() {
+        return command;
+    }
+
+    public void setCommand(String command) {
+        this.command = command;
+    }
+
+    public String getCollection() {
+        return collection;
+    }
+
+    public void setCollection(String collection) {
+        this.collection = collection;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public void setSource(String source) {
+        this.source = source;
+    }
+
+    public double getDurationMs() {
+        return durationMs;
+    }
+
+    public void setDurationMs(double durationMs) {
+        this.durationMs = durationMs;
+    }
+
+    public String getFilterShape() {
+        return filterShape;
+    }
+
+    public void setFilterShape(String filterShape) {
+        this.filterShape = filterShape;
+    }
+}
@@ -1,5 +1,6 @@
 package com.dam.accesodatos.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.validation.constraints.*;
 import org.springframework.data.annotation.*;
 import org.springframework.data.mongodb.core.index.Indexed;
@@ -32,8 +33,12 @@ import java.util.Objects;
  * - Integridad referencial con claves foráneas
  * - Transacciones ACID complejas
  * - JOINs eficientes para consultas relacionales
+ *
+ * JSON: los campos a null no se serializan, así una consulta con proyección
+ * (?fields=name,email) devuelve solo los campos pedidos.
  */
 @Document(collection = "users")  // Equivalente a @Entity + @Table(name = "users") en JPA
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class User {
 
     /**
@@ -220,6 +225,39 @@ public class User {
         this.id = id;
     }
 
+    /**
+     * CONSTRUCTOR COMPLETO (PARA CODECS Y MAPEO DIRECTO)
+     * ==================================================
+     * Asigna todos los campos tal cual vienen de la base de datos, sin pasar por los
+     * setters (que recalculan updatedAt) ni por los valores por defecto de User().
+     * Lo usa UserCodec al decodificar BSON directamente a User.
+     *
+     * Equivalente JDBC:
+     * new User(rs.getLong("id"), rs.getString("name"), ..., rs.getTimestamp("updated_at"))
+     */
+    public User(String id, String name, String email, String department, String role,
+                Boolean active, LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this.id = id;
+        this.name = name;
+        this.email = email;
+        this.department = department;
+        this.role = role;
+        this.active = active;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+
+    /**
+     * COPIA
+     * =====
+     * User es mutable: las capas que comparten una instancia (UserCache, SingleFlight,
+     * UserLookupCoalescer) entregan una copia a cada llamante. Usa el constructor
+     * completo, así que un campo nuevo solo hay que añadirlo aquí.
+     */
+    public User copy() {
+        return new User(id, name, email, department, role, active, createdAt, updatedAt);
+    }
+
     public String getId() {
         return id;
     }
@@ -0,0 +1,67 @@
+package com.dam.accesodatos.model;
+
+import java.util.List;
+
+/**
+ * DTO para una página de resultados con paginación keyset (por cursor).
+ * nextToken se envía de vuelta en UserQueryDto.continuationToken para pedir la página siguiente;
+ * es null cuando no quedan más resultados.
+ */
+public class UserPageDto {
+
+    private List<User> content;
+    private int size;
+    private boolean hasMore;
+    private String nextToken;
+
+    public UserPageDto() {
+    }
+
+    public UserPageDto(List<User> content, boolean hasMore, String nextToken) {
+        this.content = content;
+        this.size = content.size();
+        this.hasMore = hasMore;
+        this.nextToken = nextToken;
+    }
+
+    public List<User> getContent() {
+        return content;
+    }
+
+    public void setContent(List<User> content) {
+        this.content = content;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    public String getNextToken() {
+        return nextToken;
+    }
+
+    public void setNextToken(String nextToken) {
+        this.nextToken = nextToken;
+    }
+
+    @Override
+    public String toString() {
+        return "UserPageDto{" +
+                "size=" + size +
+                ", hasMore=" + hasMore +
+                ", nextToken='" + nextToken + '\'' +
+                '}';
+    }
+}
@@ -1,14 +1,19 @@
 package com.dam.accesodatos.model;
 
+import java.util.List;
+
 public class UserQueryDto {
 
     private String name;
+    private String nameMatch;
     private String department;
     private Boolean active;
     private Integer page;
     private Integer size;
     private String sortBy;
     private String sortDirection;
+    private String continuationToken;
+    private List<String> fields;
 
     public UserQueryDto() {
         this.page = 0;
@@ -25,6 +30,18 @@ public class UserQueryDto {
         this.name = name;
     }
 
+    /**
+     * Cómo se busca name: "contains" (regex sin distinguir mayúsculas, por defecto) o
+     * "prefix" (rango sobre el índice name_ci, ver NameCollation).
+     */
+    public String getNameMatch() {
+        return nameMatch;
+    }
+
+    public void setNameMatch(String nameMatch) {
+        this.nameMatch = nameMatch;
+    }
+
     public String getDepartment() {
         return department;
     }
@@ -73,6 +90,25 @@ public class UserQueryDto {
         this.sortDirection = sortDirection != null ? sortDirection : "ASC";
     }
 
+    public String getContinuationToken() {
+        return continuationToken;
+    }
+
+    public void setContinuationToken(String continuationToken) {
+        this.continuationToken = continuationToken;
+    }
+
+    /**
+     * Campos a devolver (id, name, email...); null o vacío = todos.
+     */
+    public List<String> getFields() {
+        return fields;
+    }
+
+    public void setFields(List<String> fields) {
+        this.fields = fields;
+    }
+
     public int getOffset() {
         return page * size;
     }
@@ -81,12 +117,15 @@ public class UserQueryDto {
     public String toString() {
         return "UserQueryDto{" +
                 "name='" + name + '\'' +
+                ", nameMatch='" + nameMatch + '\'' +
                 ", department='" + department + '\'' +
                 ", active=" + active +
                 ", page=" + page +
                 ", size=" + size +
                 ", sortBy='" + sortBy + '\'' +
                 ", sortDirection='" + sortDirection + '\'' +
+                ", continuationToken='" + continuationToken + '\'' +
+                ", fields=" + fields +
                 '}';
     }
 }
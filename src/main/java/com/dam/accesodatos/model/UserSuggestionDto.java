@@ -0,0 +1,65 @@
+package com.dam.accesodatos.model;
+
+/**
+ * DTO de una sugerencia de autocompletado (GET /api/autocomplete/users).
+ * score es la fracción de trigramas de la consulta que aparecen en el usuario (0..1].
+ */
+public class UserSuggestionDto {
+
+    private String id;
+    private String name;
+    private String email;
+    private double score;
+
+    public UserSuggestionDto() {
+    }
+
+    public UserSuggestionDto(String id, String name, String email, double score) {
+        this.id = id;
+        this.name = name;
+        this.email = email;
+        this.score = score;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public void setScore(double score) {
+        this.score = score;
+    }
+
+    @Override
+    public String toString() {
+        return "UserSuggestionDto{" +
+                "id='" + id + '\'' +
+                ", name='" + name + '\'' +
+                ", email='" + email + '\'' +
+                ", score=" + score +
+                '}';
+    }
+}
@@ -0,0 +1,394 @@
+package com.dam.accesodatos.mongodb.autocomplete;
+
+import com.dam.accesodatos.model.AutocompleteStatsDto;
+import com.dam.accesodatos.model.UserSuggestionDto;
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.ints.Int2IntMap;
+import it.unimi.dsi.fastutil.ints.Int2IntMaps;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * ÍNDICE DE TRIGRAMAS EN MEMORIA
+ * ==============================
+ * Índice invertido trigrama → lista de documentos, para autocompletar nombres con
+ * tolerancia a erratas sin consultar MongoDB.
+ *
+ * Cada palabra normalizada (minúsculas, sin acentos) se rellena con dos espacios
+ * delante y uno detrás y se parte en trozos de 3 caracteres:
+ *   "Ana" → "  a", " an", "ana", "na "
+ * La consulta solo se rellena por delante ("  an", " an"), así "an" encuentra "Ana"
+ * aunque el usuario no haya terminado de escribir la palabra.
+ *
+ * COMPARACIÓN:
+ * Este índice                                  | SQL / MongoDB
+ * -------------------------------------------- | ------------------------------------------
+ * trigrama → [ordinales]                       | CREATE INDEX ... USING gin (name gin_trgm_ops)
+ *                                              | (pg_trgm de PostgreSQL)
+ * search("jaun")  (errata)                     | WHERE name % 'jaun' ORDER BY similarity(...)
+ * regex { name: /jaun/i }                      | WHERE name ILIKE '%jaun%'  (no encuentra "Juan")
+ *
+ * PUNTUACIÓN:
+ * cobertura = trigramas de la consulta presentes en el documento / trigramas de la consulta.
+ * Se devuelven los documentos con cobertura >= minSimilarity, de mayor a menor; a igual
+ * cobertura gana el más parecido en tamaño (Jaccard), p.ej. "Ana" antes que "Ana María".
+ *
+ * FILTRADO POR PREFIJO:
+ * Para llegar a la cobertura mínima un documento necesita m = ceil(minSimilarity * T) de
+ * los T trigramas de la consulta, así que tiene que aparecer en alguna de las T - m + 1
+ * listas más cortas. Solo esas listas generan candidatos; las demás se consultan con
+ * búsqueda binaria por candidato. Las listas de trigramas muy comunes ("  b", "ser"...)
+ * no se recorren nunca.
+ *
+ * MEMORIA:
+ * Las listas son IntArrayList de fastutil (int[] sin boxing: 4 bytes por entrada frente
+ * a ~20 de un ArrayList<Integer>) y el diccionario un Long2ObjectOpenHashMap con el
+ * trigrama codificado en un long (3 chars de 16 bits). Cada documento es un ordinal
+ * creciente, así que añadir al final mantiene las listas ordenadas.
+ *
+ * ESCRITURAS:
+ * Borrar o modificar marca el ordinal como borrado (lápida) y, al modificar, el
+ * documento se añade con un ordinal nuevo. Las entradas muertas se saltan al buscar y
+ * se eliminan reconstruyendo el índice cuando superan la mitad de las vivas.
+ */
+public class TrigramIndex {
+
+    /** Reconstruir solo a partir de este número de lápidas (evita rehacerlo con pocos datos). */
+    static final int MIN_DEAD_TO_COMPACT = 1024;
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^\\p{Alnum}]+");
+
+    private static final Comparator<Hit> BY_SCORE = Comparator
+            .comparingDouble(Hit::coverage)
+            .thenComparingDouble(Hit::jaccard);
+
+    private final boolean includeEmail;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Long2ObjectOpenHashMap<IntArrayList> postings = new Long2ObjectOpenHashMap<>();
+    private Object2IntOpenHashMap<String> ordinalById = newOrdinalMap();
+    /** Por ordinal: id (null = borrado), nombre, email y nº de trigramas distintos. */
+    private ObjectArrayList<String> ids = new ObjectArrayList<>();
+    private ObjectArrayList<String> names = new ObjectArrayList<>();
+    private ObjectArrayList<String> emails = new ObjectArrayList<>();
+    private IntArrayList trigramCounts = new IntArrayList();
+    private int dead;
+
+    /**
+     * @param includeEmail indexar también las palabras del email (ana, garcia, empresa...)
+     */
+    public TrigramIndex(boolean includeEmail) {
+        this.includeEmail = includeEmail;
+    }
+
+    /**
+     * Añade un usuario o sustituye su versión anterior.
+     */
+    public void put(String id, String name, String email) {
+        if (id == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            int previous = ordinalById.getInt(id);
+            if (previous >= 0) {
+                if (names.get(previous).equals(nullToEmpty(name)) && emails.get(previous).equals(nullToEmpty(email))) {
+                    return;
+                }
+                kill(previous);
+            }
+            append(id, nullToEmpty(name), nullToEmpty(email));
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String id) {
+        if (id == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            int ordinal = ordinalById.removeInt(id);
+            if (ordinal >= 0) {
+                kill(ordinal);
+                compactIfNeeded();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings = new Long2ObjectOpenHashMap<>();
+            ordinalById = newOrdinalMap();
+            ids = new ObjectArrayList<>();
+            names = new ObjectArrayList<>();
+            emails = new ObjectArrayList<>();
+            trigramCounts = new IntArrayList();
+            dead = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinalById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Los limit usuarios más parecidos a text, de mayor a menor puntuación.
+     *
+     * @param minSimilarity cobertura mínima (0 &lt; minSimilarity &lt;= 1)
+     */
+    public List<UserSuggestionDto> search(String text, int limit, double minSimilarity) {
+        long[] query = queryTrigrams(text);
+        if (query.length == 0 || limit <= 0) {
+            return List.of();
+        }
+        int total = query.length;
+        int required = Math.min(total, Math.max(1, (int) Math.ceil(minSimilarity * total)));
+
+        lock.readLock().lock();
+        try {
+            // Listas de la consulta de la más corta a la más larga (null = trigrama desconocido)
+            IntArrayList[] lists = new IntArrayList[total];
+            for (int i = 0; i < total; i++) {
+                lists[i] = postings.get(query[i]);
+            }
+            Arrays.sort(lists, Comparator.comparingInt(TrigramIndex::lengthOf));
+
+            // Candidatos: ordinales de las T - m + 1 listas más cortas, con sus apariciones
+            int prefixLists = total - required + 1;
+            Int2IntOpenHashMap shared = new Int2IntOpenHashMap();
+            for (int i = 0; i < prefixLists; i++) {
+                IntArrayList list = lists[i];
+                if (list != null) {
+                    int[] elements = list.elements();
+                    for (int j = 0, n = list.size(); j < n; j++) {
+                        shared.addTo(elements[j], 1);
+                    }
+                }
+            }
+
+            PriorityQueue<Hit> top = new PriorityQueue<>(limit + 1, BY_SCORE);
+            for (Int2IntMap.Entry entry : Int2IntMaps.fastIterable(shared)) {
+                int ordinal = entry.getIntKey();
+                if (ids.get(ordinal) == null) {
+                    continue;
+                }
+                int count = entry.getIntValue();
+                for (int i = prefixLists; i < total && count + (total - i) >= required; i++) {
+                    IntArrayList list = lists[i];
+                    if (list != null && Arrays.binarySearch(list.elements(), 0, list.size(), ordinal) >= 0) {
+                        count++;
+                    }
+                }
+                if (count < required) {
+                    continue;
+                }
+                Hit hit = new Hit(ordinal, (double) count / total,
+                        (double) count / (total + trigramCounts.getInt(ordinal) - count));
+                if (top.size() < limit) {
+                    top.add(hit);
+                } else if (BY_SCORE.compare(hit, top.peek()) > 0) {
+                    top.poll();
+                    top.add(hit);
+                }
+            }
+
+            List<UserSuggestionDto> result = new ArrayList<>(top.size());
+            while (!top.isEmpty()) {
+                Hit hit = top.poll();
+                String email = emails.get(hit.ordinal());
+                result.add(new UserSuggestionDto(ids.get(hit.ordinal()), names.get(hit.ordinal()),
+                        email.isEmpty() ? null : email, hit.coverage()));
+            }
+            Collections.reverse(result);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Tamaño estimado del índice en el heap (JVM de 64 bits con compressed oops).
+     * Es una estimación a partir de la capacidad de los arrays, no una medida exacta.
+     */
+    public AutocompleteStatsDto footprint() {
+        lock.readLock().lock();
+        try {
+            long postingEntries = 0;
+            long postingsBytes = 0;
+            for (IntArrayList list : postings.values()) {
+                postingEntries += list.size();
+                // IntArrayList (24) + cabecera del int[] (16) + 4 bytes por hueco reservado
+                postingsBytes += 24 + 16 + 4L * list.elements().length;
+            }
+            // Long2ObjectOpenHashMap: un long[] de claves y un Object[] de valores
+            long dictionaryBytes = 48 + (long) HashCommon.arraySize(postings.size(), 0.75f) * (8 + 4);
+
+            long documentsBytes = 48 + (long) HashCommon.arraySize(ordinalById.size(), 0.75f) * (4 + 4);
+            documentsBytes += 3 * (24 + 16 + 4L * ids.size()) + 16 + 4L * trigramCounts.size();
+            for (int i = 0; i < ids.size(); i++) {
+                documentsBytes += stringBytes(ids.get(i)) + stringBytes(names.get(i)) + stringBytes(emails.get(i));
+            }
+
+            long totalBytes = postingsBytes + dictionaryBytes + documentsBytes;
+            int documents = ordinalById.size();
+            return new AutocompleteStatsDto(true, includeEmail, documents, dead, postings.size(), postingEntries,
+                    postingsBytes, dictionaryBytes, documentsBytes, totalBytes,
+                    documents == 0 ? 0 : totalBytes / documents);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ---------------------------------------------------------------- internos
+
+    private void append(String id, String name, String email) {
+        int ordinal = ids.size();
+        LongOpenHashSet trigrams = new LongOpenHashSet();
+        addDocumentTrigrams(name, trigrams);
+        if (includeEmail) {
+            addDocumentTrigrams(email, trigrams);
+        }
+        trigrams.forEach((long trigram) -> {
+            IntArrayList list = postings.get(trigram);
+            if (list == null) {
+                list = new IntArrayList(4);
+                postings.put(trigram, list);
+            }
+            list.add(ordinal);
+        });
+        ids.add(id);
+        names.add(name);
+        emails.add(email);
+        trigramCounts.add(trigrams.size());
+        ordinalById.put(id, ordinal);
+    }
+
+    private void kill(int ordinal) {
+        ids.set(ordinal, null);
+        dead++;
+    }
+
+    /**
+     * Rehace el índice solo con los documentos vivos: las listas pierden las lápidas y
+     * los ordinales vuelven a ser consecutivos.
+     */
+    private void compactIfNeeded() {
+        if (dead < MIN_DEAD_TO_COMPACT || dead <= ordinalById.size() / 2) {
+            return;
+        }
+        ObjectArrayList<String> oldIds = ids;
+        ObjectArrayList<String> oldNames = names;
+        ObjectArrayList<String> oldEmails = emails;
+        postings = new Long2ObjectOpenHashMap<>();
+        ordinalById = newOrdinalMap();
+        ids = new ObjectArrayList<>(oldIds.size() - dead);
+        names = new ObjectArrayList<>(oldIds.size() - dead);
+        emails = new ObjectArrayList<>(oldIds.size() - dead);
+        trigramCounts = new IntArrayList(oldIds.size() - dead);
+        dead = 0;
+        for (int i = 0; i < oldIds.size(); i++) {
+            if (oldIds.get(i) != null) {
+                append(oldIds.get(i), oldNames.get(i), oldEmails.get(i));
+            }
+        }
+        postings.values().forEach(IntArrayList::trim);
+    }
+
+    private static void addDocumentTrigrams(String text, LongOpenHashSet trigrams) {
+        for (String word : words(text)) {
+            addTrigrams("  " + word + " ", trigrams);
+        }
+    }
+
+    /**
+     * Trigramas distintos de la consulta; cada palabra solo se rellena por delante.
+     */
+    static long[] queryTrigrams(String text) {
+        LongOpenHashSet trigrams = new LongOpenHashSet();
+        for (String word : words(text)) {
+            addTrigrams("  " + word, trigrams);
+        }
+        return trigrams.toLongArray();
+    }
+
+    private static void addTrigrams(String padded, LongOpenHashSet trigrams) {
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(encode(padded.charAt(i), padded.charAt(i + 1), padded.charAt(i + 2)));
+        }
+    }
+
+    /** Tres chars de 16 bits en un long (sin crear un String por trigrama). */
+    static long encode(char a, char b, char c) {
+        return ((long) a << 32) | ((long) b << 16) | c;
+    }
+
+    /**
+     * "José García-Pérez" → ["jose", "garcia", "perez"]
+     */
+    static List<String> words(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String normalized = COMBINING_MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        List<String> words = new ArrayList<>();
+        for (String word : NON_ALPHANUMERIC.split(normalized)) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    private static int lengthOf(IntArrayList list) {
+        return list == null ? 0 : list.size();
+    }
+
+    private static long stringBytes(String value) {
+        // String (24) + byte[] (16 + 1 byte por carácter Latin-1)
+        return value == null ? 0 : 40 + value.length();
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    private static Object2IntOpenHashMap<String> newOrdinalMap() {
+        Object2IntOpenHashMap<String> map = new Object2IntOpenHashMap<>();
+        map.defaultReturnValue(-1);
+        return map;
+    }
+
+    private record Hit(int ordinal, double coverage, double jaccard) {
+    }
+}
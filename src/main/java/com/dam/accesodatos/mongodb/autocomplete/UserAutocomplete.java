@@ -0,0 +1,177 @@
+package com.dam.accesodatos.mongodb.autocomplete;
+
+import com.dam.accesodatos.exception.InvalidQueryException;
+import com.dam.accesodatos.model.AutocompleteStatsDto;
+import com.dam.accesodatos.model.User;
+import com.dam.accesodatos.model.UserSuggestionDto;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Projections;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * AUTOCOMPLETADO DE USUARIOS EN MEMORIA
+ * =====================================
+ * El cuadro de autocompletado de la interfaz llamaba a POST /users/search en cada
+ * tecla, y cada llamada es un regex sin ancla ({ name: /texto/i }) que recorre todo el
+ * índice o la colección. Aquí las sugerencias salen de un TrigramIndex en el heap:
+ * ninguna petición de autocompletado llega a MongoDB y se toleran erratas ("jaun" → "Juan").
+ *
+ * COMPARACIÓN:
+ * POST /users/search {name: "jua"}             | GET /api/autocomplete/users?q=jua
+ * -------------------------------------------- | ------------------------------------------
+ * regex sin ancla en MongoDB (O(n) por tecla)  | listas de trigramas en memoria
+ * coincidencia exacta del fragmento            | coincidencia aproximada con puntuación
+ * siempre al día                               | al día con las escrituras de esta instancia
+ *
+ * CARGA Y MANTENIMIENTO:
+ * - Al arrancar (ApplicationReadyEvent, tras DataInitializer) se recorre la colección con
+ *   un cursor que solo trae name y email.
+ * - Las tres APIs llaman a onSaved()/onDeleted() después de cada escritura, en los
+ *   mismos puntos en que actualizan UserCache y DepartmentStatsStore.
+ * - rebuild() vuelve a cargar todo (POST /api/autocomplete/rebuild), p.ej. tras una
+ *   carga masiva hecha fuera de los servicios o desde otra instancia.
+ *
+ * CONFIGURACIÓN (application.yml):
+ * app.autocomplete.enabled        → mantener el índice (si no, no ocupa memoria)
+ * app.autocomplete.include-email  → indexar también las palabras del email
+ * app.autocomplete.min-similarity → cobertura mínima de trigramas (0..1]
+ * app.autocomplete.max-results    → límite máximo de sugerencias por petición
+ *
+ * NOTA: igual que la caché, solo ve las escrituras de esta instancia; con varias
+ * instancias hay que reconstruir periódicamente o aplicar un change stream.
+ */
+@Component
+public class UserAutocomplete {
+
+    private static final Logger log = LoggerFactory.getLogger(UserAutocomplete.class);
+
+    /** Documentos por getMore al cargar el índice. */
+    private static final int LOAD_BATCH_SIZE = 5000;
+
+    private final boolean enabled;
+    private final double minSimilarity;
+    private final int maxResults;
+    private final TrigramIndex index;
+    private final MongoCollection<Document> usersCollection;
+
+    @Autowired
+    public UserAutocomplete(MongoClient mongoClient,
+            @Value("${spring.data.mongodb.database}") String databaseName,
+            @Value("${app.autocomplete.enabled:true}") boolean enabled,
+            @Value("${app.autocomplete.include-email:false}") boolean includeEmail,
+            @Value("${app.autocomplete.min-similarity:0.5}") double minSimilarity,
+            @Value("${app.autocomplete.max-results:50}") int maxResults) {
+        if (minSimilarity <= 0 || minSimilarity > 1) {
+            throw new IllegalArgumentException("app.autocomplete.min-similarity debe estar en (0, 1]: " + minSimilarity);
+        }
+        this.enabled = enabled;
+        this.minSimilarity = minSimilarity;
+        this.maxResults = maxResults;
+        this.index = new TrigramIndex(includeEmail);
+        this.usersCollection = mongoClient.getDatabase(databaseName).getCollection("users");
+        log.info("Autocompletado de usuarios {} (include-email={}, min-similarity={})",
+                enabled ? "activado" : "desactivado", includeEmail, minSimilarity);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        rebuild();
+    }
+
+    /**
+     * Vacía el índice y lo vuelve a cargar recorriendo la colección.
+     * Equivalente SQL: REINDEX INDEX users_name_trgm.
+     *
+     * @return número de usuarios indexados
+     */
+    public int rebuild() {
+        if (!enabled) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        index.clear();
+        try (MongoCursor<Document> cursor = usersCollection.find()
+                .projection(Projections.include("name", "email"))
+                .batchSize(LOAD_BATCH_SIZE)
+                .cursor()) {
+            while (cursor.hasNext()) {
+                Document doc = cursor.next();
+                index.put(doc.getObjectId("_id").toHexString(), doc.getString("name"), doc.getString("email"));
+            }
+        } catch (Exception e) {
+            log.error("Error al cargar el índice de autocompletado: {}", e.getMessage());
+            throw new RuntimeException("Error al cargar el índice de autocompletado: " + e.getMessage(), e);
+        }
+        int size = index.size();
+        log.info("Índice de autocompletado cargado: {} usuarios en {} ms",
+                size, (System.nanoTime() - start) / 1_000_000);
+        return size;
+    }
+
+    /**
+     * Usuario creado o modificado (si no cambian name ni email no se toca el índice).
+     */
+    public void onSaved(User user) {
+        if (enabled && user != null) {
+            index.put(user.getId(), user.getName(), user.getEmail());
+        }
+    }
+
+    /**
+     * Usuario creado por una ruta que no construye User (insertMany de la API nativa).
+     */
+    public void onSaved(String id, String name, String email) {
+        if (enabled) {
+            index.put(id, name, email);
+        }
+    }
+
+    public void onDeleted(String id) {
+        if (enabled) {
+            index.remove(id);
+        }
+    }
+
+    /**
+     * Sugerencias para el texto tecleado, de más a menos parecidas.
+     *
+     * @throws InvalidQueryException si q está vacío o limit no está en [1, max-results]
+     */
+    public List<UserSuggestionDto> suggest(String q, int limit) {
+        if (q == null || q.isBlank()) {
+            throw new InvalidQueryException("q", "El texto a autocompletar no puede estar vacío");
+        }
+        if (limit < 1 || limit > maxResults) {
+            throw new InvalidQueryException("limit", "limit debe estar entre 1 y " + maxResults);
+        }
+        if (!enabled) {
+            return List.of();
+        }
+        return index.search(q, limit, minSimilarity);
+    }
+
+    /**
+     * Tamaño del índice y memoria estimada.
+     */
+    public AutocompleteStatsDto stats() {
+        if (!enabled) {
+            return new AutocompleteStatsDto(false, false, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+        }
+        return index.footprint();
+    }
+}
@@ -0,0 +1,122 @@
+package com.dam.accesodatos.mongodb.batch;
+
+import com.dam.accesodatos.exception.InvalidQueryException;
+import com.dam.accesodatos.model.BatchGetItemDto;
+import com.dam.accesodatos.model.BatchGetResultDto;
+import com.dam.accesodatos.model.User;
+import org.bson.types.ObjectId;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * LECTURA DE USUARIOS EN BLOQUE (MULTI-GET)
+ * =========================================
+ * Resuelve una lista de IDs con una sola consulta $in en lugar de una llamada a
+ * findUserById() por ID: N round trips se convierten en uno.
+ *
+ * COMPARACIÓN:
+ * MongoDB                                         | SQL / JPA
+ * ----------------------------------------------- | ------------------------------------------
+ * find({_id: {$in: [id1, id2, ...]}})  (nativa)   | SELECT * FROM users WHERE id IN (?, ?, ...)
+ * userRepository.findAllById(ids)      (SD)       | userRepository.findAllById(ids) (JPA)
+ * N x find({_id: id}).first()                     | N x SELECT ... WHERE id = ? (problema N+1)
+ *
+ * $in no garantiza ningún orden ni informa de los IDs que faltan, así que el resultado
+ * se reconstruye aquí: un elemento por ID de entrada, en el mismo orden, con estado
+ * FOUND, NOT_FOUND o INVALID_ID. Un ID mal formado se informa en su fila en vez de
+ * rechazar la petición entera (findUserById lanza InvalidUserIdException).
+ * Los IDs repetidos se consultan una sola vez y aparecen en cada una de sus posiciones.
+ *
+ * Uso desde los servicios:
+ *   UserBatchGet batch = UserBatchGet.of(ids);
+ *   ... batch.found(user) con los aciertos de caché y con lo que devuelva el $in de
+ *   batch.pendingIds() ...
+ *   return batch.result();
+ */
+public final class UserBatchGet {
+
+    /** Máximo de IDs por petición: acota el tamaño del $in y de la respuesta. */
+    public static final int MAX_IDS = 1000;
+
+    private final List<String> ids;
+    private final Map<String, User> found = new HashMap<>();
+
+    private UserBatchGet(List<String> ids) {
+        this.ids = ids;
+    }
+
+    /**
+     * @param ids IDs en el orden en que se quieren los resultados
+     * @throws InvalidQueryException si la lista es null o supera MAX_IDS
+     */
+    public static UserBatchGet of(Collection<String> ids) {
+        if (ids == null) {
+            throw new InvalidQueryException("ids", "La lista de IDs es obligatoria");
+        }
+        if (ids.size() > MAX_IDS) {
+            throw new InvalidQueryException("ids",
+                    "Demasiados IDs: " + ids.size() + " (máximo " + MAX_IDS + " por petición)");
+        }
+        return new UserBatchGet(new ArrayList<>(ids));
+    }
+
+    /**
+     * IDs válidos, sin repetir, que aún no tienen usuario (hex en minúsculas).
+     */
+    public Set<String> pendingIds() {
+        Set<String> pending = new LinkedHashSet<>();
+        for (String id : ids) {
+            if (isValid(id) && !found.containsKey(key(id))) {
+                pending.add(key(id));
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * pendingIds() como ObjectId, para Filters.in("_id", ...) del driver nativo.
+     */
+    public List<ObjectId> pendingObjectIds() {
+        return pendingIds().stream().map(ObjectId::new).toList();
+    }
+
+    /**
+     * Registra un usuario devuelto por la caché o por MongoDB.
+     */
+    public void found(User user) {
+        found.put(user.getId(), user);
+    }
+
+    /**
+     * Un elemento por ID de entrada, en el mismo orden.
+     */
+    public BatchGetResultDto result() {
+        List<BatchGetItemDto> items = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            String id = ids.get(i);
+            if (!isValid(id)) {
+                items.add(BatchGetItemDto.invalidId(i, id));
+            } else if (found.containsKey(key(id))) {
+                items.add(BatchGetItemDto.found(i, id, found.get(key(id))));
+            } else {
+                items.add(BatchGetItemDto.notFound(i, id));
+            }
+        }
+        return new BatchGetResultDto(items);
+    }
+
+    private static boolean isValid(String id) {
+        return id != null && ObjectId.isValid(id);
+    }
+
+    /** Hex en minúsculas, como lo devuelve User.getId(): "ABC..." y "abc..." son el mismo ID. */
+    private static String key(String id) {
+        return new ObjectId(id).toHexString();
+    }
+}
@@ -0,0 +1,284 @@
+package com.dam.accesodatos.mongodb.batch;
+
+import com.dam.accesodatos.exception.InvalidUserIdException;
+import com.dam.accesodatos.exception.UserNotFoundException;
+import com.dam.accesodatos.model.User;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * AGRUPACIÓN DE LECTURAS POR ID (DATALOADER)
+ * ==========================================
+ * Con mucha carga llegan cientos de findUserById() con IDs distintos en el mismo
+ * milisegundo, y cada uno ocupa una conexión del pool y hace su propio round trip.
+ * El coalescer junta los IDs que llegan dentro de una ventana corta (o hasta llenar un
+ * lote), los resuelve con una sola consulta $in y completa el futuro de cada llamante.
+ *
+ * COMPARACIÓN:
+ * Sin agrupar                                  | Agrupando (ventana de 2ms)
+ * -------------------------------------------- | ------------------------------------------
+ * 100 x find({_id: id}).first()                | 1 x find({_id: {$in: [id1 ... id100]}})
+ * 100 conexiones del pool a la vez             | 1 conexión
+ * SQL: 100 x SELECT ... WHERE id = ?           | SQL: SELECT ... WHERE id IN (?, ..., ?)
+ * Mismo patrón que DataLoader (GraphQL) o el batch fetching de Hibernate (@BatchSize).
+ *
+ * FUNCIONAMIENTO:
+ * - El primer ID de un lote programa su envío para dentro de "window".
+ * - Si el lote llega a max-batch-size antes, lo envía el hilo que lo ha llenado.
+ * - El envío por ventana se hace en un hilo virtual: el temporizador solo dispara y no
+ *   espera a MongoDB, así un lote lento no retrasa el siguiente.
+ * - Cada llamante espera a su futuro: recibe su usuario, UserNotFoundException si el
+ *   $in no lo devolvió, o la misma excepción que la consulta si falló el lote entero.
+ *
+ * El precio es latencia: una lectura aislada espera hasta "window" antes de salir. Por
+ * eso viene desactivado y la ventana es de milisegundos; compensa cuando hay bastantes
+ * lecturas concurrentes como para llenar lotes (ver UserLookupBenchmark).
+ *
+ * Cada API registra su propio Batcher con su consulta (driver nativo o Spring Data);
+ * el coalescer solo aporta la configuración, los hilos y las métricas. Se coloca
+ * detrás de UserCache: solo los fallos de caché llegan a un lote.
+ *
+ * HILOS VIRTUALES:
+ * Se usa ReentrantLock y no synchronized para no anclar (pinning) el hilo virtual del
+ * llamante mientras espera al lock.
+ *
+ * CONFIGURACIÓN (application.yml):
+ * app.lookup.coalesce.enabled         → activar/desactivar (por defecto false)
+ * app.lookup.coalesce.window          → cuánto espera un lote a llenarse (p.ej. 2ms)
+ * app.lookup.coalesce.max-batch-size  → IDs por consulta $in como máximo
+ *
+ * MÉTRICAS: users.lookup.batch.size{api} en /actuator/metrics (count = consultas,
+ * total = IDs resueltos, mean = IDs por consulta).
+ */
+@Component
+public class UserLookupCoalescer {
+
+    private static final Logger log = LoggerFactory.getLogger(UserLookupCoalescer.class);
+
+    private final boolean enabled;
+    private final Duration window;
+    private final int maxBatchSize;
+    private final MeterRegistry meterRegistry;
+
+    private final ScheduledExecutorService timer;
+    private final ExecutorService dispatcher;
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    @Autowired
+    public UserLookupCoalescer(@Value("${app.lookup.coalesce.enabled:false}") boolean enabled,
+            @Value("${app.lookup.coalesce.window:2ms}") Duration window,
+            @Value("${app.lookup.coalesce.max-batch-size:100}") int maxBatchSize,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        this(enabled, window, maxBatchSize, meterRegistry.getIfAvailable());
+        log.info("Agrupación de findUserById {} (window={}, max-batch-size={})",
+                enabled ? "activada" : "desactivada", window, maxBatchSize);
+    }
+
+    /**
+     * Constructor para tests (meterRegistry puede ser null).
+     */
+    UserLookupCoalescer(boolean enabled, Duration window, int maxBatchSize, MeterRegistry meterRegistry) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("app.lookup.coalesce.max-batch-size debe ser >= 1: " + maxBatchSize);
+        }
+        this.enabled = enabled;
+        this.window = window;
+        this.maxBatchSize = maxBatchSize;
+        this.meterRegistry = meterRegistry;
+        this.timer = enabled
+                ? Executors.newSingleThreadScheduledExecutor(
+                        Thread.ofPlatform().daemon().name("users-lookup-coalescer").factory())
+                : null;
+        this.dispatcher = enabled ? Executors.newVirtualThreadPerTaskExecutor() : null;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Crea el agrupador de una API.
+     *
+     * @param api         nombre de la API para las métricas (native, springdata)
+     * @param batchLoader consulta $in: recibe IDs hex distintos y devuelve los usuarios
+     *                    que existen, en cualquier orden
+     * @throws IllegalStateException si la agrupación está desactivada
+     */
+    public Batcher batcher(String api, Function<List<String>, List<User>> batchLoader) {
+        if (!enabled) {
+            throw new IllegalStateException("app.lookup.coalesce.enabled=false: no se agrupan lecturas");
+        }
+        DistributionSummary batchSize = meterRegistry == null ? null
+                : DistributionSummary.builder("users.lookup.batch.size")
+                        .description("IDs resueltos por cada consulta $in de findUserById")
+                        .tag("api", api)
+                        .register(meterRegistry);
+        return new Batcher(api, batchLoader, batchSize);
+    }
+
+    /** findUserById() que han pasado por algún lote desde el arranque. */
+    public long lookups() {
+        return lookups.sum();
+    }
+
+    /** Consultas $in enviadas desde el arranque. */
+    public long batches() {
+        return batches.sum();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (timer != null) {
+            timer.shutdownNow();
+            dispatcher.shutdown();
+        }
+    }
+
+    /**
+     * Agrupador de una API: findUserById() llama a load() en lugar de a su consulta por ID.
+     */
+    public final class Batcher {
+
+        private final String api;
+        private final Function<List<String>, List<User>> batchLoader;
+        private final DistributionSummary batchSize;
+
+        private final ReentrantLock lock = new ReentrantLock();
+        /** Lote que se está llenando (null si no hay ninguno): ID → futuros que lo esperan. */
+        private Map<String, List<CompletableFuture<User>>> current;
+        private int currentSize;
+
+        private Batcher(String api, Function<List<String>, List<User>> batchLoader, DistributionSummary batchSize) {
+            this.api = api;
+            this.batchLoader = batchLoader;
+            this.batchSize = batchSize;
+        }
+
+        /**
+         * Busca un usuario dentro del siguiente lote y espera a que se resuelva.
+         *
+         * @throws InvalidUserIdException si id no es un ObjectId válido (no entra en el lote)
+         * @throws UserNotFoundException  si no existe
+         */
+        public User load(String id) {
+            if (id == null || !ObjectId.isValid(id)) {
+                throw new InvalidUserIdException(id);
+            }
+            String key = new ObjectId(id).toHexString();
+            CompletableFuture<User> future = new CompletableFuture<>();
+            Map<String, List<CompletableFuture<User>>> full = null;
+
+            lock.lock();
+            try {
+                if (current == null) {
+                    Map<String, List<CompletableFuture<User>>> batch = new LinkedHashMap<>();
+                    current = batch;
+                    currentSize = 0;
+                    timer.schedule(() -> flush(batch), window.toNanos(), TimeUnit.NANOSECONDS);
+                }
+                current.computeIfAbsent(key, k -> new ArrayList<>(1)).add(future);
+                currentSize++;
+                if (currentSize >= maxBatchSize) {
+                    full = current;
+                    current = null;
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (full != null) {
+                // Lote lleno: lo envía este hilo, que de todos modos iba a esperar
+                dispatch(full);
+            }
+            return await(future, id);
+        }
+
+        /**
+         * Disparado por el temporizador al acabar la ventana. Si el lote ya se envió por
+         * estar lleno, no hace nada.
+         */
+        private void flush(Map<String, List<CompletableFuture<User>>> batch) {
+            lock.lock();
+            try {
+                if (current != batch) {
+                    return;
+                }
+                current = null;
+            } finally {
+                lock.unlock();
+            }
+            dispatcher.execute(() -> dispatch(batch));
+        }
+
+        private void dispatch(Map<String, List<CompletableFuture<User>>> batch) {
+            List<String> ids = new ArrayList<>(batch.keySet());
+            int waiting = batch.values().stream().mapToInt(List::size).sum();
+            lookups.add(waiting);
+            batches.increment();
+            if (batchSize != null) {
+                batchSize.record(ids.size());
+            }
+            log.debug("Lote findUserById ({}): {} IDs para {} llamadas", api, ids.size(), waiting);
+
+            Map<String, User> found = new HashMap<>();
+            try {
+                for (User user : batchLoader.apply(ids)) {
+                    found.put(user.getId(), user);
+                }
+            } catch (RuntimeException e) {
+                batch.values().forEach(futures -> futures.forEach(f -> f.completeExceptionally(e)));
+                return;
+            }
+            batch.forEach((id, futures) -> {
+                User user = found.get(id);
+                for (int i = 0; i < futures.size(); i++) {
+                    // User es mutable: cada llamante repetido recibe su propia copia
+                    futures.get(i).complete(user == null || i == 0 ? user : user.copy());
+                }
+            });
+        }
+    }
+
+    private static User await(CompletableFuture<User> future, String id) {
+        User user;
+        try {
+            user = future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        if (user == null) {
+            log.warn("Usuario no encontrado con ID: {}", id);
+            throw new UserNotFoundException(id);
+        }
+        return user;
+    }
+}
@@ -0,0 +1,216 @@
+package com.dam.accesodatos.mongodb.cache;
+
+import com.dam.accesodatos.model.CacheStatsDto;
+import com.dam.accesodatos.model.User;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * CACHÉ DE LECTURA DE USUARIOS (READ-THROUGH)
+ * ===========================================
+ * Caché en memoria, acotada por tamaño y por tiempo, para findUserById().
+ * La comparten NativeMongoUserService y SpringDataUserService: ambos leen y escriben
+ * la misma colección "users", así que una escritura por cualquiera de los dos caminos
+ * invalida la entrada para los dos.
+ *
+ * COMPARACIÓN:
+ * Sin caché                              | Con caché
+ * -------------------------------------- | --------------------------------------
+ * findUserById → MongoDB (1 round trip)  | 1ª vez: MongoDB + guardar en memoria
+ *                                        | siguientes: memoria (sin red)
+ * Equivalente JPA: em.find() sin L2      | Equivalente JPA: caché de 2º nivel (Ehcache)
+ *
+ * POLÍTICA DE ESCRITURA:
+ * - createUser: se guarda el usuario recién creado (su _id es nuevo, no hay carrera)
+ * - updateUser / deleteUser: se invalida la entrada y la siguiente lectura la recarga.
+ *   Invalidar en vez de sobrescribir evita que dos updates concurrentes dejen en
+ *   caché la versión más antigua si sus put() llegan desordenados.
+ *
+ * Cada clave se carga una sola vez aunque lleguen varias lecturas a la vez: la primera
+ * guarda un CompletableFuture y las demás esperan a ese mismo resultado. Si una
+ * invalidación llega durante la carga, el futuro se retira del mapa y su resultado ya
+ * no se guarda, así que no se puede quedar cacheada una lectura previa al update.
+ *
+ * HILOS VIRTUALES:
+ * Con Cache.get(key, loader) Caffeine ejecuta el loader dentro de
+ * ConcurrentHashMap.compute(), que bloquea el nodo con synchronized: una consulta a
+ * MongoDB ahí dentro "ancla" (pinning) el hilo virtual a su hilo portador. Por eso se
+ * usa AsyncCache: dentro del compute solo se registra el futuro, y la consulta se hace
+ * después, fuera del bloqueo, en el hilo que llamó (esperar a un futuro no ancla).
+ *
+ * La clave es el ObjectId (12 bytes) y no el String hex (24 caracteres). Los IDs que no
+ * son ObjectId válidos no pasan por la caché: el loader decide qué excepción lanzar.
+ * Los "no encontrado" no se cachean (el loader lanza excepción).
+ *
+ * CONFIGURACIÓN (application.yml):
+ * app.cache.user.enabled   → activar/desactivar (por defecto false)
+ * app.cache.user.max-size  → número máximo de usuarios en memoria
+ * app.cache.user.ttl       → tiempo de vida desde que se cargó (p.ej. 5m)
+ *
+ * NOTA: con varias instancias de la aplicación, una escritura en otra instancia no
+ * invalida esta caché; las entradas pueden quedar obsoletas hasta que expire el TTL.
+ * UserChangeStreamListener (app.cache.user.change-stream.enabled) lo resuelve
+ * aplicando los cambios de la colección que llegan por un change stream.
+ */
+@Component
+public class UserCache {
+
+    private static final Logger log = LoggerFactory.getLogger(UserCache.class);
+
+    private final boolean enabled;
+    private final AsyncCache<ObjectId, User> asyncCache;
+    /** Vista síncrona de asyncCache (invalidación, estadísticas y métricas). */
+    private final Cache<ObjectId, User> cache;
+
+    @Autowired
+    public UserCache(@Value("${app.cache.user.enabled:false}") boolean enabled,
+            @Value("${app.cache.user.max-size:10000}") long maxSize,
+            @Value("${app.cache.user.ttl:5m}") Duration ttl,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        this(enabled, maxSize, ttl, Ticker.systemTicker());
+        // Expone cache.gets{result=hit|miss}, cache.evictions, cache.size... en /actuator/metrics
+        meterRegistry.ifAvailable(registry -> CaffeineCacheMetrics.monitor(registry, cache, "users"));
+        log.info("Caché de usuarios {} (max-size={}, ttl={})",
+                enabled ? "activada" : "desactivada", maxSize, ttl);
+    }
+
+    /**
+     * Constructor para tests: permite simular el paso del tiempo con un Ticker propio.
+     */
+    UserCache(boolean enabled, long maxSize, Duration ttl, Ticker ticker) {
+        this.enabled = enabled;
+        this.asyncCache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .ticker(ticker)
+                .recordStats()
+                .buildAsync();
+        this.cache = asyncCache.synchronous();
+    }
+
+    /**
+     * Devuelve el usuario de la caché o lo carga con el loader y lo guarda.
+     *
+     * @param id     ID del usuario (hex de 24 caracteres)
+     * @param loader consulta a MongoDB; sus excepciones se propagan sin cachear nada
+     */
+    public User get(String id, Function<String, User> loader) {
+        if (!enabled || id == null || !ObjectId.isValid(id)) {
+            return loader.apply(id);
+        }
+        CompletableFuture<User> loading = new CompletableFuture<>();
+        CompletableFuture<User> future = asyncCache.get(new ObjectId(id), (key, executor) -> loading);
+        if (future == loading) {
+            // Esta llamada registró el futuro: carga fuera del compute de Caffeine
+            try {
+                loading.complete(loader.apply(id));
+            } catch (RuntimeException e) {
+                // Un futuro fallido se retira solo de la caché: no se cachea el error
+                loading.completeExceptionally(e);
+                throw e;
+            }
+        }
+        return join(future).copy();
+    }
+
+    /**
+     * Devuelve una copia del usuario si está cacheado, sin cargarlo (null si no está).
+     * La usan el servicio reactivo, que no puede bloquear su hilo esperando al loader,
+     * y findUsersByIds(), que consulta con un solo $in los IDs que no estén aquí.
+     */
+    public User getIfPresent(String id) {
+        if (!enabled || id == null || !ObjectId.isValid(id)) {
+            return null;
+        }
+        CompletableFuture<User> future = asyncCache.getIfPresent(new ObjectId(id));
+        // Una carga aún en curso cuenta como ausente: el llamante no debe esperarla
+        if (future == null || !future.isDone() || future.isCompletedExceptionally()) {
+            return null;
+        }
+        return future.join().copy();
+    }
+
+    /**
+     * Guarda un usuario recién creado.
+     */
+    public void put(User user) {
+        if (enabled && user != null && user.getId() != null && ObjectId.isValid(user.getId())) {
+            asyncCache.put(new ObjectId(user.getId()), CompletableFuture.completedFuture(user.copy()));
+        }
+    }
+
+    /**
+     * Sustituye la entrada solo si el usuario ya estaba cacheado (no carga usuarios nuevos).
+     * Lo usa UserChangeStreamListener para refrescar lo que otras instancias modifican.
+     */
+    public void replaceIfPresent(User user) {
+        if (enabled && user != null && user.getId() != null && ObjectId.isValid(user.getId())) {
+            ObjectId key = new ObjectId(user.getId());
+            CompletableFuture<User> current = asyncCache.getIfPresent(key);
+            if (current != null && current.isDone()) {
+                // replace(key, old, new): no pisa una invalidación o carga posterior
+                asyncCache.asMap().replace(key, current, CompletableFuture.completedFuture(user.copy()));
+            }
+        }
+    }
+
+    /**
+     * Elimina la entrada de un usuario modificado o borrado.
+     */
+    public void invalidate(String id) {
+        if (enabled && id != null && ObjectId.isValid(id)) {
+            cache.invalidate(new ObjectId(id));
+        }
+    }
+
+    /**
+     * Vacía la caché (p.ej. tras escrituras masivas fuera de los servicios).
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Contadores acumulados desde el arranque: aciertos, fallos y expulsiones.
+     */
+    public CacheStatsDto stats() {
+        CacheStats stats = cache.stats();
+        return new CacheStatsDto(enabled, cache.estimatedSize(),
+                stats.hitCount(), stats.missCount(), stats.evictionCount(), stats.hitRate());
+    }
+
+    /**
+     * Espera el resultado de una carga; si falló relanza la excepción original del loader.
+     */
+    private static User join(CompletableFuture<User> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
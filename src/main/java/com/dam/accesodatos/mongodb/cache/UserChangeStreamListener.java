@@ -0,0 +1,270 @@
+package com.dam.accesodatos.mongodb.cache;
+
+import com.dam.accesodatos.model.User;
+import com.dam.accesodatos.mongodb.nativeapi.UserCodec;
+import com.mongodb.MongoException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import org.bson.BsonDateTime;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * COHERENCIA DE LA CACHÉ ENTRE INSTANCIAS (CHANGE STREAMS)
+ * ========================================================
+ * Con varias instancias de la aplicación detrás de un balanceador, cada una tiene su
+ * propia UserCache. Este componente abre un change stream sobre "users" y aplica a la
+ * caché local los cambios hechos por CUALQUIER instancia (incluida esta).
+ *
+ * COMPARACIÓN:
+ * MongoDB (change stream)                     | SQL
+ * ------------------------------------------- | -------------------------------------------
+ * collection.watch()                          | LISTEN/NOTIFY (PostgreSQL), CDC (Debezium)
+ * Lee el oplog del replica set                | Lee el WAL / binlog
+ * resumeAfter(token): continúa donde se quedó | Posición LSN / binlog offset
+ *
+ * CÓMO SE APLICA CADA EVENTO:
+ * - insert             → se guarda en caché (documento completo)
+ * - update / replace   → se refresca SOLO si ya estaba cacheado (FullDocument.UPDATE_LOOKUP
+ *                        trae el documento actual); no se llena la caché con usuarios que
+ *                        nadie ha leído
+ * - delete             → se invalida la entrada
+ * - drop / rename / invalidate → se vacía la caché entera
+ *
+ * TOKEN DE REANUDACIÓN:
+ * Cada evento trae un resume token. Se guarda en la colección "cache_resume_tokens"
+ * (un documento por instancia, _id = app.cache.user.change-stream.node-id) como mucho
+ * una vez por segundo y al parar. Tras un corte de red o un reinicio el stream se reabre
+ * con resumeAfter(token) y no se pierde ningún cambio intermedio. Si el oplog ya no
+ * contiene esa posición (error ChangeStreamHistoryLost) se vacía la caché y se empieza
+ * desde el momento actual.
+ *
+ * REQUISITOS:
+ * - Los change streams solo existen en replica sets (o clusters sharded). Con el MongoDB
+ *   embebido hay que arrancarlo como replica set de un nodo:
+ *   de.flapdoodle.mongodb.embedded.storage.repl-set-name: rs0
+ * - Se activa con app.cache.user.change-stream.enabled=true (y la caché activada)
+ *
+ * El stream se consume en un hilo propio ("user-change-stream") con tryNext(), que espera
+ * como mucho maxAwaitTime y permite comprobar periódicamente si hay que parar.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.cache.user.change-stream", name = "enabled", havingValue = "true")
+public class UserChangeStreamListener implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(UserChangeStreamListener.class);
+
+    static final String TOKENS_COLLECTION = "cache_resume_tokens";
+
+    /** Error del servidor cuando el resume token ya no está en el oplog. */
+    private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+
+    private static final long MAX_AWAIT_MILLIS = 1000;
+    private static final long TOKEN_SAVE_INTERVAL_MILLIS = 1000;
+    private static final long MAX_RETRY_DELAY_MILLIS = 30_000;
+
+    private final UserCache userCache;
+    private final MongoCollection<User> userCollection;
+    private final MongoCollection<BsonDocument> tokenCollection;
+    private final String nodeId;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    private volatile BsonDocument resumeToken;
+    private long lastTokenSave;
+
+    @Autowired
+    public UserChangeStreamListener(MongoClient mongoClient,
+            @Value("${spring.data.mongodb.database}") String databaseName,
+            UserCache userCache,
+            @Value("${app.cache.user.change-stream.node-id:local}") String nodeId) {
+        this.userCache = userCache;
+        this.nodeId = nodeId;
+
+        MongoDatabase database = mongoClient.getDatabase(databaseName);
+        this.userCollection = database.getCollection("users", User.class)
+                .withCodecRegistry(CodecRegistries.fromRegistries(
+                        CodecRegistries.fromCodecs(new UserCodec()),
+                        database.getCodecRegistry()));
+        this.tokenCollection = database.getCollection(TOKENS_COLLECTION, BsonDocument.class);
+    }
+
+    @Override
+    public void start() {
+        if (!userCache.isEnabled()) {
+            log.warn("Change stream de usuarios activado con la caché desactivada: no tendrá efecto");
+        }
+        resumeToken = loadResumeToken();
+        running = true;
+        worker = new Thread(this::run, "user-change-stream");
+        worker.setDaemon(true);
+        worker.start();
+        log.info("Change stream de usuarios iniciado (nodo {}, {})", nodeId,
+                resumeToken != null ? "reanudando desde token guardado" : "sin token previo");
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            try {
+                worker.join(MAX_AWAIT_MILLIS * 2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        saveResumeToken();
+        log.info("Change stream de usuarios detenido");
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Bucle del hilo: abre el stream, consume eventos y lo reabre con backoff si falla.
+     */
+    private void run() {
+        long retryDelay = MAX_AWAIT_MILLIS;
+        while (running) {
+            try (MongoChangeStreamCursor<ChangeStreamDocument<User>> cursor = openCursor()) {
+                retryDelay = MAX_AWAIT_MILLIS;
+                while (running) {
+                    ChangeStreamDocument<User> change = cursor.tryNext();
+                    if (change != null) {
+                        apply(userCache, change.getOperationType(), change.getDocumentKey(), change.getFullDocument());
+                        if (change.getOperationType() == OperationType.INVALIDATE) {
+                            // Tras invalidate el stream se cierra y su token ya no sirve para resumeAfter
+                            resumeToken = null;
+                            break;
+                        }
+                    }
+                    // Sin eventos el cursor también avanza su token (post-batch resume token)
+                    if (cursor.getResumeToken() != null) {
+                        resumeToken = cursor.getResumeToken();
+                    }
+                    saveResumeTokenThrottled();
+                }
+            } catch (MongoException e) {
+                if (!running) {
+                    break;
+                }
+                if (e.getCode() == CHANGE_STREAM_HISTORY_LOST) {
+                    log.warn("El oplog ya no contiene el token de reanudación: se vacía la caché");
+                    userCache.invalidateAll();
+                    resumeToken = null;
+                    saveResumeToken();
+                } else {
+                    log.warn("Error en el change stream de usuarios, reintento en {} ms: {}", retryDelay, e.getMessage());
+                    sleep(retryDelay);
+                    retryDelay = Math.min(retryDelay * 2, MAX_RETRY_DELAY_MILLIS);
+                }
+            } catch (RuntimeException e) {
+                log.error("Error inesperado en el change stream de usuarios: {}", e.getMessage(), e);
+                sleep(retryDelay);
+                retryDelay = Math.min(retryDelay * 2, MAX_RETRY_DELAY_MILLIS);
+            }
+        }
+    }
+
+    private MongoChangeStreamCursor<ChangeStreamDocument<User>> openCursor() {
+        ChangeStreamIterable<User> stream = userCollection.watch()
+                .fullDocument(FullDocument.UPDATE_LOOKUP)
+                .maxAwaitTime(MAX_AWAIT_MILLIS, TimeUnit.MILLISECONDS);
+        if (resumeToken != null) {
+            stream = stream.resumeAfter(resumeToken);
+        }
+        return stream.cursor();
+    }
+
+    /**
+     * Aplica un evento del change stream a la caché.
+     *
+     * @param documentKey  { _id: ObjectId } del documento afectado (null en drop/rename)
+     * @param fullDocument documento tras el cambio (null en delete, o si ya fue borrado
+     *                     cuando se hizo el lookup de un update)
+     */
+    static void apply(UserCache cache, OperationType type, BsonDocument documentKey, User fullDocument) {
+        switch (type) {
+            case INSERT -> cache.put(fullDocument);
+            case UPDATE, REPLACE -> {
+                if (fullDocument != null) {
+                    cache.replaceIfPresent(fullDocument);
+                } else {
+                    cache.invalidate(idOf(documentKey));
+                }
+            }
+            case DELETE -> cache.invalidate(idOf(documentKey));
+            case DROP, RENAME, DROP_DATABASE, INVALIDATE -> cache.invalidateAll();
+            default -> log.debug("Evento de change stream ignorado: {}", type);
+        }
+    }
+
+    private static String idOf(BsonDocument documentKey) {
+        if (documentKey == null || !documentKey.isObjectId("_id")) {
+            return null;
+        }
+        return documentKey.getObjectId("_id").getValue().toHexString();
+    }
+
+    private BsonDocument loadResumeToken() {
+        try {
+            BsonDocument stored = tokenCollection.find(Filters.eq("_id", nodeId)).first();
+            return stored != null && stored.isDocument("token") ? stored.getDocument("token") : null;
+        } catch (MongoException e) {
+            log.warn("No se pudo leer el token de reanudación: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void saveResumeTokenThrottled() {
+        long now = System.currentTimeMillis();
+        if (now - lastTokenSave >= TOKEN_SAVE_INTERVAL_MILLIS) {
+            saveResumeToken();
+            lastTokenSave = now;
+        }
+    }
+
+    private void saveResumeToken() {
+        try {
+            if (resumeToken == null) {
+                tokenCollection.deleteOne(Filters.eq("_id", nodeId));
+                return;
+            }
+            BsonDocument doc = new BsonDocument("_id", new BsonString(nodeId))
+                    .append("token", resumeToken)
+                    .append("updatedAt", new BsonDateTime(System.currentTimeMillis()));
+            tokenCollection.replaceOne(Filters.eq("_id", nodeId), doc, new ReplaceOptions().upsert(true));
+        } catch (MongoException e) {
+            log.warn("No se pudo guardar el token de reanudación: {}", e.getMessage());
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
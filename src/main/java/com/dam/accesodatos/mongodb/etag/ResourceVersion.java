@@ -0,0 +1,116 @@
+package com.dam.accesodatos.mongodb.etag;
+
+import com.dam.accesodatos.model.DepartmentStatsDto;
+import com.dam.accesodatos.model.User;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeSet;
+
+/**
+ * VERSIÓN DE UN RECURSO PARA GET CONDICIONALES (ETag / Last-Modified)
+ * ===================================================================
+ * Un cliente que ya tiene un usuario o un listado lo vuelve a pedir con If-None-Match
+ * (ETag) o If-Modified-Since (Last-Modified). Si la versión no ha cambiado el
+ * controlador responde 304 sin cuerpo: no se lee el documento completo, no se decodifica
+ * a User y no se serializa a JSON.
+ *
+ * La versión sale de updatedAt, que todas las escrituras mantienen:
+ * Recurso                       | Versión                         | Cómo se obtiene
+ * ----------------------------- | ------------------------------- | ------------------------------------
+ * GET /users/{id}               | updatedAt del usuario           | UserCache o proyección {updatedAt: 1}
+ * GET /users/department/{dep}   | nº de usuarios + último         | con If-None-Match: count + find()
+ *                               | updatedAt del departamento      | .sort({updatedAt: -1}).limit(1) sobre
+ *                               |                                 | department_1_updatedAt_-1; en un 200,
+ *                               |                                 | de la propia lista
+ * GET /stats/departments        | contenido de las estadísticas   | hash de la lista (ya es barata de leer)
+ *
+ * En SQL sería: SELECT updated_at FROM users WHERE id = ? en lugar de SELECT *.
+ *
+ * El número de usuarios entra en la versión del departamento porque un borrado no deja
+ * ningún updatedAt más reciente. Los ETag son débiles (W/): dos cuerpos con la misma
+ * versión son equivalentes, no necesariamente idénticos byte a byte.
+ *
+ * Last-Modified solo se envía para un usuario. En un listado el último updatedAt no cambia
+ * al borrar un usuario o moverlo a otro departamento, así que If-Modified-Since daría 304
+ * con una lista obsoleta: los listados solo llevan ETag (que incluye el número de usuarios).
+ * Last-Modified tiene precisión de segundos (formato de fecha HTTP); el ETag lleva
+ * milisegundos, y cuando el cliente envía ambos Spring solo mira If-None-Match.
+ *
+ * @param count       usuarios que forman el recurso (1 para un usuario)
+ * @param lastUpdated updatedAt más reciente; null si no se conoce o no hay usuarios
+ */
+public record ResourceVersion(long count, LocalDateTime lastUpdated) {
+
+    /** La misma zona con la que UserCodec y Spring Data convierten fechas a BSON. */
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    public static ResourceVersion of(User user) {
+        return new ResourceVersion(1, user.getUpdatedAt());
+    }
+
+    /**
+     * Versión de un listado ya leído: la misma que findDepartmentVersion() si la lista
+     * trae updatedAt (sin proyección que lo quite). Si falta en algún usuario no se conoce.
+     */
+    public static ResourceVersion of(List<User> users) {
+        LocalDateTime latest = null;
+        for (User user : users) {
+            if (user.getUpdatedAt() == null) {
+                return new ResourceVersion(users.size(), null);
+            }
+            if (latest == null || user.getUpdatedAt().isAfter(latest)) {
+                latest = user.getUpdatedAt();
+            }
+        }
+        return new ResourceVersion(users.size(), latest);
+    }
+
+    /**
+     * ETag débil de la versión. variant distingue representaciones del mismo recurso
+     * (p.ej. los fields de la proyección); el orden de los campos no importa.
+     *
+     * @return null si no hay fecha con la que versionar (usuario sin updatedAt)
+     */
+    public String etag(List<String> variant) {
+        if (lastUpdated == null && count > 0) {
+            return null;
+        }
+        String tag = count + "-" + Long.toHexString(Math.max(lastModified(), 0));
+        if (variant != null && !variant.isEmpty()) {
+            TreeSet<String> distinct = new TreeSet<>();
+            variant.stream().map(String::trim).forEach(distinct::add);
+            tag += "-" + Integer.toHexString(distinct.hashCode());
+        }
+        return weak(tag);
+    }
+
+    public String etag() {
+        return etag(null);
+    }
+
+    /**
+     * updatedAt en milisegundos epoch, o -1 si no se conoce (Spring ignora entonces
+     * If-Modified-Since).
+     */
+    public long lastModified() {
+        return lastUpdated == null ? -1 : lastUpdated.atZone(ZONE).toInstant().toEpochMilli();
+    }
+
+    /**
+     * ETag de las estadísticas por departamento a partir de su contenido.
+     */
+    public static String etagOf(List<DepartmentStatsDto> stats) {
+        int hash = 1;
+        for (DepartmentStatsDto s : stats) {
+            hash = 31 * hash + Objects.hash(s.getDepartment(), s.getTotalUsers(), s.getActiveUsers(), s.getInactiveUsers());
+        }
+        return weak(stats.size() + "-" + Integer.toHexString(hash));
+    }
+
+    private static String weak(String tag) {
+        return "W/\"" + tag + "\"";
+    }
+}
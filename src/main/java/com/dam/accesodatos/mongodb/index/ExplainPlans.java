@@ -0,0 +1,75 @@
+package com.dam.accesodatos.mongodb.index;
+
+import org.bson.Document;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * LECTURA DE PLANES DE EJECUCIÓN (explain)
+ * ========================================
+ * Extrae los nombres de etapa ("stage") del plan ganador de la salida de explain.
+ *
+ * COMPARACIÓN CON SQL:
+ * MongoDB                                  | SQL
+ * ---------------------------------------- | ----------------------------------------
+ * db.runCommand({explain: {...}})          | EXPLAIN SELECT ...
+ * COLLSCAN                                 | Seq Scan / Full Table Scan
+ * IXSCAN                                   | Index Scan
+ * IXSCAN sin FETCH (consulta cubierta)     | Index Only Scan
+ * COUNT_SCAN                               | Index Only Scan + COUNT
+ * FETCH                                    | Acceso a la fila (heap / table access)
+ * SORT                                     | Sort en memoria (filesort)
+ *
+ * La forma del explain cambia entre find, aggregate y los motores clásico y SBE
+ * (queryPlanner.winningPlan, winningPlan.queryPlan, stages[].$cursor...), así que se
+ * recorre el documento completo y se recogen las etapas de cualquier "winningPlan".
+ * Los planes descartados (rejectedPlans) se ignoran.
+ */
+public final class ExplainPlans {
+
+    private ExplainPlans() {
+    }
+
+    /**
+     * Etapas del plan ganador, de la raíz a las hojas (p.ej. [PROJECTION_COVERED, IXSCAN]).
+     */
+    public static List<String> winningPlanStages(Document explain) {
+        List<String> stages = new ArrayList<>();
+        findWinningPlans(explain, stages);
+        return stages;
+    }
+
+    private static void findWinningPlans(Object node, List<String> stages) {
+        if (node instanceof Document doc) {
+            for (String key : doc.keySet()) {
+                Object value = doc.get(key);
+                if ("winningPlan".equals(key)) {
+                    collectStages(value, stages);
+                } else if (!"rejectedPlans".equals(key)) {
+                    findWinningPlans(value, stages);
+                }
+            }
+        } else if (node instanceof List<?> list) {
+            for (Object item : list) {
+                findWinningPlans(item, stages);
+            }
+        }
+    }
+
+    private static void collectStages(Object node, List<String> stages) {
+        if (node instanceof Document doc) {
+            Object stage = doc.get("stage");
+            if (stage instanceof String name) {
+                stages.add(name);
+            }
+            for (Object value : doc.values()) {
+                collectStages(value, stages);
+            }
+        } else if (node instanceof List<?> list) {
+            for (Object item : list) {
+                collectStages(item, stages);
+            }
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.dam.accesodatos.mongodb.index;
+
+import com.dam.accesodatos.model.IndexSuggestionDto;
+import com.dam.accesodatos.model.UserQueryDto;
+import org.bson.Document;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ASESOR DE ÍNDICES PARA searchUsers
+ * ==================================
+ * Cuenta las formas de búsqueda (SearchShape) que llegan de verdad a searchUsers y
+ * searchUsersPage en las tres APIs y, para cada forma que ningún índice existente puede
+ * resolver, propone el índice ideal según la regla ESR:
+ *
+ *   Equality → Sort → Range
+ *   { department: "IT", active: true } ordenado por name  →  { department: 1, active: 1, name: 1 }
+ *
+ * Con ese orden el IXSCAN devuelve las claves ya filtradas y ordenadas: sin SORT en
+ * memoria y sin recorrer claves que no cumplen las igualdades.
+ *
+ * COMPARACIÓN:
+ * MongoDB                                      | SQL
+ * -------------------------------------------- | ------------------------------------------
+ * IndexAdvisor.suggest(formas observadas)      | Database Engine Tuning Advisor (SQL Server),
+ *                                              | pg_qualstats + hypopg (PostgreSQL)
+ * Performance Advisor de Atlas                 | sys.dm_db_missing_index_details
+ *
+ * Un índice existente sirve a una forma si:
+ * - tiene la misma collation (name_ci solo sirve a las búsquedas por prefijo)
+ * - su filtro parcial, si lo tiene, lo cumple la búsqueda ({ active: true } exige active=true)
+ * - sus primeras claves son las igualdades (en cualquier orden), luego el campo de
+ *   ordenación y luego name si es una búsqueda por prefijo
+ * Es una comprobación por prefijo de claves, no el planificador de MongoDB: para
+ * confirmar una sugerencia, explain() de la consulta con el índice creado.
+ *
+ * El número de formas distintas está acotado (MAX_SHAPES) porque sortBy es texto libre.
+ */
+@Component
+public class IndexAdvisor {
+
+    static final int MAX_SHAPES = 1000;
+
+    private final Map<SearchShape, LongAdder> observed = new ConcurrentHashMap<>();
+
+    /**
+     * Anota una búsqueda. Se llama después de construir los filtros (nameMatch ya validado).
+     */
+    public void observe(UserQueryDto query) {
+        SearchShape shape = SearchShape.of(query);
+        LongAdder counter = observed.get(shape);
+        if (counter == null) {
+            if (observed.size() >= MAX_SHAPES) {
+                return;
+            }
+            counter = observed.computeIfAbsent(shape, key -> new LongAdder());
+        }
+        counter.increment();
+    }
+
+    /**
+     * Formas observadas desde el arranque con su número de búsquedas.
+     */
+    public Map<SearchShape, Long> observedShapes() {
+        Map<SearchShape, Long> snapshot = new LinkedHashMap<>();
+        observed.forEach((shape, counter) -> snapshot.put(shape, counter.sum()));
+        return snapshot;
+    }
+
+    public void reset() {
+        observed.clear();
+    }
+
+    /**
+     * Índices que faltan para las formas observadas.
+     *
+     * @param indexes salida de listIndexes() de la colección users
+     * @return sugerencias de la más a la menos usada
+     */
+    public List<IndexSuggestionDto> suggest(List<Document> indexes) {
+        return suggest(observedShapes(), indexes);
+    }
+
+    static List<IndexSuggestionDto> suggest(Map<SearchShape, Long> shapes, List<Document> indexes) {
+        Map<String, IndexSuggestionDto> suggestions = new LinkedHashMap<>();
+        for (Map.Entry<SearchShape, Long> entry : shapes.entrySet()) {
+            SearchShape shape = entry.getKey();
+            Map<String, Integer> key = shape.idealIndexKey();
+            if (key.isEmpty() || indexes.stream().anyMatch(index -> serves(index, shape))) {
+                continue;
+            }
+            String collation = shape.needsNameCollation() ? NameCollation.LOCALE + "/2" : null;
+            IndexSuggestionDto suggestion = suggestions.computeIfAbsent(new Document(key).toJson() + collation,
+                    id -> new IndexSuggestionDto(key, collation, 0, new ArrayList<>(), reasonFor(shape),
+                            createIndexCommand(key, shape.needsNameCollation())));
+            suggestion.setObservedQueries(suggestion.getObservedQueries() + entry.getValue());
+            suggestion.getShapes().add(shape.describe());
+        }
+        List<IndexSuggestionDto> result = new ArrayList<>(suggestions.values());
+        result.sort(Comparator.comparingLong(IndexSuggestionDto::getObservedQueries).reversed());
+        return result;
+    }
+
+    /**
+     * ¿Puede el índice (documento de listIndexes) resolver la forma sin SORT en memoria?
+     */
+    static boolean serves(Document index, SearchShape shape) {
+        Document key = index.get("key", Document.class);
+        if (key == null || key.values().stream().anyMatch(direction -> !(direction instanceof Number))) {
+            return false; // text, 2dsphere, hashed...
+        }
+        if (hasNameCollation(index) != shape.needsNameCollation()) {
+            return false;
+        }
+
+        // Campos que fija el filtro parcial (y que por tanto no hace falta que estén en la clave)
+        Set<String> fixed = new HashSet<>();
+        Document partial = index.get("partialFilterExpression", Document.class);
+        if (partial != null) {
+            for (Map.Entry<String, Object> condition : partial.entrySet()) {
+                if (!"active".equals(condition.getKey()) || !condition.getValue().equals(shape.active())) {
+                    return false;
+                }
+                fixed.add("active");
+            }
+        }
+
+        Set<String> equality = new HashSet<>();
+        if (shape.department()) {
+            equality.add("department");
+        }
+        if (shape.active() != null) {
+            equality.add("active");
+        }
+        equality.removeAll(fixed);
+
+        List<String> fields = new ArrayList<>(key.keySet());
+        int position = 0;
+        // 1. Igualdades, en cualquier orden
+        while (position < fields.size() && equality.remove(fields.get(position))) {
+            position++;
+        }
+        if (!equality.isEmpty()) {
+            return false;
+        }
+        // 2. Ordenación (un campo fijado por igualdad ya está "ordenado")
+        String sortField = shape.sortField();
+        boolean sortDone = sortField == null || fixed.contains(sortField)
+                || fields.subList(0, position).contains(sortField);
+        if (!sortDone) {
+            if (position >= fields.size() || !fields.get(position).equals(sortField)) {
+                return false;
+            }
+            position++;
+        }
+        // 3. Rango de la búsqueda por prefijo
+        if (shape.name() == SearchShape.NameFilter.PREFIX && !fields.subList(0, position).contains("name")) {
+            return position < fields.size() && fields.get(position).equals("name");
+        }
+        return true;
+    }
+
+    private static boolean hasNameCollation(Document index) {
+        Document collation = index.get("collation", Document.class);
+        return collation != null && NameCollation.LOCALE.equals(collation.getString("locale"))
+                && collation.get("strength") instanceof Number strength && strength.intValue() == 2;
+    }
+
+    private static String reasonFor(SearchShape shape) {
+        String reason = "Ningún índice empieza por " + String.join(", ", shape.idealIndexKey().keySet())
+                + " (igualdades, ordenación, rango)";
+        if (shape.name() == SearchShape.NameFilter.CONTAINS) {
+            reason += "; el regex sin anclar sobre name no acota ningún índice, nameMatch=prefix sí";
+        }
+        return reason;
+    }
+
+    private static String createIndexCommand(Map<String, Integer> key, boolean nameCollation) {
+        String command = "db.users.createIndex(" + new Document(key).toJson();
+        if (nameCollation) {
+            command += ", {collation: {locale: \"" + NameCollation.LOCALE + "\", strength: 2}}";
+        }
+        return command + ")";
+    }
+}
@@ -0,0 +1,86 @@
+package com.dam.accesodatos.mongodb.index;
+
+import com.dam.accesodatos.exception.InvalidQueryException;
+import com.mongodb.client.model.Collation;
+import com.mongodb.client.model.CollationStrength;
+import org.springframework.data.mongodb.core.query.Collation.ComparisonLevel;
+
+/**
+ * BÚSQUEDA POR PREFIJO DE NOMBRE SIN DISTINGUIR MAYÚSCULAS
+ * ========================================================
+ * Un regex con opción "i" ({ name: /juan/i }) no puede acotar el índice name_1: recorre
+ * todas sus claves (o la colección entera) y compara cada una. En su lugar se crea un
+ * segundo índice sobre name con collation de fuerza 2 (ignora mayúsculas, respeta
+ * acentos) y el prefijo se busca como un rango sobre esa collation:
+ *
+ *   find({ name: { $gte: "juan", $lt: "juan" + U+FFFF } }).collation({ locale: "es", strength: 2 })
+ *
+ * Con la misma collation en la consulta que en el índice, el plan es un IXSCAN acotado
+ * a las claves que empiezan por el prefijo. U+FFFF tiene el peso primario máximo en
+ * ICU, así que "prefijo + U+FFFF" ordena detrás de cualquier nombre con ese prefijo.
+ *
+ * COMPARACIÓN CON SQL:
+ * MongoDB                                      | SQL
+ * -------------------------------------------- | ------------------------------------------
+ * índice {name: 1} collation strength 2        | CREATE INDEX ... ON users(name)
+ *                                              |   con collation utf8mb4_0900_ai_ci (MySQL)
+ * { name: { $gte: p, $lt: p + U+FFFF } }       | WHERE name LIKE 'p%'  (usa el índice)
+ * { name: /p/i }  (alternativa lenta)          | WHERE UPPER(name) LIKE UPPER('%p%')
+ *
+ * nameMatch en UserQueryDto elige el modo: "contains" (regex, valor por defecto) o
+ * "prefix" (rango sobre la collation). La collation se aplica a toda la consulta, así
+ * que en modo prefix también department se compara sin distinguir mayúsculas.
+ */
+public final class NameCollation {
+
+    /** Nombre del índice (el de name_1 lo ocupa el índice con collation simple). */
+    public static final String INDEX_NAME = "name_ci";
+
+    public static final String LOCALE = "es";
+
+    public static final String MATCH_CONTAINS = "contains";
+    public static final String MATCH_PREFIX = "prefix";
+
+    private NameCollation() {
+    }
+
+    /**
+     * Collation del índice y de las consultas por prefijo (driver nativo).
+     */
+    public static Collation collation() {
+        return Collation.builder()
+                .locale(LOCALE)
+                .collationStrength(CollationStrength.SECONDARY)
+                .build();
+    }
+
+    /**
+     * La misma collation para Query.collation() de Spring Data.
+     */
+    public static org.springframework.data.mongodb.core.query.Collation springCollation() {
+        return org.springframework.data.mongodb.core.query.Collation.of(LOCALE)
+                .strength(ComparisonLevel.secondary());
+    }
+
+    /**
+     * Límite superior (exclusivo) del rango de nombres que empiezan por prefix.
+     */
+    public static String upperBound(String prefix) {
+        return prefix + '\uFFFF';
+    }
+
+    /**
+     * @param nameMatch "contains" (o null) o "prefix"
+     * @throws InvalidQueryException con cualquier otro valor
+     */
+    public static boolean isPrefix(String nameMatch) {
+        if (nameMatch == null || MATCH_CONTAINS.equalsIgnoreCase(nameMatch)) {
+            return false;
+        }
+        if (MATCH_PREFIX.equalsIgnoreCase(nameMatch)) {
+            return true;
+        }
+        throw new InvalidQueryException("nameMatch",
+                "nameMatch inválido: " + nameMatch + " (contains o prefix)");
+    }
+}
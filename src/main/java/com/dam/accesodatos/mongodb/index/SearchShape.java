@@ -0,0 +1,89 @@
+package com.dam.accesodatos.mongodb.index;
+
+import com.dam.accesodatos.model.UserQueryDto;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Forma de una llamada a searchUsers: qué filtros lleva y por qué campo ordena, sin los
+ * valores (salvo active, porque decide si sirve un índice parcial { active: true }).
+ * Dos búsquedas con la misma forma necesitan el mismo índice.
+ *
+ * @param department   filtra por igualdad en department
+ * @param active       valor de active en el filtro, o null si no filtra por active
+ * @param name         cómo filtra por nombre (nameMatch)
+ * @param sortField    campo de sortBy en la colección ("id" → "_id"), o null
+ */
+public record SearchShape(boolean department, Boolean active, NameFilter name, String sortField) {
+
+    public enum NameFilter {
+        /** Sin filtro por nombre. */
+        NONE,
+        /** Rango con la collation de name_ci (nameMatch=prefix): acota el índice. */
+        PREFIX,
+        /** Regex sin anclar (nameMatch=contains): no acota ningún índice. */
+        CONTAINS
+    }
+
+    /**
+     * @throws com.dam.accesodatos.exception.InvalidQueryException si nameMatch no es válido
+     */
+    public static SearchShape of(UserQueryDto query) {
+        NameFilter name = NameFilter.NONE;
+        if (query.getName() != null && !query.getName().isEmpty()) {
+            name = NameCollation.isPrefix(query.getNameMatch()) ? NameFilter.PREFIX : NameFilter.CONTAINS;
+        }
+        String sortField = "id".equals(query.getSortBy()) ? "_id" : query.getSortBy();
+        return new SearchShape(query.getDepartment() != null && !query.getDepartment().isEmpty(),
+                query.getActive(), name, sortField);
+    }
+
+    /**
+     * Índice ideal según la regla ESR (Equality, Sort, Range): primero los campos
+     * comparados por igualdad, después el de ordenación y por último el rango.
+     * Equivalente SQL: CREATE INDEX ... ON users(department, active, name).
+     */
+    public Map<String, Integer> idealIndexKey() {
+        Map<String, Integer> key = new LinkedHashMap<>();
+        if (department) {
+            key.put("department", 1);
+        }
+        if (active != null) {
+            key.put("active", 1);
+        }
+        if (sortField != null) {
+            key.putIfAbsent(sortField, 1);
+        }
+        if (name == NameFilter.PREFIX) {
+            key.putIfAbsent("name", 1);
+        }
+        return key;
+    }
+
+    /**
+     * La búsqueda por prefijo lleva la collation de name_ci; un índice solo le sirve si
+     * tiene esa misma collation.
+     */
+    public boolean needsNameCollation() {
+        return name == NameFilter.PREFIX;
+    }
+
+    /**
+     * Descripción legible: "department=? active=true name~prefix sort:name".
+     */
+    public String describe() {
+        StringBuilder text = new StringBuilder();
+        if (department) {
+            text.append("department=? ");
+        }
+        if (active != null) {
+            text.append("active=").append(active).append(' ');
+        }
+        if (name != NameFilter.NONE) {
+            text.append("name~").append(name.name().toLowerCase()).append(' ');
+        }
+        text.append("sort:").append(sortField == null ? "-" : sortField);
+        return text.toString();
+    }
+}
@@ -0,0 +1,171 @@
+package com.dam.accesodatos.mongodb.index;
+
+import com.dam.accesodatos.exception.InvalidQueryException;
+import com.dam.accesodatos.model.UserQueryDto;
+import com.mongodb.client.model.Sorts;
+import org.bson.conversions.Bson;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * ORDENACIONES ADMITIDAS EN searchUsers
+ * =====================================
+ * sortBy ya no se pasa tal cual a Sorts.ascending()/Sort.by(): solo se admiten las
+ * claves de SORT_KEYS y cada una se resuelve al índice que devuelve los documentos ya
+ * ordenados. Ordenar por un campo sin índice obliga a MongoDB a leer todos los
+ * documentos que cumplen el filtro y ordenarlos en memoria (etapa SORT bloqueante,
+ * limitada a 100MB sin allowDiskUse) antes de devolver el primero.
+ *
+ * COMPARACIÓN:
+ * MongoDB                                      | SQL
+ * -------------------------------------------- | ------------------------------------------
+ * IXSCAN con el orden del índice               | Index Scan (sin nodo Sort en EXPLAIN)
+ * SORT en memoria (bloqueante)                 | Sort / "Using filesort" (MySQL)
+ * find(...).hint("name_1")                     | SELECT ... FROM users USE INDEX (name_idx)
+ *
+ * RESOLUCIÓN (clave de la API → campo e índice):
+ * name       → name, con:  nameMatch=prefix        → name_ci (misma collation que la consulta)
+ *                          department + active      → department_1_active_1_name_1
+ *                          department               → department_1_name_1
+ *                          resto                    → name_1
+ * createdAt  → createdAt con active=true (índice parcial active_createdAt);
+ *              en otro caso se reescribe a _id: el ObjectId empieza por la fecha de
+ *              creación, así que el orden es el mismo y lo da el índice _id_
+ * id         → _id (índice _id_)
+ *
+ * Se rechazan con 400 (InvalidQueryException) las claves desconocidas y, en búsquedas
+ * por prefijo, cualquier orden que no sea name: la consulta lleva la collation de
+ * name_ci y ningún otro índice puede dar el orden con esa collation.
+ *
+ * El índice se fuerza con hint() para que el plan no dependa de lo que el planificador
+ * elija con pocos datos. Si el índice todavía se está construyendo en segundo plano
+ * (UserIndexManager) no se pone hint y decide el planificador.
+ *
+ * PAGINACIÓN KEYSET (resolvePage):
+ * searchUsersPage usa el mismo campo, pero ordena por (campo, _id). Los índices de arriba
+ * no llevan _id como desempate, así que resolvePage elige los de USER_INDEXES que sí:
+ * name       → name_ci__id con nameMatch=prefix, si no name_1__id_1
+ * createdAt  → createdAt_1__id_1 con active=true; si no se reescribe a _id como arriba
+ * id         → _id_
+ * Con ellos cada página es un IXSCAN que empieza en la posición del token y lee
+ * size + 1 entradas (más las que descarten los filtros), sin SORT: el coste no depende
+ * del número de página.
+ */
+@Component
+public class SortRegistry {
+
+    public static final String SORT_NAME = "name";
+    public static final String SORT_CREATED_AT = "createdAt";
+    public static final String SORT_ID = "id";
+
+    public static final List<String> SORT_KEYS = List.of(SORT_NAME, SORT_CREATED_AT, SORT_ID);
+
+    private final UserIndexManager indexManager;
+
+    @Autowired
+    public SortRegistry(UserIndexManager indexManager) {
+        this.indexManager = indexManager;
+    }
+
+    /**
+     * Orden resuelto para una búsqueda.
+     *
+     * @param field         campo de la colección por el que se ordena
+     * @param descending    orden descendente
+     * @param hint          índice a forzar, o null si no está disponible
+     * @param rewrittenFrom clave pedida si se ha reescrito (createdAt → _id), o null
+     */
+    public record SortPlan(String field, boolean descending, String hint, String rewrittenFrom) {
+
+        /** Orden para el driver nativo. */
+        public Bson toBson() {
+            return descending ? Sorts.descending(field) : Sorts.ascending(field);
+        }
+
+        /** El mismo orden para Spring Data. */
+        public Sort toSort() {
+            return Sort.by(descending ? Sort.Direction.DESC : Sort.Direction.ASC, field);
+        }
+
+        /** Orden keyset (campo, _id): _id desempata valores repetidos (orden total y estable). */
+        public Bson toKeysetBson() {
+            if ("_id".equals(field)) {
+                return toBson();
+            }
+            return descending ? Sorts.descending(field, "_id") : Sorts.ascending(field, "_id");
+        }
+
+        /** El mismo orden keyset para Spring Data. */
+        public Sort toKeysetSort() {
+            if ("_id".equals(field)) {
+                return toSort();
+            }
+            return Sort.by(descending ? Sort.Direction.DESC : Sort.Direction.ASC, field, "_id");
+        }
+    }
+
+    /**
+     * @throws InvalidQueryException si sortBy no está admitido para esta búsqueda
+     */
+    public SortPlan resolve(UserQueryDto query) {
+        String key = "_id".equals(query.getSortBy()) ? SORT_ID : query.getSortBy();
+        if (!SORT_KEYS.contains(key)) {
+            throw new InvalidQueryException("sortBy",
+                    "sortBy no admitido: " + key + " (admitidos: " + String.join(", ", SORT_KEYS) + ")");
+        }
+        boolean descending = "DESC".equalsIgnoreCase(query.getSortDirection());
+        boolean prefix = isPrefix(query);
+        if (prefix && !SORT_NAME.equals(key)) {
+            throw new InvalidQueryException("sortBy",
+                    "Con nameMatch=prefix solo se puede ordenar por name (sortBy=" + key + ")");
+        }
+        boolean department = query.getDepartment() != null && !query.getDepartment().isEmpty();
+
+        return switch (key) {
+            case SORT_NAME -> {
+                String index;
+                if (prefix) {
+                    index = NameCollation.INDEX_NAME;
+                } else if (department && query.getActive() != null) {
+                    index = UserIndexManager.DEPARTMENT_ACTIVE_NAME;
+                } else if (department) {
+                    index = UserIndexManager.DEPARTMENT_NAME;
+                } else {
+                    index = "name_1";
+                }
+                yield plan("name", descending, index, null);
+            }
+            case SORT_CREATED_AT -> Boolean.TRUE.equals(query.getActive())
+                    ? plan("createdAt", descending, UserIndexManager.ACTIVE_CREATED_AT, null)
+                    : plan("_id", descending, "_id_", SORT_CREATED_AT);
+            default -> plan("_id", descending, "_id_", null);
+        };
+    }
+
+    /**
+     * Orden de searchUsersPage: el mismo campo que resolve(), con el índice (campo, _id).
+     *
+     * @throws InvalidQueryException si sortBy no está admitido para esta búsqueda
+     */
+    public SortPlan resolvePage(UserQueryDto query) {
+        SortPlan sort = resolve(query);
+        String index = switch (sort.field()) {
+            case "name" -> isPrefix(query) ? UserIndexManager.NAME_CI_ID : UserIndexManager.NAME_ID;
+            case "createdAt" -> UserIndexManager.CREATED_AT_ID;
+            default -> "_id_";
+        };
+        return plan(sort.field(), sort.descending(), index, sort.rewrittenFrom());
+    }
+
+    private static boolean isPrefix(UserQueryDto query) {
+        return query.getName() != null && !query.getName().isEmpty()
+                && NameCollation.isPrefix(query.getNameMatch());
+    }
+
+    private SortPlan plan(String field, boolean descending, String index, String rewrittenFrom) {
+        return new SortPlan(field, descending, indexManager.isReady(index) ? index : null, rewrittenFrom);
+    }
+}
@@ -0,0 +1,275 @@
+package com.dam.accesodatos.mongodb.index;
+
+import com.dam.accesodatos.model.IndexBuildStatusDto;
+import com.dam.accesodatos.model.IndexSuggestionDto;
+import com.dam.accesodatos.model.IndexUsageDto;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexModel;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import jakarta.annotation.PostConstruct;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * GESTOR DE ÍNDICES DE LA COLECCIÓN "users"
+ * =========================================
+ * Declara y crea los índices de users, informa de su uso y sugiere los que faltan.
+ *
+ * ¿POR QUÉ NO BASTA CON @Indexed?
+ * MongoConfig extiende AbstractMongoClientConfiguration, que desactiva la creación
+ * automática de índices (spring.data.mongodb.auto-index-creation no se aplica).
+ * Sin estos índices countByDepartment, findUsersByDepartment o el email único
+ * recorren la colección entera (COLLSCAN).
+ *
+ * COMPARACIÓN CON SQL:
+ * MongoDB                                         | SQL
+ * ----------------------------------------------- | -----------------------------------------
+ * createIndexes([{email: 1} unique, {name: 1},    | CREATE UNIQUE INDEX ... ON users(email);
+ *                {department: 1}])                | CREATE INDEX ... ON users(name); ...
+ * {name: 1} collation {locale: "es", strength: 2} | CREATE INDEX ... ON users(name COLLATE ...)
+ * {name: "text", role: "text", ...}               | CREATE FULLTEXT INDEX ... ON users(name, ...)
+ * {department: 1, active: 1, name: 1}             | CREATE INDEX ... ON users(department, active, name)
+ * {department: 1, name: 1}                        | CREATE INDEX ... ON users(department, name)
+ * {createdAt: -1} partialFilterExpression         | CREATE INDEX ... ON users(created_at DESC)
+ *   {active: true}                                |   WHERE active = true  (índice parcial)
+ * {name: 1, _id: 1}, {createdAt: 1, _id: 1}      | CREATE INDEX ... ON users(name, id) (keyset)
+ * $indexStats                                     | pg_stat_user_indexes / sys.dm_db_index_usage_stats
+ * Idempotente: si ya existe no hace nada          | CREATE INDEX IF NOT EXISTS
+ *
+ * DOS GRUPOS DE ÍNDICES:
+ * - USER_INDEXES: los que necesita la aplicación para ser correcta (email único) o que
+ *   usan las consultas básicas. Se crean en @PostConstruct, antes de DataInitializer.
+ * - SEARCH_INDEXES: índices de búsqueda gestionados. Se construyen en segundo plano al
+ *   terminar el arranque (ApplicationReadyEvent) en un hilo propio, uno detrás de otro,
+ *   y su estado se consulta en GET /api/indexes/builds. Desde MongoDB 4.2 todas las
+ *   construcciones son "híbridas" (la opción background se ignora): solo bloquean la
+ *   colección al principio y al final, así que las escrituras siguen durante la
+ *   construcción; lo que evita el hilo propio es que la aplicación espere a que acaben.
+ *   Con app.indexes.background-build=false se crean al arrancar junto a USER_INDEXES.
+ *
+ * Los nombres son los generados por MongoDB (email_1, name_1, department_1), los
+ * mismos que produce mongoTemplate.indexOps(User.class).ensureIndex(...) con esas claves.
+ * name_ci repite la clave de name_1 con otra collation, por eso lleva nombre propio.
+ */
+@Component
+public class UserIndexManager {
+
+    private static final Logger log = LoggerFactory.getLogger(UserIndexManager.class);
+
+    public static final String NAME_ID = "name_1__id_1";
+    public static final String NAME_CI_ID = "name_ci__id";
+    public static final String CREATED_AT_ID = "createdAt_1__id_1";
+
+    /**
+     * Índices declarados en User con @Indexed, más name_ci: name con collation de
+     * fuerza 2 para la búsqueda por prefijo sin distinguir mayúsculas (NameCollation),
+     * y el índice de texto completo (UserTextIndex).
+     *
+     * Paginación keyset (searchUsersPage, ver SortRegistry.resolvePage): ordena por
+     * (campo, _id), así que el índice necesita _id como desempate para dar ese orden sin
+     * SORT en memoria y posicionarse en el token sin recorrer las páginas anteriores:
+     * - name_1__id_1 y name_ci__id (misma collation que name_ci, búsqueda por prefijo)
+     * - createdAt_1__id_1 (createdAt con active=true; el resto se pagina por _id_)
+     * Recorridos hacia atrás sirven también para DESC.
+     */
+    static final List<IndexModel> USER_INDEXES = List.of(
+            new IndexModel(Indexes.ascending("email"), new IndexOptions().unique(true)),
+            new IndexModel(Indexes.ascending("name")),
+            new IndexModel(Indexes.ascending("name"),
+                    new IndexOptions().name(NameCollation.INDEX_NAME).collation(NameCollation.collation())),
+            new IndexModel(Indexes.ascending("department")),
+            UserTextIndex.INDEX,
+            new IndexModel(Indexes.ascending("name", "_id"), new IndexOptions().name(NAME_ID)),
+            new IndexModel(Indexes.ascending("name", "_id"),
+                    new IndexOptions().name(NAME_CI_ID).collation(NameCollation.collation())),
+            new IndexModel(Indexes.ascending("createdAt", "_id"), new IndexOptions().name(CREATED_AT_ID)));
+
+    public static final String DEPARTMENT_ACTIVE_NAME = "department_1_active_1_name_1";
+    public static final String DEPARTMENT_NAME = "department_1_name_1";
+    public static final String ACTIVE_CREATED_AT = "active_createdAt";
+    public static final String DEPARTMENT_UPDATED_AT = "department_1_updatedAt_-1";
+
+    /**
+     * Índices de searchUsers (SortRegistry los fuerza con hint según la búsqueda):
+     * - department_1_active_1_name_1: igualdades department y active y orden por name
+     *   (regla ESR, ver IndexAdvisor), el orden por defecto de searchUsers
+     * - department_1_name_1: lo mismo sin filtro por active
+     * - active_createdAt: usuarios activos del más reciente al más antiguo. Al ser parcial
+     *   solo contiene los activos: más pequeño, y no sirve a búsquedas sin active=true
+     * - department_1_updatedAt_-1: versión de un departamento para el ETag de sus
+     *   listados (ResourceVersion); el último updatedAt sale de la primera entrada del
+     *   índice sin leer documentos
+     */
+    static final List<IndexModel> SEARCH_INDEXES = List.of(
+            new IndexModel(Indexes.ascending("department", "active", "name"),
+                    new IndexOptions().name(DEPARTMENT_ACTIVE_NAME)),
+            new IndexModel(Indexes.ascending("department", "name"),
+                    new IndexOptions().name(DEPARTMENT_NAME)),
+            new IndexModel(Indexes.descending("createdAt"),
+                    new IndexOptions().name(ACTIVE_CREATED_AT).partialFilterExpression(Filters.eq("active", true))),
+            new IndexModel(Indexes.compoundIndex(Indexes.ascending("department"), Indexes.descending("updatedAt")),
+                    new IndexOptions().name(DEPARTMENT_UPDATED_AT)));
+
+    private final MongoCollection<Document> collection;
+    private final IndexAdvisor advisor;
+    private final boolean backgroundBuild;
+
+    /** Estado de cada índice de SEARCH_INDEXES por nombre, en orden de declaración. */
+    private final Map<String, IndexBuildStatusDto> builds = new LinkedHashMap<>();
+
+    @Autowired
+    public UserIndexManager(MongoClient mongoClient,
+            @Value("${spring.data.mongodb.database}") String databaseName,
+            IndexAdvisor advisor,
+            @Value("${app.indexes.background-build:true}") boolean backgroundBuild) {
+        this.collection = mongoClient.getDatabase(databaseName).getCollection("users");
+        this.advisor = advisor;
+        this.backgroundBuild = backgroundBuild;
+        for (IndexModel model : SEARCH_INDEXES) {
+            String name = model.getOptions().getName();
+            builds.put(name, new IndexBuildStatusDto(name, toJson(model.getKeys()), "PENDING", null, null, null));
+        }
+    }
+
+    /**
+     * Se ejecuta antes de que DataInitializer o cualquier petición usen la colección.
+     */
+    @PostConstruct
+    public void ensureIndexes() {
+        List<String> created = collection.createIndexes(USER_INDEXES);
+        log.info("Índices de users verificados: {}", created);
+        if (!backgroundBuild) {
+            buildSearchIndexes();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildSearchIndexesInBackground() {
+        if (backgroundBuild) {
+            Thread.ofPlatform().daemon().name("users-index-builder").start(this::buildSearchIndexes);
+        }
+    }
+
+    /**
+     * Crea los índices de SEARCH_INDEXES de uno en uno (cada createIndexes espera a que
+     * termine su construcción) registrando el estado y la duración de cada uno.
+     */
+    void buildSearchIndexes() {
+        for (IndexModel model : SEARCH_INDEXES) {
+            String name = model.getOptions().getName();
+            String key = toJson(model.getKeys());
+            Instant started = Instant.now();
+            setBuild(new IndexBuildStatusDto(name, key, "BUILDING", started, null, null));
+            try {
+                collection.createIndexes(List.of(model));
+                long durationMs = Instant.now().toEpochMilli() - started.toEpochMilli();
+                setBuild(new IndexBuildStatusDto(name, key, "READY", started, durationMs, null));
+                log.info("Índice {} construido en {} ms", name, durationMs);
+            } catch (Exception e) {
+                long durationMs = Instant.now().toEpochMilli() - started.toEpochMilli();
+                setBuild(new IndexBuildStatusDto(name, key, "FAILED", started, durationMs, e.getMessage()));
+                log.error("Error al construir el índice {}: {}", name, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * ¿Existe ya el índice? Los de USER_INDEXES (y _id_) se crean al arrancar; los de
+     * búsqueda solo cuando su construcción ha terminado (READY).
+     */
+    public boolean isReady(String indexName) {
+        synchronized (builds) {
+            IndexBuildStatusDto build = builds.get(indexName);
+            return build == null || "READY".equals(build.getState());
+        }
+    }
+
+    /**
+     * Estado de construcción de los índices de búsqueda.
+     */
+    public List<IndexBuildStatusDto> builds() {
+        synchronized (builds) {
+            return new ArrayList<>(builds.values());
+        }
+    }
+
+    /**
+     * Uso de cada índice según $indexStats, con su tamaño en disco ($collStats).
+     * Equivalente SQL (PostgreSQL): SELECT indexrelname, idx_scan FROM pg_stat_user_indexes.
+     *
+     * Los contadores son de este mongod y se reinician al reiniciarlo o recrear el índice.
+     */
+    public List<IndexUsageDto> usage() {
+        try {
+            Map<String, Long> sizes = indexSizes();
+            List<IndexUsageDto> usage = new ArrayList<>();
+            for (Document stats : collection.aggregate(List.of(new Document("$indexStats", new Document())))) {
+                String name = stats.getString("name");
+                Document accesses = stats.get("accesses", Document.class);
+                Document spec = stats.get("spec", Document.class);
+                Document partial = spec == null ? null : spec.get("partialFilterExpression", Document.class);
+                Document collation = spec == null ? null : spec.get("collation", Document.class);
+                usage.add(new IndexUsageDto(name,
+                        stats.get("key", Document.class).toJson(),
+                        accesses.get("ops", Number.class).longValue(),
+                        accesses.getDate("since").toInstant(),
+                        sizes.getOrDefault(name, 0L),
+                        partial == null ? null : partial.toJson(),
+                        collation == null ? null : collation.getString("locale") + "/" + collation.get("strength"),
+                        stats.getBoolean("building", false)));
+            }
+            usage.sort(Comparator.comparingLong(IndexUsageDto::getAccesses).reversed());
+            return usage;
+        } catch (Exception e) {
+            log.error("Error al leer $indexStats: {}", e.getMessage());
+            throw new RuntimeException("Error al leer el uso de los índices: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Índices que faltan para las formas de búsqueda observadas en searchUsers.
+     */
+    public List<IndexSuggestionDto> suggestions() {
+        return advisor.suggest(collection.listIndexes().into(new ArrayList<>()));
+    }
+
+    private Map<String, Long> indexSizes() {
+        Document collStats = collection.aggregate(List.of(
+                new Document("$collStats", new Document("storageStats", new Document())))).first();
+        Map<String, Long> sizes = new LinkedHashMap<>();
+        if (collStats != null) {
+            Document indexSizes = collStats.get("storageStats", Document.class).get("indexSizes", Document.class);
+            indexSizes.forEach((name, size) -> sizes.put(name, ((Number) size).longValue()));
+        }
+        return sizes;
+    }
+
+    private void setBuild(IndexBuildStatusDto status) {
+        synchronized (builds) {
+            builds.put(status.getName(), status);
+        }
+    }
+
+    private static String toJson(Bson keys) {
+        return keys.toBsonDocument(BsonDocument.class, MongoClientSettings.getDefaultCodecRegistry()).toJson();
+    }
+}
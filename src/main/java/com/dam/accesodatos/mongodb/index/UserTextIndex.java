@@ -0,0 +1,66 @@
+package com.dam.accesodatos.mongodb.index;
+
+import com.dam.accesodatos.exception.InvalidQueryException;
+import com.mongodb.client.model.IndexModel;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import org.bson.Document;
+
+/**
+ * ÍNDICE DE TEXTO COMPLETO DE "users"
+ * ===================================
+ * Índice text sobre name, role, department y email para búsquedas libres
+ * (GET /users/text-search?q=...). Cada valor se parte en palabras (también el email:
+ * "ana.garcia@empresa.com" → ana, garcia, empresa, com) y el índice guarda una entrada
+ * por palabra, así { $text: { $search: "garcia" } } no recorre la colección.
+ *
+ * COMPARACIÓN CON SQL:
+ * MongoDB                                       | SQL
+ * --------------------------------------------- | -------------------------------------------
+ * createIndex({name: "text", role: "text", ...})| CREATE FULLTEXT INDEX ... (name, role, ...)
+ * { $text: { $search: "ana developer" } }       | MATCH(name, role...) AGAINST('ana developer')
+ * { $meta: "textScore" }                        | MATCH(...) AGAINST(...) AS score
+ * sort({ score: { $meta: "textScore" } })       | ORDER BY score DESC
+ *
+ * - Varias palabras se combinan con OR; "entre comillas" busca la frase exacta y
+ *   -palabra excluye.
+ * - Pesos: una coincidencia en name puntúa más que en role, department o email.
+ * - default_language "none": sin stemming ni palabras vacías, porque los campos son
+ *   nombres propios, emails y roles en varios idiomas.
+ * - Solo puede haber un índice text por colección.
+ */
+public final class UserTextIndex {
+
+    public static final String INDEX_NAME = "users_text";
+
+    /** Campo con la puntuación de relevancia en proyección y ordenación. */
+    public static final String SCORE_FIELD = "score";
+
+    static final IndexModel INDEX = new IndexModel(
+            Indexes.compoundIndex(
+                    Indexes.text("name"), Indexes.text("role"), Indexes.text("department"), Indexes.text("email")),
+            new IndexOptions()
+                    .name(INDEX_NAME)
+                    .defaultLanguage("none")
+                    .weights(new Document("name", 10).append("role", 5).append("department", 3).append("email", 2)));
+
+    private UserTextIndex() {
+    }
+
+    /**
+     * Valida los parámetros de GET /users/text-search.
+     *
+     * @throws InvalidQueryException si el texto está vacío o la paginación es inválida
+     */
+    public static void validate(String text, int page, int size) {
+        if (text == null || text.isBlank()) {
+            throw new InvalidQueryException("q", "El texto de búsqueda es obligatorio");
+        }
+        if (page < 0) {
+            throw new InvalidQueryException("page", "page debe ser mayor o igual que 0");
+        }
+        if (size < 1) {
+            throw new InvalidQueryException("size", "size debe ser mayor que 0");
+        }
+    }
+}
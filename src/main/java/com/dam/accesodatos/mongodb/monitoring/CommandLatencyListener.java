@@ -0,0 +1,80 @@
+package com.dam.accesodatos.mongodb.monitoring;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CommandListener del driver que mide cada comando (find, aggregate, insert...) y lo
+ * entrega a CommandLatencyRecorder.
+ *
+ * En commandStarted se anotan la colección, el origen (OperationSource o el origen por
+ * defecto del cliente) y la forma redactada del filtro: el BsonDocument del comando
+ * solo es válido durante esa llamada. commandSucceeded / commandFailed traen la
+ * duración medida por el propio driver (envío + espera + lectura de la respuesta).
+ *
+ * Equivalente JDBC: un proxy de DataSource como datasource-proxy o P6Spy.
+ */
+public class CommandLatencyListener implements CommandListener {
+
+    private final CommandLatencyRecorder recorder;
+    private final String defaultSource;
+    private final Map<Integer, Started> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * @param defaultSource origen de los comandos lanzados fuera de un servicio
+     *                      instrumentado ("other" en el síncrono, "reactive" en el reactivo)
+     */
+    public CommandLatencyListener(CommandLatencyRecorder recorder, String defaultSource) {
+        this.recorder = recorder;
+        this.defaultSource = defaultSource;
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        String source = OperationSource.current();
+        BsonDocument command = event.getCommand();
+        inFlight.put(event.getRequestId(), new Started(
+                collectionOf(event.getCommandName(), command),
+                source != null ? source : defaultSource,
+                FilterShape.ofCommand(event.getCommandName(), command)));
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        finish(event.getRequestId(), event.getCommandName(), true, event.getElapsedTime(TimeUnit.NANOSECONDS));
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        finish(event.getRequestId(), event.getCommandName(), false, event.getElapsedTime(TimeUnit.NANOSECONDS));
+    }
+
+    private void finish(int requestId, String commandName, boolean success, long elapsedNanos) {
+        Started started = inFlight.remove(requestId);
+        if (started != null) {
+            recorder.record(commandName, started.collection(), started.source(), success,
+                    elapsedNanos, started.filterShape());
+        }
+    }
+
+    /**
+     * La colección es el valor del propio comando ({find: "users"}) salvo en getMore,
+     * que lleva el id del cursor y la colección en "collection". Comandos de servidor
+     * como hello o ping no tienen colección.
+     */
+    static String collectionOf(String commandName, BsonDocument command) {
+        BsonValue value = "getMore".equals(commandName) ? command.get("collection") : command.get(commandName);
+        return value != null && value.isString() ? value.asString().getValue() : "-";
+    }
+
+    private record Started(String collection, String source, String filterShape) {
+    }
+}
@@ -0,0 +1,135 @@
+package com.dam.accesodatos.mongodb.monitoring;
+
+import com.dam.accesodatos.model.CommandLatencyDto;
+import com.dam.accesodatos.model.SlowCommandDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LATENCIA POR COMANDO Y REGISTRO DE COMANDOS LENTOS
+ * ==================================================
+ * Acumula lo que mide CommandLatencyListener en un Timer de Micrometer por combinación
+ * de comando, colección y origen (método de servicio que lo lanzó):
+ *
+ * mongodb.command{command=find, collection=users, source=native.searchUsers, outcome=success}
+ *
+ * Cada Timer publica p50/p90/p99 calculados sobre un histograma HdrHistogram en memoria
+ * (ventana deslizante de Micrometer) y los buckets del histograma para que Prometheus
+ * pueda agregarlos entre instancias. Se ven en /actuator/metrics/mongodb.command y, en
+ * milisegundos y ordenados por tiempo total, en GET /api/monitoring/commands.
+ *
+ * Los comandos que superan app.mongo.monitoring.slow-command-threshold se guardan
+ * (los slow-log-size más recientes) con la forma redactada de su filtro (FilterShape)
+ * y se escriben en el log: GET /api/monitoring/slow-commands.
+ *
+ * Equivalente SQL: performance_schema.events_statements_summary_by_digest y
+ * slow_query_log de MySQL; pg_stat_statements en PostgreSQL.
+ */
+public class CommandLatencyRecorder {
+
+    private static final Logger log = LoggerFactory.getLogger(CommandLatencyRecorder.class);
+
+    private final MeterRegistry registry;
+    private final long slowThresholdNanos;
+    private final int slowLogSize;
+    private final Map<Key, Timer> timers = new ConcurrentHashMap<>();
+    private final Deque<SlowCommandDto> slowCommands = new ArrayDeque<>();
+
+    public CommandLatencyRecorder(MeterRegistry registry, Duration slowThreshold, int slowLogSize) {
+        this.registry = registry;
+        this.slowThresholdNanos = slowThreshold.toNanos();
+        this.slowLogSize = slowLogSize;
+    }
+
+    /**
+     * @param filterShape forma redactada del filtro o null si el comando no lleva filtro
+     */
+    public void record(String command, String collection, String source, boolean success,
+            long elapsedNanos, String filterShape) {
+        Key key = new Key(command, collection, source, success ? "success" : "failure");
+        timers.computeIfAbsent(key, this::timer).record(elapsedNanos, TimeUnit.NANOSECONDS);
+
+        if (elapsedNanos >= slowThresholdNanos && slowLogSize > 0) {
+            double durationMs = elapsedNanos / 1_000_000.0;
+            log.warn("Comando lento: {} sobre {} desde {} en {} ms, filtro {}",
+                    command, collection, source, String.format("%.1f", durationMs), filterShape);
+            SlowCommandDto slow = new SlowCommandDto(Instant.now(), command, collection, source,
+                    durationMs, filterShape);
+            synchronized (slowCommands) {
+                slowCommands.addFirst(slow);
+                if (slowCommands.size() > slowLogSize) {
+                    slowCommands.removeLast();
+                }
+            }
+        }
+    }
+
+    /**
+     * Latencias acumuladas por comando, colección y origen, de mayor a menor tiempo total.
+     */
+    public List<CommandLatencyDto> latencies() {
+        List<CommandLatencyDto> result = new ArrayList<>();
+        timers.forEach((key, timer) -> {
+            HistogramSnapshot snapshot = timer.takeSnapshot();
+            CommandLatencyDto dto = new CommandLatencyDto();
+            dto.setCommand(key.command());
+            dto.setCollection(key.collection());
+            dto.setSource(key.source());
+            dto.setOutcome(key.outcome());
+            dto.setCount(snapshot.count());
+            dto.setTotalMs(snapshot.total(TimeUnit.MILLISECONDS));
+            dto.setMeanMs(snapshot.mean(TimeUnit.MILLISECONDS));
+            dto.setMaxMs(snapshot.max(TimeUnit.MILLISECONDS));
+            for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+                double ms = percentile.value(TimeUnit.MILLISECONDS);
+                if (percentile.percentile() == 0.5) {
+                    dto.setP50Ms(ms);
+                } else if (percentile.percentile() == 0.9) {
+                    dto.setP90Ms(ms);
+                } else if (percentile.percentile() == 0.99) {
+                    dto.setP99Ms(ms);
+                }
+            }
+            result.add(dto);
+        });
+        result.sort(Comparator.comparingDouble(CommandLatencyDto::getTotalMs).reversed());
+        return result;
+    }
+
+    /**
+     * Comandos lentos más recientes primero.
+     */
+    public List<SlowCommandDto> slowCommands() {
+        synchronized (slowCommands) {
+            return new ArrayList<>(slowCommands);
+        }
+    }
+
+    private Timer timer(Key key) {
+        return Timer.builder("mongodb.command")
+                .description("Latencia de los comandos enviados a MongoDB")
+                .tags("command", key.command(), "collection", key.collection(),
+                        "source", key.source(), "outcome", key.outcome())
+                .publishPercentiles(0.5, 0.9, 0.99)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private record Key(String command, String collection, String source, String outcome) {
+    }
+}
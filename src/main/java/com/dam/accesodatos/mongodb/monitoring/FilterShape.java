@@ -0,0 +1,101 @@
+package com.dam.accesodatos.mongodb.monitoring;
+
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * "FORMA" REDACTADA DE UN FILTRO
+ * ==============================
+ * Conserva nombres de campo y operadores pero sustituye cada valor por "?", para poder
+ * registrar consultas lentas sin escribir datos personales (emails, nombres) en el log.
+ *
+ * { name: { $regex: "^Juan", $options: "i" }, active: true }
+ *   → {"name": {"$regex": "?", "$options": "?"}, "active": "?"}
+ *
+ * Equivalente SQL: el "query digest" de MySQL / pg_stat_statements
+ *   SELECT * FROM users WHERE name LIKE ? AND active = ?
+ */
+public final class FilterShape {
+
+    private static final BsonString PLACEHOLDER = new BsonString("?");
+
+    /** Operadores lógicos cuyo valor es un array de sub-filtros (se recorren, no se redactan). */
+    private static final Set<String> LOGICAL_OPERATORS = Set.of("$and", "$or", "$nor");
+
+    /** Campo del comando que contiene el filtro, según el nombre del comando. */
+    private static final Map<String, String> FILTER_FIELDS = Map.of(
+            "find", "filter",
+            "count", "query",
+            "distinct", "query",
+            "findAndModify", "query");
+
+    private FilterShape() {
+    }
+
+    /**
+     * Forma del filtro de un comando (find, count, aggregate, update, delete...) o null si
+     * el comando no lleva filtro.
+     */
+    public static String ofCommand(String commandName, BsonDocument command) {
+        BsonDocument filter = filterOf(commandName, command);
+        return filter != null ? of(filter).toJson() : null;
+    }
+
+    public static BsonDocument of(BsonDocument filter) {
+        BsonDocument shape = new BsonDocument();
+        for (Map.Entry<String, BsonValue> entry : filter.entrySet()) {
+            String key = entry.getKey();
+            BsonValue value = entry.getValue();
+            if (LOGICAL_OPERATORS.contains(key) && value.isArray()) {
+                BsonArray clauses = new BsonArray();
+                for (BsonValue clause : value.asArray()) {
+                    clauses.add(clause.isDocument() ? of(clause.asDocument()) : PLACEHOLDER);
+                }
+                shape.put(key, clauses);
+            } else if (value.isDocument()) {
+                shape.put(key, of(value.asDocument()));
+            } else {
+                shape.put(key, PLACEHOLDER);
+            }
+        }
+        return shape;
+    }
+
+    private static BsonDocument filterOf(String commandName, BsonDocument command) {
+        String field = FILTER_FIELDS.get(commandName);
+        if (field != null) {
+            return command.isDocument(field) ? command.getDocument(field) : null;
+        }
+        switch (commandName) {
+            case "aggregate" -> {
+                // Primera etapa $match del pipeline
+                if (command.isArray("pipeline")) {
+                    for (BsonValue stage : command.getArray("pipeline")) {
+                        if (stage.isDocument() && stage.asDocument().isDocument("$match")) {
+                            return stage.asDocument().getDocument("$match");
+                        }
+                    }
+                }
+                return null;
+            }
+            case "update", "delete" -> {
+                // Filtro (q) de la primera sentencia; en bulk basta como muestra
+                String statements = commandName + "s";
+                if (command.isArray(statements) && !command.getArray(statements).isEmpty()
+                        && command.getArray(statements).get(0).isDocument()) {
+                    BsonDocument first = command.getArray(statements).get(0).asDocument();
+                    return first.isDocument("q") ? first.getDocument("q") : null;
+                }
+                return null;
+            }
+            default -> {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.dam.accesodatos.mongodb.monitoring;
+
+/**
+ * Método de servicio que está ejecutando el hilo actual (p.ej. "native.searchUsers").
+ * Lo fija OperationSourceBeanPostProcessor al entrar en un servicio y lo lee
+ * CommandLatencyListener para atribuir cada comando de MongoDB a quien lo lanzó.
+ *
+ * Solo sirve para el driver síncrono: sus eventos se publican en el hilo que ejecuta la
+ * operación. En el reactivo llegan desde hilos del driver.
+ */
+public final class OperationSource {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private OperationSource() {
+    }
+
+    /**
+     * @return el método de servicio en curso o null si el comando no viene de un servicio
+     */
+    public static String current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Fija el origen hasta cerrar el Scope, que restaura el anterior (llamadas anidadas).
+     */
+    public static Scope enter(String source) {
+        String previous = CURRENT.get();
+        CURRENT.set(source);
+        return () -> {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        };
+    }
+
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,43 @@
+package com.dam.accesodatos.mongodb.monitoring;
+
+import com.dam.accesodatos.mongodb.nativeapi.NativeMongoUserService;
+import com.dam.accesodatos.mongodb.springdata.SpringDataUserService;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Envuelve los servicios bloqueantes en un proxy que anota, durante cada llamada, qué
+ * método se está ejecutando (OperationSource): "native.searchUsers",
+ * "springdata.findUserById"... Así las métricas de CommandLatencyListener separan el
+ * mismo comando "find" según lo lance la API nativa o Spring Data.
+ *
+ * Se hace con un proxy de Spring AOP (sin AspectJ): equivale a un @Around sobre todos
+ * los métodos públicos de NativeMongoUserService y SpringDataUserService.
+ */
+@Component
+public class OperationSourceBeanPostProcessor implements BeanPostProcessor {
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof NativeMongoUserService) {
+            return proxy(bean, NativeMongoUserService.class, "native");
+        }
+        if (bean instanceof SpringDataUserService) {
+            return proxy(bean, SpringDataUserService.class, "springdata");
+        }
+        return bean;
+    }
+
+    private static Object proxy(Object bean, Class<?> serviceInterface, String api) {
+        ProxyFactory factory = new ProxyFactory(bean);
+        factory.setInterfaces(serviceInterface);
+        factory.addAdvice((MethodInterceptor) invocation -> {
+            try (OperationSource.Scope ignored = OperationSource.enter(api + "." + invocation.getMethod().getName())) {
+                return invocation.proceed();
+            }
+        });
+        return factory.getProxy();
+    }
+}
@@ -1,12 +1,18 @@
 package com.dam.accesodatos.mongodb.nativeapi;
 
+import com.dam.accesodatos.model.BatchGetResultDto;
+import com.dam.accesodatos.model.BulkCreateResultDto;
 import com.dam.accesodatos.model.DepartmentStatsDto;
 import com.dam.accesodatos.model.User;
 import com.dam.accesodatos.model.UserCreateDto;
+import com.dam.accesodatos.model.UserPageDto;
 import com.dam.accesodatos.model.UserQueryDto;
 import com.dam.accesodatos.model.UserUpdateDto;
+import com.dam.accesodatos.mongodb.etag.ResourceVersion;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface NativeMongoUserService {
 
@@ -14,18 +20,97 @@ public interface NativeMongoUserService {
 
     User createUser(UserCreateDto dto);
 
+    /**
+     * Inserta muchos usuarios en lotes desordenados (ordered=false): un error en una fila
+     * (email duplicado, datos inválidos) no detiene el resto del lote.
+     *
+     * @param dtos usuarios a crear
+     * @return resultado por fila, en el mismo orden que la entrada
+     */
+    BulkCreateResultDto createUsers(List<UserCreateDto> dtos);
+
     User findUserById(String id);
 
+    /**
+     * Versión de un usuario para GET condicionales: su updatedAt, sin leer el documento
+     * completo (de UserCache si está, si no con una proyección de solo updatedAt).
+     *
+     * @throws com.dam.accesodatos.exception.UserNotFoundException si no existe
+     */
+    ResourceVersion findUserVersion(String id);
+
+    /**
+     * Busca varios usuarios con una sola consulta $in.
+     *
+     * @param ids IDs a buscar (máximo UserBatchGet.MAX_IDS)
+     * @return un resultado por ID (FOUND, NOT_FOUND o INVALID_ID), en el mismo orden que la entrada
+     */
+    BatchGetResultDto findUsersByIds(Collection<String> ids);
+
     User updateUser(String id, UserUpdateDto dto);
 
     boolean deleteUser(String id);
 
     List<User> findAll();
 
+    /**
+     * findAll() con proyección: MongoDB solo envía los campos pedidos.
+     *
+     * @param fields campos de User (id, name, email...); null o vacío = todos
+     */
+    List<User> findAll(List<String> fields);
+
+    /**
+     * Recorre la colección completa con un cursor y entrega cada usuario al consumidor
+     * según llega de MongoDB, sin acumular la lista en memoria.
+     *
+     * @param consumer receptor de cada usuario (p.ej. el escritor NDJSON del controlador)
+     */
+    void streamAll(Consumer<User> consumer);
+
+    /**
+     * streamAll() con proyección (ver findAll(List)).
+     */
+    void streamAll(List<String> fields, Consumer<User> consumer);
+
     List<User> findUsersByDepartment(String department);
 
+    /**
+     * findUsersByDepartment() con proyección (ver findAll(List)).
+     */
+    List<User> findUsersByDepartment(String department, List<String> fields);
+
+    /**
+     * Versión del listado de un departamento: número de usuarios y último updatedAt,
+     * ambos resueltos con el índice department_1_updatedAt_-1.
+     */
+    ResourceVersion findDepartmentVersion(String department);
+
+    /**
+     * Búsqueda con filtros, ordenación y paginación; query.fields limita los campos devueltos.
+     */
     List<User> searchUsers(UserQueryDto query);
 
+    /**
+     * Búsqueda con paginación keyset: en lugar de skip(page * size) filtra a partir de la
+     * posición (valor de sortBy, _id) guardada en query.continuationToken.
+     * El coste de cada página no depende de lo profunda que sea si hay índice en sortBy.
+     *
+     * @param query filtros, ordenación, tamaño de página y token de la página anterior (o null)
+     * @return página de usuarios con el token para pedir la siguiente
+     */
+    UserPageDto searchUsersPage(UserQueryDto query);
+
+    /**
+     * Búsqueda de texto completo ($text) sobre name, role, department y email, de más a
+     * menos relevante (textScore).
+     *
+     * @param text palabras a buscar ("frase exacta" y -palabra admitidos)
+     * @param page página, desde 0
+     * @param size resultados por página
+     */
+    List<User> textSearch(String text, int page, int size);
+
     long countByDepartment(String department);
 
     /**
@@ -35,4 +120,11 @@ public interface NativeMongoUserService {
      * @return Lista de estadísticas por departamento
      */
     List<DepartmentStatsDto> getStatsByDepartment();
+
+    /**
+     * Recalcula department_stats con el aggregation pipeline y corrige las desviaciones.
+     *
+     * @return número de departamentos corregidos
+     */
+    int reconcileDepartmentStats();
 }
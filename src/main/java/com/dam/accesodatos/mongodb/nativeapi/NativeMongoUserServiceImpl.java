@@ -3,23 +3,50 @@ package com.dam.accesodatos.mongodb.nativeapi;
 import com.dam.accesodatos.exception.DuplicateEmailException;
 import com.dam.accesodatos.exception.InvalidUserIdException;
 import com.dam.accesodatos.exception.UserNotFoundException;
+import com.dam.accesodatos.model.BatchGetResultDto;
+import com.dam.accesodatos.model.BulkCreateResultDto;
+import com.dam.accesodatos.model.BulkItemResultDto;
 import com.dam.accesodatos.model.DepartmentStatsDto;
 import com.dam.accesodatos.model.User;
 import com.dam.accesodatos.model.UserCreateDto;
+import com.dam.accesodatos.model.UserPageDto;
 import com.dam.accesodatos.model.UserQueryDto;
 import com.dam.accesodatos.model.UserUpdateDto;
+import com.dam.accesodatos.mongodb.autocomplete.UserAutocomplete;
+import com.dam.accesodatos.mongodb.batch.UserBatchGet;
+import com.dam.accesodatos.mongodb.batch.UserLookupCoalescer;
+import com.dam.accesodatos.mongodb.cache.UserCache;
+import com.dam.accesodatos.mongodb.etag.ResourceVersion;
+import com.dam.accesodatos.mongodb.index.IndexAdvisor;
+import com.dam.accesodatos.mongodb.index.NameCollation;
+import com.dam.accesodatos.mongodb.index.SortRegistry;
+import com.dam.accesodatos.mongodb.index.UserTextIndex;
+import com.dam.accesodatos.mongodb.pagination.ContinuationToken;
+import com.dam.accesodatos.mongodb.projection.FieldProjection;
+import com.dam.accesodatos.mongodb.singleflight.SingleFlight;
+import com.dam.accesodatos.mongodb.stats.DepartmentStatsStore;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
 import com.mongodb.client.*;
 import com.mongodb.client.model.Accumulators;
 import com.mongodb.client.model.Aggregates;
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndDeleteOptions;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReturnDocument;
 import com.mongodb.client.model.Sorts;
 import com.mongodb.client.model.Updates;
-import com.mongodb.client.result.DeleteResult;
 import com.mongodb.client.result.InsertOneResult;
-import com.mongodb.client.result.UpdateResult;
+import org.bson.BsonDocument;
 import org.bson.Document;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.codecs.configuration.CodecRegistry;
 import org.bson.conversions.Bson;
 import org.bson.types.ObjectId;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -29,8 +56,16 @@ import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 /**
  * SERVICIO CON API NATIVA DE MONGODB
@@ -73,6 +108,18 @@ public class NativeMongoUserServiceImpl implements NativeMongoUserService {
 
     private static final Logger log = LoggerFactory.getLogger(NativeMongoUserServiceImpl.class);
 
+    /**
+     * Documentos que el cursor pide al servidor en cada getMore durante el streaming.
+     * Equivalente JDBC: stmt.setFetchSize(500)
+     */
+    private static final int STREAM_BATCH_SIZE = 500;
+
+    /** Código de error de MongoDB para violación de índice único (E11000). */
+    private static final int DUPLICATE_KEY_CODE = 11000;
+
+    /** Reintentos de updateTrackingStats() si department/active cambian entre medias. */
+    private static final int MAX_STATS_UPDATE_ATTEMPTS = 3;
+
     /**
      * MONGOCLIENT: Cliente del driver nativo
      * ======================================
@@ -86,11 +133,76 @@ public class NativeMongoUserServiceImpl implements NativeMongoUserService {
     private final MongoClient mongoClient;
     private final String databaseName;
 
+    /**
+     * COLECCIONES CACHEADAS
+     * =====================
+     * MongoCollection es inmutable y thread-safe: se crea una sola vez al arrancar
+     * en lugar de resolver database + collection en cada llamada.
+     *
+     * - collection: MongoCollection<Document>, para escrituras y agregaciones
+     * - userCollection: MongoCollection<User> con UserCodec, las lecturas decodifican
+     *   BSON directamente a User sin Document intermedio
+     */
+    private final MongoCollection<Document> collection;
+    private final MongoCollection<User> userCollection;
+    private final UserCodec userCodec = new UserCodec();
+
+    private final Validator validator;
+    private final int bulkBatchSize;
+    private final UserCache userCache;
+    private final DepartmentStatsStore departmentStats;
+    private final UserAutocomplete autocomplete;
+    private final IndexAdvisor indexAdvisor;
+    private final SortRegistry sortRegistry;
+    private final SingleFlight singleFlight;
+
+    /**
+     * Consulta de findUserById en un fallo de caché: loadUserById(), o un lote $in de
+     * UserLookupCoalescer si app.lookup.coalesce.enabled=true.
+     */
+    private final Function<String, User> userByIdLoader;
+
+    /**
+     * Modo de conteo rápido (app.count.fast):
+     * - total de la colección con estimatedDocumentCount() (metadatos, sin recorrer datos)
+     * - por departamento desde el contador de department_stats
+     */
+    private final boolean fastCount;
+
     @Autowired
     public NativeMongoUserServiceImpl(MongoClient mongoClient,
-            @Value("${spring.data.mongodb.database}") String databaseName) {
+            @Value("${spring.data.mongodb.database}") String databaseName,
+            Validator validator,
+            @Value("${app.bulk.batch-size:1000}") int bulkBatchSize,
+            UserCache userCache,
+            DepartmentStatsStore departmentStats,
+            UserAutocomplete autocomplete,
+            IndexAdvisor indexAdvisor,
+            SortRegistry sortRegistry,
+            UserLookupCoalescer lookupCoalescer,
+            SingleFlight singleFlight,
+            @Value("${app.count.fast:true}") boolean fastCount) {
         this.mongoClient = mongoClient;
         this.databaseName = databaseName;
+        this.validator = validator;
+        this.bulkBatchSize = bulkBatchSize;
+        this.userCache = userCache;
+        this.departmentStats = departmentStats;
+        this.autocomplete = autocomplete;
+        this.indexAdvisor = indexAdvisor;
+        this.sortRegistry = sortRegistry;
+        this.singleFlight = singleFlight;
+        this.fastCount = fastCount;
+        this.userByIdLoader = lookupCoalescer.isEnabled()
+                ? lookupCoalescer.batcher("native", this::loadUsersByIds)::load
+                : this::loadUserById;
+
+        MongoDatabase database = mongoClient.getDatabase(databaseName);
+        CodecRegistry codecRegistry = CodecRegistries.fromRegistries(
+                CodecRegistries.fromCodecs(userCodec),
+                database.getCodecRegistry());
+        this.collection = database.getCollection("users");
+        this.userCollection = database.getCollection("users", User.class).withCodecRegistry(codecRegistry);
         log.info("NativeMongoUserService inicializado con base de datos: {}", databaseName);
     }
 
@@ -110,10 +222,19 @@ public class NativeMongoUserServiceImpl implements NativeMongoUserService {
      * el primer documento
      * - MongoCollection<Document> es typed (Document), en JDBC usas tipos
      * primitivos
+     * - La instancia se crea una vez en el constructor y se reutiliza
      */
     private MongoCollection<Document> getCollection() {
-        return mongoClient.getDatabase(databaseName).getCollection("users");
-        // Equivalente JDBC no directo - prepararías statement cada vez
+        return collection;
+        // Equivalente JDBC: reutilizar un PreparedStatement ya preparado
+    }
+
+    /**
+     * Colección tipada MongoCollection<User>: las lecturas usan UserCodec.
+     * Equivalente JDBC: jdbcTemplate.query(sql, userRowMapper)
+     */
+    private MongoCollection<User> getUserCollection() {
+        return userCollection;
     }
 
     /**
@@ -143,12 +264,17 @@ public class NativeMongoUserServiceImpl implements NativeMongoUserService {
      * 1. Obtener base de datos: mongoClient.getDatabase(name)
      * 2. Listar colecciones: database.listCollectionNames()
      * 3. Ejecutar comando: database.runCommand(new Document("ping", 1))
-     * 4. Contar documentos: collection.countDocuments()
+     * 4. Contar documentos: collection.estimatedDocumentCount() o countDocuments()
      *
      * EQUIVALENCIAS SQL:
      * - listCollectionNames() → SHOW TABLES
      * - runCommand("ping") → SELECT 1
      * - countDocuments() → SELECT COUNT(*) FROM users
+     * - estimatedDocumentCount() → SELECT reltuples FROM pg_class WHERE relname = 'users'
+     *
+     * countDocuments() sin filtro ejecuta un aggregate que recorre toda la colección;
+     * estimatedDocumentCount() lee el contador de los metadatos de la colección (O(1)).
+     * Puede desviarse tras un apagado sucio, pero para un test de conexión basta.
      */
     @Override
     public String testConnection() {
@@ -162,7 +288,9 @@ public class NativeMongoUserServiceImpl implements NativeMongoUserService {
             Document pingCommand = new Document("ping", 1);
             Document result = database.runCommand(pingCommand);
 
-            long userCount = getCollection().countDocuments();
+            long userCount = fastCount
+                    ? getCollection().estimatedDocumentCount()
+                    : getCollection().countDocuments();
 
             String message = String.format(
                     "Conexión API Nativa exitosa | BD: %s | Colecciones: %d | Usuarios: %d | Ping: %s",
@@ -245,6 +373,10 @@ public class NativeMongoUserServiceImpl implements NativeMongoUserService {
 
             // 5. Mapear Document a User (en JDBC mapearías ResultSet a User)
             User user = mapDocumentToUser(doc, id.toString());
+            userCache.put(user);
+            singleFlight.forgetAll();
+            departmentStats.recordCreated(dto.getDepartment());
+            autocomplete.onSaved(user);
             log.info("Usuario creado exitosamente con ID: {}", id);
             return user;
         } catch (Exception e) {
@@ -259,6 +391,121 @@ public class NativeMongoUserServiceImpl implements NativeMongoUserService {
         }
     }
 
+    /**
+     * CREACIÓN EN BLOQUE (insertMany DESORDENADO)
+     * ===========================================
+     * Agrupa los usuarios en lotes de app.bulk.batch-size documentos y envía cada lote
+     * en una sola petición insertMany con ordered=false.
+     *
+     * COMPARACIÓN CON JDBC:
+     * MongoDB:                                   | JDBC:
+     * ------------------------------------------ | ------------------------------------------
+     * collection.insertMany(docs,                | for (...) { stmt.setString(...);
+     *   new InsertManyOptions().ordered(false))  |   stmt.addBatch(); }
+     *                                            | stmt.executeBatch();
+     * MongoBulkWriteException.getWriteErrors()   | BatchUpdateException.getUpdateCounts()
+     *
+     * ordered=false: el servidor intenta insertar TODOS los documentos del lote aunque
+     * alguno falle, y devuelve la lista de errores con su posición dentro del lote.
+     * Así un email duplicado se informa en su fila sin abortar las demás.
+     *
+     * Los _id se generan en cliente (new ObjectId()) para devolver el ID de cada fila.
+     */
+    @Override
+    public BulkCreateResultDto createUsers(List<UserCreateDto> dtos) {
+        log.debug("Creando {} usuarios en bloque (lotes de {})", dtos.size(), bulkBatchSize);
+        BulkItemResultDto[] results = new BulkItemResultDto[dtos.size()];
+        List<Document> batch = new ArrayList<>(bulkBatchSize);
+        List<Integer> batchIndexes = new ArrayList<>(bulkBatchSize);
+
+        for (int i = 0; i < dtos.size(); i++) {
+            UserCreateDto dto = dtos.get(i);
+            String violations = validate(dto);
+            if (violations != null) {
+                results[i] = BulkItemResultDto.failed(i, BulkItemResultDto.Status.INVALID,
+                        dto != null ? dto.getEmail() : null, violations);
+                continue;
+            }
+
+            Date now = new Date();
+            batch.add(new Document("_id", new ObjectId())
+                    .append("name", dto.getName())
+                    .append("email", dto.getEmail())
+                    .append("department", dto.getDepartment())
+                    .append("role", dto.getRole())
+                    .append("active", true)
+                    .append("createdAt", now)
+                    .append("updatedAt", now));
+            batchIndexes.add(i);
+
+            if (batch.size() == bulkBatchSize) {
+                insertBatch(batch, batchIndexes, results);
+                batch.clear();
+                batchIndexes.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            insertBatch(batch, batchIndexes, results);
+        }
+
+        BulkCreateResultDto result = new BulkCreateResultDto(Arrays.asList(results));
+        log.info("Creación en bloque: {} insertados, {} fallidos", result.getInserted(), result.getFailed());
+        return result;
+    }
+
+    /**
+     * Inserta un lote y traduce los errores por posición del lote a resultados por fila.
+     */
+    private void insertBatch(List<Document> batch, List<Integer> batchIndexes, BulkItemResultDto[] results) {
+        Map<Integer, BulkWriteError> errors = new HashMap<>();
+        try {
+            getCollection().insertMany(batch, new InsertManyOptions().ordered(false));
+        } catch (MongoBulkWriteException e) {
+            errors = e.getWriteErrors().stream()
+                    .collect(Collectors.toMap(BulkWriteError::getIndex, error -> error));
+        }
+
+        List<String> createdDepartments = new ArrayList<>(batch.size());
+        for (int j = 0; j < batch.size(); j++) {
+            int index = batchIndexes.get(j);
+            Document doc = batch.get(j);
+            String email = doc.getString("email");
+            BulkWriteError error = errors.get(j);
+            if (error == null) {
+                results[index] = BulkItemResultDto.created(index, doc.getObjectId("_id").toHexString(), email);
+                createdDepartments.add(doc.getString("department"));
+                autocomplete.onSaved(doc.getObjectId("_id").toHexString(), doc.getString("name"), email);
+            } else if (error.getCode() == DUPLICATE_KEY_CODE) {
+                results[index] = BulkItemResultDto.failed(index, BulkItemResultDto.Status.DUPLICATE_EMAIL,
+                        email, DuplicateEmailException.messageFor(email));
+            } else {
+                results[index] = BulkItemResultDto.failed(index, BulkItemResultDto.Status.ERROR,
+                        email, error.getMessage());
+            }
+        }
+        departmentStats.recordCreated(createdDepartments);
+        singleFlight.forgetAll();
+    }
+
+    /**
+     * Valida un DTO con Bean Validation (las mismas reglas que @Valid en el controlador).
+     *
+     * @return mensajes de error unidos o null si es válido
+     */
+    private String validate(UserCreateDto dto) {
+        if (dto == null) {
+            return "Elemento nulo";
+        }
+        Set<ConstraintViolation<UserCreateDto>> violations = validator.validate(dto);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
     /**
      * EJEMPLO 2: BUSCAR POR ID (SELECT BY PRIMARY KEY)
      * ================================================
@@ -292,24 +539,39 @@ public class NativeMongoUserServiceImpl implements NativeMongoUserService {
      * - ObjectId incluye timestamp de creación
      * - find() retorna Document directamente, no necesitas iterar ResultSet
      * - Filters API es type-safe vs SQL strings propensos a errores
+     *
+     * CACHÉ (app.cache.user.enabled):
+     * - UserCache devuelve el usuario de memoria si ya se leyó antes (read-through)
+     * - Solo en un fallo de caché se ejecuta loadUserById() contra MongoDB
+     *
+     * AGRUPACIÓN (app.lookup.coalesce.enabled):
+     * - Los fallos de caché concurrentes se juntan en un solo find({_id: {$in: [...]}})
+     *   (UserLookupCoalescer): como el batch fetching de Hibernate, pero entre peticiones
+     *
+     * SINGLE-FLIGHT (app.single-flight.enabled):
+     * - Varias lecturas simultáneas del mismo ID comparten una sola consulta (SingleFlight)
      */
     @Override
     public User findUserById(String id) {
+        return singleFlight.execute("native.findUserById",
+                () -> userCache.get(id, userByIdLoader), User::copy, id);
+    }
+
+    private User loadUserById(String id) {
         log.debug("Buscando usuario por ID: {}", id);
         try {
-            MongoCollection<Document> collection = getCollection();
+            MongoCollection<User> collection = getUserCollection();
 
             // Buscar por _id (campo especial de MongoDB, equivalente a PRIMARY KEY en SQL)
-            Document doc = collection.find(Filters.eq("_id", new ObjectId(id))).first();
+            User user = collection.find(Filters.eq("_id", new ObjectId(id))).first();
             // Equivalente JDBC:
             // SELECT * FROM users WHERE id = ?
 
-            if (doc == null) {
+            if (user == null) {
                 log.warn("Usuario no encontrado con ID: {}", id);
                 throw new UserNotFoundException(id);
             }
 
-            User user = mapDocumentToUser(doc);
             log.debug("Usuario encontrado: {}", user.getEmail());
             return user;
         } catch (UserNotFoundException e) {
@@ -324,6 +586,91 @@ public class NativeMongoUserServiceImpl implements NativeMongoUserService {
         }
     }
 
+    /**
+     * Consulta de un lote de UserLookupCoalescer: IDs hex válidos y sin repetir.
+     */
+    private List<User> loadUsersByIds(List<String> ids) {
+        try {
+            List<ObjectId> objectIds = ids.stream().map(ObjectId::new).toList();
+            return getUserCollection().find(Filters.in("_id", objectIds)).into(new ArrayList<>());
+        } catch (Exception e) {
+            log.error("Error al buscar usuarios por ID: {}", e.getMessage(), e);
+            throw new RuntimeException("Error al buscar usuarios por ID: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * VERSIÓN DE UN USUARIO PARA GET CONDICIONALES
+     * ============================================
+     * Si el usuario está en UserCache se usa su updatedAt; si no, la consulta solo trae
+     * updatedAt (el driver decodifica un Document de un campo, no un User completo).
+     *
+     * SQL: SELECT updated_at FROM users WHERE id = ?
+     */
+    @Override
+    public ResourceVersion findUserVersion(String id) {
+        User cached = userCache.getIfPresent(id);
+        if (cached != null) {
+            return ResourceVersion.of(cached);
+        }
+        try {
+            Document doc = getCollection().find(Filters.eq("_id", new ObjectId(id)))
+                    .projection(Projections.include("updatedAt"))
+                    .first();
+            if (doc == null) {
+                throw new UserNotFoundException(id);
+            }
+            return new ResourceVersion(1, toLocalDateTime(doc.getDate("updatedAt")));
+        } catch (UserNotFoundException e) {
+            throw e;
+        } catch (IllegalArgumentException e) {
+            throw new InvalidUserIdException(id, e);
+        } catch (Exception e) {
+            log.error("Error al leer la versión del usuario: {}", e.getMessage(), e);
+            throw new RuntimeException("Error al leer la versión del usuario: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * BUSCAR VARIOS USUARIOS POR ID (SELECT ... WHERE id IN)
+     * ======================================================
+     * Un solo find() con $in en lugar de un findUserById() por ID (ver UserBatchGet).
+     *
+     * COMPARACIÓN CON JDBC:
+     * MongoDB:
+     * collection.find(Filters.in("_id", objectIds))
+     *
+     * JDBC:
+     * SELECT * FROM users WHERE id IN (?, ?, ?)   -- un ? por ID
+     *
+     * CACHÉ: los IDs que ya están en UserCache no se consultan. Lo leído con $in no se
+     * guarda en la caché: put() es solo para usuarios recién creados, y guardar aquí
+     * podría dejar cacheada una lectura anterior a un update concurrente.
+     */
+    @Override
+    public BatchGetResultDto findUsersByIds(Collection<String> ids) {
+        UserBatchGet batch = UserBatchGet.of(ids);
+        for (String id : batch.pendingIds()) {
+            User cached = userCache.getIfPresent(id);
+            if (cached != null) {
+                batch.found(cached);
+            }
+        }
+        List<ObjectId> pending = batch.pendingObjectIds();
+        log.debug("Buscando {} usuarios por ID ({} consultados a MongoDB)", ids.size(), pending.size());
+        try {
+            if (!pending.isEmpty()) {
+                getUserCollection().find(Filters.in("_id", pending)).forEach(batch::found);
+                // Equivalente JDBC:
+                // SELECT * FROM users WHERE id IN (?, ?, ...)
+            }
+            return batch.result();
+        } catch (Exception e) {
+            log.error("Error al buscar usuarios por ID: {}", e.getMessage(), e);
+            throw new RuntimeException("Error al buscar usuarios por ID: " + e.getMessage(), e);
+        }
+    }
+
     /**
      * EJEMPLO 3: ACTUALIZAR USUARIO (UPDATE)
      * ======================================
@@ -338,9 +685,8 @@ public class NativeMongoUserServiceImpl implements NativeMongoUserService {
      * Updates.set("email", "nuevo@email.com"),
      * Updates.set("updatedAt", new Date())
      * );
-     * UpdateResult result = collection.updateOne(Filters.eq("_id", objectId),
-     * update);
-     * boolean updated = result.getModifiedCount() > 0;
+     * User updated = userCollection.findOneAndUpdate(Filters.eq("_id", objectId),
+     * update, new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER));
      *
      * JDBC:
      * -----
@@ -363,25 +709,27 @@ public class NativeMongoUserServiceImpl implements NativeMongoUserService {
      * stmt.setObject(i + 1, params.get(i));
      * }
      * int rowsAffected = stmt.executeUpdate();
+     * // + SELECT posterior (o UPDATE ... RETURNING * en PostgreSQL)
      *
      * VENTAJAS MONGODB:
      * - Updates.set() es más seguro que construir SQL dinámico
      * - Updates.combine() permite combinar múltiples updates fácilmente
      * - No necesitas manejar índices de parámetros manualmente
-     * - updateOne() garantiza que solo se actualice un documento
+     * - findOneAndUpdate() actualiza y devuelve el documento en un único viaje de red
      *
      * CONCEPTOS CLAVE:
      * - Updates.set(campo, valor): Operador $set de MongoDB
      * - Updates.combine(): Combina múltiples operaciones de update
-     * - updateOne(): Actualiza el primer documento que coincida con el filtro
-     * - getModifiedCount(): Número de documentos realmente modificados
+     * - findOneAndUpdate(): Actualiza atómicamente el primer documento que coincida
+     * - ReturnDocument.AFTER: Devuelve el documento ya modificado (post-imagen);
+     *   con BEFORE devolvería el estado anterior
+     * - Solo se envían ($set) los campos presentes en el DTO: dos actualizaciones
+     *   concurrentes de campos distintos no se pisan entre sí
      */
     @Override
     public User updateUser(String id, UserUpdateDto dto) {
         log.debug("Actualizando usuario con ID: {}", id);
         try {
-            MongoCollection<Document> collection = getCollection();
-
             // Construir updates dinámicamente (solo campos no-null)
             List<Bson> updates = new ArrayList<>();
             if (dto.getName() != null) {
@@ -400,31 +748,44 @@ public class NativeMongoUserServiceImpl implements NativeMongoUserService {
                 updates.add(Updates.set("active", dto.getActive()));
             }
             // Siempre actualizar updatedAt
-            updates.add(Updates.set("updatedAt", new Date()));
+            Date now = new Date();
+            updates.add(Updates.set("updatedAt", now));
 
             // Combinar todos los updates en una sola operación
             Bson updateOperation = Updates.combine(updates);
             // En MongoDB: { $set: { name: "X", email: "Y", updatedAt: Date } }
             // En SQL: UPDATE users SET name = ?, email = ?, updated_at = ? WHERE id = ?
 
-            // Ejecutar update
-            UpdateResult result = collection.updateOne(
-                    Filters.eq("_id", new ObjectId(id)), // WHERE id = ?
-                    updateOperation // SET campo1 = ?, campo2 = ?
-            );
+            // Si cambian department o active, department_stats necesita también los valores
+            // anteriores: ver updateTrackingStats()
+            ObjectId objectId = new ObjectId(id);
+            boolean statsAffected = departmentStats.isEnabled()
+                    && (dto.getDepartment() != null || dto.getActive() != null);
+
+            // Ejecutar update y recuperar el documento (post-imagen) en un solo round trip
+            User user = statsAffected
+                    ? updateTrackingStats(objectId, updateOperation)
+                    : getUserCollection().findOneAndUpdate(
+                            Filters.eq("_id", objectId), // WHERE id = ?
+                            updateOperation, // SET campo1 = ?, campo2 = ?
+                            new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER));
 
-            // Verificar que se modificó algo
-            if (result.getMatchedCount() == 0) {
+            // null = ningún documento coincidió con el filtro
+            if (user == null) {
                 log.warn("Usuario no encontrado para actualizar con ID: {}", id);
                 throw new UserNotFoundException(id);
             }
 
-            // Obtener documento actualizado
-            User user = findUserById(id);
+            userCache.invalidate(id);
+            singleFlight.forgetAll();
+            autocomplete.onSaved(user);
             log.info("Usuario actualizado exitosamente: {}", id);
             return user;
-        } catch (UserNotFoundException | InvalidUserIdException e) {
+        } catch (UserNotFoundException e) {
             throw e;
+        } catch (IllegalArgumentException e) {
+            log.warn("ID de usuario inválido: {}", id);
+            throw new InvalidUserIdException(id, e);
         } catch (Exception e) {
             if (e.getMessage() != null
                     && (e.getMessage().contains("duplicate key") || e.getMessage().contains("E11000"))) {
@@ -436,6 +797,57 @@ public class NativeMongoUserServiceImpl implements NativeMongoUserService {
         }
     }
 
+    /**
+     * UPDATE QUE MUEVE CONTADORES DE department_stats
+     * ===============================================
+     * Para mover los contadores hacen falta department y active anteriores, y el User
+     * devuelto tiene que seguir siendo la post-imagen que guardó MongoDB. Se leen primero
+     * esos dos campos con una proyección y el update se condiciona a que sigan igual:
+     *
+     * MongoDB:
+     * collection.find(eq("_id", id)).projection(include("department", "active")).first();
+     * collection.findOneAndUpdate(and(eq("_id", id), eq("department", old), eq("active", old)),
+     *         update, new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER));
+     *
+     * JDBC (bloqueo optimista):
+     * SELECT department, active FROM users WHERE id = ?
+     * UPDATE users SET ... WHERE id = ? AND department = ? AND active = ? RETURNING *
+     *
+     * Si otro cliente cambia department o active entre las dos operaciones el filtro no
+     * coincide y se vuelve a leer, hasta MAX_STATS_UPDATE_ATTEMPTS veces.
+     *
+     * @return la post-imagen, o null si el usuario no existe
+     */
+    private User updateTrackingStats(ObjectId objectId, Bson updateOperation) {
+        for (int attempt = 1; attempt <= MAX_STATS_UPDATE_ATTEMPTS; attempt++) {
+            Document previous = getCollection().find(Filters.eq("_id", objectId))
+                    .projection(Projections.include("department", "active"))
+                    .first();
+            if (previous == null) {
+                return null;
+            }
+            String oldDepartment = previous.getString("department");
+            Boolean oldActive = previous.getBoolean("active");
+
+            User user = getUserCollection().findOneAndUpdate(
+                    Filters.and(
+                            Filters.eq("_id", objectId),
+                            Filters.eq("department", oldDepartment),
+                            Filters.eq("active", oldActive)),
+                    updateOperation,
+                    new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER));
+            if (user != null) {
+                departmentStats.recordUpdated(oldDepartment, oldActive, user.getDepartment(), user.getActive());
+                return user;
+            }
+            log.debug("department/active del usuario {} cambiaron durante la actualización (intento {})",
+                    objectId, attempt);
+        }
+        throw new IllegalStateException("department/active del usuario " + objectId
+                + " cambian continuamente; actualización abandonada tras "
+                + MAX_STATS_UPDATE_ATTEMPTS + " intentos");
+    }
+
     /**
      * EJEMPLO 4: ELIMINAR USUARIO (DELETE)
      * ====================================
@@ -466,6 +878,8 @@ public class NativeMongoUserServiceImpl implements NativeMongoUserService {
      * - deleteOne(): Elimina el primer documento que coincida
      * - deleteMany(): Eliminaría todos los documentos que coincidan
      * - getDeletedCount(): Número de documentos eliminados (0 o 1 con deleteOne)
+     * - findOneAndDelete(): Como deleteOne() pero devuelve el documento borrado (o null);
+     *   aquí se usa para descontar su departamento en department_stats
      *
      * DIFERENCIA CON SQL:
      * - MongoDB no tiene claves foráneas ni CASCADE
@@ -479,11 +893,16 @@ public class NativeMongoUserServiceImpl implements NativeMongoUserService {
         try {
             MongoCollection<Document> collection = getCollection();
 
-            // Eliminar documento por _id
-            DeleteResult result = collection.deleteOne(Filters.eq("_id", new ObjectId(id)));
-            // Equivalente SQL: DELETE FROM users WHERE id = ?
+            // Eliminar documento por _id devolviendo los campos que necesita department_stats
+            Document deleted = collection.findOneAndDelete(Filters.eq("_id", new ObjectId(id)),
+                    new FindOneAndDeleteOptions().projection(Projections.include("department", "active")));
+            // Equivalente SQL: DELETE FROM users WHERE id = ? RETURNING department, active
 
-            if (result.getDeletedCount() > 0) {
+            if (deleted != null) {
+                userCache.invalidate(id);
+                singleFlight.forgetAll();
+                departmentStats.recordDeleted(deleted.getString("department"), deleted.getBoolean("active"));
+                autocomplete.onDeleted(id);
                 log.info("Usuario eliminado exitosamente: {}", id);
                 return true;
             } else {
@@ -501,82 +920,286 @@ public class NativeMongoUserServiceImpl implements NativeMongoUserService {
 
     @Override
     public List<User> findAll() {
-        log.debug("Listando todos los usuarios");
-        MongoCollection<Document> collection = getCollection();
+        return findAll(null);
+    }
+
+    /**
+     * PROYECCIÓN CON Projections.include
+     * ==================================
+     * find().projection(Projections.fields(Projections.include("name", "email"),
+     *                                      Projections.excludeId()))
+     * Equivalente SQL: SELECT name, email FROM users
+     *
+     * UserCodec deja a null los campos que no llegan y el JSON los omite.
+     */
+    @Override
+    public List<User> findAll(List<String> fields) {
+        log.debug("Listando todos los usuarios (campos: {})", fields);
+        MongoCollection<User> collection = getUserCollection();
         List<User> users = new ArrayList<>();
 
-        try (MongoCursor<Document> cursor = collection.find().iterator()) {
+        try (MongoCursor<User> cursor = collection.find()
+                .projection(FieldProjection.of(fields).toBson()).iterator()) {
             while (cursor.hasNext()) {
-                users.add(mapDocumentToUser(cursor.next()));
+                users.add(cursor.next());
             }
         }
 
         return users;
     }
 
+    /**
+     * STREAMING DE USUARIOS (CURSOR SIN MATERIALIZAR)
+     * ===============================================
+     * A diferencia de findAll(), no acumula un ArrayList: cada Document se mapea y se
+     * entrega al consumidor en cuanto llega del cursor, así la memoria usada no depende
+     * del tamaño de la colección.
+     *
+     * Equivalente JDBC:
+     * stmt.setFetchSize(500);
+     * ResultSet rs = stmt.executeQuery("SELECT * FROM users");
+     * while (rs.next()) { consumer.accept(mapRow(rs)); }
+     */
+    @Override
+    public void streamAll(Consumer<User> consumer) {
+        streamAll(null, consumer);
+    }
+
+    @Override
+    public void streamAll(List<String> fields, Consumer<User> consumer) {
+        log.debug("Streaming de todos los usuarios (campos: {})", fields);
+        MongoCollection<User> collection = getUserCollection();
+
+        try (MongoCursor<User> cursor = collection.find()
+                .projection(FieldProjection.of(fields).toBson())
+                .batchSize(STREAM_BATCH_SIZE).iterator()) {
+            while (cursor.hasNext()) {
+                consumer.accept(cursor.next());
+            }
+        }
+    }
+
     @Override
     public List<User> findUsersByDepartment(String department) {
-        log.debug("Buscando usuarios por departamento: {}", department);
-        MongoCollection<Document> collection = getCollection();
+        return findUsersByDepartment(department, null);
+    }
+
+    /**
+     * Con fields=department (o department + otros campos de un índice que empiece por
+     * department) la consulta queda cubierta por department_1: no se lee ningún documento.
+     */
+    @Override
+    public List<User> findUsersByDepartment(String department, List<String> fields) {
+        log.debug("Buscando usuarios por departamento: {} (campos: {})", department, fields);
+        MongoCollection<User> collection = getUserCollection();
         List<User> users = new ArrayList<>();
 
-        try (MongoCursor<Document> cursor = collection.find(Filters.eq("department", department)).iterator()) {
+        try (MongoCursor<User> cursor = collection.find(Filters.eq("department", department))
+                .projection(FieldProjection.of(fields).toBson()).iterator()) {
             while (cursor.hasNext()) {
-                users.add(mapDocumentToUser(cursor.next()));
+                users.add(cursor.next());
             }
         }
 
         return users;
     }
 
+    /**
+     * Dos consultas resueltas con department_1_updatedAt_-1 sin leer documentos:
+     * - countDocuments({department}): recorre solo las entradas del índice
+     * - find({department}).sort({updatedAt: -1}).limit(1) con proyección de updatedAt:
+     *   la primera entrada del índice (consulta cubierta)
+     *
+     * SQL: SELECT COUNT(*), MAX(updated_at) FROM users WHERE department = ?
+     */
+    @Override
+    public ResourceVersion findDepartmentVersion(String department) {
+        try {
+            Bson filter = Filters.eq("department", department);
+            long count = getCollection().countDocuments(filter);
+            Document latest = count == 0 ? null : getCollection().find(filter)
+                    .projection(Projections.fields(Projections.include("updatedAt"), Projections.excludeId()))
+                    .sort(Sorts.descending("updatedAt"))
+                    .limit(1)
+                    .first();
+            return new ResourceVersion(count, latest == null ? null : toLocalDateTime(latest.getDate("updatedAt")));
+        } catch (Exception e) {
+            log.error("Error al leer la versión del departamento: {}", e.getMessage(), e);
+            throw new RuntimeException("Error al leer la versión del departamento: " + e.getMessage(), e);
+        }
+    }
+
     @Override
     public List<User> searchUsers(UserQueryDto query) {
+        // Búsquedas simultáneas con los mismos filtros (normalizados) comparten consulta
+        return singleFlight.execute("native.searchUsers",
+                () -> runSearchUsers(query), SingleFlight::copyOfUsers, query);
+    }
+
+    private List<User> runSearchUsers(UserQueryDto query) {
         log.debug("Buscando usuarios con filtros complejos: {}", query);
-        MongoCollection<Document> collection = getCollection();
         List<User> users = new ArrayList<>();
-        List<Bson> filters = new ArrayList<>();
 
-        // 1. Construir filtros
-        if (query.getName() != null && !query.getName().isEmpty()) {
-            filters.add(Filters.regex("name", query.getName(), "i"));
-        }
-        if (query.getDepartment() != null && !query.getDepartment().isEmpty()) {
-            filters.add(Filters.eq("department", query.getDepartment()));
-        }
-        if (query.getActive() != null) {
-            filters.add(Filters.eq("active", query.getActive()));
+        try (MongoCursor<User> cursor = searchFind(query).iterator()) {
+            while (cursor.hasNext()) {
+                users.add(cursor.next());
+            }
         }
 
+        return users;
+    }
+
+    /**
+     * El find() de searchUsers sin ejecutar; los tests lo usan para comprobar su explain().
+     * La ordenación la resuelve SortRegistry: solo claves admitidas y con el índice que
+     * da ese orden forzado con hint() (sin SORT en memoria).
+     */
+    FindIterable<User> searchFind(UserQueryDto query) {
+        // 1. Construir filtros y orden
+        List<Bson> filters = buildSearchFilters(query);
+        SortRegistry.SortPlan sort = sortRegistry.resolve(query);
+        indexAdvisor.observe(query);
         Bson filter = filters.isEmpty() ? new Document() : Filters.and(filters);
 
-        // 2. Aplicar filtros, sort y paginación
-        FindIterable<Document> findIterable = collection.find(filter);
+        // 2. Aplicar filtros, proyección, sort y paginación
+        FindIterable<User> findIterable = getUserCollection().find(filter)
+                .projection(FieldProjection.of(query.getFields()).toBson())
+                .sort(sort.toBson());
+        // En SQL: SELECT ... FROM users USE INDEX (...) WHERE ... ORDER BY ...
+        if (sort.hint() != null) {
+            findIterable.hintString(sort.hint());
+        }
+        if (isPrefixSearch(query)) {
+            // Misma collation que el índice name_ci, si no el rango no puede usarlo
+            findIterable.collation(NameCollation.collation());
+        }
 
         // Paginación
         if (query.getPage() != null && query.getSize() != null) {
             findIterable.skip(query.getPage() * query.getSize())
                     .limit(query.getSize());
         }
+        return findIterable;
+    }
 
-        // Ordenamiento
-        if (query.getSortBy() != null) {
-            Bson sort = "DESC".equalsIgnoreCase(query.getSortDirection()) ? Sorts.descending(query.getSortBy())
-                    : Sorts.ascending(query.getSortBy());
-            findIterable.sort(sort);
+    /**
+     * BÚSQUEDA CON PAGINACIÓN KEYSET (SEEK)
+     * =====================================
+     * En lugar de skip(page * size), la siguiente página empieza justo después del
+     * último documento devuelto, identificado por (valor de sortBy, _id).
+     *
+     * Filtro generado para ORDER BY name ASC, _id ASC tras ("Juan", id7):
+     * { $or: [ { name: { $gt: "Juan" } },
+     *          { name: "Juan", _id: { $gt: id7 } } ] }
+     *
+     * Equivalente SQL:
+     * SELECT * FROM users WHERE (name > 'Juan') OR (name = 'Juan' AND id > 7)
+     * ORDER BY name, id LIMIT 10
+     *
+     * Se pide size + 1 documentos: si llega el extra, hay página siguiente y se
+     * genera el token a partir del último documento de la página actual.
+     *
+     * El índice con _id como desempate (p.ej. {name: 1, _id: 1}, ver
+     * SortRegistry.resolvePage) da ese orden y posiciona en el token sin SORT en memoria:
+     * en SQL, CREATE INDEX ... ON users(name, id).
+     */
+    @Override
+    public UserPageDto searchUsersPage(UserQueryDto query) {
+        log.debug("Buscando usuarios con paginación keyset: {}", query);
+        int size = ContinuationToken.pageSize(query.getSize());
+        SortRegistry.SortPlan sortPlan = sortRegistry.resolvePage(query);
+        String sortField = sortPlan.field();
+        boolean descending = sortPlan.descending();
+
+        List<User> users = searchPageFind(query, sortPlan, size).into(new ArrayList<>());
+
+        boolean hasMore = users.size() > size;
+        if (hasMore) {
+            users = users.subList(0, size);
         }
 
-        try (MongoCursor<Document> cursor = findIterable.iterator()) {
-            while (cursor.hasNext()) {
-                users.add(mapDocumentToUser(cursor.next()));
-            }
+        String nextToken = null;
+        if (hasMore) {
+            // El codec da los valores con el nombre y tipo BSON de la colección (Date, ObjectId...)
+            BsonDocument last = userCodec.toBsonDocument(users.get(users.size() - 1));
+            nextToken = ContinuationToken.of(sortField, descending, last.get(sortField),
+                    last.getObjectId("_id").getValue()).encode();
+        }
+        return new UserPageDto(users, hasMore, nextToken);
+    }
+
+    /**
+     * El find() de searchUsersPage sin ejecutar; los tests lo usan para comprobar su
+     * explain(). Ordena por (campo, _id) con hint() al índice que da ese orden
+     * (SortRegistry.resolvePage), así que cada página empieza en la posición del token.
+     */
+    FindIterable<User> searchPageFind(UserQueryDto query, SortRegistry.SortPlan sort, int size) {
+        List<Bson> filters = buildSearchFilters(query);
+        indexAdvisor.observe(query);
+        if (query.getContinuationToken() != null && !query.getContinuationToken().isEmpty()) {
+            ContinuationToken token = ContinuationToken.decode(query.getContinuationToken(),
+                    sort.field(), sort.descending());
+            filters.add(keysetFilter(token));
         }
+        Bson filter = filters.isEmpty() ? new Document() : Filters.and(filters);
 
-        return users;
+        FindIterable<User> findIterable = getUserCollection().find(filter)
+                .sort(sort.toKeysetBson())
+                .limit(size + 1);
+        if (sort.hint() != null) {
+            findIterable.hintString(sort.hint());
+        }
+        if (isPrefixSearch(query)) {
+            findIterable.collation(NameCollation.collation());
+        }
+        return findIterable;
     }
 
+    /**
+     * BÚSQUEDA DE TEXTO COMPLETO
+     * ==========================
+     * collection.find(Filters.text("ana developer"))
+     *     .projection(Projections.metaTextScore("score"))
+     *     .sort(Sorts.metaTextScore("score"))
+     *
+     * Equivalente SQL (MySQL):
+     * SELECT *, MATCH(name, role, department, email) AGAINST('ana developer') AS score
+     * FROM users WHERE MATCH(...) AGAINST(...) ORDER BY score DESC LIMIT 10 OFFSET 0
+     *
+     * El índice users_text (UserTextIndex) resuelve qué documentos contienen alguna de
+     * las palabras; un regex sobre cuatro campos tendría que recorrerlos todos.
+     * UserCodec ignora el campo "score" al decodificar.
+     */
+    @Override
+    public List<User> textSearch(String text, int page, int size) {
+        log.debug("Búsqueda de texto: '{}' (página {}, tamaño {})", text, page, size);
+        UserTextIndex.validate(text, page, size);
+
+        return getUserCollection().find(Filters.text(text))
+                .projection(Projections.metaTextScore(UserTextIndex.SCORE_FIELD))
+                .sort(Sorts.metaTextScore(UserTextIndex.SCORE_FIELD))
+                .skip(page * size)
+                .limit(size)
+                .into(new ArrayList<>());
+    }
+
+    /**
+     * CONTAR POR DEPARTAMENTO
+     * =======================
+     * - Modo rápido con department_stats: lectura de un contador por _id (O(1))
+     * - Si no: countDocuments({department}) sobre el índice department_1. El pipeline
+     *   de conteo no necesita ningún campo del documento, así que el plan es una
+     *   consulta cubierta (IXSCAN / COUNT_SCAN sin FETCH): no se lee ningún documento.
+     *
+     * Equivalente SQL: SELECT COUNT(*) FROM users WHERE department = ?
+     * (con índice en department, PostgreSQL haría un Index Only Scan)
+     */
     @Override
     public long countByDepartment(String department) {
         log.debug("Contando usuarios por departamento: {}", department);
+        if (fastCount && departmentStats.isEnabled()) {
+            return departmentStats.countByDepartment(department);
+        }
         MongoCollection<Document> collection = getCollection();
         return collection.countDocuments(Filters.eq("department", department));
     }
@@ -601,9 +1224,24 @@ public class NativeMongoUserServiceImpl implements NativeMongoUserService {
      * }},
      * { $sort: { totalUsers: -1 } }
      * ])
+     *
+     * Con app.stats.materialized=true (por defecto) la respuesta sale de la colección
+     * department_stats que mantiene DepartmentStatsStore, y este pipeline solo se usa
+     * para reconciliarla.
      */
     @Override
     public List<DepartmentStatsDto> getStatsByDepartment() {
+        // Una ráfaga de peticiones a /stats/departments lanza una sola lectura
+        return singleFlight.execute("native.getStatsByDepartment",
+                this::loadStatsByDepartment, SingleFlight::copyOfStats);
+    }
+
+    private List<DepartmentStatsDto> loadStatsByDepartment() {
+        if (departmentStats.isEnabled()) {
+            // Materializadas: un documento por departamento, sin recorrer "users"
+            log.debug("Obteniendo estadísticas por departamento desde department_stats");
+            return departmentStats.findAll();
+        }
         log.debug("Obteniendo estadísticas por departamento con aggregation pipeline");
         try {
             MongoCollection<Document> collection = getCollection();
@@ -643,8 +1281,69 @@ public class NativeMongoUserServiceImpl implements NativeMongoUserService {
         }
     }
 
-    private User mapDocumentToUser(Document doc) {
-        return mapDocumentToUser(doc, doc.getObjectId("_id").toString());
+    @Override
+    public int reconcileDepartmentStats() {
+        log.debug("Reconciliando department_stats");
+        return departmentStats.reconcile();
+    }
+
+    /**
+     * Filtros comunes de searchUsers y searchUsersPage (nombre, departamento, activo).
+     * Devuelve una lista mutable para poder añadir el filtro keyset.
+     */
+    private List<Bson> buildSearchFilters(UserQueryDto query) {
+        List<Bson> filters = new ArrayList<>();
+        if (query.getName() != null && !query.getName().isEmpty()) {
+            if (isPrefixSearch(query)) {
+                // Rango acotado sobre name_ci: { name: { $gte: p, $lt: p + U+FFFF } }
+                filters.add(Filters.gte("name", query.getName()));
+                filters.add(Filters.lt("name", NameCollation.upperBound(query.getName())));
+            } else {
+                // Alternativa lenta: regex sin anclar, recorre todo el índice o la colección
+                filters.add(Filters.regex("name", query.getName(), "i"));
+            }
+        }
+        if (query.getDepartment() != null && !query.getDepartment().isEmpty()) {
+            filters.add(Filters.eq("department", query.getDepartment()));
+        }
+        if (query.getActive() != null) {
+            filters.add(Filters.eq("active", query.getActive()));
+        }
+        return filters;
+    }
+
+    /**
+     * Búsqueda por prefijo de nombre (nameMatch=prefix): la consulta lleva la collation
+     * de name_ci. Sin nombre no hay rango y se deja la collation simple.
+     */
+    private static boolean isPrefixSearch(UserQueryDto query) {
+        return NameCollation.isPrefix(query.getNameMatch())
+                && query.getName() != null && !query.getName().isEmpty();
+    }
+
+    /**
+     * Filtro "posterior a la posición del token" respetando el orden de MongoDB,
+     * donde null/ausente ordena antes que cualquier otro valor.
+     */
+    private Bson keysetFilter(ContinuationToken token) {
+        String field = token.getSortField();
+        Object value = token.getLastValue();
+        boolean descending = token.isDescending();
+        Bson idAfter = descending ? Filters.lt("_id", token.getLastId()) : Filters.gt("_id", token.getLastId());
+
+        if ("_id".equals(field)) {
+            return idAfter;
+        }
+
+        Bson sameValue = Filters.and(Filters.eq(field, value), idAfter);
+        if (value == null) {
+            // ASC: todo lo no-null va detrás de los null | DESC: los null van al final
+            return descending ? sameValue : Filters.or(Filters.ne(field, null), sameValue);
+        }
+        if (descending) {
+            return Filters.or(Filters.lt(field, value), sameValue, Filters.eq(field, null));
+        }
+        return Filters.or(Filters.gt(field, value), sameValue);
     }
 
     private User mapDocumentToUser(Document doc, String id) {
@@ -668,4 +1367,8 @@ public class NativeMongoUserServiceImpl implements NativeMongoUserService {
 
         return user;
     }
+
+    private static LocalDateTime toLocalDateTime(Date date) {
+        return date == null ? null : LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault());
+    }
 }
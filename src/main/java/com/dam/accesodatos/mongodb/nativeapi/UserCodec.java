@@ -0,0 +1,126 @@
+package com.dam.accesodatos.mongodb.nativeapi;
+
+import com.dam.accesodatos.model.User;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentWriter;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.types.ObjectId;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * CODEC BSON ↔ USER
+ * =================
+ * Decodifica los bytes BSON que llegan del servidor directamente a objetos User,
+ * sin pasar por un Document intermedio (un LinkedHashMap por fila con un objeto por campo).
+ *
+ * COMPARACIÓN:
+ * MongoCollection<Document> + mapDocumentToUser() | MongoCollection<User> + UserCodec
+ * ----------------------------------------------- | -----------------------------------
+ * BSON → Document (HashMap) → User                | BSON → User
+ * doc.getString("name")                           | reader.readString()
+ * Equivalente JDBC: ResultSet → Map → User        | Equivalente JDBC: RowMapper<User>
+ *
+ * Se registra en un CodecRegistry junto a los codecs por defecto:
+ * CodecRegistries.fromRegistries(CodecRegistries.fromCodecs(new UserCodec()), defaultRegistry)
+ *
+ * NOTA: los campos ausentes quedan a null (no se aplican los valores por defecto de User()).
+ * Los campos desconocidos (p.ej. "_class" que añade Spring Data) se ignoran.
+ */
+public class UserCodec implements Codec<User> {
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    @Override
+    public User decode(BsonReader reader, DecoderContext decoderContext) {
+        String id = null;
+        String name = null;
+        String email = null;
+        String department = null;
+        String role = null;
+        Boolean active = null;
+        LocalDateTime createdAt = null;
+        LocalDateTime updatedAt = null;
+
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            String field = reader.readName();
+            if (reader.getCurrentBsonType() == BsonType.NULL) {
+                reader.readNull();
+                continue;
+            }
+            switch (field) {
+                case "_id" -> id = reader.getCurrentBsonType() == BsonType.OBJECT_ID
+                        ? reader.readObjectId().toHexString()
+                        : reader.readString();
+                case "name" -> name = reader.readString();
+                case "email" -> email = reader.readString();
+                case "department" -> department = reader.readString();
+                case "role" -> role = reader.readString();
+                case "active" -> active = reader.readBoolean();
+                case "createdAt" -> createdAt = toLocalDateTime(reader.readDateTime());
+                case "updatedAt" -> updatedAt = toLocalDateTime(reader.readDateTime());
+                default -> reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+
+        return new User(id, name, email, department, role, active, createdAt, updatedAt);
+    }
+
+    @Override
+    public void encode(BsonWriter writer, User user, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        if (user.getId() != null) {
+            writer.writeObjectId("_id", new ObjectId(user.getId()));
+        }
+        writeString(writer, "name", user.getName());
+        writeString(writer, "email", user.getEmail());
+        writeString(writer, "department", user.getDepartment());
+        writeString(writer, "role", user.getRole());
+        if (user.getActive() != null) {
+            writer.writeBoolean("active", user.getActive());
+        }
+        writeDateTime(writer, "createdAt", user.getCreatedAt());
+        writeDateTime(writer, "updatedAt", user.getUpdatedAt());
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public Class<User> getEncoderClass() {
+        return User.class;
+    }
+
+    /**
+     * Representación BSON de un usuario, con los mismos nombres de campo y tipos que en la
+     * colección. Útil para extraer valores (p.ej. el campo de ordenación de un token keyset).
+     */
+    public BsonDocument toBsonDocument(User user) {
+        BsonDocument document = new BsonDocument();
+        encode(new BsonDocumentWriter(document), user, EncoderContext.builder().build());
+        return document;
+    }
+
+    private static void writeString(BsonWriter writer, String field, String value) {
+        if (value != null) {
+            writer.writeString(field, value);
+        }
+    }
+
+    private static void writeDateTime(BsonWriter writer, String field, LocalDateTime value) {
+        if (value != null) {
+            writer.writeDateTime(field, value.atZone(ZONE).toInstant().toEpochMilli());
+        }
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZONE);
+    }
+}
@@ -0,0 +1,149 @@
+package com.dam.accesodatos.mongodb.pagination;
+
+import com.dam.accesodatos.exception.InvalidQueryException;
+import com.mongodb.MongoClientSettings;
+import org.bson.BsonBoolean;
+import org.bson.BsonDocument;
+import org.bson.BsonObjectId;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.codecs.DecoderContext;
+import org.bson.types.ObjectId;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+/**
+ * TOKEN DE CONTINUACIÓN PARA PAGINACIÓN KEYSET (SEEK)
+ * ===================================================
+ * Guarda la posición del último documento devuelto: el valor del campo de ordenación
+ * y su _id (desempate). La siguiente página se pide con un filtro "después de" esa
+ * posición en lugar de saltar documentos con skip().
+ *
+ * COMPARACIÓN CON SQL:
+ * SQL (offset):  SELECT * FROM users ORDER BY name, id LIMIT 10 OFFSET 100000
+ * SQL (keyset):  SELECT * FROM users WHERE (name, id) > ('Juan', 42) ORDER BY name, id LIMIT 10
+ *
+ * Con skip() el servidor recorre y descarta todos los documentos anteriores (O(offset));
+ * con keyset el índice posiciona directamente en el último valor (O(tamaño página)).
+ *
+ * FORMATO:
+ * El token es opaco para el cliente: un documento BSON { s, d, v, id } en Base64 URL-safe.
+ * Usar BSON conserva el tipo del valor (Date, String, Boolean...) sin conversiones.
+ */
+public final class ContinuationToken {
+
+    /** Tamaño máximo de página de searchUsersPage (limit(size + 1) por consulta). */
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final String sortField;
+    private final boolean descending;
+    private final Object lastValue;
+    private final ObjectId lastId;
+
+    private ContinuationToken(String sortField, boolean descending, Object lastValue, ObjectId lastId) {
+        this.sortField = sortField;
+        this.descending = descending;
+        this.lastValue = lastValue;
+        this.lastId = lastId;
+    }
+
+    /**
+     * Valida el tamaño de página de la paginación keyset. Con size 0 no hay último
+     * documento del que sacar el token, y con un size negativo limit(size + 1) quedaría
+     * en 0 o menos, que MongoDB interpreta como "sin límite" (toda la colección).
+     *
+     * @throws InvalidQueryException si size es menor que 1 o mayor que MAX_PAGE_SIZE
+     */
+    public static int pageSize(Integer size) {
+        if (size == null || size < 1 || size > MAX_PAGE_SIZE) {
+            throw new InvalidQueryException("size", "size debe estar entre 1 y " + MAX_PAGE_SIZE);
+        }
+        return size;
+    }
+
+    /**
+     * Crea un token a partir del último documento de la página.
+     *
+     * @param sortField  nombre del campo en MongoDB ("name", "createdAt", "_id"...)
+     * @param descending true si la ordenación es DESC
+     * @param lastValue  valor del campo de ordenación en el último documento (puede ser null)
+     * @param lastId     _id del último documento
+     */
+    public static ContinuationToken of(String sortField, boolean descending, Object lastValue, ObjectId lastId) {
+        return new ContinuationToken(sortField, descending, lastValue, lastId);
+    }
+
+    /**
+     * Decodifica un token recibido del cliente y comprueba que corresponde a la misma
+     * ordenación de la consulta actual.
+     *
+     * @throws InvalidQueryException si el token está corrupto o no coincide con la ordenación
+     */
+    public static ContinuationToken decode(String token, String expectedSortField, boolean expectedDescending) {
+        ContinuationToken decoded;
+        try {
+            BsonDocument doc = new RawBsonDocument(DECODER.decode(token));
+            decoded = new ContinuationToken(
+                    doc.getString("s").getValue(),
+                    doc.getBoolean("d").getValue(),
+                    toJava(doc.get("v")),
+                    doc.getObjectId("id").getValue());
+        } catch (RuntimeException e) {
+            throw new InvalidQueryException("continuationToken", "Token de continuación inválido", e);
+        }
+        if (!decoded.sortField.equals(expectedSortField) || decoded.descending != expectedDescending) {
+            throw new InvalidQueryException("continuationToken",
+                    "El token de continuación no corresponde a la ordenación solicitada");
+        }
+        return decoded;
+    }
+
+    public String encode() {
+        BsonDocument doc = new BsonDocument()
+                .append("s", new BsonString(sortField))
+                .append("d", BsonBoolean.valueOf(descending))
+                .append("v", toBson(lastValue))
+                .append("id", new BsonObjectId(lastId));
+        ByteBuffer buffer = new RawBsonDocument(doc, new BsonDocumentCodec()).getByteBuffer().asNIO();
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return ENCODER.encodeToString(bytes);
+    }
+
+    public String getSortField() {
+        return sortField;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    public Object getLastValue() {
+        return lastValue;
+    }
+
+    public ObjectId getLastId() {
+        return lastId;
+    }
+
+    private static BsonValue toBson(Object value) {
+        // Se apoya en el registro de codecs por defecto: String → BsonString, Date → BsonDateTime...
+        return new Document("v", value)
+                .toBsonDocument(BsonDocument.class, MongoClientSettings.getDefaultCodecRegistry())
+                .get("v");
+    }
+
+    private static Object toJava(BsonValue value) {
+        BsonDocument wrapper = new BsonDocument("v", value);
+        return MongoClientSettings.getDefaultCodecRegistry().get(Document.class)
+                .decode(wrapper.asBsonReader(), DecoderContext.builder().build())
+                .get("v");
+    }
+}
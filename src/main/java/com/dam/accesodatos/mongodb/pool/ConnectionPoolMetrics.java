@@ -0,0 +1,168 @@
+package com.dam.accesodatos.mongodb.pool;
+
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionCheckOutStartedEvent;
+import com.mongodb.event.ConnectionCheckedInEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionClosedEvent;
+import com.mongodb.event.ConnectionCreatedEvent;
+import com.mongodb.event.ConnectionPoolClosedEvent;
+import com.mongodb.event.ConnectionPoolCreatedEvent;
+import com.mongodb.event.ConnectionPoolListener;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * MÉTRICAS DEL POOL DE CONEXIONES
+ * ===============================
+ * ConnectionPoolListener del driver que publica en Micrometer (/actuator/metrics) el
+ * estado del pool de cada servidor:
+ *
+ * Métrica                      | Significado
+ * ---------------------------- | ------------------------------------------------------
+ * mongodb.pool.size            | conexiones abiertas (en uso + libres)
+ * mongodb.pool.checkedout      | conexiones prestadas a una operación en este momento
+ * mongodb.pool.waitqueue       | operaciones esperando una conexión libre
+ * mongodb.pool.checkout        | tiempo hasta obtener conexión (timer con histograma,
+ *                              | outcome=success|failure)
+ *
+ * Tags: client (sync / reactive) y server (host:puerto).
+ *
+ * Equivalente HikariCP: hikaricp.connections.active, .pending y .acquire.
+ *
+ * Lectura: waitqueue > 0 de forma sostenida o un p99 de checkout alto indican que el
+ * pool (pool.max-size) es el cuello de botella, no MongoDB.
+ */
+public class ConnectionPoolMetrics implements ConnectionPoolListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ConnectionPoolMetrics.class);
+
+    private final String clientName;
+    private final MeterRegistry registry;
+    private final Map<ServerId, PoolState> pools = new ConcurrentHashMap<>();
+
+    /**
+     * @param clientName valor del tag "client" (sync / reactive)
+     */
+    public ConnectionPoolMetrics(String clientName, MeterRegistry registry) {
+        this.clientName = clientName;
+        this.registry = registry;
+    }
+
+    public String getClientName() {
+        return clientName;
+    }
+
+    /**
+     * Conexiones abiertas sumando todos los servidores (lo usa el precalentamiento).
+     */
+    public int openConnections() {
+        return pools.values().stream().mapToInt(state -> state.size.get()).sum();
+    }
+
+    @Override
+    public void connectionPoolCreated(ConnectionPoolCreatedEvent event) {
+        pools.computeIfAbsent(event.getServerId(), PoolState::new);
+    }
+
+    @Override
+    public void connectionPoolClosed(ConnectionPoolClosedEvent event) {
+        PoolState state = pools.remove(event.getServerId());
+        if (state != null) {
+            state.meters.forEach(registry::remove);
+        }
+    }
+
+    @Override
+    public void connectionCreated(ConnectionCreatedEvent event) {
+        state(event.getConnectionId().getServerId()).size.incrementAndGet();
+    }
+
+    @Override
+    public void connectionClosed(ConnectionClosedEvent event) {
+        state(event.getConnectionId().getServerId()).size.decrementAndGet();
+    }
+
+    @Override
+    public void connectionCheckOutStarted(ConnectionCheckOutStartedEvent event) {
+        state(event.getServerId()).waitQueue.incrementAndGet();
+    }
+
+    @Override
+    public void connectionCheckedOut(ConnectionCheckedOutEvent event) {
+        PoolState state = state(event.getConnectionId().getServerId());
+        state.waitQueue.decrementAndGet();
+        state.checkedOut.incrementAndGet();
+        state.checkoutSuccess.record(event.getElapsedTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void connectionCheckOutFailed(ConnectionCheckOutFailedEvent event) {
+        PoolState state = state(event.getServerId());
+        state.waitQueue.decrementAndGet();
+        state.checkoutFailure.record(event.getElapsedTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+        log.warn("No se pudo obtener conexión del pool {} ({}): {}", clientName,
+                event.getServerId().getAddress(), event.getReason());
+    }
+
+    @Override
+    public void connectionCheckedIn(ConnectionCheckedInEvent event) {
+        state(event.getConnectionId().getServerId()).checkedOut.decrementAndGet();
+    }
+
+    private PoolState state(ServerId serverId) {
+        return pools.computeIfAbsent(serverId, PoolState::new);
+    }
+
+    /**
+     * Contadores de un pool (uno por servidor) y los medidores registrados sobre ellos.
+     */
+    private final class PoolState {
+
+        final AtomicInteger size = new AtomicInteger();
+        final AtomicInteger checkedOut = new AtomicInteger();
+        final AtomicInteger waitQueue = new AtomicInteger();
+        final Timer checkoutSuccess;
+        final Timer checkoutFailure;
+        final List<Meter> meters;
+
+        PoolState(ServerId serverId) {
+            Tags tags = Tags.of("client", clientName, "server", serverId.getAddress().toString());
+            Gauge sizeGauge = Gauge.builder("mongodb.pool.size", size, AtomicInteger::get)
+                    .description("Conexiones abiertas en el pool")
+                    .tags(tags)
+                    .register(registry);
+            Gauge checkedOutGauge = Gauge.builder("mongodb.pool.checkedout", checkedOut, AtomicInteger::get)
+                    .description("Conexiones en uso")
+                    .tags(tags)
+                    .register(registry);
+            Gauge waitQueueGauge = Gauge.builder("mongodb.pool.waitqueue", waitQueue, AtomicInteger::get)
+                    .description("Operaciones esperando una conexión")
+                    .tags(tags)
+                    .register(registry);
+            checkoutSuccess = checkoutTimer(tags, "success");
+            checkoutFailure = checkoutTimer(tags, "failure");
+            meters = List.of(sizeGauge, checkedOutGauge, waitQueueGauge, checkoutSuccess, checkoutFailure);
+        }
+
+        private Timer checkoutTimer(Tags tags, String outcome) {
+            return Timer.builder("mongodb.pool.checkout")
+                    .description("Tiempo hasta obtener una conexión del pool")
+                    .tags(tags.and("outcome", outcome))
+                    .publishPercentileHistogram()
+                    .register(registry);
+        }
+    }
+}
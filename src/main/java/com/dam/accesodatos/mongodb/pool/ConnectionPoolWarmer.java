@@ -0,0 +1,101 @@
+package com.dam.accesodatos.mongodb.pool;
+
+import com.dam.accesodatos.config.MongoClientProperties;
+import com.mongodb.client.MongoClient;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * PRECALENTAMIENTO DEL POOL DE CONEXIONES
+ * =======================================
+ * El driver abre las conexiones bajo demanda: tras un despliegue, las primeras peticiones
+ * pagan el handshake TCP + hello (+ TLS/autenticación en producción). Con
+ * app.mongo.warm-up=true se abren pool.min-size conexiones por cliente (síncrono y
+ * reactivo) antes de que Tomcat empiece a aceptar peticiones.
+ *
+ * Cómo: oleadas de min-size "ping" simultáneos. Mientras todas las conexiones abiertas
+ * están ocupadas, cada ping adicional obliga al pool a abrir otra; se repite hasta que
+ * ConnectionPoolMetrics cuenta min-size conexiones. Después el driver mantiene ese
+ * mínimo por su cuenta (minSize).
+ *
+ * Equivalente HikariCP: minimumIdle se rellena al crear el HikariDataSource.
+ *
+ * SmartInitializingSingleton: se ejecuta cuando todos los beans están creados y antes
+ * de arrancar el servidor web. Un fallo solo se registra: la aplicación arranca igual.
+ */
+@Component
+public class ConnectionPoolWarmer implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(ConnectionPoolWarmer.class);
+
+    private static final Duration WARM_UP_TIMEOUT = Duration.ofSeconds(10);
+    private static final Document PING = new Document("ping", 1);
+
+    private final MongoClientProperties properties;
+    private final MongoClient mongoClient;
+    private final com.mongodb.reactivestreams.client.MongoClient reactiveMongoClient;
+    private final ConnectionPoolMetrics syncMetrics;
+    private final ConnectionPoolMetrics reactiveMetrics;
+
+    @Autowired
+    public ConnectionPoolWarmer(MongoClientProperties properties,
+            MongoClient mongoClient,
+            com.mongodb.reactivestreams.client.MongoClient reactiveMongoClient,
+            @Qualifier("mongoPoolMetrics") ConnectionPoolMetrics syncMetrics,
+            @Qualifier("reactiveMongoPoolMetrics") ConnectionPoolMetrics reactiveMetrics) {
+        this.properties = properties;
+        this.mongoClient = mongoClient;
+        this.reactiveMongoClient = reactiveMongoClient;
+        this.syncMetrics = syncMetrics;
+        this.reactiveMetrics = reactiveMetrics;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        int minSize = properties.getPool().getMinSize();
+        if (!properties.isWarmUp() || minSize <= 0) {
+            return;
+        }
+        warmUp(syncMetrics, minSize, () -> mongoClient.getDatabase("admin").runCommand(PING));
+        warmUp(reactiveMetrics, minSize,
+                () -> Mono.from(reactiveMongoClient.getDatabase("admin").runCommand(PING)).block());
+    }
+
+    private void warmUp(ConnectionPoolMetrics metrics, int minSize, Runnable ping) {
+        long start = System.nanoTime();
+        long deadline = start + WARM_UP_TIMEOUT.toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            while (metrics.openConnections() < minSize && System.nanoTime() < deadline) {
+                List<Future<?>> wave = new ArrayList<>(minSize);
+                for (int i = 0; i < minSize; i++) {
+                    wave.add(executor.submit(ping));
+                }
+                for (Future<?> pending : wave) {
+                    pending.get();
+                }
+            }
+        } catch (ExecutionException e) {
+            log.warn("No se pudo precalentar el pool {}: {}", metrics.getClientName(), e.getCause().getMessage());
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        log.info("Pool {} precalentado: {} conexiones abiertas en {} ms", metrics.getClientName(),
+                metrics.openConnections(), Duration.ofNanos(System.nanoTime() - start).toMillis());
+    }
+}
@@ -0,0 +1,151 @@
+package com.dam.accesodatos.mongodb.projection;
+
+import com.dam.accesodatos.exception.InvalidQueryException;
+import com.dam.accesodatos.model.User;
+import com.mongodb.client.model.Projections;
+import org.bson.conversions.Bson;
+import org.springframework.data.mongodb.core.query.Field;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * PROYECCIÓN DE CAMPOS (?fields=id,name,email)
+ * ============================================
+ * Traduce la lista de campos pedida por el cliente a una proyección de MongoDB, para
+ * que el servidor solo envíe esos campos: menos bytes por la red, menos BSON que
+ * decodificar y un JSON de respuesta más pequeño (User omite los campos a null).
+ *
+ * COMPARACIÓN:
+ * MongoDB                                        | SQL / JPA
+ * ---------------------------------------------- | ------------------------------------------
+ * find({}, {name: 1, email: 1})                  | SELECT id, name, email FROM users
+ * Projections.include("name", "email")  (nativa) | stmt.executeQuery("SELECT name, email...")
+ * query.fields().include("name", "email") (SD)   | select new UserView(u.name, u.email) (JPQL)
+ *
+ * CONSULTAS CUBIERTAS:
+ * MongoDB devuelve siempre _id salvo que se excluya. Si no se pide "id" se añade
+ * {_id: 0}; así, cuando el filtro, la ordenación y los campos pedidos están todos en un
+ * mismo índice, el plan es una consulta cubierta (IXSCAN sin FETCH, totalDocsExamined: 0):
+ *   GET /users/department/IT?fields=department  → índice department_1, sin leer documentos
+ * Equivalente SQL: Index Only Scan de PostgreSQL.
+ *
+ * Los nombres admitidos son los de la API (id, name, email, department, role, active,
+ * createdAt, updatedAt); cualquier otro es un 400 (InvalidQueryException).
+ */
+public final class FieldProjection {
+
+    /** Campo de la API → campo en la colección. */
+    private static final Map<String, String> FIELDS = Map.of(
+            "id", "_id",
+            "name", "name",
+            "email", "email",
+            "department", "department",
+            "role", "role",
+            "active", "active",
+            "createdAt", "createdAt",
+            "updatedAt", "updatedAt");
+
+    /** Sin proyección: documento completo. */
+    public static final FieldProjection ALL = new FieldProjection(Set.of());
+
+    private final Set<String> fields;
+
+    private FieldProjection(Set<String> fields) {
+        this.fields = fields;
+    }
+
+    /**
+     * @param fields campos de la API; null o vacío = todos
+     * @throws InvalidQueryException si algún campo no existe en User
+     */
+    public static FieldProjection of(List<String> fields) {
+        if (fields == null || fields.isEmpty()) {
+            return ALL;
+        }
+        Set<String> requested = new LinkedHashSet<>();
+        for (String field : fields) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!FIELDS.containsKey(name)) {
+                throw new InvalidQueryException("fields",
+                        "Campo desconocido en fields: " + name + " (admitidos: " + String.join(", ", FIELDS.keySet()) + ")");
+            }
+            requested.add(name);
+        }
+        return requested.isEmpty() ? ALL : new FieldProjection(requested);
+    }
+
+    public boolean isAll() {
+        return fields.isEmpty();
+    }
+
+    /** true si field (nombre de la API) viene en la respuesta. */
+    public boolean includes(String field) {
+        return isAll() || fields.contains(field);
+    }
+
+    /**
+     * Proyección para el driver nativo: find(filter).projection(...), o null si no hay.
+     * Equivalente SQL: la lista de columnas del SELECT.
+     */
+    public Bson toBson() {
+        if (isAll()) {
+            return null;
+        }
+        List<String> included = new ArrayList<>();
+        for (String field : fields) {
+            if (!"id".equals(field)) {
+                included.add(FIELDS.get(field));
+            }
+        }
+        if (!fields.contains("id")) {
+            return Projections.fields(Projections.include(included), Projections.excludeId());
+        }
+        return Projections.include(included);
+    }
+
+    /**
+     * Proyección para Spring Data: añade los campos a query.fields().
+     */
+    public Query applyTo(Query query) {
+        if (isAll()) {
+            return query;
+        }
+        Field projection = query.fields();
+        for (String field : fields) {
+            projection.include(FIELDS.get(field));
+        }
+        if (!fields.contains("id")) {
+            projection.exclude("_id");
+        }
+        return query;
+    }
+
+    /**
+     * Copia de user solo con los campos pedidos. Necesario con Spring Data: instancia
+     * User con el constructor por defecto, que rellena active, createdAt y updatedAt
+     * aunque no vengan en el documento. Con UserCodec (API nativa) los ausentes ya
+     * quedan a null.
+     */
+    public User retain(User user) {
+        if (isAll()) {
+            return user;
+        }
+        return new User(
+                fields.contains("id") ? user.getId() : null,
+                fields.contains("name") ? user.getName() : null,
+                fields.contains("email") ? user.getEmail() : null,
+                fields.contains("department") ? user.getDepartment() : null,
+                fields.contains("role") ? user.getRole() : null,
+                fields.contains("active") ? user.getActive() : null,
+                fields.contains("createdAt") ? user.getCreatedAt() : null,
+                fields.contains("updatedAt") ? user.getUpdatedAt() : null);
+    }
+}
@@ -0,0 +1,53 @@
+package com.dam.accesodatos.mongodb.reactive;
+
+import com.dam.accesodatos.model.DepartmentStatsDto;
+import com.dam.accesodatos.model.User;
+import com.dam.accesodatos.model.UserCreateDto;
+import com.dam.accesodatos.model.UserQueryDto;
+import com.dam.accesodatos.model.UserUpdateDto;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+public interface ReactiveUserService {
+
+    Mono<String> testConnection();
+
+    Mono<User> createUser(UserCreateDto dto);
+
+    Mono<User> findUserById(String id);
+
+    Mono<User> updateUser(String id, UserUpdateDto dto);
+
+    Mono<Boolean> deleteUser(String id);
+
+    /**
+     * Emite los usuarios según llegan del cursor, respetando la demanda del suscriptor
+     * (backpressure): no se leen de MongoDB más lotes de los que se pueden consumir.
+     */
+    Flux<User> findAll();
+
+    /**
+     * findAll() con proyección: MongoDB solo envía los campos pedidos.
+     *
+     * @param fields campos de User (id, name, email...); null o vacío = todos
+     */
+    Flux<User> findAll(List<String> fields);
+
+    Flux<User> findUsersByDepartment(String department);
+
+    /**
+     * findUsersByDepartment() con proyección (ver findAll(List)).
+     */
+    Flux<User> findUsersByDepartment(String department, List<String> fields);
+
+    /**
+     * Búsqueda con filtros, ordenación y paginación; query.fields limita los campos devueltos.
+     */
+    Flux<User> searchUsers(UserQueryDto query);
+
+    Mono<Long> countByDepartment(String department);
+
+    Flux<DepartmentStatsDto> getStatsByDepartment();
+}
@@ -0,0 +1,411 @@
+package com.dam.accesodatos.mongodb.reactive;
+
+import com.dam.accesodatos.exception.DuplicateEmailException;
+import com.dam.accesodatos.exception.InvalidUserIdException;
+import com.dam.accesodatos.exception.UserNotFoundException;
+import com.dam.accesodatos.model.DepartmentStatsDto;
+import com.dam.accesodatos.model.User;
+import com.dam.accesodatos.model.UserCreateDto;
+import com.dam.accesodatos.model.UserQueryDto;
+import com.dam.accesodatos.model.UserUpdateDto;
+import com.dam.accesodatos.mongodb.autocomplete.UserAutocomplete;
+import com.dam.accesodatos.mongodb.cache.UserCache;
+import com.dam.accesodatos.mongodb.index.IndexAdvisor;
+import com.dam.accesodatos.mongodb.index.NameCollation;
+import com.dam.accesodatos.mongodb.index.SortRegistry;
+import com.dam.accesodatos.mongodb.projection.FieldProjection;
+import com.dam.accesodatos.mongodb.singleflight.SingleFlight;
+import com.dam.accesodatos.mongodb.stats.DepartmentStatsStore;
+import com.mongodb.client.model.Accumulators;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoDatabase;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * SERVICIO REACTIVO (DRIVER REACTIVE STREAMS + ReactiveMongoTemplate)
+ * ===================================================================
+ * Mismas operaciones que NativeMongoUserService, pero cada método devuelve un
+ * Publisher (Mono para 0..1 resultados, Flux para 0..N) en lugar del resultado.
+ *
+ * POR QUÉ:
+ * En las APIs bloqueantes cada petición en curso ocupa un hilo de Tomcat mientras
+ * espera a MongoDB; con 200 hilos, la petición 201 hace cola aunque la CPU esté libre.
+ * Aquí el hilo se libera al devolver el Mono/Flux y la respuesta se completa cuando
+ * el driver recibe los datos (I/O asíncrona con Netty/NIO dentro del driver).
+ *
+ * COMPARACIÓN:
+ * Reactivo                                   | Bloqueante / JDBC
+ * ------------------------------------------ | ------------------------------------------
+ * Mono<User> findById(id)                    | User findById(id)
+ * Flux<User> find(query)                     | List<User> find(query)
+ * reactiveTemplate.findAndModify(...)        | mongoTemplate.findAndModify(...)
+ * flux.limitRate(500)                        | stmt.setFetchSize(500)
+ * Equivalente SQL: R2DBC + Spring Data R2DBC | JDBC + Spring Data JPA
+ *
+ * BACKPRESSURE:
+ * Un Flux solo emite lo que el suscriptor pide (request(n)). El driver traduce la
+ * demanda en getMore al servidor, así que un cliente HTTP lento no hace que se lea
+ * la colección entera a memoria. limitRate(STREAM_BATCH_SIZE) agrupa la demanda: aunque
+ * el suscriptor pida de uno en uno, a MongoDB se le piden lotes de 500.
+ *
+ * COMPONENTES COMPARTIDOS (bloqueantes):
+ * - UserCache: solo se consulta con getIfPresent (en memoria, no bloquea). Las lecturas
+ *   reactivas no la rellenan: lo hacen las APIs bloqueantes y createUser, igual que antes.
+ * - DepartmentStatsStore usa el driver síncrono: sus llamadas se ejecutan en
+ *   Schedulers.boundedElastic() para no bloquear los hilos del driver reactivo.
+ * - UserAutocomplete solo toca memoria: onSaved/onDeleted se llaman directamente.
+ */
+@Service
+public class ReactiveUserServiceImpl implements ReactiveUserService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveUserServiceImpl.class);
+
+    /** Documentos por getMore al emitir un Flux (ver BACKPRESSURE). */
+    private static final int STREAM_BATCH_SIZE = 500;
+
+    /** Reintentos de updateTrackingStats() si department/active cambian entre medias. */
+    private static final int MAX_STATS_UPDATE_ATTEMPTS = 3;
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final MongoDatabase database;
+    private final UserCache userCache;
+    private final DepartmentStatsStore departmentStats;
+    private final UserAutocomplete autocomplete;
+    private final IndexAdvisor indexAdvisor;
+    private final SortRegistry sortRegistry;
+    /** Las lecturas bloqueantes comparten consultas en curso: se olvidan tras cada escritura. */
+    private final SingleFlight singleFlight;
+    private final boolean fastCount;
+
+    @Autowired
+    public ReactiveUserServiceImpl(ReactiveMongoTemplate reactiveMongoTemplate,
+            MongoClient reactiveMongoClient,
+            @Value("${spring.data.mongodb.database}") String databaseName,
+            UserCache userCache, DepartmentStatsStore departmentStats, UserAutocomplete autocomplete,
+            IndexAdvisor indexAdvisor,
+            SortRegistry sortRegistry,
+            SingleFlight singleFlight,
+            @Value("${app.count.fast:true}") boolean fastCount) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.database = reactiveMongoClient.getDatabase(databaseName);
+        this.userCache = userCache;
+        this.departmentStats = departmentStats;
+        this.autocomplete = autocomplete;
+        this.indexAdvisor = indexAdvisor;
+        this.sortRegistry = sortRegistry;
+        this.singleFlight = singleFlight;
+        this.fastCount = fastCount;
+        log.info("ReactiveUserService inicializado");
+    }
+
+    /**
+     * ping con el driver Reactive Streams: database.runCommand() devuelve un
+     * Publisher<Document> que Mono.from() adapta a Reactor.
+     */
+    @Override
+    public Mono<String> testConnection() {
+        log.debug("Probando conexión a MongoDB con el driver reactivo...");
+        Mono<Long> count = fastCount
+                ? reactiveMongoTemplate.estimatedCount(User.class)
+                : reactiveMongoTemplate.count(new Query(), User.class);
+        return Mono.from(database.runCommand(new Document("ping", 1)))
+                .then(count)
+                .map(users -> String.format("Conexión reactiva exitosa | Base de datos: %s | Usuarios: %d",
+                        database.getName(), users))
+                .doOnNext(log::info)
+                .onErrorMap(e -> new RuntimeException("Error al probar conexión: " + e.getMessage(), e));
+    }
+
+    @Override
+    public Mono<User> createUser(UserCreateDto dto) {
+        log.debug("Creando usuario con email: {}", dto.getEmail());
+        User user = new User(dto.getName(), dto.getEmail(), dto.getDepartment(), dto.getRole());
+        user.setActive(true);
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        user.setCreatedAt(now);
+        user.setUpdatedAt(now);
+
+        return reactiveMongoTemplate.insert(user)
+                .flatMap(saved -> {
+                    userCache.put(saved);
+                    singleFlight.forgetAll();
+                    autocomplete.onSaved(saved);
+                    return offload(() -> departmentStats.recordCreated(saved.getDepartment())).thenReturn(saved);
+                })
+                .doOnNext(saved -> log.info("Usuario creado exitosamente con ID: {}", saved.getId()))
+                .onErrorMap(DuplicateKeyException.class, e -> {
+                    log.warn("Intento de crear usuario con email duplicado: {}", dto.getEmail());
+                    return new DuplicateEmailException(dto.getEmail());
+                });
+    }
+
+    /**
+     * Primero la caché (si está activada), después findById. El ID se valida antes de
+     * consultar para devolver 400 como la API nativa, en lugar de un 404 por no encontrar
+     * el String como _id.
+     */
+    @Override
+    public Mono<User> findUserById(String id) {
+        log.debug("Buscando usuario por ID: {}", id);
+        if (!ObjectId.isValid(id)) {
+            return Mono.error(new InvalidUserIdException(id));
+        }
+        User cached = userCache.getIfPresent(id);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return reactiveMongoTemplate.findById(id, User.class)
+                .switchIfEmpty(Mono.error(() -> {
+                    log.warn("Usuario no encontrado con ID: {}", id);
+                    return new UserNotFoundException(id);
+                }));
+    }
+
+    /**
+     * findAndModify reactivo: el mismo $set parcial de un solo viaje que la API de
+     * Spring Data, que devuelve la post-imagen; si department_stats necesita el estado
+     * anterior se usa updateTrackingStats().
+     */
+    @Override
+    public Mono<User> updateUser(String id, UserUpdateDto dto) {
+        log.debug("Actualizando usuario con ID: {}", id);
+        if (!ObjectId.isValid(id)) {
+            return Mono.error(new InvalidUserIdException(id));
+        }
+        Update update = new Update();
+        if (dto.getName() != null) {
+            update.set("name", dto.getName());
+        }
+        if (dto.getEmail() != null) {
+            update.set("email", dto.getEmail());
+        }
+        if (dto.getDepartment() != null) {
+            update.set("department", dto.getDepartment());
+        }
+        if (dto.getRole() != null) {
+            update.set("role", dto.getRole());
+        }
+        if (dto.getActive() != null) {
+            update.set("active", dto.getActive());
+        }
+        update.set("updatedAt", LocalDateTime.now());
+
+        boolean statsAffected = departmentStats.isEnabled()
+                && (dto.getDepartment() != null || dto.getActive() != null);
+
+        Mono<User> updated = statsAffected
+                ? updateTrackingStats(id, update, 1)
+                : reactiveMongoTemplate.findAndModify(
+                        Query.query(Criteria.where("id").is(id)),
+                        update,
+                        FindAndModifyOptions.options().returnNew(true),
+                        User.class);
+
+        return updated
+                .switchIfEmpty(Mono.error(() -> {
+                    log.warn("Usuario no encontrado para actualizar con ID: {}", id);
+                    return new UserNotFoundException(id);
+                }))
+                .doOnNext(user -> {
+                    userCache.invalidate(id);
+                    singleFlight.forgetAll();
+                    autocomplete.onSaved(user);
+                    log.info("Usuario actualizado exitosamente: {}", id);
+                })
+                .onErrorMap(DuplicateKeyException.class, e -> {
+                    log.warn("Intento de actualizar con email duplicado: {}", dto.getEmail());
+                    return new DuplicateEmailException(dto.getEmail());
+                });
+    }
+
+    /**
+     * Como en SpringDataUserServiceImpl: lee department y active, y el findAndModify se
+     * condiciona a que sigan igual (bloqueo optimista). Si otro cliente los cambia entre
+     * medias el filtro no coincide y se vuelve a leer, hasta MAX_STATS_UPDATE_ATTEMPTS veces.
+     *
+     * @return la post-imagen, o vacío si el usuario no existe
+     */
+    private Mono<User> updateTrackingStats(String id, Update update, int attempt) {
+        Query current = Query.query(Criteria.where("id").is(id));
+        current.fields().include("department", "active");
+        return reactiveMongoTemplate.findOne(current, User.class)
+                .flatMap(previous -> reactiveMongoTemplate.findAndModify(
+                                Query.query(Criteria.where("id").is(id)
+                                        .and("department").is(previous.getDepartment())
+                                        .and("active").is(previous.getActive())),
+                                update,
+                                FindAndModifyOptions.options().returnNew(true),
+                                User.class)
+                        .flatMap(user -> offload(() -> departmentStats.recordUpdated(
+                                previous.getDepartment(), previous.getActive(),
+                                user.getDepartment(), user.getActive())).thenReturn(user))
+                        .switchIfEmpty(Mono.defer(() -> {
+                            if (attempt >= MAX_STATS_UPDATE_ATTEMPTS) {
+                                return Mono.error(new IllegalStateException("department/active del usuario "
+                                        + id + " cambian continuamente; actualización abandonada tras "
+                                        + MAX_STATS_UPDATE_ATTEMPTS + " intentos"));
+                            }
+                            log.debug("department/active del usuario {} cambiaron durante la actualización (intento {})",
+                                    id, attempt);
+                            return updateTrackingStats(id, update, attempt + 1);
+                        })));
+    }
+
+    @Override
+    public Mono<Boolean> deleteUser(String id) {
+        log.debug("Eliminando usuario con ID: {}", id);
+        if (!ObjectId.isValid(id)) {
+            return Mono.error(new InvalidUserIdException(id));
+        }
+        Query query = Query.query(Criteria.where("id").is(id));
+        query.fields().include("department", "active");
+        return reactiveMongoTemplate.findAndRemove(query, User.class)
+                .flatMap(deleted -> {
+                    userCache.invalidate(id);
+                    singleFlight.forgetAll();
+                    autocomplete.onDeleted(id);
+                    log.info("Usuario eliminado exitosamente: {}", id);
+                    return offload(() -> departmentStats.recordDeleted(deleted.getDepartment(), deleted.getActive()))
+                            .thenReturn(true);
+                })
+                .switchIfEmpty(Mono.fromSupplier(() -> {
+                    log.warn("Usuario no encontrado para eliminar: {}", id);
+                    return false;
+                }));
+    }
+
+    @Override
+    public Flux<User> findAll() {
+        return findAll(null);
+    }
+
+    @Override
+    public Flux<User> findAll(List<String> fields) {
+        log.debug("Listando todos los usuarios (reactivo, campos: {})", fields);
+        return stream(new Query(), FieldProjection.of(fields));
+    }
+
+    @Override
+    public Flux<User> findUsersByDepartment(String department) {
+        return findUsersByDepartment(department, null);
+    }
+
+    @Override
+    public Flux<User> findUsersByDepartment(String department, List<String> fields) {
+        log.debug("Buscando usuarios por departamento: {} (campos: {})", department, fields);
+        return stream(Query.query(Criteria.where("department").is(department)), FieldProjection.of(fields));
+    }
+
+    @Override
+    public Flux<User> searchUsers(UserQueryDto query) {
+        log.debug("Buscando usuarios con filtros complejos: {}", query);
+        Query q = new Query();
+        if (query.getName() != null && !query.getName().isEmpty()) {
+            if (NameCollation.isPrefix(query.getNameMatch())) {
+                // Rango sobre el índice name_ci (misma collation en la consulta)
+                q.addCriteria(Criteria.where("name").gte(query.getName()).lt(NameCollation.upperBound(query.getName())));
+                q.collation(NameCollation.springCollation());
+            } else {
+                q.addCriteria(Criteria.where("name").regex(query.getName(), "i"));
+            }
+        }
+        if (query.getDepartment() != null && !query.getDepartment().isEmpty()) {
+            q.addCriteria(Criteria.where("department").is(query.getDepartment()));
+        }
+        if (query.getActive() != null) {
+            q.addCriteria(Criteria.where("active").is(query.getActive()));
+        }
+        SortRegistry.SortPlan sort = sortRegistry.resolve(query);
+        indexAdvisor.observe(query);
+        if (query.getPage() != null && query.getSize() != null) {
+            q.with(PageRequest.of(query.getPage(), query.getSize()));
+        }
+        q.with(sort.toSort());
+        if (sort.hint() != null) {
+            q.withHint(sort.hint());
+        }
+        return stream(q, FieldProjection.of(query.getFields()));
+    }
+
+    @Override
+    public Mono<Long> countByDepartment(String department) {
+        log.debug("Contando usuarios por departamento: {}", department);
+        if (fastCount && departmentStats.isEnabled()) {
+            return Mono.fromCallable(() -> departmentStats.countByDepartment(department))
+                    .subscribeOn(Schedulers.boundedElastic());
+        }
+        return reactiveMongoTemplate.count(Query.query(Criteria.where("department").is(department)), User.class);
+    }
+
+    /**
+     * Materializadas: department_stats (lectura síncrona fuera de los hilos reactivos).
+     * Si no: el mismo $group + $sort que la API nativa, con el driver Reactive Streams.
+     */
+    @Override
+    public Flux<DepartmentStatsDto> getStatsByDepartment() {
+        if (departmentStats.isEnabled()) {
+            log.debug("Obteniendo estadísticas por departamento desde department_stats");
+            return Mono.fromCallable(departmentStats::findAll)
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .flatMapIterable(stats -> stats);
+        }
+        log.debug("Obteniendo estadísticas por departamento con aggregation pipeline (reactivo)");
+        List<Bson> pipeline = List.of(
+                Aggregates.group("$department",
+                        Accumulators.sum("totalUsers", 1),
+                        Accumulators.sum("activeUsers",
+                                new Document("$cond", List.of(
+                                        new Document("$eq", List.of("$active", true)), 1, 0)))),
+                Aggregates.sort(Sorts.descending("totalUsers")));
+        return Flux.from(database.getCollection("users").aggregate(pipeline))
+                .map(doc -> new DepartmentStatsDto(
+                        doc.getString("_id"),
+                        ((Number) doc.get("totalUsers")).longValue(),
+                        ((Number) doc.get("activeUsers")).longValue()))
+                .onErrorMap(e -> new RuntimeException("Error al obtener estadísticas: " + e.getMessage(), e));
+    }
+
+    /**
+     * find() emitido con backpressure: cursorBatchSize fija el tamaño de cada getMore y
+     * limitRate() evita que una demanda de 1 en 1 se convierta en getMore de 1 documento.
+     */
+    private Flux<User> stream(Query query, FieldProjection projection) {
+        Flux<User> users = reactiveMongoTemplate
+                .find(projection.applyTo(query).cursorBatchSize(STREAM_BATCH_SIZE), User.class)
+                .limitRate(STREAM_BATCH_SIZE);
+        // Con proyección se quitan los valores por defecto que pone el constructor de User
+        return projection.isAll() ? users : users.map(projection::retain);
+    }
+
+    /**
+     * Ejecuta una llamada bloqueante (driver síncrono) en el pool boundedElastic.
+     */
+    private static Mono<Void> offload(Runnable blockingCall) {
+        return Mono.fromRunnable(blockingCall)
+                .subscribeOn(Schedulers.boundedElastic())
+                .then();
+    }
+}
@@ -0,0 +1,187 @@
+package com.dam.accesodatos.mongodb.singleflight;
+
+import com.dam.accesodatos.model.DepartmentStatsDto;
+import com.dam.accesodatos.model.SingleFlightStatsDto;
+import com.dam.accesodatos.model.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * SINGLE-FLIGHT: UNA SOLA CONSULTA PARA LLAMADAS IDÉNTICAS SIMULTÁNEAS
+ * ====================================================================
+ * Cuando una ráfaga de peticiones pide a la vez el mismo perfil o las estadísticas por
+ * departamento, todas lanzarían la misma consulta a MongoDB al mismo tiempo. Con
+ * single-flight la primera llamada (líder) ejecuta la consulta y las que llegan mientras
+ * está en curso con la misma clave (SingleFlightKey: método + argumentos normalizados)
+ * esperan a ese resultado en lugar de repetirla.
+ *
+ * COMPARACIÓN:
+ * Sin single-flight                         | Con single-flight
+ * ----------------------------------------- | ------------------------------------------
+ * 200 x findUserById("665f...") a la vez    | 1 consulta; 199 llamadas esperan su resultado
+ * 200 conexiones del pool, 200 round trips  | 1 conexión, 1 round trip
+ * Mismo patrón que singleflight de Go o el "request collapsing" de las CDN.
+ *
+ * DIFERENCIA CON UserCache Y UserLookupCoalescer:
+ * - No guarda nada: al terminar la consulta la clave desaparece y la siguiente llamada
+ *   vuelve a MongoDB. Solo se comparten llamadas que coinciden en el tiempo.
+ * - UserLookupCoalescer junta IDs distintos en un $in; single-flight junta llamadas iguales.
+ *
+ * CONSISTENCIA:
+ * Una llamada que se une a una consulta en curso puede recibir un resultado leído un
+ * instante antes de que ella llegara. Para no devolver datos anteriores a una escritura
+ * de esta instancia, los servicios llaman a forgetAll() tras cada alta, modificación o
+ * borrado: las llamadas posteriores ya no se unen a consultas empezadas antes.
+ *
+ * Los errores también se comparten (p.ej. UserNotFoundException). El líder devuelve el
+ * resultado original y cada llamada que espera recibe una copia (shareAs): User y los DTO
+ * son mutables.
+ *
+ * CONFIGURACIÓN: app.single-flight.enabled (por defecto true).
+ * MÉTRICAS: users.singleflight.calls{operation, result=executed|shared} en
+ * /actuator/metrics y GET /api/monitoring/single-flight.
+ */
+@Component
+public class SingleFlight {
+
+    private static final Logger log = LoggerFactory.getLogger(SingleFlight.class);
+
+    private final boolean enabled;
+    private final MeterRegistry meterRegistry;
+
+    /** Consultas en curso: clave → resultado que esperan las llamadas que se unen. */
+    private final Map<SingleFlightKey, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    /** Contadores por método: [0] ejecutadas, [1] compartidas. */
+    private final Map<String, LongAdder[]> counters = new ConcurrentHashMap<>();
+
+    @Autowired
+    public SingleFlight(@Value("${app.single-flight.enabled:true}") boolean enabled,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        this(enabled, meterRegistry.getIfAvailable());
+        log.info("Single-flight de lecturas {}", enabled ? "activado" : "desactivado");
+    }
+
+    /**
+     * Constructor para tests (meterRegistry puede ser null).
+     */
+    SingleFlight(boolean enabled, MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Ejecuta call, o espera al resultado de una llamada idéntica que ya está en curso.
+     *
+     * @param operation método de servicio (p.ej. "native.findUserById")
+     * @param call      la consulta
+     * @param shareAs   copia del resultado para las llamadas que se unen
+     * @param args      argumentos del método; se normalizan con SingleFlightKey
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String operation, Supplier<T> call, UnaryOperator<T> shareAs, Object... args) {
+        if (!enabled) {
+            return call.get();
+        }
+        SingleFlightKey key = SingleFlightKey.of(operation, args);
+        CompletableFuture<Object> leader = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, leader);
+        if (existing != null) {
+            count(operation, 1);
+            log.debug("Single-flight: {} se une a la consulta en curso", key);
+            T shared = (T) join(existing);
+            return shared == null ? null : shareAs.apply(shared);
+        }
+
+        count(operation, 0);
+        T result;
+        try {
+            result = call.get();
+        } catch (RuntimeException | Error e) {
+            // También con Error: si no, las llamadas que esperan no terminarían nunca
+            inFlight.remove(key, leader);
+            leader.completeExceptionally(e);
+            throw e;
+        }
+        // Se retira antes de completar: quien llegue ahora lanza una consulta nueva
+        inFlight.remove(key, leader);
+        leader.complete(result);
+        return result;
+    }
+
+    /**
+     * Olvida las consultas en curso: las llamadas que lleguen a partir de ahora no se
+     * unen a ellas. Las que ya estaban esperando reciben su resultado igualmente.
+     */
+    public void forgetAll() {
+        inFlight.clear();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Llamadas ejecutadas y compartidas por método, de más a menos compartidas.
+     */
+    public List<SingleFlightStatsDto> stats() {
+        List<SingleFlightStatsDto> stats = new ArrayList<>();
+        counters.forEach((operation, counter) ->
+                stats.add(new SingleFlightStatsDto(operation, counter[0].sum(), counter[1].sum())));
+        stats.sort(Comparator.comparingLong(SingleFlightStatsDto::getShared).reversed());
+        return stats;
+    }
+
+    private void count(String operation, int index) {
+        counters.computeIfAbsent(operation, op -> new LongAdder[] {new LongAdder(), new LongAdder()})[index].increment();
+        if (meterRegistry != null) {
+            Counter.builder("users.singleflight.calls")
+                    .description("Llamadas a servicios ejecutadas o compartidas con una idéntica en curso")
+                    .tag("operation", operation)
+                    .tag("result", index == 0 ? "executed" : "shared")
+                    .register(meterRegistry)
+                    .increment();
+        }
+    }
+
+    private static Object join(CompletableFuture<Object> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /** shareAs para listados de usuarios (para findUserById basta con User::copy). */
+    public static List<User> copyOfUsers(List<User> users) {
+        List<User> copy = new ArrayList<>(users.size());
+        users.forEach(user -> copy.add(user.copy()));
+        return copy;
+    }
+
+    /** shareAs para getStatsByDepartment. */
+    public static List<DepartmentStatsDto> copyOfStats(List<DepartmentStatsDto> stats) {
+        List<DepartmentStatsDto> copy = new ArrayList<>(stats.size());
+        stats.forEach(s -> copy.add(new DepartmentStatsDto(s.getDepartment(), s.getTotalUsers(), s.getActiveUsers())));
+        return copy;
+    }
+}
@@ -0,0 +1,79 @@
+package com.dam.accesodatos.mongodb.singleflight;
+
+import com.dam.accesodatos.model.UserQueryDto;
+import com.dam.accesodatos.mongodb.index.NameCollation;
+import org.bson.types.ObjectId;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Identidad de una llamada para SingleFlight: método + argumentos normalizados.
+ * Dos llamadas con la misma clave ejecutarían exactamente la misma consulta, así que
+ * pueden compartir resultado.
+ *
+ * NORMALIZACIÓN (misma interpretación que hacen los servicios):
+ * - ID: hex en minúsculas ("ABC..." y "abc..." son el mismo ObjectId)
+ * - UserQueryDto: "" = sin filtro, nameMatch solo cuenta si hay name, sortDirection sin
+ *   distinguir mayúsculas, sortBy "_id" = "id", fields sin orden ni repetidos
+ * - Resto de argumentos: tal cual (equals/hashCode)
+ */
+public record SingleFlightKey(String operation, List<Object> args) {
+
+    public static SingleFlightKey of(String operation, Object... args) {
+        List<Object> normalized = new ArrayList<>(args.length);
+        for (Object arg : args) {
+            normalized.add(normalize(arg));
+        }
+        return new SingleFlightKey(operation, normalized);
+    }
+
+    private static Object normalize(Object arg) {
+        if (arg instanceof UserQueryDto query) {
+            return Query.of(query);
+        }
+        if (arg instanceof String id && ObjectId.isValid(id)) {
+            return id.toLowerCase();
+        }
+        return arg;
+    }
+
+    /**
+     * UserQueryDto normalizado. Un record: equals/hashCode por valor, a diferencia del DTO.
+     */
+    record Query(String name, boolean prefix, String department, Boolean active,
+                 Integer page, Integer size, String sortBy, boolean descending,
+                 String continuationToken, List<String> fields) {
+
+        static Query of(UserQueryDto query) {
+            String name = emptyToNull(query.getName());
+            List<String> fields = null;
+            if (query.getFields() != null) {
+                TreeSet<String> distinct = new TreeSet<>();
+                query.getFields().stream().map(String::trim).filter(f -> !f.isEmpty()).forEach(distinct::add);
+                fields = distinct.isEmpty() ? null : List.copyOf(distinct);
+            }
+            return new Query(
+                    name,
+                    name != null && NameCollation.isPrefix(query.getNameMatch()),
+                    emptyToNull(query.getDepartment()),
+                    query.getActive(),
+                    query.getPage(),
+                    query.getSize(),
+                    "_id".equals(query.getSortBy()) ? "id" : query.getSortBy(),
+                    "DESC".equalsIgnoreCase(query.getSortDirection()),
+                    emptyToNull(query.getContinuationToken()),
+                    fields);
+        }
+
+        private static String emptyToNull(String value) {
+            return value == null || value.isEmpty() ? null : value;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return operation + args;
+    }
+}
@@ -2,23 +2,62 @@ package com.dam.accesodatos.mongodb.springdata;
 
 import com.dam.accesodatos.exception.DuplicateEmailException;
 import com.dam.accesodatos.exception.UserNotFoundException;
+import com.dam.accesodatos.model.BatchGetResultDto;
+import com.dam.accesodatos.model.BulkCreateResultDto;
+import com.dam.accesodatos.model.BulkItemResultDto;
 import com.dam.accesodatos.model.User;
 import com.dam.accesodatos.model.UserCreateDto;
+import com.dam.accesodatos.model.UserPageDto;
 import com.dam.accesodatos.model.UserQueryDto;
 import com.dam.accesodatos.model.UserUpdateDto;
+import com.dam.accesodatos.mongodb.autocomplete.UserAutocomplete;
+import com.dam.accesodatos.mongodb.batch.UserBatchGet;
+import com.dam.accesodatos.mongodb.batch.UserLookupCoalescer;
+import com.dam.accesodatos.mongodb.cache.UserCache;
+import com.dam.accesodatos.mongodb.etag.ResourceVersion;
+import com.dam.accesodatos.mongodb.index.IndexAdvisor;
+import com.dam.accesodatos.mongodb.index.NameCollation;
+import com.dam.accesodatos.mongodb.index.SortRegistry;
+import com.dam.accesodatos.mongodb.index.UserTextIndex;
+import com.dam.accesodatos.mongodb.pagination.ContinuationToken;
+import com.dam.accesodatos.mongodb.projection.FieldProjection;
+import com.dam.accesodatos.mongodb.singleflight.SingleFlight;
+import com.dam.accesodatos.mongodb.stats.DepartmentStatsStore;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.bson.Document;
+import org.bson.types.ObjectId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * SERVICIO CON SPRING DATA MONGODB
@@ -60,6 +99,18 @@ public class SpringDataUserServiceImpl implements SpringDataUserService {
 
     private static final Logger log = LoggerFactory.getLogger(SpringDataUserServiceImpl.class);
 
+    /**
+     * Documentos que el cursor pide al servidor en cada getMore durante el streaming.
+     * Equivalente JPA: query.setHint("org.hibernate.fetchSize", 500)
+     */
+    private static final int STREAM_BATCH_SIZE = 500;
+
+    /** Código de error de MongoDB para violación de índice único (E11000). */
+    private static final int DUPLICATE_KEY_CODE = 11000;
+
+    /** Reintentos de updateTrackingStats() si department/active cambian entre medias. */
+    private static final int MAX_STATS_UPDATE_ATTEMPTS = 3;
+
     /**
      * DEPENDENCIAS INYECTADAS
      * =======================
@@ -72,11 +123,46 @@ public class SpringDataUserServiceImpl implements SpringDataUserService {
      */
     private final UserRepository userRepository;
     private final MongoTemplate mongoTemplate;
+    private final Validator validator;
+    private final int bulkBatchSize;
+    private final UserCache userCache;
+    private final DepartmentStatsStore departmentStats;
+    private final UserAutocomplete autocomplete;
+    private final IndexAdvisor indexAdvisor;
+    private final SortRegistry sortRegistry;
+    private final SingleFlight singleFlight;
+    private final boolean fastCount;
+
+    /** loadUserById(), o un lote findAllById() de UserLookupCoalescer (ver la API nativa). */
+    private final Function<String, User> userByIdLoader;
 
     @Autowired
-    public SpringDataUserServiceImpl(UserRepository userRepository, MongoTemplate mongoTemplate) {
+    public SpringDataUserServiceImpl(UserRepository userRepository, MongoTemplate mongoTemplate,
+            Validator validator, @Value("${app.bulk.batch-size:1000}") int bulkBatchSize,
+            UserCache userCache, DepartmentStatsStore departmentStats, UserAutocomplete autocomplete,
+            IndexAdvisor indexAdvisor,
+            SortRegistry sortRegistry,
+            UserLookupCoalescer lookupCoalescer,
+            SingleFlight singleFlight,
+            @Value("${app.count.fast:true}") boolean fastCount) {
         this.userRepository = userRepository;
         this.mongoTemplate = mongoTemplate;
+        this.validator = validator;
+        this.bulkBatchSize = bulkBatchSize;
+        this.userCache = userCache;
+        this.departmentStats = departmentStats;
+        this.autocomplete = autocomplete;
+        this.indexAdvisor = indexAdvisor;
+        this.sortRegistry = sortRegistry;
+        this.singleFlight = singleFlight;
+        this.fastCount = fastCount;
+        if (lookupCoalescer.isEnabled()) {
+            UserLookupCoalescer.Batcher batcher = lookupCoalescer.batcher("springdata", userRepository::findAllById);
+            // Un ID que no es ObjectId no entra en el lote: findById() lo busca como String
+            this.userByIdLoader = id -> id != null && ObjectId.isValid(id) ? batcher.load(id) : loadUserById(id);
+        } else {
+            this.userByIdLoader = this::loadUserById;
+        }
         log.info("SpringDataUserService inicializado");
     }
 
@@ -118,6 +204,7 @@ public class SpringDataUserServiceImpl implements SpringDataUserService {
      *
      * EQUIVALENCIAS SQL:
      * - count(new Query(), User.class) → SELECT COUNT(*) FROM users
+     * - estimatedCount(User.class) → estadística de la tabla (sin recorrerla)
      * - collectionExists(User.class) → SHOW TABLES LIKE 'users'
      * - getCollectionName(User.class) → "users" (por convención
      * o @Document(collection="..."))
@@ -126,7 +213,10 @@ public class SpringDataUserServiceImpl implements SpringDataUserService {
     public String testConnection() {
         log.debug("Probando conexión a MongoDB con Spring Data...");
         try {
-            long count = mongoTemplate.count(new Query(), User.class);
+            // estimatedCount: metadatos de la colección en vez de recorrerla (app.count.fast)
+            long count = fastCount
+                    ? mongoTemplate.estimatedCount(User.class)
+                    : mongoTemplate.count(new Query(), User.class);
             boolean collectionExists = mongoTemplate.collectionExists(User.class);
             String collectionName = mongoTemplate.getCollectionName(User.class);
 
@@ -184,6 +274,10 @@ public class SpringDataUserServiceImpl implements SpringDataUserService {
             User savedUser = userRepository.save(user);
             // En JPA sería idéntico: entityManager.persist(user) o repository.save(user)
 
+            userCache.put(savedUser);
+            singleFlight.forgetAll();
+            departmentStats.recordCreated(savedUser.getDepartment());
+            autocomplete.onSaved(savedUser);
             log.info("Usuario creado exitosamente con ID: {}", savedUser.getId());
             return savedUser;
         } catch (Exception e) {
@@ -197,6 +291,133 @@ public class SpringDataUserServiceImpl implements SpringDataUserService {
         }
     }
 
+    /**
+     * CREACIÓN EN BLOQUE CON BulkOperations
+     * =====================================
+     * mongoTemplate.bulkOps(UNORDERED, User.class) acumula las inserciones y las envía
+     * en una sola petición bulkWrite por lote de app.bulk.batch-size usuarios.
+     *
+     * COMPARACIÓN CON JPA:
+     * Spring Data MongoDB:                        | Spring Data JPA:
+     * ------------------------------------------- | -------------------------------------------
+     * bulkOps(BulkMode.UNORDERED, User.class)     | hibernate.jdbc.batch_size=1000
+     *   .insert(users).execute()                  | repository.saveAll(users)
+     * BulkOperationException.getErrors()          | BatchUpdateException
+     *
+     * UNORDERED: un email duplicado solo falla su fila, el resto del lote se inserta.
+     * A diferencia de saveAll(), no hace una petición por documento.
+     */
+    @Override
+    public BulkCreateResultDto createUsers(List<UserCreateDto> dtos) {
+        log.debug("Creando {} usuarios en bloque (lotes de {})", dtos.size(), bulkBatchSize);
+        BulkItemResultDto[] results = new BulkItemResultDto[dtos.size()];
+        List<User> batch = new ArrayList<>(bulkBatchSize);
+        List<Integer> batchIndexes = new ArrayList<>(bulkBatchSize);
+
+        for (int i = 0; i < dtos.size(); i++) {
+            UserCreateDto dto = dtos.get(i);
+            String violations = validate(dto);
+            if (violations != null) {
+                results[i] = BulkItemResultDto.failed(i, BulkItemResultDto.Status.INVALID,
+                        dto != null ? dto.getEmail() : null, violations);
+                continue;
+            }
+
+            User user = new User(dto.getName(), dto.getEmail(), dto.getDepartment(), dto.getRole());
+            user.setId(new ObjectId().toHexString()); // ID en cliente para devolverlo por fila
+            user.setActive(true);
+            LocalDateTime now = LocalDateTime.now();
+            user.setCreatedAt(now);
+            user.setUpdatedAt(now);
+            batch.add(user);
+            batchIndexes.add(i);
+
+            if (batch.size() == bulkBatchSize) {
+                insertBatch(batch, batchIndexes, results);
+                batch.clear();
+                batchIndexes.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            insertBatch(batch, batchIndexes, results);
+        }
+
+        BulkCreateResultDto result = new BulkCreateResultDto(Arrays.asList(results));
+        log.info("Creación en bloque: {} insertados, {} fallidos", result.getInserted(), result.getFailed());
+        return result;
+    }
+
+    /**
+     * Inserta un lote y traduce los errores por posición del lote a resultados por fila.
+     */
+    private void insertBatch(List<User> batch, List<Integer> batchIndexes, BulkItemResultDto[] results) {
+        Map<Integer, BulkWriteError> errors = new HashMap<>();
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class)
+                    .insert(batch)
+                    .execute();
+        } catch (RuntimeException e) {
+            errors = bulkWriteErrors(e).stream()
+                    .collect(Collectors.toMap(BulkWriteError::getIndex, error -> error));
+        }
+
+        List<String> createdDepartments = new ArrayList<>(batch.size());
+        for (int j = 0; j < batch.size(); j++) {
+            int index = batchIndexes.get(j);
+            User user = batch.get(j);
+            BulkWriteError error = errors.get(j);
+            if (error == null) {
+                results[index] = BulkItemResultDto.created(index, user.getId(), user.getEmail());
+                createdDepartments.add(user.getDepartment());
+                autocomplete.onSaved(user);
+            } else if (error.getCode() == DUPLICATE_KEY_CODE) {
+                results[index] = BulkItemResultDto.failed(index, BulkItemResultDto.Status.DUPLICATE_EMAIL,
+                        user.getEmail(), DuplicateEmailException.messageFor(user.getEmail()));
+            } else {
+                results[index] = BulkItemResultDto.failed(index, BulkItemResultDto.Status.ERROR,
+                        user.getEmail(), error.getMessage());
+            }
+        }
+        departmentStats.recordCreated(createdDepartments);
+        singleFlight.forgetAll();
+    }
+
+    /**
+     * Errores por fila de un bulkWrite. Según la versión, Spring Data los entrega como
+     * BulkOperationException o como DuplicateKeyException que envuelve la
+     * MongoBulkWriteException original; cualquier otro error se relanza.
+     */
+    private static List<BulkWriteError> bulkWriteErrors(RuntimeException e) {
+        if (e instanceof BulkOperationException bulkException) {
+            return bulkException.getErrors();
+        }
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoBulkWriteException bulkWriteException) {
+                return bulkWriteException.getWriteErrors();
+            }
+        }
+        throw e;
+    }
+
+    /**
+     * Valida un DTO con Bean Validation (las mismas reglas que @Valid en el controlador).
+     *
+     * @return mensajes de error unidos o null si es válido
+     */
+    private String validate(UserCreateDto dto) {
+        if (dto == null) {
+            return "Elemento nulo";
+        }
+        Set<ConstraintViolation<UserCreateDto>> violations = validator.validate(dto);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
     /**
      * EJEMPLO 2: BUSCAR USUARIO POR ID CON SPRING DATA
      * =================================================
@@ -228,9 +449,25 @@ public class SpringDataUserServiceImpl implements SpringDataUserService {
      *
      * COMPARACIÓN SQL:
      * SELECT * FROM users WHERE id = ? LIMIT 1
+     *
+     * CACHÉ (app.cache.user.enabled):
+     * - Comparte UserCache con la API nativa; en JPA sería la caché de 2º nivel
+     * (@Cacheable de Hibernate) delante de findById()
+     *
+     * AGRUPACIÓN (app.lookup.coalesce.enabled):
+     * - Los fallos de caché concurrentes se resuelven juntos con findAllById(ids), como
+     *   el batch fetching de Hibernate (@BatchSize) pero entre peticiones distintas
+     *
+     * SINGLE-FLIGHT (app.single-flight.enabled):
+     * - Varias lecturas simultáneas del mismo ID comparten una sola consulta (SingleFlight)
      */
     @Override
     public User findUserById(String id) {
+        return singleFlight.execute("springdata.findUserById",
+                () -> userCache.get(id, userByIdLoader), User::copy, id);
+    }
+
+    private User loadUserById(String id) {
         log.debug("Buscando usuario por ID: {}", id);
         User user = userRepository.findById(id).orElse(null);
         if (user == null) {
@@ -241,18 +478,78 @@ public class SpringDataUserServiceImpl implements SpringDataUserService {
         return user;
     }
 
+    /**
+     * VERSIÓN DE UN USUARIO PARA GET CONDICIONALES
+     * ============================================
+     * De UserCache si está; si no, una Query con fields().include("updatedAt"): MongoDB
+     * solo envía _id y updatedAt, y el User que se materializa no lleva el resto.
+     *
+     * JPA: SELECT u.updatedAt FROM User u WHERE u.id = :id
+     */
+    @Override
+    public ResourceVersion findUserVersion(String id) {
+        User cached = userCache.getIfPresent(id);
+        if (cached != null) {
+            return ResourceVersion.of(cached);
+        }
+        Query query = Query.query(Criteria.where("id").is(id));
+        query.fields().include("updatedAt");
+        User version = mongoTemplate.findOne(query, User.class);
+        if (version == null) {
+            throw new UserNotFoundException(id);
+        }
+        return ResourceVersion.of(version);
+    }
+
+    /**
+     * BUSCAR VARIOS USUARIOS POR ID CON SPRING DATA
+     * =============================================
+     * findAllById() genera una sola consulta {_id: {$in: [...]}} (ver UserBatchGet).
+     *
+     * COMPARACIÓN CON JPA:
+     * Spring Data MongoDB:  userRepository.findAllById(ids)
+     * Spring Data JPA:      userRepository.findAllById(ids)  → SELECT ... WHERE id IN (...)
+     *
+     * Como en JPA, findAllById() no devuelve los resultados en el orden de los IDs ni dice
+     * cuáles faltan; UserBatchGet reconstruye el orden y marca los ausentes.
+     * Los IDs que ya están en UserCache no se consultan (ver la API nativa).
+     */
+    @Override
+    public BatchGetResultDto findUsersByIds(Collection<String> ids) {
+        UserBatchGet batch = UserBatchGet.of(ids);
+        for (String id : batch.pendingIds()) {
+            User cached = userCache.getIfPresent(id);
+            if (cached != null) {
+                batch.found(cached);
+            }
+        }
+        Set<String> pending = batch.pendingIds();
+        log.debug("Buscando {} usuarios por ID ({} consultados a MongoDB)", ids.size(), pending.size());
+        if (!pending.isEmpty()) {
+            userRepository.findAllById(pending).forEach(batch::found);
+        }
+        return batch.result();
+    }
+
     /**
      * EJEMPLO 3: ACTUALIZAR USUARIO CON SPRING DATA
      * =============================================
-     * Demuestra el patrón "load-modify-save" de Spring Data.
+     * Demuestra findAndModify(): un $set parcial y atómico que devuelve el
+     * documento actualizado en un único viaje de red.
      *
      * COMPARACIÓN CON JPA:
      * ====================
-     * Spring Data MongoDB:
-     * --------------------
+     * Spring Data MongoDB (load-modify-save, 2 round trips):
+     * ------------------------------------------------------
      * User user = userRepository.findById(id).orElseThrow();
      * user.setName("Nuevo nombre");
-     * userRepository.save(user); // Spring detecta que es UPDATE
+     * userRepository.save(user); // reemplaza el documento completo
+     *
+     * Spring Data MongoDB (findAndModify, 1 round trip):
+     * --------------------------------------------------
+     * Update update = new Update().set("name", "Nuevo nombre").set("updatedAt", now);
+     * User user = mongoTemplate.findAndModify(query(where("id").is(id)), update,
+     * FindAndModifyOptions.options().returnNew(true), User.class);
      *
      * Spring Data JPA:
      * ----------------
@@ -260,46 +557,66 @@ public class SpringDataUserServiceImpl implements SpringDataUserService {
      * user.setName("Nuevo nombre");
      * userRepository.save(user); // Hibernate detecta dirty checking y hace UPDATE
      *
-     * VENTAJAS vs API NATIVA:
-     * - No necesitas construir Updates.set() manualmente
-     * - No necesitas updateOne() con filtros
-     * - save() detecta automáticamente si es INSERT (id null) o UPDATE (id
-     * presente)
-     * - Código más limpio y orientado a objetos
+     * POR QUÉ NO load-modify-save:
+     * - Son dos operaciones (findById + save): el doble de latencia
+     * - save() reescribe todos los campos: si otra petición cambia "role" entre el
+     * findById y el save, ese cambio se pierde (lost update)
+     * - JPA evita lo segundo con dirty checking; en MongoDB hay que pedir $set
+     * explícitamente con Update
      *
-     * SIMILITUDES CON JPA:
-     * - Patrón idéntico: load → modify → save
-     * - save() es suficiente, no necesitas update() explícito
-     * - @LastModifiedDate se actualiza automáticamente
-     *
-     * DIFERENCIA CON JPA:
-     * - JPA con Hibernate hace dirty checking en memoria (solo actualiza campos
-     * modificados)
-     * - MongoDB actualiza el documento completo (o necesitas @Field con Updates.set
-     * manual)
+     * CONCEPTOS CLAVE:
+     * - Update.set(campo, valor): Operador $set (solo los campos no-null del DTO)
+     * - findAndModify(): Equivale a findOneAndUpdate() de la API nativa
+     * - returnNew(true): Devuelve la post-imagen (por defecto devolvería la anterior)
+     * - null como resultado: ningún documento coincidió con el filtro
      */
     @Override
     public User updateUser(String id, UserUpdateDto dto) {
         log.debug("Actualizando usuario con ID: {}", id);
         try {
-            // 1. Buscar usuario existente (load)
-            User user = userRepository.findById(id)
-                    .orElseThrow(() -> {
-                        log.warn("Usuario no encontrado para actualizar con ID: {}", id);
-                        return new UserNotFoundException(id);
-                    });
-            // En JPA sería idéntico: userRepository.findById(id).orElseThrow()
-
-            // 2. Modificar campos (modify)
-            dto.applyTo(user); // Aplica solo los campos no-null del DTO
-            user.setUpdatedAt(LocalDateTime.now());
+            // 1. Construir el $set solo con los campos presentes en el DTO
+            Update update = new Update();
+            if (dto.getName() != null) {
+                update.set("name", dto.getName());
+            }
+            if (dto.getEmail() != null) {
+                update.set("email", dto.getEmail());
+            }
+            if (dto.getDepartment() != null) {
+                update.set("department", dto.getDepartment());
+            }
+            if (dto.getRole() != null) {
+                update.set("role", dto.getRole());
+            }
+            if (dto.getActive() != null) {
+                update.set("active", dto.getActive());
+            }
+            update.set("updatedAt", LocalDateTime.now());
 
-            // 3. Guardar cambios (save) - Spring Data detecta que es UPDATE por el ID
-            // presente
-            User updatedUser = userRepository.save(user);
-            // En JPA: Hibernate detecta dirty state y ejecuta UPDATE automáticamente
-            // En MongoDB: save() reemplaza el documento completo
+            // Si cambian department o active, department_stats necesita también los valores
+            // anteriores: ver updateTrackingStats()
+            boolean statsAffected = departmentStats.isEnabled()
+                    && (dto.getDepartment() != null || dto.getActive() != null);
 
+            // 2. Actualizar y leer el resultado (post-imagen) en la misma operación
+            User updatedUser = statsAffected
+                    ? updateTrackingStats(id, update)
+                    : mongoTemplate.findAndModify(
+                            Query.query(Criteria.where("id").is(id)),
+                            update,
+                            FindAndModifyOptions.options().returnNew(true),
+                            User.class);
+            // En JPA: UPDATE users SET ... WHERE id = ? (+ SELECT para devolver la entidad)
+            // En MongoDB: { findAndModify: "users", query: {_id}, update: {$set}, new: true }
+
+            if (updatedUser == null) {
+                log.warn("Usuario no encontrado para actualizar con ID: {}", id);
+                throw new UserNotFoundException(id);
+            }
+
+            userCache.invalidate(id);
+            singleFlight.forgetAll();
+            autocomplete.onSaved(updatedUser);
             log.info("Usuario actualizado exitosamente: {}", id);
             return updatedUser;
         } catch (UserNotFoundException e) {
@@ -315,6 +632,53 @@ public class SpringDataUserServiceImpl implements SpringDataUserService {
         }
     }
 
+    /**
+     * UPDATE QUE MUEVE CONTADORES DE department_stats
+     * ===============================================
+     * Para mover los contadores hacen falta department y active anteriores, y el User
+     * devuelto tiene que seguir siendo la post-imagen que guardó MongoDB. Se leen primero
+     * esos dos campos (fields().include) y el findAndModify se condiciona a que sigan igual.
+     *
+     * JPA (bloqueo optimista, como @Version pero sobre los dos campos):
+     * SELECT u.department, u.active FROM User u WHERE u.id = :id
+     * UPDATE User u SET ... WHERE u.id = :id AND u.department = :dep AND u.active = :active
+     *
+     * Si otro cliente cambia department o active entre las dos operaciones el filtro no
+     * coincide y se vuelve a leer, hasta MAX_STATS_UPDATE_ATTEMPTS veces.
+     *
+     * @return la post-imagen, o null si el usuario no existe
+     */
+    private User updateTrackingStats(String id, Update update) {
+        for (int attempt = 1; attempt <= MAX_STATS_UPDATE_ATTEMPTS; attempt++) {
+            Query current = Query.query(Criteria.where("id").is(id));
+            current.fields().include("department", "active");
+            User previous = mongoTemplate.findOne(current, User.class);
+            if (previous == null) {
+                return null;
+            }
+            String oldDepartment = previous.getDepartment();
+            Boolean oldActive = previous.getActive();
+
+            User updatedUser = mongoTemplate.findAndModify(
+                    Query.query(Criteria.where("id").is(id)
+                            .and("department").is(oldDepartment)
+                            .and("active").is(oldActive)),
+                    update,
+                    FindAndModifyOptions.options().returnNew(true),
+                    User.class);
+            if (updatedUser != null) {
+                departmentStats.recordUpdated(oldDepartment, oldActive,
+                        updatedUser.getDepartment(), updatedUser.getActive());
+                return updatedUser;
+            }
+            log.debug("department/active del usuario {} cambiaron durante la actualización (intento {})",
+                    id, attempt);
+        }
+        throw new IllegalStateException("department/active del usuario " + id
+                + " cambian continuamente; actualización abandonada tras "
+                + MAX_STATS_UPDATE_ATTEMPTS + " intentos");
+    }
+
     /**
      * EJEMPLO 4: ELIMINAR USUARIO CON SPRING DATA
      * ============================================
@@ -355,15 +719,28 @@ public class SpringDataUserServiceImpl implements SpringDataUserService {
      *
      * ALTERNATIVA (sin verificación previa):
      * userRepository.deleteById(id); // Lanza excepción si no existe
+     *
+     * IMPLEMENTACIÓN ACTUAL:
+     * existsById() + deleteById() son dos viajes a MongoDB y no devuelven el documento.
+     * mongoTemplate.findAndRemove() borra y devuelve el usuario en una sola operación
+     * (como DELETE ... RETURNING en PostgreSQL), que se usa para actualizar department_stats.
      */
     @Override
     public boolean deleteUser(String id) {
         log.debug("Eliminando usuario con ID: {}", id);
-        if (!userRepository.existsById(id)) {
+        // findAndRemove: borra y devuelve el documento en una sola operación
+        // (department y active hacen falta para department_stats)
+        Query query = Query.query(Criteria.where("id").is(id));
+        query.fields().include("department", "active");
+        User deleted = mongoTemplate.findAndRemove(query, User.class);
+        if (deleted == null) {
             log.warn("Usuario no encontrado para eliminar: {}", id);
             return false;
         }
-        userRepository.deleteById(id);
+        userCache.invalidate(id);
+        singleFlight.forgetAll();
+        departmentStats.recordDeleted(deleted.getDepartment(), deleted.getActive());
+        autocomplete.onDeleted(id);
         log.info("Usuario eliminado exitosamente: {}", id);
         return true;
     }
@@ -373,43 +750,266 @@ public class SpringDataUserServiceImpl implements SpringDataUserService {
         return userRepository.findAll();
     }
 
+    /**
+     * PROYECCIÓN CON Query.fields()
+     * =============================
+     * Query query = new Query();
+     * query.fields().include("name", "email").exclude("_id");
+     * Equivalente JPA: SELECT new UserView(u.name, u.email) FROM User u
+     */
+    @Override
+    public List<User> findAll(List<String> fields) {
+        FieldProjection projection = FieldProjection.of(fields);
+        if (projection.isAll()) {
+            return findAll();
+        }
+        return find(new Query(), projection);
+    }
+
+    /**
+     * STREAMING DE USUARIOS CON MongoTemplate.stream()
+     * ================================================
+     * mongoTemplate.stream() devuelve un Stream<User> respaldado por un cursor abierto:
+     * los documentos se convierten a User de uno en uno, sin cargar la colección entera.
+     * El try-with-resources cierra el cursor aunque el consumidor lance una excepción.
+     *
+     * Equivalente JPA:
+     * try (Stream<User> s = repository.streamAll()) { s.forEach(consumer); }
+     */
+    @Override
+    public void streamAll(Consumer<User> consumer) {
+        streamAll(null, consumer);
+    }
+
+    @Override
+    public void streamAll(List<String> fields, Consumer<User> consumer) {
+        log.debug("Streaming de todos los usuarios (campos: {})", fields);
+        FieldProjection projection = FieldProjection.of(fields);
+        Query query = projection.applyTo(new Query().cursorBatchSize(STREAM_BATCH_SIZE));
+
+        try (Stream<User> users = mongoTemplate.stream(query, User.class)) {
+            users.map(projection::retain).forEach(consumer);
+        }
+    }
+
     @Override
     public List<User> findUsersByDepartment(String department) {
         return userRepository.findByDepartment(department);
     }
 
+    @Override
+    public List<User> findUsersByDepartment(String department, List<String> fields) {
+        FieldProjection projection = FieldProjection.of(fields);
+        if (projection.isAll()) {
+            return findUsersByDepartment(department);
+        }
+        return find(Query.query(Criteria.where("department").is(department)), projection);
+    }
+
+    /**
+     * count + el updatedAt más reciente, los dos sobre department_1_updatedAt_-1.
+     *
+     * JPA: SELECT COUNT(u), MAX(u.updatedAt) FROM User u WHERE u.department = :department
+     */
+    @Override
+    public ResourceVersion findDepartmentVersion(String department) {
+        Criteria byDepartment = Criteria.where("department").is(department);
+        long count = mongoTemplate.count(Query.query(byDepartment), User.class);
+        if (count == 0) {
+            return new ResourceVersion(0, null);
+        }
+        Query latest = Query.query(byDepartment)
+                .with(Sort.by(Sort.Direction.DESC, "updatedAt"))
+                .limit(1);
+        latest.fields().include("updatedAt").exclude("id");
+        User user = mongoTemplate.findOne(latest, User.class);
+        return new ResourceVersion(count, user == null ? null : user.getUpdatedAt());
+    }
+
     @Override
     public List<User> searchUsers(UserQueryDto query) {
-        Query q = new Query();
+        // Búsquedas simultáneas con los mismos filtros (normalizados) comparten consulta
+        return singleFlight.execute("springdata.searchUsers",
+                () -> runSearchUsers(query), SingleFlight::copyOfUsers, query);
+    }
 
+    private List<User> runSearchUsers(UserQueryDto query) {
         // 1. Filtros dinámicos
-        if (query.getName() != null && !query.getName().isEmpty()) {
-            q.addCriteria(Criteria.where("name").regex(query.getName(), "i"));
-        }
-        if (query.getDepartment() != null && !query.getDepartment().isEmpty()) {
-            q.addCriteria(Criteria.where("department").is(query.getDepartment()));
-        }
-        if (query.getActive() != null) {
-            q.addCriteria(Criteria.where("active").is(query.getActive()));
-        }
+        Query q = buildSearchQuery(query);
+        SortRegistry.SortPlan sort = sortRegistry.resolve(query);
+        indexAdvisor.observe(query);
 
         // 2. Paginación
         if (query.getPage() != null && query.getSize() != null) {
             q.with(PageRequest.of(query.getPage(), query.getSize()));
         }
 
-        // 3. Ordenamiento
-        if (query.getSortBy() != null) {
-            Sort.Direction direction = "DESC".equalsIgnoreCase(query.getSortDirection()) ? Sort.Direction.DESC
-                    : Sort.Direction.ASC;
-            q.with(Sort.by(direction, query.getSortBy()));
+        // 3. Ordenamiento admitido por SortRegistry, con el índice que lo resuelve
+        q.with(sort.toSort());
+        if (sort.hint() != null) {
+            q.withHint(sort.hint());
+        }
+
+        // 4. Proyección
+        return find(q, FieldProjection.of(query.getFields()));
+    }
+
+    /**
+     * find() con proyección. User se instancia con el constructor por defecto, así que
+     * retain() quita los valores por defecto de los campos que no se pidieron.
+     */
+    private List<User> find(Query query, FieldProjection projection) {
+        List<User> users = mongoTemplate.find(projection.applyTo(query), User.class);
+        if (projection.isAll()) {
+            return users;
+        }
+        return users.stream().map(projection::retain).toList();
+    }
+
+    /**
+     * BÚSQUEDA CON PAGINACIÓN KEYSET CON CRITERIA
+     * ===========================================
+     * Misma estrategia que la API nativa, expresada con Criteria:
+     * new Criteria().orOperator(
+     *     Criteria.where("name").gt("Juan"),
+     *     Criteria.where("name").is("Juan").and("_id").gt(id7))
+     *
+     * Equivalente Spring Data JPA:
+     * Window<User> window = repository.findFirst10ByOrderByName(ScrollPosition.keyset())
+     *
+     * El valor de ordenación del último User se obtiene convirtiéndolo a Document con el
+     * MongoConverter, así se usan los mismos nombres de campo y tipos que en la colección
+     * (LocalDateTime → Date, id → _id como ObjectId).
+     *
+     * Como en la API nativa, withHint() fuerza el índice (campo, _id) de
+     * SortRegistry.resolvePage para que ninguna página necesite SORT en memoria.
+     */
+    @Override
+    public UserPageDto searchUsersPage(UserQueryDto query) {
+        log.debug("Buscando usuarios con paginación keyset: {}", query);
+        int size = ContinuationToken.pageSize(query.getSize());
+        SortRegistry.SortPlan sortPlan = sortRegistry.resolvePage(query);
+        String sortField = sortPlan.field();
+        boolean descending = sortPlan.descending();
+
+        Query q = buildSearchQuery(query);
+        indexAdvisor.observe(query);
+        if (query.getContinuationToken() != null && !query.getContinuationToken().isEmpty()) {
+            ContinuationToken token = ContinuationToken.decode(query.getContinuationToken(), sortField, descending);
+            q.addCriteria(keysetCriteria(token));
+        }
+
+        // _id desempata valores repetidos del campo de ordenación (orden total y estable)
+        q.with(sortPlan.toKeysetSort());
+        if (sortPlan.hint() != null) {
+            q.withHint(sortPlan.hint());
         }
+        q.limit(size + 1);
+
+        List<User> users = mongoTemplate.find(q, User.class);
 
-        return mongoTemplate.find(q, User.class);
+        boolean hasMore = users.size() > size;
+        if (hasMore) {
+            users = users.subList(0, size);
+        }
+
+        String nextToken = null;
+        if (hasMore) {
+            Document last = new Document();
+            mongoTemplate.getConverter().write(users.get(users.size() - 1), last);
+            nextToken = ContinuationToken.of(sortField, descending, last.get(sortField), last.getObjectId("_id"))
+                    .encode();
+        }
+        return new UserPageDto(users, hasMore, nextToken);
+    }
+
+    /**
+     * BÚSQUEDA DE TEXTO COMPLETO CON TextCriteria
+     * ===========================================
+     * TextCriteria criteria = TextCriteria.forDefaultLanguage().matching("ana developer");
+     * Query query = TextQuery.queryText(criteria).sortByScore().with(PageRequest.of(0, 10));
+     *
+     * sortByScore() añade { score: { $meta: "textScore" } } a la proyección y a la
+     * ordenación. User no tiene campo score (se podría añadir con @TextScore), así que el
+     * conversor lo ignora.
+     *
+     * Equivalente Hibernate Search:
+     * searchSession.search(User.class).where(f -> f.match().fields("name", "role")...)
+     */
+    @Override
+    public List<User> textSearch(String text, int page, int size) {
+        UserTextIndex.validate(text, page, size);
+        TextCriteria criteria = TextCriteria.forDefaultLanguage().matching(text);
+        Query query = TextQuery.queryText(criteria)
+                .sortByScore()
+                .with(PageRequest.of(page, size));
+        return mongoTemplate.find(query, User.class);
     }
 
+    /**
+     * Con app.count.fast y department_stats activos se lee el contador materializado;
+     * si no, el query method countByDepartment() usa el índice department_1 sin leer
+     * documentos (consulta cubierta).
+     */
     @Override
     public long countByDepartment(String department) {
+        if (fastCount && departmentStats.isEnabled()) {
+            return departmentStats.countByDepartment(department);
+        }
         return userRepository.countByDepartment(department);
     }
+
+    /**
+     * Criteria comunes de searchUsers y searchUsersPage (nombre, departamento, activo).
+     *
+     * Con nameMatch=prefix el nombre se busca como rango con la collation del índice
+     * name_ci (ver NameCollation):
+     * Criteria.where("name").gte(p).lt(p + U+FFFF) + query.collation(es, strength 2)
+     * Equivalente JPA: WHERE u.name LIKE :p% con una columna de collation _ci
+     */
+    private Query buildSearchQuery(UserQueryDto query) {
+        Query q = new Query();
+        if (query.getName() != null && !query.getName().isEmpty()) {
+            if (NameCollation.isPrefix(query.getNameMatch())) {
+                q.addCriteria(Criteria.where("name").gte(query.getName()).lt(NameCollation.upperBound(query.getName())));
+                q.collation(NameCollation.springCollation());
+            } else {
+                q.addCriteria(Criteria.where("name").regex(query.getName(), "i"));
+            }
+        }
+        if (query.getDepartment() != null && !query.getDepartment().isEmpty()) {
+            q.addCriteria(Criteria.where("department").is(query.getDepartment()));
+        }
+        if (query.getActive() != null) {
+            q.addCriteria(Criteria.where("active").is(query.getActive()));
+        }
+        return q;
+    }
+
+    /**
+     * Criteria "posterior a la posición del token" respetando el orden de MongoDB,
+     * donde null/ausente ordena antes que cualquier otro valor.
+     */
+    private Criteria keysetCriteria(ContinuationToken token) {
+        String field = token.getSortField();
+        Object value = token.getLastValue();
+        boolean descending = token.isDescending();
+        ObjectId lastId = token.getLastId();
+
+        if ("_id".equals(field)) {
+            return descending ? Criteria.where("_id").lt(lastId) : Criteria.where("_id").gt(lastId);
+        }
+
+        Criteria sameValue = descending
+                ? Criteria.where(field).is(value).and("_id").lt(lastId)
+                : Criteria.where(field).is(value).and("_id").gt(lastId);
+        if (value == null) {
+            // ASC: todo lo no-null va detrás de los null | DESC: los null van al final
+            return descending ? sameValue : new Criteria().orOperator(Criteria.where(field).ne(null), sameValue);
+        }
+        if (descending) {
+            return new Criteria().orOperator(Criteria.where(field).lt(value), sameValue, Criteria.where(field).is(null));
+        }
+        return new Criteria().orOperator(Criteria.where(field).gt(value), sameValue);
+    }
 }
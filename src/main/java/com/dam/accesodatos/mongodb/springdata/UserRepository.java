@@ -2,6 +2,7 @@ package com.dam.accesodatos.mongodb.springdata;
 
 import com.dam.accesodatos.model.User;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -102,4 +103,21 @@ public interface UserRepository extends MongoRepository<User, String> {
      * - Between, LessThan, GreaterThan: comparaciones
      */
     List<User> findByNameContainingIgnoreCase(String name);
+
+    /**
+     * @QUERY CON COLLATION: Búsqueda por prefijo usando el índice
+     * ==========================================================
+     * findByNameContainingIgnoreCase genera un regex sin anclar (/busqueda/i) que no
+     * puede acotar ningún índice. Esta versión es un rango con la collation del índice
+     * name_ci (español, strength 2: sin distinguir mayúsculas), así MongoDB solo recorre
+     * las claves que empiezan por el prefijo.
+     *
+     * MongoDB: db.users.find({ name: { $gte: "ju", $lt: "ju" + U+FFFF } })
+     *                  .collation({ locale: "es", strength: 2 })
+     * SQL: SELECT * FROM users WHERE name LIKE 'ju%'  (columna con collation _ci)
+     *
+     * Uso: findByNamePrefix(p, NameCollation.upperBound(p))
+     */
+    @Query(value = "{ 'name': { $gte: ?0, $lt: ?1 } }", collation = "{ 'locale': 'es', 'strength': 2 }")
+    List<User> findByNamePrefix(String prefix, String upperBound);
 }
@@ -0,0 +1,333 @@
+package com.dam.accesodatos.mongodb.stats;
+
+import com.dam.accesodatos.model.DepartmentStatsDto;
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoWriteException;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Accumulators;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * ESTADÍSTICAS POR DEPARTAMENTO MATERIALIZADAS
+ * ============================================
+ * Mantiene la colección "department_stats" con un documento por departamento:
+ * { _id: "IT", totalUsers: 3, activeUsers: 2, version: 17 }
+ *
+ * En lugar de recorrer toda la colección "users" con $group en cada petición, cada
+ * escritura de usuarios aplica un $inc al contador de su departamento y la lectura
+ * devuelve directamente esos pocos documentos (O(nº de departamentos)).
+ *
+ * COMPARACIÓN CON SQL:
+ * MongoDB                                      | SQL
+ * -------------------------------------------- | --------------------------------------------
+ * department_stats + $inc en cada escritura    | Vista materializada / tabla resumen
+ *                                              | mantenida con TRIGGERS
+ * updateOne({_id: dept},                       | UPDATE department_stats
+ *   {$inc: {totalUsers: 1}}, upsert)           |   SET total_users = total_users + 1
+ * reconcile(): $group sobre users              | REFRESH MATERIALIZED VIEW
+ *
+ * CONSISTENCIA:
+ * El $inc va en una operación distinta a la escritura del usuario (sin transacción),
+ * así que un fallo entre ambas puede desviar los contadores. reconcile() recalcula
+ * todo con el aggregation pipeline, registra las diferencias encontradas y corrige
+ * la colección. Se ejecuta al arrancar (tras DataInitializer) y periódicamente
+ * (app.stats.reconcile-interval).
+ *
+ * Cada $inc incrementa también "version". reconcile() solo reescribe un documento si su
+ * version sigue siendo la que leyó antes del $group (bloqueo optimista, como
+ * UPDATE ... WHERE version = ? en JPA con @Version); si un $inc se ha colado entre
+ * medias, vuelve a calcular ese departamento. Así la corrección no pisa escrituras
+ * concurrentes. Queda una ventana inevitable sin transacción: un usuario ya escrito
+ * (contado por el $group) cuyo $inc llega después de la corrección; la siguiente
+ * reconciliación lo arregla.
+ *
+ * Se activa con app.stats.materialized=true; si está desactivado no se mantiene
+ * nada y getStatsByDepartment() vuelve a usar el aggregation pipeline.
+ */
+@Component
+public class DepartmentStatsStore {
+
+    private static final Logger log = LoggerFactory.getLogger(DepartmentStatsStore.class);
+
+    static final String COLLECTION = "department_stats";
+
+    /** Reintentos de reconcile() para los departamentos con escrituras concurrentes. */
+    static final int MAX_RECONCILE_ATTEMPTS = 3;
+
+    private final boolean enabled;
+    private final MongoCollection<Document> statsCollection;
+    private final MongoCollection<Document> usersCollection;
+
+    @Autowired
+    public DepartmentStatsStore(MongoClient mongoClient,
+            @Value("${spring.data.mongodb.database}") String databaseName,
+            @Value("${app.stats.materialized:true}") boolean enabled) {
+        this.enabled = enabled;
+        MongoDatabase database = mongoClient.getDatabase(databaseName);
+        this.statsCollection = database.getCollection(COLLECTION);
+        this.usersCollection = database.getCollection("users");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Un usuario nuevo (siempre activo al crearse).
+     */
+    public void recordCreated(String department) {
+        recordCreated(List.of(department));
+    }
+
+    /**
+     * Usuarios creados en bloque: un solo bulkWrite con un $inc por departamento.
+     */
+    public void recordCreated(Collection<String> departments) {
+        if (!enabled || departments.isEmpty()) {
+            return;
+        }
+        Map<String, Long> counts = new HashMap<>();
+        for (String department : departments) {
+            counts.merge(department, 1L, Long::sum);
+        }
+        List<WriteModel<Document>> writes = new ArrayList<>();
+        counts.forEach((department, count) -> writes.add(increment(department, count, count)));
+        write(writes);
+    }
+
+    public void recordDeleted(String department, Boolean active) {
+        if (!enabled) {
+            return;
+        }
+        write(List.of(increment(department, -1, Boolean.TRUE.equals(active) ? -1 : 0)));
+    }
+
+    /**
+     * Cambio de departamento y/o de active: se resta del estado anterior y se suma al nuevo.
+     * Si no cambia ninguno de los dos no se escribe nada.
+     */
+    public void recordUpdated(String oldDepartment, Boolean oldActive, String newDepartment, Boolean newActive) {
+        boolean wasActive = Boolean.TRUE.equals(oldActive);
+        boolean isActive = Boolean.TRUE.equals(newActive);
+        if (!enabled || (Objects.equals(oldDepartment, newDepartment) && wasActive == isActive)) {
+            return;
+        }
+        if (Objects.equals(oldDepartment, newDepartment)) {
+            write(List.of(increment(newDepartment, 0, isActive ? 1 : -1)));
+        } else {
+            write(List.of(
+                    increment(oldDepartment, -1, wasActive ? -1 : 0),
+                    increment(newDepartment, 1, isActive ? 1 : 0)));
+        }
+    }
+
+    /**
+     * Lee las estadísticas materializadas, ordenadas por total descendente.
+     * Los departamentos que se han quedado sin usuarios (totalUsers = 0) se omiten.
+     */
+    public List<DepartmentStatsDto> findAll() {
+        List<DepartmentStatsDto> stats = new ArrayList<>();
+        for (Document doc : statsCollection.find(Filters.gt("totalUsers", 0))
+                .sort(Sorts.descending("totalUsers"))) {
+            stats.add(toDto(doc));
+        }
+        return stats;
+    }
+
+    /**
+     * Total de usuarios de un departamento leído del contador: una búsqueda por _id.
+     * Equivalente SQL: SELECT total_users FROM department_stats WHERE department = ?
+     */
+    public long countByDepartment(String department) {
+        Document doc = statsCollection.find(Filters.eq("_id", department))
+                .projection(Projections.include("totalUsers"))
+                .first();
+        return doc != null ? ((Number) doc.get("totalUsers")).longValue() : 0;
+    }
+
+    /**
+     * RECONCILIACIÓN
+     * ==============
+     * Recalcula las estadísticas con $group sobre "users", las compara con las
+     * materializadas y reescribe las que difieren, cada una con un replaceOne condicionado
+     * a la version leída antes del $group. Los departamentos con conflicto (un $inc
+     * concurrente) se recalculan hasta MAX_RECONCILE_ATTEMPTS veces.
+     *
+     * @return número de departamentos cuyo contador estaba desviado
+     */
+    public int reconcile() {
+        if (!enabled) {
+            return 0;
+        }
+        int corrected = 0;
+        Set<String> pending = null;
+        for (int attempt = 1; attempt <= MAX_RECONCILE_ATTEMPTS; attempt++) {
+            // Primero el estado materializado (con version), después el $group
+            Map<String, Document> current = new HashMap<>();
+            for (Document doc : statsCollection.find()) {
+                current.put(doc.getString("_id"), doc);
+            }
+            Map<String, DepartmentStatsDto> expected = new HashMap<>();
+            for (DepartmentStatsDto dto : aggregateFromUsers()) {
+                if (dto.getDepartment() != null) {
+                    expected.put(dto.getDepartment(), dto);
+                }
+            }
+
+            Set<String> departments = new HashSet<>(expected.keySet());
+            departments.addAll(current.keySet());
+            if (pending != null) {
+                departments.retainAll(pending);
+            }
+            Set<String> conflicts = new HashSet<>();
+            for (String department : departments) {
+                DepartmentStatsDto want = expected.get(department);
+                Document have = current.get(department);
+                long wantTotal = want != null ? want.getTotalUsers() : 0;
+                long wantActive = want != null ? want.getActiveUsers() : 0;
+                if (have != null && count(have, "totalUsers") == wantTotal && count(have, "activeUsers") == wantActive) {
+                    continue;
+                }
+                if (replaceIfUnchanged(department, have, wantTotal, wantActive)) {
+                    if (have != null) {
+                        log.warn("Desviación en department_stats[{}]: total {} → {}, activos {} → {}",
+                                department, count(have, "totalUsers"), wantTotal, count(have, "activeUsers"), wantActive);
+                    }
+                    corrected++;
+                } else {
+                    conflicts.add(department);
+                }
+            }
+            if (conflicts.isEmpty()) {
+                log.info("department_stats reconciliado: {} departamentos, {} corregidos", expected.size(), corrected);
+                return corrected;
+            }
+            log.debug("department_stats: escrituras concurrentes en {}, reintento {}", conflicts, attempt);
+            pending = conflicts;
+        }
+        log.warn("department_stats: no se pudo reconciliar {} por escrituras concurrentes; se reintentará en la próxima ejecución",
+                pending);
+        return corrected;
+    }
+
+    /**
+     * replaceOne condicionado a la version leída: false si un $inc la ha cambiado (o ha
+     * creado el documento) después de leerla.
+     */
+    private boolean replaceIfUnchanged(String department, Document have, long total, long active) {
+        Object version = have != null ? have.get("version") : null;
+        long nextVersion = version instanceof Number number ? number.longValue() + 1 : 1;
+        // Sin documento, o de antes de existir version: eq(version, null) casa con el campo ausente
+        Bson filter = Filters.and(Filters.eq("_id", department), Filters.eq("version", version));
+        Document replacement = new Document("_id", department)
+                .append("totalUsers", total)
+                .append("activeUsers", active)
+                .append("version", nextVersion);
+        try {
+            UpdateResult result = statsCollection.replaceOne(filter, replacement, new ReplaceOptions().upsert(have == null));
+            return result.getMatchedCount() > 0 || result.getUpsertedId() != null;
+        } catch (MongoWriteException e) {
+            if (e.getError().getCategory() == ErrorCategory.DUPLICATE_KEY) {
+                // Un $inc con upsert creó el documento entre la lectura y el replace
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    private static long count(Document doc, String field) {
+        return ((Number) doc.get(field)).longValue();
+    }
+
+    /**
+     * Primera reconstrucción al terminar el arranque (DataInitializer inserta con saveAll
+     * sin pasar por los servicios).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        reconcile();
+    }
+
+    @Scheduled(initialDelayString = "${app.stats.reconcile-interval:PT10M}",
+            fixedDelayString = "${app.stats.reconcile-interval:PT10M}")
+    public void scheduledReconcile() {
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            log.error("Error al reconciliar department_stats: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * El mismo $group que NativeMongoUserService.getStatsByDepartment() sin materializar.
+     */
+    private List<DepartmentStatsDto> aggregateFromUsers() {
+        List<Bson> pipeline = List.of(
+                Aggregates.group("$department",
+                        Accumulators.sum("totalUsers", 1),
+                        Accumulators.sum("activeUsers",
+                                new Document("$cond", List.of(
+                                        new Document("$eq", List.of("$active", true)), 1, 0)))));
+        List<DepartmentStatsDto> stats = new ArrayList<>();
+        for (Document doc : usersCollection.aggregate(pipeline)) {
+            stats.add(toDto(doc));
+        }
+        return stats;
+    }
+
+    private static UpdateOneModel<Document> increment(String department, long total, long active) {
+        return new UpdateOneModel<>(Filters.eq("_id", department),
+                Updates.combine(Updates.inc("totalUsers", total), Updates.inc("activeUsers", active),
+                        Updates.inc("version", 1)),
+                new UpdateOptions().upsert(true));
+    }
+
+    private void write(List<WriteModel<Document>> writes) {
+        if (writes.isEmpty()) {
+            return;
+        }
+        try {
+            statsCollection.bulkWrite(writes);
+        } catch (RuntimeException e) {
+            // La escritura del usuario ya se hizo: no se revierte, la reconciliación corregirá
+            log.error("No se pudo actualizar department_stats: {}", e.getMessage(), e);
+        }
+    }
+
+    private static DepartmentStatsDto toDto(Document doc) {
+        return new DepartmentStatsDto(
+                doc.getString("_id"),
+                ((Number) doc.get("totalUsers")).longValue(),
+                ((Number) doc.get("activeUsers")).longValue());
+    }
+}
@@ -0,0 +1,70 @@
+package com.dam.accesodatos.config;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.MongoCompressor;
+import com.mongodb.connection.ConnectionPoolSettings;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("MongoClientProperties Tests")
+class MongoClientPropertiesTest {
+
+    private MongoClientSettings build(MongoClientProperties properties, boolean virtualThreads) {
+        return properties.applyTo(MongoClientSettings.builder(), virtualThreads).build();
+    }
+
+    @Test
+    @DisplayName("Debe trasladar pool, timeouts y compresores a MongoClientSettings")
+    void applyTo_PlatformThreads_MapsAllSettings() {
+        MongoClientProperties properties = new MongoClientProperties();
+        properties.getPool().setMaxSize(50);
+        properties.getPool().setMinSize(5);
+        properties.getPool().setMaxWait(Duration.ofSeconds(3));
+        properties.getPool().setMaxIdleTime(Duration.ofMinutes(1));
+        properties.getSocket().setConnectTimeout(Duration.ofMillis(1500));
+        properties.getSocket().setReadTimeout(Duration.ofSeconds(20));
+        properties.setCompressors(List.of("zstd", "ZLIB"));
+
+        MongoClientSettings settings = build(properties, false);
+
+        ConnectionPoolSettings pool = settings.getConnectionPoolSettings();
+        assertThat(pool.getMaxSize()).isEqualTo(50);
+        assertThat(pool.getMinSize()).isEqualTo(5);
+        assertThat(pool.getMaxWaitTime(TimeUnit.MILLISECONDS)).isEqualTo(3000);
+        assertThat(pool.getMaxConnectionIdleTime(TimeUnit.SECONDS)).isEqualTo(60);
+        assertThat(settings.getSocketSettings().getConnectTimeout(TimeUnit.MILLISECONDS)).isEqualTo(1500);
+        assertThat(settings.getSocketSettings().getReadTimeout(TimeUnit.SECONDS)).isEqualTo(20);
+        assertThat(settings.getCompressorList()).extracting(MongoCompressor::getName)
+                .containsExactly("zstd", "zlib");
+    }
+
+    @Test
+    @DisplayName("Con hilos virtuales debe usar el tamaño y la espera de virtual-threads")
+    void applyTo_VirtualThreads_UsesVirtualPoolSizing() {
+        MongoClientProperties properties = new MongoClientProperties();
+
+        ConnectionPoolSettings pool = build(properties, true).getConnectionPoolSettings();
+
+        assertThat(pool.getMaxSize()).isEqualTo(200);
+        assertThat(pool.getMaxConnecting()).isEqualTo(8);
+        assertThat(pool.getMaxWaitTime(TimeUnit.SECONDS)).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Debe rechazar un compresor desconocido")
+    void applyTo_UnknownCompressor_Throws() {
+        MongoClientProperties properties = new MongoClientProperties();
+        properties.setCompressors(List.of("gzip"));
+
+        assertThatThrownBy(() -> build(properties, false))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("gzip");
+    }
+}
@@ -0,0 +1,83 @@
+package com.dam.accesodatos.controller;
+
+import com.dam.accesodatos.config.BinaryFormatsConfig;
+import com.dam.accesodatos.model.User;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("UserStreamWriter Tests")
+class UserStreamWriterTest {
+
+    private final BinaryFormatsConfig config = new BinaryFormatsConfig();
+    private final MappingJackson2CborHttpMessageConverter cbor =
+            config.cborHttpMessageConverter(Jackson2ObjectMapperBuilder.json());
+    private final MappingJackson2SmileHttpMessageConverter smile =
+            config.smileHttpMessageConverter(Jackson2ObjectMapperBuilder.json());
+    private final UserStreamWriter writer =
+            new UserStreamWriter(Jackson2ObjectMapperBuilder.json().build(), cbor, smile);
+
+    private final List<User> users = List.of(
+            new User("665f1c2e8b3a4d0012345671", "Ana", "ana@test.com", "IT", "Dev", true,
+                    LocalDateTime.of(2024, 5, 1, 10, 15, 30), LocalDateTime.of(2024, 5, 2, 8, 0)),
+            new User("665f1c2e8b3a4d0012345672", "Luis", "luis@test.com", "HR", "Manager", false,
+                    LocalDateTime.of(2024, 6, 1, 9, 0), LocalDateTime.of(2024, 6, 1, 9, 0)));
+
+    private byte[] stream(MediaType format) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.binary(format, consumer -> users.forEach(consumer)).writeTo(out);
+        return out.toByteArray();
+    }
+
+    @Test
+    @DisplayName("El streaming CBOR y Smile debe leerse como una List<User>")
+    void binary_StreamedArray_ReadsBackAsList() throws Exception {
+        for (MediaType format : List.of(MediaType.APPLICATION_CBOR, BinaryFormatsConfig.SMILE)) {
+            ObjectMapper mapper = format.equals(MediaType.APPLICATION_CBOR) ? cbor.getObjectMapper() : smile.getObjectMapper();
+
+            List<User> read = mapper.readValue(stream(format), new TypeReference<>() { });
+
+            assertThat(read).isEqualTo(users);
+            assertThat(read).extracting(User::getName).containsExactly("Ana", "Luis");
+            assertThat(read).extracting(User::getActive).containsExactly(true, false);
+            assertThat(read.get(0).getCreatedAt()).isEqualTo(users.get(0).getCreatedAt());
+        }
+    }
+
+    @Test
+    @DisplayName("Si la fuente falla a mitad, el array no debe quedar cerrado")
+    void binary_SourceFails_LeavesArrayUnterminated() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StreamingResponseBody body = writer.binary(MediaType.APPLICATION_CBOR, consumer -> {
+            consumer.accept(users.get(0));
+            throw new IllegalStateException("cursor cerrado");
+        });
+
+        assertThatThrownBy(() -> body.writeTo(out)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> cbor.getObjectMapper().readValue(out.toByteArray(), new TypeReference<List<User>>() { }))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    @DisplayName("Debe elegir el formato binario según Accept y su calidad")
+    void binaryFormat_AcceptHeader_PicksFormat() {
+        assertThat(writer.binaryFormat("application/x-jackson-smile")).isEqualTo(BinaryFormatsConfig.SMILE);
+        assertThat(writer.binaryFormat("application/json;q=0.5, application/cbor")).isEqualTo(MediaType.APPLICATION_CBOR);
+        assertThat(writer.binaryFormat("application/cbor;q=0.1, application/x-jackson-smile")).isEqualTo(BinaryFormatsConfig.SMILE);
+        assertThat(writer.binaryFormat("*/*, application/x-jackson-smile")).isEqualTo(BinaryFormatsConfig.SMILE);
+    }
+}
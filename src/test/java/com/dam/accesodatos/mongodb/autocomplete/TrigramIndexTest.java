@@ -0,0 +1,136 @@
+package com.dam.accesodatos.mongodb.autocomplete;
+
+import com.dam.accesodatos.model.AutocompleteStatsDto;
+import com.dam.accesodatos.model.UserSuggestionDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("TrigramIndex Tests")
+class TrigramIndexTest {
+
+    private TrigramIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new TrigramIndex(false);
+        index.put("1", "Juan Pérez", "juan.perez@empresa.com");
+        index.put("2", "María García", "maria.garcia@empresa.com");
+        index.put("3", "Juana Martín", "juana.martin@empresa.com");
+        index.put("4", "Pedro Sánchez", "pedro.sanchez@empresa.com");
+    }
+
+    private static List<String> ids(List<UserSuggestionDto> suggestions) {
+        return suggestions.stream().map(UserSuggestionDto::getId).toList();
+    }
+
+    @Nested
+    @DisplayName("Búsqueda")
+    class SearchTests {
+
+        @Test
+        @DisplayName("Debe encontrar palabras a medio escribir sin distinguir mayúsculas ni acentos")
+        void search_Prefix_IgnoresCaseAndAccents() {
+            List<UserSuggestionDto> result = index.search("MARI", 10, 0.5);
+
+            // "Martín" comparte "  m", " ma" y "mar" (3 de 4 trigramas)
+            assertThat(ids(result)).containsExactly("2", "3");
+            assertThat(result.get(0).getName()).isEqualTo("María García");
+            assertThat(result.get(0).getScore()).isEqualTo(1.0);
+            assertThat(result.get(1).getScore()).isEqualTo(0.75);
+        }
+
+        @Test
+        @DisplayName("Debe tolerar erratas y ordenar por puntuación")
+        void search_Typo_RanksClosestFirst() {
+            List<UserSuggestionDto> result = index.search("perz", 10, 0.5);
+
+            assertThat(ids(result)).first().isEqualTo("1");
+            assertThat(index.search("garcai", 10, 0.5)).extracting(UserSuggestionDto::getId).contains("2");
+        }
+
+        @Test
+        @DisplayName("A igual cobertura debe ir antes el nombre más corto")
+        void search_SameCoverage_PrefersShorterName() {
+            assertThat(ids(index.search("juan", 10, 0.5))).containsExactly("1", "3");
+        }
+
+        @Test
+        @DisplayName("Debe respetar el límite y no devolver nada para texto sin coincidencias")
+        void search_LimitAndNoMatch() {
+            assertThat(index.search("juan", 1, 0.5)).hasSize(1);
+            assertThat(index.search("xyzzy", 10, 0.5)).isEmpty();
+            assertThat(index.search("  ", 10, 0.5)).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Con include-email debe buscar también en el email")
+        void search_IncludeEmail_MatchesEmailWords() {
+            TrigramIndex withEmail = new TrigramIndex(true);
+            withEmail.put("1", "Juan Pérez", "jp@acme.com");
+
+            assertThat(index.search("acme", 10, 0.5)).isEmpty();
+            assertThat(ids(withEmail.search("acme", 10, 0.5))).containsExactly("1");
+        }
+    }
+
+    @Nested
+    @DisplayName("Escrituras")
+    class WriteTests {
+
+        @Test
+        @DisplayName("Debe reflejar el nuevo nombre tras una actualización")
+        void put_ExistingId_ReplacesPreviousName() {
+            index.put("4", "Pablo Sánchez", "pedro.sanchez@empresa.com");
+
+            assertThat(index.search("pedro", 10, 0.5)).isEmpty();
+            assertThat(ids(index.search("pablo", 10, 0.5))).containsExactly("4");
+            assertThat(index.size()).isEqualTo(4);
+        }
+
+        @Test
+        @DisplayName("No debe devolver usuarios borrados")
+        void remove_ExistingId_NoLongerFound() {
+            index.remove("1");
+
+            assertThat(ids(index.search("juan", 10, 0.5))).containsExactly("3");
+            assertThat(index.size()).isEqualTo(3);
+        }
+
+        @Test
+        @DisplayName("Debe compactar las lápidas cuando superan a los vivos")
+        void remove_ManyIds_CompactsIndex() {
+            TrigramIndex large = new TrigramIndex(false);
+            int total = TrigramIndex.MIN_DEAD_TO_COMPACT * 3;
+            for (int i = 0; i < total; i++) {
+                large.put("id" + i, "Usuario " + i, null);
+            }
+            for (int i = 0; i < total - 10; i++) {
+                large.remove("id" + i);
+            }
+
+            AutocompleteStatsDto stats = large.footprint();
+            assertThat(stats.getDocuments()).isEqualTo(10);
+            assertThat(stats.getDeletedSlots()).isLessThan(TrigramIndex.MIN_DEAD_TO_COMPACT);
+            assertThat(ids(large.search("usuario " + (total - 1), 1, 0.5))).containsExactly("id" + (total - 1));
+        }
+    }
+
+    @Test
+    @DisplayName("Debe estimar la memoria ocupada por componente")
+    void footprint_ReportsSizes() {
+        AutocompleteStatsDto stats = index.footprint();
+
+        assertThat(stats.getDocuments()).isEqualTo(4);
+        assertThat(stats.getTrigrams()).isPositive();
+        assertThat(stats.getPostingEntries()).isGreaterThanOrEqualTo(stats.getTrigrams());
+        assertThat(stats.getTotalBytes())
+                .isEqualTo(stats.getPostingsBytes() + stats.getDictionaryBytes() + stats.getDocumentsBytes());
+        assertThat(stats.getBytesPerDocument()).isEqualTo(stats.getTotalBytes() / 4);
+    }
+}
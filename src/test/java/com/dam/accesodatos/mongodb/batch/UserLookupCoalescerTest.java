@@ -0,0 +1,153 @@
+package com.dam.accesodatos.mongodb.batch;
+
+import com.dam.accesodatos.exception.InvalidUserIdException;
+import com.dam.accesodatos.exception.UserNotFoundException;
+import com.dam.accesodatos.model.User;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("UserLookupCoalescer Tests")
+class UserLookupCoalescerTest {
+
+    /** IDs "existentes" para el loader falso. */
+    private final Set<String> existing = ConcurrentHashMap.newKeySet();
+    /** Tamaño de cada lote recibido por el loader. */
+    private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+
+    private final Function<List<String>, List<User>> loader = ids -> {
+        batchSizes.add(ids.size());
+        return ids.stream()
+                .filter(existing::contains)
+                .map(id -> new User(id, "Batched", "batched@test.com", "IT", "Dev", true,
+                        LocalDateTime.now(), LocalDateTime.now()))
+                .toList();
+    };
+
+    private UserLookupCoalescer coalescer;
+
+    @AfterEach
+    void tearDown() {
+        if (coalescer != null) {
+            coalescer.shutdown();
+        }
+    }
+
+    private String newId() {
+        String id = new ObjectId().toHexString();
+        existing.add(id);
+        return id;
+    }
+
+    /**
+     * Lanza todas las lecturas a la vez desde hilos virtuales y devuelve sus resultados.
+     */
+    private List<User> loadConcurrently(UserLookupCoalescer.Batcher batcher, List<String> ids) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<User>> futures = new ArrayList<>();
+            for (String id : ids) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return batcher.load(id);
+                }));
+            }
+            start.countDown();
+            List<User> users = new ArrayList<>();
+            for (Future<User> future : futures) {
+                users.add(future.get());
+            }
+            return users;
+        }
+    }
+
+    @Test
+    @DisplayName("Debe resolver las lecturas concurrentes con menos consultas que IDs")
+    void load_ConcurrentLookups_CoalescedIntoBatches() throws Exception {
+        coalescer = new UserLookupCoalescer(true, Duration.ofMillis(20), 1000, null);
+        UserLookupCoalescer.Batcher batcher = coalescer.batcher("test", loader);
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            ids.add(newId());
+        }
+
+        List<User> users = loadConcurrently(batcher, ids);
+
+        assertThat(users).extracting(User::getId).containsExactlyElementsOf(ids);
+        assertThat(batchSizes.size()).isLessThan(ids.size());
+        assertThat(coalescer.lookups()).isEqualTo(200);
+        assertThat(coalescer.batches()).isEqualTo(batchSizes.size());
+    }
+
+    @Test
+    @DisplayName("Ningún lote debe superar max-batch-size")
+    void load_FullBatch_DispatchedAtMaxSize() throws Exception {
+        coalescer = new UserLookupCoalescer(true, Duration.ofSeconds(5), 10, null);
+        UserLookupCoalescer.Batcher batcher = coalescer.batcher("test", loader);
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            ids.add(newId());
+        }
+
+        // Con una ventana de 5s solo terminan rápido si los lotes salen al llenarse
+        List<User> users = loadConcurrently(batcher, ids);
+
+        assertThat(users).hasSize(50);
+        assertThat(batchSizes).allSatisfy(size -> assertThat(size).isLessThanOrEqualTo(10));
+        assertThat(batchSizes).hasSize(5);
+    }
+
+    @Test
+    @DisplayName("Debe lanzar UserNotFoundException o InvalidUserIdException por llamante")
+    void load_MissingOrInvalidId_ThrowsPerCaller() {
+        coalescer = new UserLookupCoalescer(true, Duration.ofMillis(1), 100, null);
+        UserLookupCoalescer.Batcher batcher = coalescer.batcher("test", loader);
+        String missing = new ObjectId().toHexString();
+
+        assertThatThrownBy(() -> batcher.load(missing))
+                .isInstanceOf(UserNotFoundException.class)
+                .hasMessageContaining(missing);
+        assertThatThrownBy(() -> batcher.load("no-es-un-id"))
+                .isInstanceOf(InvalidUserIdException.class);
+    }
+
+    @Test
+    @DisplayName("Si la consulta falla, todos los llamantes del lote reciben el error")
+    void load_LoaderFails_PropagatesToCaller() {
+        coalescer = new UserLookupCoalescer(true, Duration.ofMillis(1), 100, null);
+        UserLookupCoalescer.Batcher batcher = coalescer.batcher("test", ids -> {
+            throw new RuntimeException("Error al buscar usuarios por ID: timeout");
+        });
+
+        assertThatThrownBy(() -> batcher.load(newId()))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("timeout");
+    }
+
+    @Test
+    @DisplayName("Desactivado no debe crear agrupadores")
+    void batcher_Disabled_Throws() {
+        coalescer = new UserLookupCoalescer(false, Duration.ofMillis(2), 100, null);
+
+        assertThat(coalescer.isEnabled()).isFalse();
+        assertThatThrownBy(() -> coalescer.batcher("test", loader))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,137 @@
+package com.dam.accesodatos.mongodb.cache;
+
+import com.dam.accesodatos.exception.UserNotFoundException;
+import com.dam.accesodatos.model.CacheStatsDto;
+import com.dam.accesodatos.model.User;
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("UserCache Tests")
+class UserCacheTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final Ticker ticker = nanos::get;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private final Function<String, User> loader = id -> {
+        loads.incrementAndGet();
+        return new User(id, "Cached User", "cached@test.com", "IT", "Dev", true,
+                LocalDateTime.now(), LocalDateTime.now());
+    };
+
+    private UserCache enabledCache() {
+        return new UserCache(true, 100, Duration.ofMinutes(5), ticker);
+    }
+
+    @Test
+    @DisplayName("Debe cargar una sola vez y servir las siguientes lecturas desde memoria")
+    void get_RepeatedReads_LoadsOnce() {
+        UserCache cache = enabledCache();
+        String id = new ObjectId().toHexString();
+
+        cache.get(id, loader);
+        User second = cache.get(id, loader);
+
+        assertThat(second.getId()).isEqualTo(id);
+        assertThat(loads).hasValue(1);
+        CacheStatsDto stats = cache.stats();
+        assertThat(stats.getHits()).isEqualTo(1);
+        assertThat(stats.getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Debe devolver copias que no alteran la entrada cacheada")
+    void get_MutatedResult_DoesNotChangeCachedEntry() {
+        UserCache cache = enabledCache();
+        String id = new ObjectId().toHexString();
+
+        cache.get(id, loader).setName("Modificado fuera");
+
+        assertThat(cache.get(id, loader).getName()).isEqualTo("Cached User");
+    }
+
+    @Test
+    @DisplayName("Debe recargar tras invalidar la entrada")
+    void invalidate_ExistingEntry_ReloadsOnNextRead() {
+        UserCache cache = enabledCache();
+        String id = new ObjectId().toHexString();
+        cache.get(id, loader);
+
+        cache.invalidate(id);
+        cache.get(id, loader);
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Una invalidación durante la carga no debe dejar cacheado el resultado")
+    void invalidate_DuringLoad_ResultNotCached() {
+        UserCache cache = enabledCache();
+        String id = new ObjectId().toHexString();
+
+        // El loader corre fuera del compute de Caffeine: invalidar desde él no se bloquea
+        User loaded = cache.get(id, key -> {
+            User user = loader.apply(key);
+            cache.invalidate(key);
+            return user;
+        });
+        cache.get(id, loader);
+
+        assertThat(loaded.getId()).isEqualTo(id);
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Debe expirar las entradas pasado el TTL")
+    void get_AfterTtl_Reloads() {
+        UserCache cache = enabledCache();
+        String id = new ObjectId().toHexString();
+        cache.get(id, loader);
+
+        nanos.addAndGet(Duration.ofMinutes(6).toNanos());
+        cache.get(id, loader);
+
+        assertThat(loads).hasValue(2);
+        assertThat(cache.stats().getEvictions()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("No debe cachear las excepciones del loader")
+    void get_LoaderThrows_NothingCached() {
+        UserCache cache = enabledCache();
+        String id = new ObjectId().toHexString();
+
+        assertThatThrownBy(() -> cache.get(id, missing -> {
+            throw new UserNotFoundException(missing);
+        })).isInstanceOf(UserNotFoundException.class);
+
+        assertThat(cache.stats().getSize()).isZero();
+    }
+
+    @Test
+    @DisplayName("Desactivada o con ID inválido debe llamar siempre al loader")
+    void get_DisabledOrInvalidId_AlwaysLoads() {
+        UserCache disabled = new UserCache(false, 100, Duration.ofMinutes(5), ticker);
+        String id = new ObjectId().toHexString();
+        disabled.get(id, loader);
+        disabled.get(id, loader);
+
+        UserCache enabled = enabledCache();
+        enabled.get("invalid-id", loader);
+        enabled.get("invalid-id", loader);
+
+        assertThat(loads).hasValue(4);
+        assertThat(enabled.stats().getSize()).isZero();
+    }
+}
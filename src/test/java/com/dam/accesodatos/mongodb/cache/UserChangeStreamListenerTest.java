@@ -0,0 +1,81 @@
+package com.dam.accesodatos.mongodb.cache;
+
+import com.dam.accesodatos.model.User;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.mongodb.client.model.changestream.OperationType;
+import org.bson.BsonDocument;
+import org.bson.BsonObjectId;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("UserChangeStreamListener Tests")
+class UserChangeStreamListenerTest {
+
+    private final UserCache cache = new UserCache(true, 100, Duration.ofMinutes(5), Ticker.systemTicker());
+
+    private final Function<String, User> failingLoader = id -> {
+        throw new AssertionError("No debería consultar MongoDB para " + id);
+    };
+
+    private static User user(String id, String name) {
+        LocalDateTime now = LocalDateTime.now();
+        return new User(id, name, "stream@test.com", "IT", "Dev", true, now, now);
+    }
+
+    private static BsonDocument key(String id) {
+        return new BsonDocument("_id", new BsonObjectId(new ObjectId(id)));
+    }
+
+    @Test
+    @DisplayName("insert debe guardar el documento en caché")
+    void apply_Insert_PutsUser() {
+        String id = new ObjectId().toHexString();
+
+        UserChangeStreamListener.apply(cache, OperationType.INSERT, key(id), user(id, "Insertado"));
+
+        assertThat(cache.get(id, failingLoader).getName()).isEqualTo("Insertado");
+    }
+
+    @Test
+    @DisplayName("update debe refrescar solo usuarios ya cacheados")
+    void apply_Update_RefreshesOnlyCachedUsers() {
+        String cachedId = new ObjectId().toHexString();
+        String otherId = new ObjectId().toHexString();
+        cache.put(user(cachedId, "Antes"));
+
+        UserChangeStreamListener.apply(cache, OperationType.UPDATE, key(cachedId), user(cachedId, "Después"));
+        UserChangeStreamListener.apply(cache, OperationType.UPDATE, key(otherId), user(otherId, "Nadie lo leyó"));
+
+        assertThat(cache.get(cachedId, failingLoader).getName()).isEqualTo("Después");
+        assertThat(cache.stats().getSize()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("delete debe invalidar la entrada")
+    void apply_Delete_InvalidatesEntry() {
+        String id = new ObjectId().toHexString();
+        cache.put(user(id, "Borrado"));
+
+        UserChangeStreamListener.apply(cache, OperationType.DELETE, key(id), null);
+
+        assertThat(cache.stats().getSize()).isZero();
+    }
+
+    @Test
+    @DisplayName("drop de la colección debe vaciar la caché")
+    void apply_Drop_ClearsCache() {
+        cache.put(user(new ObjectId().toHexString(), "Uno"));
+        cache.put(user(new ObjectId().toHexString(), "Dos"));
+
+        UserChangeStreamListener.apply(cache, OperationType.DROP, null, null);
+
+        assertThat(cache.stats().getSize()).isZero();
+    }
+}
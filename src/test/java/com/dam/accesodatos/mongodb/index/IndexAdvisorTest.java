@@ -0,0 +1,131 @@
+package com.dam.accesodatos.mongodb.index;
+
+import com.dam.accesodatos.model.IndexSuggestionDto;
+import com.dam.accesodatos.model.UserQueryDto;
+import org.bson.Document;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("IndexAdvisor Tests")
+class IndexAdvisorTest {
+
+    private static final Document NAME = Document.parse("{name: 'name_1', key: {name: 1}}");
+    private static final Document NAME_CI = Document.parse(
+            "{name: 'name_ci', key: {name: 1}, collation: {locale: 'es', strength: 2}}");
+    private static final Document DEPARTMENT = Document.parse("{name: 'department_1', key: {department: 1}}");
+    private static final Document COMPOUND = Document.parse(
+            "{name: 'department_1_active_1_name_1', key: {department: 1, active: 1, name: 1}}");
+    private static final Document ACTIVE_CREATED_AT = Document.parse(
+            "{name: 'active_createdAt', key: {createdAt: -1}, partialFilterExpression: {active: true}}");
+    private static final Document TEXT = Document.parse(
+            "{name: 'users_text', key: {_fts: 'text', _ftsx: 1}}");
+
+    private static UserQueryDto query(String department, Boolean active, String name, String nameMatch, String sortBy) {
+        UserQueryDto query = new UserQueryDto();
+        query.setDepartment(department);
+        query.setActive(active);
+        query.setName(name);
+        query.setNameMatch(nameMatch);
+        query.setSortBy(sortBy);
+        return query;
+    }
+
+    @Nested
+    @DisplayName("SearchShape")
+    class ShapeTests {
+
+        @Test
+        @DisplayName("La clave ideal debe seguir el orden igualdad, ordenación, rango")
+        void idealIndexKey_FollowsEsr() {
+            SearchShape shape = SearchShape.of(query("IT", true, "jua", "prefix", "createdAt"));
+
+            assertThat(shape.idealIndexKey().keySet()).containsExactly("department", "active", "createdAt", "name");
+            assertThat(shape.needsNameCollation()).isTrue();
+            assertThat(shape.describe()).isEqualTo("department=? active=true name~prefix sort:createdAt");
+        }
+
+        @Test
+        @DisplayName("Un regex sin anclar no debe aparecer en la clave")
+        void idealIndexKey_ContainsRegex_NotInKey() {
+            SearchShape shape = SearchShape.of(query(null, null, "jua", null, "name"));
+
+            assertThat(shape.idealIndexKey()).isEqualTo(Map.of("name", 1));
+            assertThat(shape.needsNameCollation()).isFalse();
+        }
+    }
+
+    @Nested
+    @DisplayName("serves")
+    class ServesTests {
+
+        @Test
+        @DisplayName("El índice compuesto debe servir a department + active ordenado por name")
+        void serves_CompoundIndex_EqualitiesThenSort() {
+            SearchShape shape = SearchShape.of(query("IT", false, null, null, "name"));
+
+            assertThat(IndexAdvisor.serves(COMPOUND, shape)).isTrue();
+            assertThat(IndexAdvisor.serves(DEPARTMENT, shape)).isFalse();
+            assertThat(IndexAdvisor.serves(NAME, shape)).isFalse();
+        }
+
+        @Test
+        @DisplayName("Un índice parcial solo debe servir si la búsqueda cumple su filtro")
+        void serves_PartialIndex_RequiresMatchingFilter() {
+            assertThat(IndexAdvisor.serves(ACTIVE_CREATED_AT,
+                    SearchShape.of(query(null, true, null, null, "createdAt")))).isTrue();
+            assertThat(IndexAdvisor.serves(ACTIVE_CREATED_AT,
+                    SearchShape.of(query(null, false, null, null, "createdAt")))).isFalse();
+            assertThat(IndexAdvisor.serves(ACTIVE_CREATED_AT,
+                    SearchShape.of(query(null, null, null, null, "createdAt")))).isFalse();
+        }
+
+        @Test
+        @DisplayName("La búsqueda por prefijo solo debe usar índices con la collation de name_ci")
+        void serves_PrefixSearch_RequiresCollation() {
+            SearchShape prefix = SearchShape.of(query(null, null, "jua", "prefix", "name"));
+
+            assertThat(IndexAdvisor.serves(NAME_CI, prefix)).isTrue();
+            assertThat(IndexAdvisor.serves(NAME, prefix)).isFalse();
+            assertThat(IndexAdvisor.serves(TEXT, prefix)).isFalse();
+        }
+    }
+
+    @Test
+    @DisplayName("Debe sugerir solo los índices que faltan, agrupados y de más a menos usados")
+    void suggest_MissingIndexes_GroupedByKey() {
+        List<Document> indexes = List.of(NAME, NAME_CI, DEPARTMENT, COMPOUND, TEXT);
+        Map<SearchShape, Long> observed = Map.of(
+                SearchShape.of(query("IT", true, null, null, "name")), 500L,
+                SearchShape.of(query("IT", null, null, null, "role")), 40L,
+                SearchShape.of(query("HR", null, "ana", null, "role")), 2L,
+                SearchShape.of(query(null, true, null, null, "createdAt")), 7L);
+
+        List<IndexSuggestionDto> suggestions = IndexAdvisor.suggest(observed, indexes);
+
+        assertThat(suggestions).hasSize(2);
+        IndexSuggestionDto first = suggestions.get(0);
+        assertThat(first.getKey().keySet()).containsExactly("department", "role");
+        assertThat(first.getObservedQueries()).isEqualTo(42);
+        assertThat(first.getShapes()).hasSize(2);
+        assertThat(first.getCommand()).isEqualTo("db.users.createIndex({\"department\": 1, \"role\": 1})");
+        assertThat(suggestions.get(1).getKey().keySet()).containsExactly("active", "createdAt");
+    }
+
+    @Test
+    @DisplayName("Debe contar las búsquedas observadas por forma")
+    void observe_CountsByShape() {
+        IndexAdvisor advisor = new IndexAdvisor();
+        advisor.observe(query("IT", null, null, null, "name"));
+        advisor.observe(query("HR", null, null, null, "name"));
+        advisor.observe(query(null, null, null, null, "name"));
+
+        assertThat(advisor.observedShapes()).containsEntry(SearchShape.of(query("X", null, null, null, "name")), 2L);
+        assertThat(advisor.observedShapes()).hasSize(2);
+    }
+}
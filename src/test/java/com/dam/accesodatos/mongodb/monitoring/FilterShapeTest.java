@@ -0,0 +1,75 @@
+package com.dam.accesodatos.mongodb.monitoring;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Monitorización de comandos Tests")
+class FilterShapeTest {
+
+    @Nested
+    @DisplayName("FilterShape")
+    class FilterShapeTests {
+
+        @Test
+        @DisplayName("Debe sustituir los valores por ? conservando campos y operadores")
+        void ofCommand_Find_RedactsValues() {
+            BsonDocument find = BsonDocument.parse("""
+                    {find: "users", filter: {name: {$regex: "^Juan", $options: "i"},
+                     $or: [{department: "IT"}, {age: {$gte: 30}}], active: true}}""");
+
+            String shape = FilterShape.ofCommand("find", find);
+
+            assertThat(shape).doesNotContain("Juan", "IT", "30", "true");
+            assertThat(BsonDocument.parse(shape)).isEqualTo(BsonDocument.parse("""
+                    {name: {$regex: "?", $options: "?"},
+                     $or: [{department: "?"}, {age: {$gte: "?"}}], active: "?"}"""));
+        }
+
+        @Test
+        @DisplayName("Debe localizar el filtro de aggregate y update")
+        void ofCommand_AggregateAndUpdate_FindsFilter() {
+            BsonDocument aggregate = BsonDocument.parse(
+                    "{aggregate: 'users', pipeline: [{$match: {department: 'IT'}}, {$group: {_id: '$role'}}]}");
+            BsonDocument update = BsonDocument.parse(
+                    "{update: 'users', updates: [{q: {email: 'a@b.com'}, u: {$set: {active: false}}}]}");
+
+            assertThat(FilterShape.ofCommand("aggregate", aggregate)).isEqualTo("{\"department\": \"?\"}");
+            assertThat(FilterShape.ofCommand("update", update)).isEqualTo("{\"email\": \"?\"}");
+            assertThat(FilterShape.ofCommand("insert", BsonDocument.parse("{insert: 'users'}"))).isNull();
+        }
+    }
+
+    @Nested
+    @DisplayName("CommandLatencyRecorder")
+    class RecorderTests {
+
+        @Test
+        @DisplayName("Debe acumular latencias por origen y registrar solo los comandos lentos")
+        void record_AboveThreshold_GoesToSlowLog() {
+            CommandLatencyRecorder recorder = new CommandLatencyRecorder(new SimpleMeterRegistry(),
+                    Duration.ofMillis(100), 2);
+
+            recorder.record("find", "users", "native.findAll", true, Duration.ofMillis(5).toNanos(), "{}");
+            recorder.record("find", "users", "native.findAll", true, Duration.ofMillis(150).toNanos(), "{}");
+            recorder.record("find", "users", "springdata.findAll", true, Duration.ofMillis(200).toNanos(), "{}");
+            recorder.record("count", "users", "other", true, Duration.ofMillis(300).toNanos(), null);
+
+            assertThat(recorder.latencies()).hasSize(3);
+            assertThat(recorder.latencies())
+                    .filteredOn(dto -> dto.getSource().equals("native.findAll"))
+                    .singleElement()
+                    .satisfies(dto -> assertThat(dto.getCount()).isEqualTo(2));
+            // slow-log-size 2: solo los dos más recientes, el último primero
+            assertThat(recorder.slowCommands())
+                    .extracting(slow -> slow.getSource())
+                    .containsExactly("other", "springdata.findAll");
+        }
+    }
+}
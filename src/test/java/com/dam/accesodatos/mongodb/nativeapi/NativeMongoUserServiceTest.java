@@ -1,14 +1,26 @@
 package com.dam.accesodatos.mongodb.nativeapi;
 
 import com.dam.accesodatos.exception.DuplicateEmailException;
+import com.dam.accesodatos.exception.InvalidQueryException;
 import com.dam.accesodatos.exception.InvalidUserIdException;
 import com.dam.accesodatos.exception.UserNotFoundException;
 import com.dam.accesodatos.model.DepartmentStatsDto;
+import com.dam.accesodatos.model.BatchGetItemDto;
+import com.dam.accesodatos.model.BatchGetResultDto;
+import com.dam.accesodatos.model.BulkCreateResultDto;
+import com.dam.accesodatos.model.BulkItemResultDto;
 import com.dam.accesodatos.model.User;
 import com.dam.accesodatos.model.UserCreateDto;
+import com.dam.accesodatos.model.UserPageDto;
 import com.dam.accesodatos.model.UserQueryDto;
 import com.dam.accesodatos.model.UserUpdateDto;
+import com.dam.accesodatos.mongodb.batch.UserBatchGet;
+import com.dam.accesodatos.mongodb.etag.ResourceVersion;
+import com.dam.accesodatos.mongodb.pagination.ContinuationToken;
+import com.dam.accesodatos.mongodb.index.ExplainPlans;
+import com.dam.accesodatos.mongodb.index.NameCollation;
 import org.junit.jupiter.api.DisplayName;
+import org.bson.Document;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -19,6 +31,7 @@ import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.index.Index;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
@@ -93,6 +106,38 @@ class NativeMongoUserServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("Create Users (bulk)")
+    class CreateUsersBulk {
+
+        @Test
+        @DisplayName("Debe insertar las filas válidas e informar los fallos por fila")
+        void createUsers_MixedRows_ReportsPerRowResults() {
+            String existing = uniqueEmail();
+            service.createUser(new UserCreateDto("Bulk Existing", existing, "IT", "Dev"));
+
+            List<UserCreateDto> dtos = List.of(
+                    new UserCreateDto("Bulk 1", uniqueEmail(), "IT", "Dev"),
+                    new UserCreateDto("Bulk 2", existing, "HR", "Manager"),
+                    new UserCreateDto("Bulk 3", "no-es-un-email", "IT", "Dev"),
+                    new UserCreateDto("Bulk 4", uniqueEmail(), "Finance", "Analyst"));
+
+            BulkCreateResultDto result = service.createUsers(dtos);
+
+            assertThat(result.getRequested()).isEqualTo(4);
+            assertThat(result.getInserted()).isEqualTo(2);
+            assertThat(result.getFailed()).isEqualTo(2);
+            assertThat(result.getItems()).extracting(BulkItemResultDto::getStatus).containsExactly(
+                    BulkItemResultDto.Status.CREATED,
+                    BulkItemResultDto.Status.DUPLICATE_EMAIL,
+                    BulkItemResultDto.Status.INVALID,
+                    BulkItemResultDto.Status.CREATED);
+
+            String createdId = result.getItems().get(3).getId();
+            assertThat(service.findUserById(createdId).getDepartment()).isEqualTo("Finance");
+        }
+    }
+
     @Nested
     @DisplayName("Find User By ID")
     class FindUserById {
@@ -132,6 +177,95 @@ class NativeMongoUserServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("Find Users By Ids")
+    class FindUsersByIds {
+
+        @Test
+        @DisplayName("Debe devolver un resultado por ID en el orden de entrada")
+        void findUsersByIds_MixedIds_PreservesOrderAndMarksMissing() {
+            User first = service.createUser(new UserCreateDto("Native Batch 1", uniqueEmail(), "IT", "Dev"));
+            User second = service.createUser(new UserCreateDto("Native Batch 2", uniqueEmail(), "IT", "Dev"));
+            String missing = "507f1f77bcf86cd799439011";
+
+            BatchGetResultDto result = service.findUsersByIds(List.of(
+                    second.getId(), missing, "no-es-un-id", first.getId(), second.getId().toUpperCase()));
+
+            assertThat(result.getRequested()).isEqualTo(5);
+            assertThat(result.getFound()).isEqualTo(3);
+            assertThat(result.getNotFound()).isEqualTo(1);
+            assertThat(result.getInvalid()).isEqualTo(1);
+            assertThat(result.getItems()).extracting(BatchGetItemDto::getStatus).containsExactly(
+                    BatchGetItemDto.Status.FOUND,
+                    BatchGetItemDto.Status.NOT_FOUND,
+                    BatchGetItemDto.Status.INVALID_ID,
+                    BatchGetItemDto.Status.FOUND,
+                    BatchGetItemDto.Status.FOUND);
+            assertThat(result.getItems().get(0).getUser().getEmail()).isEqualTo(second.getEmail());
+            assertThat(result.getItems().get(3).getUser().getId()).isEqualTo(first.getId());
+            assertThat(result.getItems().get(4).getUser().getId()).isEqualTo(second.getId());
+        }
+
+        @Test
+        @DisplayName("Debe rechazar más de MAX_IDS IDs")
+        void findUsersByIds_TooManyIds_ThrowsInvalidQuery() {
+            List<String> ids = new ArrayList<>();
+            for (int i = 0; i <= UserBatchGet.MAX_IDS; i++) {
+                ids.add("507f1f77bcf86cd799439011");
+            }
+
+            assertThatThrownBy(() -> service.findUsersByIds(ids))
+                    .isInstanceOf(InvalidQueryException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("Versiones para GET condicionales")
+    class ResourceVersions {
+
+        @Test
+        @DisplayName("La versión del usuario debe coincidir con la del documento completo")
+        void findUserVersion_ExistingUser_MatchesFullRead() {
+            User created = service.createUser(new UserCreateDto("Native Version", uniqueEmail(), "IT", "Dev"));
+
+            ResourceVersion version = service.findUserVersion(created.getId());
+
+            assertThat(version.etag()).isNotNull()
+                    .isEqualTo(ResourceVersion.of(service.findUserById(created.getId())).etag());
+        }
+
+        @Test
+        @DisplayName("Debe lanzar excepción si el usuario no existe o el ID no es válido")
+        void findUserVersion_MissingOrInvalid_Throws() {
+            assertThatThrownBy(() -> service.findUserVersion("507f1f77bcf86cd799439011"))
+                    .isInstanceOf(UserNotFoundException.class);
+            assertThatThrownBy(() -> service.findUserVersion("no-es-un-id"))
+                    .isInstanceOf(InvalidUserIdException.class);
+        }
+
+        @Test
+        @DisplayName("La versión del departamento debe cambiar al borrar un usuario")
+        void findDepartmentVersion_AfterDelete_EtagChanges() {
+            String department = "Version-" + UUID.randomUUID();
+            User first = service.createUser(new UserCreateDto("Native Dep 1", uniqueEmail(), department, "Dev"));
+            service.createUser(new UserCreateDto("Native Dep 2", uniqueEmail(), department, "Dev"));
+
+            ResourceVersion before = service.findDepartmentVersion(department);
+            service.deleteUser(first.getId());
+            ResourceVersion after = service.findDepartmentVersion(department);
+
+            assertThat(before.count()).isEqualTo(2);
+            assertThat(after.count()).isEqualTo(1);
+            assertThat(after.etag()).isNotEqualTo(before.etag());
+            // El 200 calcula el ETag de la propia lista: debe coincidir con el de la versión
+            assertThat(ResourceVersion.of(service.findUsersByDepartment(department)).etag())
+                    .isEqualTo(after.etag());
+            // La proyección forma parte del ETag
+            assertThat(after.etag(List.of("name", "email"))).isEqualTo(after.etag(List.of("email", "name")))
+                    .isNotEqualTo(after.etag());
+        }
+    }
+
     @Nested
     @DisplayName("Update User")
     class UpdateUser {
@@ -154,6 +288,21 @@ class NativeMongoUserServiceTest {
             assertThat(updated.getEmail()).isEqualTo(email); // Unchanged
         }
 
+        @Test
+        @DisplayName("Debe devolver el documento guardado también cuando cambian los contadores de department_stats")
+        void updateUser_DepartmentChange_ReturnsStoredDocument() {
+            User created = service.createUser(new UserCreateDto("Moved Native", uniqueEmail(), "IT", "Dev"));
+
+            UserUpdateDto dto = new UserUpdateDto();
+            dto.setDepartment("HR");
+            dto.setActive(false);
+
+            User updated = service.updateUser(created.getId(), dto);
+
+            assertThat(updated).usingRecursiveComparison()
+                    .isEqualTo(service.findUserById(created.getId()));
+        }
+
         @Test
         @DisplayName("Debe lanzar UserNotFoundException al actualizar usuario inexistente")
         void updateUser_NonExistingId_ThrowsException() {
@@ -164,6 +313,35 @@ class NativeMongoUserServiceTest {
             assertThatThrownBy(() -> service.updateUser(nonExistingId, dto))
                     .isInstanceOf(UserNotFoundException.class);
         }
+
+        @Test
+        @DisplayName("Debe modificar solo los campos enviados y devolver la post-imagen")
+        void updateUser_PartialDto_KeepsUntouchedFields() {
+            String email = uniqueEmail();
+            User created = service.createUser(new UserCreateDto("Partial Native", email, "IT", "Dev"));
+
+            UserUpdateDto dto = new UserUpdateDto();
+            dto.setActive(false);
+
+            User updated = service.updateUser(created.getId(), dto);
+
+            assertThat(updated.getActive()).isFalse();
+            assertThat(updated.getName()).isEqualTo("Partial Native");
+            assertThat(updated.getEmail()).isEqualTo(email);
+            assertThat(updated.getRole()).isEqualTo("Dev");
+            assertThat(updated.getUpdatedAt()).isAfterOrEqualTo(updated.getCreatedAt());
+            assertThat(service.findUserById(created.getId()).getActive()).isFalse();
+        }
+
+        @Test
+        @DisplayName("Debe lanzar InvalidUserIdException al actualizar con ID inválido")
+        void updateUser_InvalidId_ThrowsException() {
+            UserUpdateDto dto = new UserUpdateDto();
+            dto.setName("New Name");
+
+            assertThatThrownBy(() -> service.updateUser("invalid-id", dto))
+                    .isInstanceOf(InvalidUserIdException.class);
+        }
     }
 
     @Nested
@@ -223,6 +401,40 @@ class NativeMongoUserServiceTest {
             assertThat(results).allMatch(user -> user.getName().contains("John"));
         }
 
+        @Test
+        @DisplayName("nameMatch=prefix debe buscar por prefijo sin distinguir mayúsculas")
+        void searchUsers_NamePrefix_IsCaseInsensitive() {
+            String prefix = "Pfx" + UUID.randomUUID().toString().substring(0, 6);
+            service.createUser(new UserCreateDto(prefix + " Ana", uniqueEmail(), "IT", "Dev"));
+            service.createUser(new UserCreateDto(prefix.toUpperCase() + " Luis", uniqueEmail(), "HR", "Dev"));
+            service.createUser(new UserCreateDto("Otro " + prefix, uniqueEmail(), "IT", "Dev"));
+
+            UserQueryDto query = new UserQueryDto();
+            query.setName(prefix.toLowerCase());
+            query.setNameMatch("prefix");
+            query.setSize(50);
+
+            List<User> results = service.searchUsers(query);
+
+            // "Otro ..." contiene el texto pero no empieza por él
+            assertThat(results).extracting(User::getName)
+                    .containsExactlyInAnyOrder(prefix + " Ana", prefix.toUpperCase() + " Luis");
+        }
+
+        @Test
+        @DisplayName("El rango con collation debe usar el índice name_ci (IXSCAN, sin COLLSCAN)")
+        void searchUsers_NamePrefix_ExplainUsesCollationIndex() {
+            Document find = new Document("find", "users")
+                    .append("filter", new Document("name", new Document("$gte", "ju")
+                            .append("$lt", NameCollation.upperBound("ju"))))
+                    .append("collation", new Document("locale", NameCollation.LOCALE).append("strength", 2));
+            Document explain = mongoTemplate.getDb().runCommand(
+                    new Document("explain", find).append("verbosity", "queryPlanner"));
+
+            assertThat(ExplainPlans.winningPlanStages(explain)).contains("IXSCAN").doesNotContain("COLLSCAN");
+            assertThat(explain.toJson()).contains(NameCollation.INDEX_NAME);
+        }
+
         @Test
         @DisplayName("Debe buscar usuarios por departamento")
         void searchUsers_ByDepartment_ReturnsMatchingUsers() {
@@ -325,6 +537,60 @@ class NativeMongoUserServiceTest {
                         stat.getTotalUsers() - stat.getActiveUsers());
             }
         }
+
+        @Test
+        @DisplayName("Debe mantener las estadísticas materializadas al crear, actualizar y borrar")
+        void getStatsByDepartment_IncrementalWrites_MatchAggregation() {
+            String dept = "Stats-" + UUID.randomUUID().toString().substring(0, 8);
+            String otherDept = dept + "-B";
+            User first = service.createUser(new UserCreateDto("Stats One", uniqueEmail(), dept, "Dev"));
+            User second = service.createUser(new UserCreateDto("Stats Two", uniqueEmail(), dept, "Dev"));
+            User third = service.createUser(new UserCreateDto("Stats Three", uniqueEmail(), dept, "Dev"));
+
+            UserUpdateDto deactivate = new UserUpdateDto();
+            deactivate.setActive(false);
+            User deactivated = service.updateUser(first.getId(), deactivate);
+            UserUpdateDto move = new UserUpdateDto();
+            move.setDepartment(otherDept);
+            User moved = service.updateUser(second.getId(), move);
+            service.deleteUser(third.getId());
+
+            assertThat(deactivated.getActive()).isFalse();
+            assertThat(moved.getDepartment()).isEqualTo(otherDept);
+            assertThat(service.findUserById(second.getId()).getDepartment()).isEqualTo(otherDept);
+
+            List<DepartmentStatsDto> stats = service.getStatsByDepartment();
+            assertThat(stats).filteredOn(stat -> stat.getDepartment().equals(dept))
+                    .singleElement()
+                    .satisfies(stat -> {
+                        assertThat(stat.getTotalUsers()).isEqualTo(1);
+                        assertThat(stat.getActiveUsers()).isZero();
+                    });
+            assertThat(stats).filteredOn(stat -> stat.getDepartment().equals(otherDept))
+                    .singleElement()
+                    .satisfies(stat -> assertThat(stat.getActiveUsers()).isEqualTo(1));
+            assertThat(stats).extracting(DepartmentStatsDto::getTotalUsers)
+                    .isSortedAccordingTo((a, b) -> Long.compare(b, a));
+        }
+
+        @Test
+        @DisplayName("La reconciliación debe corregir contadores desviados")
+        void reconcileDepartmentStats_Drift_IsCorrected() {
+            String dept = "Drift-" + UUID.randomUUID().toString().substring(0, 8);
+            service.createUser(new UserCreateDto("Drift User", uniqueEmail(), dept, "Dev"));
+            // Simular desviación escribiendo directamente en department_stats
+            mongoTemplate.getCollection("department_stats").updateOne(
+                    new Document("_id", dept),
+                    new Document("$inc", new Document("totalUsers", 5)));
+
+            int corrected = service.reconcileDepartmentStats();
+
+            assertThat(corrected).isGreaterThanOrEqualTo(1);
+            assertThat(service.getStatsByDepartment())
+                    .filteredOn(stat -> stat.getDepartment().equals(dept))
+                    .singleElement()
+                    .satisfies(stat -> assertThat(stat.getTotalUsers()).isEqualTo(1));
+        }
     }
 
     @Nested
@@ -351,6 +617,40 @@ class NativeMongoUserServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("Stream All Users")
+    class StreamAllUsers {
+
+        @Test
+        @DisplayName("Debe entregar al consumidor los mismos usuarios que findAll")
+        void streamAll_MultipleUsers_DeliversEveryUser() {
+            User first = service.createUser(new UserCreateDto("Stream 1", uniqueEmail(), "IT", "Dev"));
+            User second = service.createUser(new UserCreateDto("Stream 2", uniqueEmail(), "HR", "Manager"));
+
+            List<User> streamed = new ArrayList<>();
+            service.streamAll(streamed::add);
+
+            assertThat(streamed).hasSameSizeAs(service.findAll());
+            assertThat(streamed).extracting(User::getId).contains(first.getId(), second.getId());
+        }
+
+        @Test
+        @DisplayName("Con fields debe entregar solo los campos pedidos")
+        void streamAll_WithFields_AppliesProjection() {
+            service.createUser(new UserCreateDto("Stream Fields", uniqueEmail(), "IT", "Dev"));
+
+            List<User> streamed = new ArrayList<>();
+            service.streamAll(List.of("name"), streamed::add);
+
+            assertThat(streamed).isNotEmpty().allSatisfy(user -> {
+                assertThat(user.getName()).isNotNull();
+                assertThat(user.getId()).isNull();
+                assertThat(user.getEmail()).isNull();
+                assertThat(user.getUpdatedAt()).isNull();
+            });
+        }
+    }
+
     @Nested
     @DisplayName("Find Users By Department")
     class FindUsersByDepartment {
@@ -379,6 +679,59 @@ class NativeMongoUserServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("Search Users Page (keyset)")
+    class SearchUsersPage {
+
+        @Test
+        @DisplayName("Debe recorrer todas las páginas con el token sin repetir ni perder usuarios")
+        void searchUsersPage_FollowingTokens_VisitsEveryUserInOrder() {
+            String department = "Keyset-" + UUID.randomUUID().toString().substring(0, 8);
+            for (int i = 0; i < 5; i++) {
+                service.createUser(new UserCreateDto("Keyset " + (char) ('A' + i % 3), uniqueEmail(), department, "Dev"));
+            }
+
+            UserQueryDto query = new UserQueryDto();
+            query.setDepartment(department);
+            query.setSize(2);
+
+            List<User> visited = new ArrayList<>();
+            UserPageDto page;
+            do {
+                page = service.searchUsersPage(query);
+                visited.addAll(page.getContent());
+                query.setContinuationToken(page.getNextToken());
+            } while (page.isHasMore());
+
+            assertThat(visited).hasSize(5);
+            assertThat(visited).extracting(User::getId).doesNotHaveDuplicates();
+            assertThat(visited).extracting(User::getName).isSorted();
+        }
+
+        @Test
+        @DisplayName("Debe lanzar InvalidQueryException con token corrupto")
+        void searchUsersPage_CorruptToken_ThrowsException() {
+            UserQueryDto query = new UserQueryDto();
+            query.setContinuationToken("no-es-un-token");
+
+            assertThatThrownBy(() -> service.searchUsersPage(query))
+                    .isInstanceOf(InvalidQueryException.class);
+        }
+
+        @Test
+        @DisplayName("Debe rechazar size menor que 1 o mayor que MAX_PAGE_SIZE")
+        void searchUsersPage_InvalidSize_ThrowsInvalidQuery() {
+            for (int size : new int[] {0, -5, ContinuationToken.MAX_PAGE_SIZE + 1}) {
+                UserQueryDto query = new UserQueryDto();
+                query.setSize(size);
+
+                assertThatThrownBy(() -> service.searchUsersPage(query))
+                        .isInstanceOf(InvalidQueryException.class)
+                        .hasMessageContaining("size");
+            }
+        }
+    }
+
     @Nested
     @DisplayName("Count By Department")
     class CountByDepartment {
@@ -401,5 +754,139 @@ class NativeMongoUserServiceTest {
 
             assertThat(count).isEqualTo(0);
         }
+
+        @Test
+        @DisplayName("El contador rápido debe coincidir con countDocuments")
+        void countByDepartment_FastCount_MatchesCountDocuments() {
+            String dept = "Count-" + UUID.randomUUID().toString().substring(0, 8);
+            service.createUser(new UserCreateDto("Count User 1", uniqueEmail(), dept, "Dev"));
+            service.createUser(new UserCreateDto("Count User 2", uniqueEmail(), dept, "Dev"));
+
+            long exact = mongoTemplate.getCollection("users").countDocuments(new Document("department", dept));
+
+            assertThat(service.countByDepartment(dept)).isEqualTo(exact).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("countDocuments por departamento debe ser una consulta cubierta (sin FETCH ni COLLSCAN)")
+        void countByDepartment_ExplainPlan_IsCoveredByIndex() {
+            // Mismo pipeline que envía countDocuments(Filters.eq("department", ...))
+            Document aggregate = new Document("aggregate", "users")
+                    .append("pipeline", List.of(
+                            new Document("$match", new Document("department", "IT")),
+                            new Document("$group", new Document("_id", 1)
+                                    .append("n", new Document("$sum", 1)))))
+                    .append("cursor", new Document());
+            Document explain = mongoTemplate.getDb().runCommand(
+                    new Document("explain", aggregate).append("verbosity", "queryPlanner"));
+
+            List<String> stages = ExplainPlans.winningPlanStages(explain);
+
+            assertThat(stages).containsAnyOf("IXSCAN", "COUNT_SCAN");
+            assertThat(stages).doesNotContain("FETCH", "COLLSCAN");
+        }
+    }
+
+    @Nested
+    @DisplayName("Field Projection")
+    class FieldProjectionTests {
+
+        @Test
+        @DisplayName("Debe devolver solo los campos pedidos en fields")
+        void findUsersByDepartment_WithFields_ReturnsOnlyThoseFields() {
+            String dept = "Proj-" + UUID.randomUUID().toString().substring(0, 8);
+            service.createUser(new UserCreateDto("Projected User", uniqueEmail(), dept, "Dev"));
+
+            List<User> users = service.findUsersByDepartment(dept, List.of("id", "name", "email"));
+
+            assertThat(users).hasSize(1);
+            User user = users.get(0);
+            assertThat(user.getId()).isNotNull();
+            assertThat(user.getName()).isEqualTo("Projected User");
+            assertThat(user.getEmail()).isNotNull();
+            assertThat(user.getDepartment()).isNull();
+            assertThat(user.getRole()).isNull();
+            assertThat(user.getActive()).isNull();
+            assertThat(user.getCreatedAt()).isNull();
+        }
+
+        @Test
+        @DisplayName("searchUsers debe aplicar query.fields")
+        void searchUsers_WithFields_ReturnsOnlyThoseFields() {
+            String dept = "Proj-" + UUID.randomUUID().toString().substring(0, 8);
+            service.createUser(new UserCreateDto("Search Projected", uniqueEmail(), dept, "Dev"));
+            UserQueryDto query = new UserQueryDto();
+            query.setDepartment(dept);
+            query.setFields(List.of("name"));
+
+            List<User> users = service.searchUsers(query);
+
+            assertThat(users).singleElement().satisfies(user -> {
+                assertThat(user.getName()).isEqualTo("Search Projected");
+                assertThat(user.getId()).isNull();
+                assertThat(user.getEmail()).isNull();
+            });
+        }
+
+        @Test
+        @DisplayName("Debe rechazar campos que no existen en User")
+        void findAll_UnknownField_ThrowsException() {
+            assertThatThrownBy(() -> service.findAll(List.of("name", "password")))
+                    .isInstanceOf(InvalidQueryException.class)
+                    .hasMessageContaining("password");
+        }
+
+        @Test
+        @DisplayName("Proyectar solo campos del índice debe dar una consulta cubierta (sin FETCH)")
+        void findByDepartment_ProjectionOnIndexedField_IsCoveredQuery() {
+            // Mismo find que findUsersByDepartment("IT", ["department"])
+            Document find = new Document("find", "users")
+                    .append("filter", new Document("department", "IT"))
+                    .append("projection", new Document("department", 1).append("_id", 0));
+            Document explain = mongoTemplate.getDb().runCommand(
+                    new Document("explain", find).append("verbosity", "queryPlanner"));
+
+            List<String> stages = ExplainPlans.winningPlanStages(explain);
+
+            assertThat(stages).contains("IXSCAN");
+            assertThat(stages).doesNotContain("FETCH", "COLLSCAN");
+        }
+    }
+
+    @Nested
+    @DisplayName("Text Search")
+    class TextSearch {
+
+        @Test
+        @DisplayName("Debe encontrar la palabra en cualquier campo del índice, primero las coincidencias en name")
+        void textSearch_WordInSeveralFields_RankedByScore() {
+            String word = "tx" + UUID.randomUUID().toString().substring(0, 8);
+            service.createUser(new UserCreateDto("Text Role Match", uniqueEmail(), "IT", word));
+            service.createUser(new UserCreateDto("Text " + word, uniqueEmail(), "IT", "Dev"));
+            service.createUser(new UserCreateDto("Text No Match", uniqueEmail(), "IT", "Dev"));
+
+            List<User> results = service.textSearch(word, 0, 10);
+
+            assertThat(results).extracting(User::getName)
+                    .containsExactly("Text " + word, "Text Role Match");
+        }
+
+        @Test
+        @DisplayName("Debe paginar los resultados")
+        void textSearch_Pagination_ReturnsRequestedPage() {
+            String word = "tx" + UUID.randomUUID().toString().substring(0, 8);
+            for (int i = 0; i < 3; i++) {
+                service.createUser(new UserCreateDto("Text Page " + i, uniqueEmail(), "IT", word));
+            }
+
+            assertThat(service.textSearch(word, 0, 2)).hasSize(2);
+            assertThat(service.textSearch(word, 1, 2)).hasSize(1);
+        }
+
+        @Test
+        @DisplayName("Debe rechazar un texto vacío")
+        void textSearch_BlankText_ThrowsException() {
+            assertThatThrownBy(() -> service.textSearch("  ", 0, 10)).isInstanceOf(InvalidQueryException.class);
+        }
     }
 }
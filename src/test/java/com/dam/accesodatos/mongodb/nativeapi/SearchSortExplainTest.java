@@ -0,0 +1,173 @@
+package com.dam.accesodatos.mongodb.nativeapi;
+
+import com.dam.accesodatos.exception.InvalidQueryException;
+import com.dam.accesodatos.model.UserQueryDto;
+import com.dam.accesodatos.mongodb.index.ExplainPlans;
+import com.dam.accesodatos.mongodb.index.SortRegistry;
+import com.mongodb.ExplainVerbosity;
+import org.bson.Document;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.AopTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Recorre todas las combinaciones de filtros y ordenaciones admitidas en searchUsers y
+ * comprueba con explain() que ninguna necesita un SORT en memoria ni un COLLSCAN.
+ * Los índices de búsqueda se construyen al arrancar (sin segundo plano) para que
+ * SortRegistry pueda usarlos desde la primera consulta.
+ */
+@SpringBootTest(properties = "app.indexes.background-build=false")
+@DisplayName("Ordenación de searchUsers respaldada por índices")
+class SearchSortExplainTest {
+
+    @Autowired
+    private NativeMongoUserService nativeService;
+
+    @Autowired
+    private SortRegistry sortRegistry;
+
+    private static UserQueryDto query(String department, Boolean active, String name, String nameMatch,
+            String sortBy, String sortDirection) {
+        UserQueryDto query = new UserQueryDto();
+        query.setDepartment(department);
+        query.setActive(active);
+        query.setName(name);
+        query.setNameMatch(nameMatch);
+        query.setSortBy(sortBy);
+        query.setSortDirection(sortDirection);
+        return query;
+    }
+
+    /**
+     * Todas las formas admitidas: department × active × filtro de nombre × sortBy × dirección.
+     */
+    private static List<UserQueryDto> allowedShapes() {
+        List<UserQueryDto> shapes = new ArrayList<>();
+        for (String department : Arrays.asList(null, "IT")) {
+            for (Boolean active : Arrays.asList(null, true, false)) {
+                for (String nameMatch : Arrays.asList(null, "contains", "prefix")) {
+                    for (String sortBy : SortRegistry.SORT_KEYS) {
+                        for (String direction : List.of("ASC", "DESC")) {
+                            if ("prefix".equals(nameMatch) && !SortRegistry.SORT_NAME.equals(sortBy)) {
+                                continue; // rechazado por SortRegistry
+                            }
+                            shapes.add(query(department, active, nameMatch == null ? null : "jua", nameMatch,
+                                    sortBy, direction));
+                        }
+                    }
+                }
+            }
+        }
+        return shapes;
+    }
+
+    @Test
+    @DisplayName("Ninguna forma admitida debe tener SORT bloqueante ni COLLSCAN en el plan")
+    void explain_AllowedShapes_NoBlockingSortNorCollscan() {
+        NativeMongoUserServiceImpl service = AopTestUtils.getTargetObject(nativeService);
+        List<String> failures = new ArrayList<>();
+
+        for (UserQueryDto query : allowedShapes()) {
+            Document explain = service.searchFind(query).explain(ExplainVerbosity.QUERY_PLANNER);
+            List<String> stages = ExplainPlans.winningPlanStages(explain);
+            if (stages.contains("SORT") || stages.contains("COLLSCAN") || !stages.contains("IXSCAN")) {
+                failures.add(describe(query) + " → " + stages);
+            }
+        }
+
+        assertThat(failures).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Ninguna página keyset debe tener SORT bloqueante ni COLLSCAN, tampoco tras un token")
+    void explain_KeysetPages_NoBlockingSortNorCollscan() {
+        NativeMongoUserServiceImpl service = AopTestUtils.getTargetObject(nativeService);
+        List<String> failures = new ArrayList<>();
+
+        for (UserQueryDto query : allowedShapes()) {
+            query.setSize(1);
+            SortRegistry.SortPlan sort = sortRegistry.resolvePage(query);
+            String nextToken = service.searchUsersPage(query).getNextToken();
+            for (String token : Arrays.asList(null, nextToken)) {
+                query.setContinuationToken(token);
+                Document explain = service.searchPageFind(query, sort, 1).explain(ExplainVerbosity.QUERY_PLANNER);
+                List<String> stages = ExplainPlans.winningPlanStages(explain);
+                if (stages.contains("SORT") || stages.contains("COLLSCAN") || !stages.contains("IXSCAN")) {
+                    failures.add(describe(query) + (token == null ? "" : " (con token)") + " → " + stages);
+                }
+            }
+        }
+
+        assertThat(failures).isEmpty();
+    }
+
+    private static String describe(UserQueryDto query) {
+        return "department=" + query.getDepartment() + " active=" + query.getActive()
+                + " nameMatch=" + (query.getName() == null ? "-" : query.getNameMatch())
+                + " sort=" + query.getSortBy() + " " + query.getSortDirection();
+    }
+
+    @Nested
+    @DisplayName("SortRegistry")
+    class RegistryTests {
+
+        @Test
+        @DisplayName("Debe elegir el índice según los filtros de la búsqueda")
+        void resolve_Name_PicksIndexByFilters() {
+            assertThat(sortRegistry.resolve(query(null, null, null, null, "name", "ASC")).hint())
+                    .isEqualTo("name_1");
+            assertThat(sortRegistry.resolve(query("IT", null, null, null, "name", "ASC")).hint())
+                    .isEqualTo("department_1_name_1");
+            assertThat(sortRegistry.resolve(query("IT", true, null, null, "name", "DESC")).hint())
+                    .isEqualTo("department_1_active_1_name_1");
+            assertThat(sortRegistry.resolve(query("IT", true, "jua", "prefix", "name", "ASC")).hint())
+                    .isEqualTo("name_ci");
+        }
+
+        @Test
+        @DisplayName("Debe elegir para keyset un índice con _id como desempate")
+        void resolvePage_PicksIndexWithIdTiebreaker() {
+            assertThat(sortRegistry.resolvePage(query("IT", true, null, null, "name", "ASC")).hint())
+                    .isEqualTo("name_1__id_1");
+            assertThat(sortRegistry.resolvePage(query(null, null, "jua", "prefix", "name", "DESC")).hint())
+                    .isEqualTo("name_ci__id");
+            assertThat(sortRegistry.resolvePage(query(null, true, null, null, "createdAt", "DESC")).hint())
+                    .isEqualTo("createdAt_1__id_1");
+            assertThat(sortRegistry.resolvePage(query(null, null, null, null, "createdAt", "DESC")).hint())
+                    .isEqualTo("_id_");
+        }
+
+        @Test
+        @DisplayName("Debe reescribir createdAt a _id si no hay índice parcial aplicable")
+        void resolve_CreatedAt_RewritesWithoutActiveTrue() {
+            SortRegistry.SortPlan active = sortRegistry.resolve(query(null, true, null, null, "createdAt", "DESC"));
+            SortRegistry.SortPlan all = sortRegistry.resolve(query(null, null, null, null, "createdAt", "DESC"));
+
+            assertThat(active.field()).isEqualTo("createdAt");
+            assertThat(active.hint()).isEqualTo("active_createdAt");
+            assertThat(all.field()).isEqualTo("_id");
+            assertThat(all.rewrittenFrom()).isEqualTo("createdAt");
+            assertThat(all.descending()).isTrue();
+        }
+
+        @Test
+        @DisplayName("Debe rechazar claves no admitidas y órdenes incompatibles con la búsqueda por prefijo")
+        void resolve_NotAllowed_ThrowsInvalidQuery() {
+            assertThatThrownBy(() -> nativeService.searchUsers(query(null, null, null, null, "email", "ASC")))
+                    .isInstanceOf(InvalidQueryException.class)
+                    .hasMessageContaining("sortBy");
+            assertThatThrownBy(() -> sortRegistry.resolve(query(null, null, "jua", "prefix", "createdAt", "ASC")))
+                    .isInstanceOf(InvalidQueryException.class);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.dam.accesodatos.mongodb.nativeapi;
+
+import com.dam.accesodatos.model.User;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonNull;
+import org.bson.BsonObjectId;
+import org.bson.BsonString;
+import org.bson.codecs.DecoderContext;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("UserCodec Tests")
+class UserCodecTest {
+
+    private final UserCodec codec = new UserCodec();
+
+    private User decode(BsonDocument document) {
+        return codec.decode(new BsonDocumentReader(document), DecoderContext.builder().build());
+    }
+
+    @Test
+    @DisplayName("Debe conservar todos los campos en un ciclo encode/decode")
+    void encodeDecode_AllFields_RoundTrips() {
+        String id = new ObjectId().toHexString();
+        LocalDateTime created = LocalDateTime.of(2024, 1, 15, 9, 30);
+        LocalDateTime updated = LocalDateTime.of(2024, 2, 1, 10, 0);
+        User original = new User(id, "Juan Pérez", "juan@empresa.com", "IT", "Developer", false, created, updated);
+
+        User decoded = decode(codec.toBsonDocument(original));
+
+        assertThat(decoded.getId()).isEqualTo(id);
+        assertThat(decoded.getName()).isEqualTo("Juan Pérez");
+        assertThat(decoded.getEmail()).isEqualTo("juan@empresa.com");
+        assertThat(decoded.getDepartment()).isEqualTo("IT");
+        assertThat(decoded.getRole()).isEqualTo("Developer");
+        assertThat(decoded.getActive()).isFalse();
+        assertThat(decoded.getCreatedAt()).isEqualTo(created);
+        assertThat(decoded.getUpdatedAt()).isEqualTo(updated);
+    }
+
+    @Test
+    @DisplayName("Debe ignorar campos desconocidos y dejar a null los ausentes")
+    void decode_UnknownAndMissingFields_IgnoredAndNull() {
+        BsonDocument document = new BsonDocument()
+                .append("_id", new BsonObjectId(new ObjectId()))
+                .append("_class", new BsonString("com.dam.accesodatos.model.User"))
+                .append("name", new BsonString("Ana"))
+                .append("role", BsonNull.VALUE);
+
+        User decoded = decode(document);
+
+        assertThat(decoded.getName()).isEqualTo("Ana");
+        assertThat(decoded.getRole()).isNull();
+        assertThat(decoded.getEmail()).isNull();
+        assertThat(decoded.getCreatedAt()).isNull();
+    }
+}
@@ -0,0 +1,118 @@
+package com.dam.accesodatos.mongodb.reactive;
+
+import com.dam.accesodatos.exception.DuplicateEmailException;
+import com.dam.accesodatos.exception.InvalidUserIdException;
+import com.dam.accesodatos.exception.UserNotFoundException;
+import com.dam.accesodatos.model.User;
+import com.dam.accesodatos.model.UserCreateDto;
+import com.dam.accesodatos.model.UserQueryDto;
+import com.dam.accesodatos.model.UserUpdateDto;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import reactor.test.StepVerifier;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@DisplayName("ReactiveUserService Tests")
+class ReactiveUserServiceTest {
+
+    @Autowired
+    private ReactiveUserService service;
+
+    private String uniqueEmail() {
+        return "reactive-" + UUID.randomUUID().toString().substring(0, 8) + "@test.com";
+    }
+
+    private User createUser(String department) {
+        return service.createUser(new UserCreateDto("Reactive Test", uniqueEmail(), department, "Developer")).block();
+    }
+
+    @Test
+    @DisplayName("Debe conectar exitosamente con el driver reactivo")
+    void testConnection_Success() {
+        StepVerifier.create(service.testConnection())
+                .assertNext(message -> assertThat(message).contains("Conexión reactiva exitosa"))
+                .verifyComplete();
+    }
+
+    @Nested
+    @DisplayName("CRUD")
+    class Crud {
+
+        @Test
+        @DisplayName("Debe crear, leer, actualizar y eliminar un usuario")
+        void crud_RoundTrip() {
+            User created = createUser("IT");
+            assertThat(created.getId()).isNotNull();
+
+            StepVerifier.create(service.findUserById(created.getId()))
+                    .assertNext(found -> assertThat(found.getEmail()).isEqualTo(created.getEmail()))
+                    .verifyComplete();
+
+            UserUpdateDto dto = new UserUpdateDto();
+            dto.setRole("Manager");
+            StepVerifier.create(service.updateUser(created.getId(), dto))
+                    .assertNext(updated -> {
+                        assertThat(updated.getRole()).isEqualTo("Manager");
+                        assertThat(updated.getName()).isEqualTo("Reactive Test");
+                    })
+                    .verifyComplete();
+
+            StepVerifier.create(service.deleteUser(created.getId())).expectNext(true).verifyComplete();
+            StepVerifier.create(service.deleteUser(created.getId())).expectNext(false).verifyComplete();
+        }
+
+        @Test
+        @DisplayName("Debe emitir UserNotFoundException / InvalidUserIdException como error del Mono")
+        void findUserById_Errors() {
+            StepVerifier.create(service.findUserById(new ObjectId().toHexString()))
+                    .expectError(UserNotFoundException.class)
+                    .verify();
+            StepVerifier.create(service.findUserById("no-es-un-id"))
+                    .expectError(InvalidUserIdException.class)
+                    .verify();
+        }
+
+        @Test
+        @DisplayName("Debe emitir DuplicateEmailException con email duplicado")
+        void createUser_DuplicateEmail() {
+            User created = createUser("IT");
+            StepVerifier.create(service.createUser(
+                            new UserCreateDto("Otro", created.getEmail(), "HR", "Analyst")))
+                    .expectError(DuplicateEmailException.class)
+                    .verify();
+        }
+    }
+
+    @Nested
+    @DisplayName("Flux con backpressure")
+    class Streaming {
+
+        @Test
+        @DisplayName("Debe emitir solo lo que pide el suscriptor")
+        void findUsersByDepartment_RespectsDemand() {
+            String department = "Reactive-" + UUID.randomUUID().toString().substring(0, 6);
+            for (int i = 0; i < 3; i++) {
+                createUser(department);
+            }
+
+            StepVerifier.create(service.findUsersByDepartment(department), 1)
+                    .expectNextCount(1)
+                    .thenRequest(2)
+                    .expectNextCount(2)
+                    .verifyComplete();
+
+            UserQueryDto query = new UserQueryDto();
+            query.setDepartment(department);
+            StepVerifier.create(service.searchUsers(query).count()).expectNext(3L).verifyComplete();
+            StepVerifier.create(service.countByDepartment(department)).expectNext(3L).verifyComplete();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.dam.accesodatos.mongodb.singleflight;
+
+import com.dam.accesodatos.exception.UserNotFoundException;
+import com.dam.accesodatos.model.SingleFlightStatsDto;
+import com.dam.accesodatos.model.User;
+import com.dam.accesodatos.model.UserQueryDto;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("SingleFlight Tests")
+class SingleFlightTest {
+
+    private static final String ID = "665f1c2e8b3a4d0012345678";
+
+    private final AtomicInteger calls = new AtomicInteger();
+    /** Mantiene la consulta del líder en curso hasta que todas las llamadas se han unido. */
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private final Supplier<User> slowLoad = () -> {
+        calls.incrementAndGet();
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return new User(ID, "Shared", "shared@test.com", "IT", "Dev", true, LocalDateTime.now(), LocalDateTime.now());
+    };
+
+    private static UserQueryDto query(String name, String sortDirection, List<String> fields) {
+        UserQueryDto query = new UserQueryDto();
+        query.setName(name);
+        query.setSortDirection(sortDirection);
+        query.setFields(fields);
+        return query;
+    }
+
+    @Test
+    @DisplayName("Las llamadas idénticas simultáneas deben compartir una sola consulta")
+    void execute_ConcurrentIdenticalCalls_ExecutesOnce() throws Exception {
+        SingleFlight singleFlight = new SingleFlight(true, null);
+
+        List<Future<User>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 20; i++) {
+                futures.add(executor.submit(() ->
+                        singleFlight.execute("native.findUserById", slowLoad, User::copy, ID)));
+            }
+            // Esperar a que las 19 restantes se hayan unido antes de soltar al líder
+            while (singleFlight.stats().isEmpty() || singleFlight.stats().get(0).getShared() < 19) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+
+            List<User> users = new ArrayList<>();
+            for (Future<User> future : futures) {
+                users.add(future.get());
+            }
+            assertThat(users).extracting(User::getId).containsOnly(ID);
+            // Cada llamada recibe su propia instancia (User.equals compara por contenido)
+            Set<User> instances = Collections.newSetFromMap(new IdentityHashMap<>());
+            instances.addAll(users);
+            assertThat(instances).hasSize(20);
+        }
+
+        assertThat(calls).hasValue(1);
+        SingleFlightStatsDto stats = singleFlight.stats().get(0);
+        assertThat(stats.getExecuted()).isEqualTo(1);
+        assertThat(stats.getShared()).isEqualTo(19);
+    }
+
+    @Test
+    @DisplayName("Tras terminar la consulta, la siguiente llamada debe volver a ejecutarse")
+    void execute_SequentialCalls_NotShared() {
+        SingleFlight singleFlight = new SingleFlight(true, null);
+        release.countDown();
+
+        singleFlight.execute("native.findUserById", slowLoad, User::copy, ID);
+        singleFlight.execute("native.findUserById", slowLoad, User::copy, ID);
+
+        assertThat(calls).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Un error no debe quedarse guardado: la siguiente llamada vuelve a ejecutarse")
+    void execute_LeaderFails_ErrorPropagatedAndForgotten() {
+        SingleFlight singleFlight = new SingleFlight(true, null);
+
+        assertThatThrownBy(() -> singleFlight.execute("native.findUserById",
+                () -> { throw new UserNotFoundException(ID); }, User::copy, ID))
+                .isInstanceOf(UserNotFoundException.class);
+
+        release.countDown();
+        assertThat(singleFlight.execute("native.findUserById", slowLoad, User::copy, ID)).isNotNull();
+    }
+
+    @Nested
+    @DisplayName("SingleFlightKey")
+    class KeyTests {
+
+        @Test
+        @DisplayName("Consultas equivalentes deben tener la misma clave")
+        void of_EquivalentQueries_SameKey() {
+            SingleFlightKey a = SingleFlightKey.of("native.searchUsers",
+                    query("ana", "desc", List.of("name", "email")));
+            SingleFlightKey b = SingleFlightKey.of("native.searchUsers",
+                    query("ana", "DESC", List.of("email", " name", "name")));
+
+            assertThat(a).isEqualTo(b);
+            assertThat(SingleFlightKey.of("native.findUserById", ID.toUpperCase()))
+                    .isEqualTo(SingleFlightKey.of("native.findUserById", ID));
+        }
+
+        @Test
+        @DisplayName("Métodos o filtros distintos deben tener claves distintas")
+        void of_DifferentCalls_DifferentKeys() {
+            UserQueryDto query = query("ana", "ASC", null);
+
+            assertThat(SingleFlightKey.of("native.searchUsers", query))
+                    .isNotEqualTo(SingleFlightKey.of("springdata.searchUsers", query));
+            assertThat(SingleFlightKey.of("native.searchUsers", query))
+                    .isNotEqualTo(SingleFlightKey.of("native.searchUsers", query("ana", "DESC", null)));
+        }
+    }
+}
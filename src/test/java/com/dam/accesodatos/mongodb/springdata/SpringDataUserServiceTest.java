@@ -1,11 +1,21 @@
 package com.dam.accesodatos.mongodb.springdata;
 
 import com.dam.accesodatos.exception.DuplicateEmailException;
+import com.dam.accesodatos.exception.InvalidQueryException;
 import com.dam.accesodatos.exception.UserNotFoundException;
+import com.dam.accesodatos.model.BatchGetItemDto;
+import com.dam.accesodatos.model.BatchGetResultDto;
+import com.dam.accesodatos.model.BulkCreateResultDto;
+import com.dam.accesodatos.model.BulkItemResultDto;
 import com.dam.accesodatos.model.User;
 import com.dam.accesodatos.model.UserCreateDto;
+import com.dam.accesodatos.model.UserPageDto;
 import com.dam.accesodatos.model.UserQueryDto;
 import com.dam.accesodatos.model.UserUpdateDto;
+import com.dam.accesodatos.mongodb.batch.UserBatchGet;
+import com.dam.accesodatos.mongodb.etag.ResourceVersion;
+import com.dam.accesodatos.mongodb.pagination.ContinuationToken;
+import com.dam.accesodatos.mongodb.stats.DepartmentStatsStore;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -17,6 +27,7 @@ import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.index.Index;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
@@ -34,6 +45,9 @@ class SpringDataUserServiceTest {
     @Autowired
     private MongoTemplate mongoTemplate;
 
+    @Autowired
+    private DepartmentStatsStore departmentStats;
+
     @BeforeEach
     void setUp() {
         mongoTemplate.indexOps(User.class).ensureIndex(new Index().on("email", Sort.Direction.ASC).unique());
@@ -90,6 +104,66 @@ class SpringDataUserServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("Create Users (bulk)")
+    class CreateUsersBulk {
+
+        @Test
+        @DisplayName("Debe insertar las filas válidas e informar los fallos por fila")
+        void createUsers_MixedRows_ReportsPerRowResults() {
+            String existing = uniqueEmail();
+            service.createUser(new UserCreateDto("Spring Bulk Existing", existing, "IT", "Dev"));
+
+            List<UserCreateDto> dtos = List.of(
+                    new UserCreateDto("Spring Bulk 1", uniqueEmail(), "IT", "Dev"),
+                    new UserCreateDto("Spring Bulk 2", existing, "HR", "Manager"),
+                    new UserCreateDto("Spring Bulk 3", "no-es-un-email", "IT", "Dev"),
+                    new UserCreateDto("Spring Bulk 4", uniqueEmail(), "Finance", "Analyst"));
+
+            BulkCreateResultDto result = service.createUsers(dtos);
+
+            assertThat(result.getRequested()).isEqualTo(4);
+            assertThat(result.getInserted()).isEqualTo(2);
+            assertThat(result.getFailed()).isEqualTo(2);
+            assertThat(result.getItems()).extracting(BulkItemResultDto::getStatus).containsExactly(
+                    BulkItemResultDto.Status.CREATED,
+                    BulkItemResultDto.Status.DUPLICATE_EMAIL,
+                    BulkItemResultDto.Status.INVALID,
+                    BulkItemResultDto.Status.CREATED);
+
+            String createdId = result.getItems().get(3).getId();
+            assertThat(service.findUserById(createdId).getDepartment()).isEqualTo("Finance");
+        }
+    }
+
+    @Nested
+    @DisplayName("Department Stats")
+    class DepartmentStats {
+
+        @Test
+        @DisplayName("Las escrituras con Spring Data deben mantener department_stats")
+        void writes_UpdateMaterializedStats() {
+            String dept = "Spring-Stats-" + UUID.randomUUID().toString().substring(0, 8);
+            User kept = service.createUser(new UserCreateDto("Spring Stats 1", uniqueEmail(), dept, "Dev"));
+            User removed = service.createUser(new UserCreateDto("Spring Stats 2", uniqueEmail(), dept, "Dev"));
+
+            UserUpdateDto deactivate = new UserUpdateDto();
+            deactivate.setActive(false);
+            User updated = service.updateUser(kept.getId(), deactivate);
+            service.deleteUser(removed.getId());
+
+            assertThat(updated.getActive()).isFalse();
+            assertThat(updated.getName()).isEqualTo("Spring Stats 1");
+            assertThat(departmentStats.findAll())
+                    .filteredOn(stat -> stat.getDepartment().equals(dept))
+                    .singleElement()
+                    .satisfies(stat -> {
+                        assertThat(stat.getTotalUsers()).isEqualTo(1);
+                        assertThat(stat.getActiveUsers()).isZero();
+                    });
+        }
+    }
+
     @Nested
     @DisplayName("Find User By ID")
     class FindUserById {
@@ -119,6 +193,73 @@ class SpringDataUserServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("Versiones para GET condicionales")
+    class ResourceVersions {
+
+        @Test
+        @DisplayName("Las versiones deben salir de updatedAt y del número de usuarios")
+        void findVersions_ExistingUsers_MatchFullRead() {
+            String department = "Version-" + UUID.randomUUID();
+            User created = service.createUser(new UserCreateDto("Spring Version", uniqueEmail(), department, "Dev"));
+
+            assertThat(service.findUserVersion(created.getId()).etag())
+                    .isEqualTo(ResourceVersion.of(service.findUserById(created.getId())).etag());
+
+            ResourceVersion department1 = service.findDepartmentVersion(department);
+            service.createUser(new UserCreateDto("Spring Version 2", uniqueEmail(), department, "Dev"));
+            ResourceVersion department2 = service.findDepartmentVersion(department);
+
+            assertThat(department1.count()).isEqualTo(1);
+            assertThat(department2.count()).isEqualTo(2);
+            assertThat(department2.etag()).isNotEqualTo(department1.etag());
+            assertThatThrownBy(() -> service.findUserVersion("507f1f77bcf86cd799439011"))
+                    .isInstanceOf(UserNotFoundException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("Find Users By Ids")
+    class FindUsersByIds {
+
+        @Test
+        @DisplayName("Debe devolver un resultado por ID en el orden de entrada")
+        void findUsersByIds_MixedIds_PreservesOrderAndMarksMissing() {
+            User first = service.createUser(new UserCreateDto("SD Batch 1", uniqueEmail(), "IT", "Dev"));
+            User second = service.createUser(new UserCreateDto("SD Batch 2", uniqueEmail(), "IT", "Dev"));
+            String missing = "507f1f77bcf86cd799439011";
+
+            BatchGetResultDto result = service.findUsersByIds(List.of(
+                    second.getId(), missing, "no-es-un-id", first.getId(), second.getId().toUpperCase()));
+
+            assertThat(result.getRequested()).isEqualTo(5);
+            assertThat(result.getFound()).isEqualTo(3);
+            assertThat(result.getNotFound()).isEqualTo(1);
+            assertThat(result.getInvalid()).isEqualTo(1);
+            assertThat(result.getItems()).extracting(BatchGetItemDto::getStatus).containsExactly(
+                    BatchGetItemDto.Status.FOUND,
+                    BatchGetItemDto.Status.NOT_FOUND,
+                    BatchGetItemDto.Status.INVALID_ID,
+                    BatchGetItemDto.Status.FOUND,
+                    BatchGetItemDto.Status.FOUND);
+            assertThat(result.getItems().get(0).getUser().getEmail()).isEqualTo(second.getEmail());
+            assertThat(result.getItems().get(3).getUser().getId()).isEqualTo(first.getId());
+            assertThat(result.getItems().get(4).getUser().getId()).isEqualTo(second.getId());
+        }
+
+        @Test
+        @DisplayName("Debe rechazar más de MAX_IDS IDs")
+        void findUsersByIds_TooManyIds_ThrowsInvalidQuery() {
+            List<String> ids = new ArrayList<>();
+            for (int i = 0; i <= UserBatchGet.MAX_IDS; i++) {
+                ids.add("507f1f77bcf86cd799439011");
+            }
+
+            assertThatThrownBy(() -> service.findUsersByIds(ids))
+                    .isInstanceOf(InvalidQueryException.class);
+        }
+    }
+
     @Nested
     @DisplayName("Update User")
     class UpdateUser {
@@ -141,6 +282,21 @@ class SpringDataUserServiceTest {
             assertThat(updated.getEmail()).isEqualTo(email); // Unchanged
         }
 
+        @Test
+        @DisplayName("Debe devolver el documento guardado también cuando cambian los contadores de department_stats")
+        void updateUser_DepartmentChange_ReturnsStoredDocument() {
+            User created = service.createUser(new UserCreateDto("Moved Spring", uniqueEmail(), "IT", "Dev"));
+
+            UserUpdateDto dto = new UserUpdateDto();
+            dto.setDepartment("HR");
+            dto.setActive(false);
+
+            User updated = service.updateUser(created.getId(), dto);
+
+            assertThat(updated).usingRecursiveComparison()
+                    .isEqualTo(service.findUserById(created.getId()));
+        }
+
         @Test
         @DisplayName("Debe lanzar UserNotFoundException al actualizar usuario inexistente")
         void updateUser_NonExistingId_ThrowsException() {
@@ -151,6 +307,25 @@ class SpringDataUserServiceTest {
             assertThatThrownBy(() -> service.updateUser(nonExistingId, dto))
                     .isInstanceOf(UserNotFoundException.class);
         }
+
+        @Test
+        @DisplayName("Debe modificar solo los campos enviados y devolver la post-imagen")
+        void updateUser_PartialDto_KeepsUntouchedFields() {
+            String email = uniqueEmail();
+            User created = service.createUser(new UserCreateDto("Partial Spring", email, "IT", "Dev"));
+
+            UserUpdateDto dto = new UserUpdateDto();
+            dto.setActive(false);
+
+            User updated = service.updateUser(created.getId(), dto);
+
+            assertThat(updated.getActive()).isFalse();
+            assertThat(updated.getName()).isEqualTo("Partial Spring");
+            assertThat(updated.getEmail()).isEqualTo(email);
+            assertThat(updated.getRole()).isEqualTo("Dev");
+            assertThat(updated.getUpdatedAt()).isAfterOrEqualTo(updated.getCreatedAt());
+            assertThat(service.findUserById(created.getId()).getActive()).isFalse();
+        }
     }
 
     @Nested
@@ -203,6 +378,40 @@ class SpringDataUserServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("Stream All Users")
+    class StreamAllUsers {
+
+        @Test
+        @DisplayName("Debe entregar al consumidor los mismos usuarios que findAll")
+        void streamAll_MultipleUsers_DeliversEveryUser() {
+            User first = service.createUser(new UserCreateDto("Spring Stream 1", uniqueEmail(), "IT", "Dev"));
+            User second = service.createUser(new UserCreateDto("Spring Stream 2", uniqueEmail(), "HR", "Manager"));
+
+            List<User> streamed = new ArrayList<>();
+            service.streamAll(streamed::add);
+
+            assertThat(streamed).hasSameSizeAs(service.findAll());
+            assertThat(streamed).extracting(User::getId).contains(first.getId(), second.getId());
+        }
+
+        @Test
+        @DisplayName("Con fields debe entregar solo los campos pedidos")
+        void streamAll_WithFields_AppliesProjection() {
+            service.createUser(new UserCreateDto("Stream Fields", uniqueEmail(), "IT", "Dev"));
+
+            List<User> streamed = new ArrayList<>();
+            service.streamAll(List.of("name"), streamed::add);
+
+            assertThat(streamed).isNotEmpty().allSatisfy(user -> {
+                assertThat(user.getName()).isNotNull();
+                assertThat(user.getId()).isNull();
+                assertThat(user.getEmail()).isNull();
+                assertThat(user.getUpdatedAt()).isNull();
+            });
+        }
+    }
+
     @Nested
     @DisplayName("Find Users By Department")
     class FindUsersByDepartment {
@@ -229,6 +438,25 @@ class SpringDataUserServiceTest {
             assertThat(users).isNotNull();
             assertThat(users).isEmpty();
         }
+
+        @Test
+        @DisplayName("Con fields debe devolver solo esos campos (sin los valores por defecto de User)")
+        void findUsersByDepartment_WithFields_ReturnsOnlyThoseFields() {
+            String dept = "Proj-" + UUID.randomUUID().toString().substring(0, 8);
+            service.createUser(new UserCreateDto("Spring Projected", uniqueEmail(), dept, "Dev"));
+
+            List<User> users = service.findUsersByDepartment(dept, List.of("name", "email"));
+
+            assertThat(users).singleElement().satisfies(user -> {
+                assertThat(user.getName()).isEqualTo("Spring Projected");
+                assertThat(user.getEmail()).isNotNull();
+                assertThat(user.getId()).isNull();
+                assertThat(user.getDepartment()).isNull();
+                assertThat(user.getActive()).isNull();
+                assertThat(user.getCreatedAt()).isNull();
+                assertThat(user.getUpdatedAt()).isNull();
+            });
+        }
     }
 
     @Nested
@@ -253,6 +481,33 @@ class SpringDataUserServiceTest {
             assertThat(results).allMatch(user -> user.getName().contains("Alice"));
         }
 
+        @Test
+        @DisplayName("nameMatch=prefix debe buscar por prefijo sin distinguir mayúsculas")
+        void searchUsers_NamePrefix_IsCaseInsensitive() {
+            String prefix = "Spx" + UUID.randomUUID().toString().substring(0, 6);
+            service.createUser(new UserCreateDto(prefix + " Ana", uniqueEmail(), "IT", "Dev"));
+            service.createUser(new UserCreateDto(prefix.toUpperCase() + " Luis", uniqueEmail(), "HR", "Dev"));
+            service.createUser(new UserCreateDto("Otro " + prefix, uniqueEmail(), "IT", "Dev"));
+
+            UserQueryDto query = new UserQueryDto();
+            query.setName(prefix.toLowerCase());
+            query.setNameMatch("prefix");
+            query.setSize(50);
+
+            assertThat(service.searchUsers(query)).extracting(User::getName)
+                    .containsExactlyInAnyOrder(prefix + " Ana", prefix.toUpperCase() + " Luis");
+        }
+
+        @Test
+        @DisplayName("Debe rechazar un nameMatch desconocido")
+        void searchUsers_UnknownNameMatch_ThrowsException() {
+            UserQueryDto query = new UserQueryDto();
+            query.setName("Alice");
+            query.setNameMatch("suffix");
+
+            assertThatThrownBy(() -> service.searchUsers(query)).isInstanceOf(InvalidQueryException.class);
+        }
+
         @Test
         @DisplayName("Debe buscar usuarios por departamento")
         void searchUsers_ByDepartment_ReturnsMatchingUsers() {
@@ -322,6 +577,59 @@ class SpringDataUserServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("Search Users Page (keyset)")
+    class SearchUsersPage {
+
+        @Test
+        @DisplayName("Debe recorrer todas las páginas con el token sin repetir ni perder usuarios")
+        void searchUsersPage_FollowingTokens_VisitsEveryUserInOrder() {
+            String department = "Keyset-" + UUID.randomUUID().toString().substring(0, 8);
+            for (int i = 0; i < 5; i++) {
+                service.createUser(new UserCreateDto("Spring Keyset " + (char) ('A' + i % 3), uniqueEmail(), department, "Dev"));
+            }
+
+            UserQueryDto query = new UserQueryDto();
+            query.setDepartment(department);
+            query.setSize(2);
+
+            List<User> visited = new ArrayList<>();
+            UserPageDto page;
+            do {
+                page = service.searchUsersPage(query);
+                visited.addAll(page.getContent());
+                query.setContinuationToken(page.getNextToken());
+            } while (page.isHasMore());
+
+            assertThat(visited).hasSize(5);
+            assertThat(visited).extracting(User::getId).doesNotHaveDuplicates();
+            assertThat(visited).extracting(User::getName).isSorted();
+        }
+
+        @Test
+        @DisplayName("Debe lanzar InvalidQueryException con token corrupto")
+        void searchUsersPage_CorruptToken_ThrowsException() {
+            UserQueryDto query = new UserQueryDto();
+            query.setContinuationToken("no-es-un-token");
+
+            assertThatThrownBy(() -> service.searchUsersPage(query))
+                    .isInstanceOf(InvalidQueryException.class);
+        }
+
+        @Test
+        @DisplayName("Debe rechazar size menor que 1 o mayor que MAX_PAGE_SIZE")
+        void searchUsersPage_InvalidSize_ThrowsInvalidQuery() {
+            for (int size : new int[] {0, -5, ContinuationToken.MAX_PAGE_SIZE + 1}) {
+                UserQueryDto query = new UserQueryDto();
+                query.setSize(size);
+
+                assertThatThrownBy(() -> service.searchUsersPage(query))
+                        .isInstanceOf(InvalidQueryException.class)
+                        .hasMessageContaining("size");
+            }
+        }
+    }
+
     @Nested
     @DisplayName("Count By Department")
     class CountByDepartment {
@@ -345,4 +653,41 @@ class SpringDataUserServiceTest {
             assertThat(count).isEqualTo(0);
         }
     }
+
+    @Nested
+    @DisplayName("Text Search")
+    class TextSearch {
+
+        @Test
+        @DisplayName("Debe encontrar la palabra en cualquier campo del índice, primero las coincidencias en name")
+        void textSearch_WordInSeveralFields_RankedByScore() {
+            String word = "tx" + UUID.randomUUID().toString().substring(0, 8);
+            service.createUser(new UserCreateDto("Spring Text Role Match", uniqueEmail(), "IT", word));
+            service.createUser(new UserCreateDto("Spring Text " + word, uniqueEmail(), "IT", "Dev"));
+            service.createUser(new UserCreateDto("Spring Text No Match", uniqueEmail(), "IT", "Dev"));
+
+            List<User> results = service.textSearch(word, 0, 10);
+
+            assertThat(results).extracting(User::getName)
+                    .containsExactly("Spring Text " + word, "Spring Text Role Match");
+        }
+
+        @Test
+        @DisplayName("Debe paginar los resultados")
+        void textSearch_Pagination_ReturnsRequestedPage() {
+            String word = "tx" + UUID.randomUUID().toString().substring(0, 8);
+            for (int i = 0; i < 3; i++) {
+                service.createUser(new UserCreateDto("Spring Text Page " + i, uniqueEmail(), "IT", word));
+            }
+
+            assertThat(service.textSearch(word, 0, 2)).hasSize(2);
+            assertThat(service.textSearch(word, 1, 2)).hasSize(1);
+        }
+
+        @Test
+        @DisplayName("Debe rechazar un texto vacío")
+        void textSearch_BlankText_ThrowsException() {
+            assertThatThrownBy(() -> service.textSearch("  ", 0, 10)).isInstanceOf(InvalidQueryException.class);
+        }
+    }
 }